@@ -0,0 +1,27 @@
+package org.example.bank.benchmark;
+
+import java.util.function.BiFunction;
+import org.example.bank.domain.account.Account;
+import org.example.bank.domain.account.AccountId;
+import org.example.bank.domain.account.LockFreeAccount;
+import org.example.bank.domain.account.ReadWriteLockAccount;
+import org.example.bank.domain.account.StampedLockAccount;
+import org.example.bank.domain.account.StripedBalanceAccount;
+import org.example.bank.domain.money.Money;
+
+public enum AccountKind {
+    READ_WRITE_LOCK(ReadWriteLockAccount::new),
+    LOCK_FREE(LockFreeAccount::new),
+    STAMPED_LOCK(StampedLockAccount::new),
+    STRIPED_BALANCE(StripedBalanceAccount::new);
+
+    private final BiFunction<AccountId, Money, Account> factory;
+
+    AccountKind(BiFunction<AccountId, Money, Account> factory) {
+        this.factory = factory;
+    }
+
+    public Account create(AccountId id, Money balance) {
+        return factory.apply(id, balance);
+    }
+}
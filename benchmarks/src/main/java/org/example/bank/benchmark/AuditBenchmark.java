@@ -0,0 +1,106 @@
+package org.example.bank.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.example.bank.domain.Bank;
+import org.example.bank.domain.account.AccountId;
+import org.example.bank.domain.account.ReadWriteLockAccount;
+import org.example.bank.domain.account.SimpleAccountId;
+import org.example.bank.domain.audit.BalanceAudit;
+import org.example.bank.domain.money.FastMoney;
+import org.example.bank.domain.money.Money;
+import org.example.bank.infraestructure.account.repository.offheap.OffHeapAccountRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Off-heap audits: how long one takes over the whole book, and how much transfer throughput is left while another
+ * thread audits back to back. Compare {@code transfer} with {@code auditor=IDLE} and {@code auditor=CONTINUOUS}.
+ * <p>
+ * Ten million accounts need about 1.5GB of direct memory.
+ */
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-XX:MaxDirectMemorySize=4g")
+@State(Scope.Benchmark)
+public class AuditBenchmark {
+
+    private static final int INITIAL_BALANCE = 1_000_000;
+    private static final FastMoney ONE_EURO = FastMoney.of(new Money(1, "EUR"));
+
+    public enum Auditor {
+        IDLE,
+        CONTINUOUS
+    }
+
+    @Param({"1048576", "10000000"})
+    private int accounts;
+
+    @Param
+    private Auditor auditor;
+
+    private Bank bank;
+    private AccountId[] ids;
+    private Thread auditing;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        bank = new Bank(new OffHeapAccountRepository(accounts));
+        ids = new AccountId[accounts];
+        for (int i = 0; i < accounts; i++) {
+            ids[i] = new SimpleAccountId("account-" + i);
+            bank.registerAccount(new ReadWriteLockAccount(ids[i], new Money(INITIAL_BALANCE, "EUR")));
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void startAuditor() {
+        if (auditor == Auditor.CONTINUOUS) {
+            auditing = Thread.ofPlatform().daemon().start(() -> {
+                while (!Thread.currentThread().isInterrupted()) {
+                    bank.audit(10);
+                }
+            });
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void stopAuditor() throws InterruptedException {
+        if (auditing != null) {
+            auditing.interrupt();
+            auditing.join();
+            auditing = null;
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Threads(Threads.MAX)
+    public void transfer() {
+        var random = ThreadLocalRandom.current();
+        var origin = random.nextInt(accounts);
+        var destiny = random.nextInt(accounts - 1);
+        bank.transfer(ONE_EURO, ids[origin], ids[destiny >= origin ? destiny + 1 : destiny]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Threads(1)
+    public BalanceAudit audit() {
+        return bank.audit(10);
+    }
+}
@@ -0,0 +1,123 @@
+package org.example.bank.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.example.bank.domain.Bank;
+import org.example.bank.domain.account.AccountId;
+import org.example.bank.domain.account.SimpleAccountId;
+import org.example.bank.domain.money.FastMoney;
+import org.example.bank.domain.money.Money;
+import org.example.bank.infraestructure.account.repository.inmemory.InMemoryAccountRepository;
+import org.example.bank.infraestructure.account.repository.inmemory.strategy.StripedLockTransferStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Balance queries mixed with transfers, the way production traffic looks: twenty reads per transfer. Every account
+ * implementation runs on the same striped repository, so the only difference is how a balance is read.
+ * <p>
+ * The {@code hotAccount} group isolates the worst case, with three readers polling the account a writer keeps changing.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class BalanceReadBenchmark {
+
+    private static final int READS_PER_TRANSFER = 20;
+    private static final int INITIAL_BALANCE = 1_000_000_000;
+    private static final FastMoney ONE_EURO = FastMoney.of(new Money(1, "EUR"));
+
+    @Param({"1024"})
+    private int accounts;
+
+    @Param
+    private AccountKind account;
+
+    @Param
+    private Contention contention;
+
+    private Bank bank;
+    private AccountId[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        bank = new Bank(new InMemoryAccountRepository(new StripedLockTransferStrategy()));
+        ids = new AccountId[accounts];
+        for (int i = 0; i < accounts; i++) {
+            ids[i] = new SimpleAccountId("account-" + i);
+            bank.registerAccount(account.create(ids[i], new Money(INITIAL_BALANCE, "EUR")));
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadCursor {
+
+        private Contention.Cursor cursor;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            cursor = new Contention.Cursor(ThreadLocalRandom.current().nextLong());
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long readHeavySingleThread(ThreadCursor threadCursor) {
+        return readHeavyMix(threadCursor.cursor);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long readHeavyFourThreads(ThreadCursor threadCursor) {
+        return readHeavyMix(threadCursor.cursor);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public long readHeavyMaxThreads(ThreadCursor threadCursor) {
+        return readHeavyMix(threadCursor.cursor);
+    }
+
+    @Benchmark
+    @Group("hotAccount")
+    @GroupThreads(3)
+    public Money hotAccountReader() {
+        return bank.getBalance(ids[0]);
+    }
+
+    @Benchmark
+    @Group("hotAccount")
+    @GroupThreads(1)
+    public void hotAccountWriter(ThreadCursor threadCursor) {
+        var cursor = threadCursor.cursor;
+        cursor.forward = !cursor.forward;
+        bank.transfer(ONE_EURO, ids[cursor.forward ? 0 : 1], ids[cursor.forward ? 1 : 0]);
+    }
+
+    private long readHeavyMix(Contention.Cursor cursor) {
+        long total = 0;
+        for (int i = 0; i < READS_PER_TRANSFER; i++) {
+            contention.next(cursor, accounts);
+            total += bank.getBalance(ids[cursor.origin]).amount().longValue();
+        }
+        contention.next(cursor, accounts);
+        bank.transfer(ONE_EURO, ids[cursor.origin], ids[cursor.destiny]);
+        return total;
+    }
+}
@@ -0,0 +1,50 @@
+package org.example.bank.benchmark;
+
+import java.util.SplittableRandom;
+
+/**
+ * How transfers are spread over the registered accounts.
+ */
+public enum Contention {
+
+    /**
+     * Every thread moves money back and forth between the first two accounts, so all of them fight for the same pair.
+     */
+    HOT_PAIR {
+        @Override
+        void next(Cursor cursor, int accounts) {
+            cursor.forward = !cursor.forward;
+            cursor.origin = cursor.forward ? 0 : 1;
+            cursor.destiny = cursor.forward ? 1 : 0;
+        }
+    },
+
+    /**
+     * Origin and destiny are picked uniformly at random among all the accounts.
+     */
+    UNIFORM {
+        @Override
+        void next(Cursor cursor, int accounts) {
+            cursor.origin = cursor.random.nextInt(accounts);
+            var destiny = cursor.random.nextInt(accounts - 1);
+            cursor.destiny = destiny >= cursor.origin ? destiny + 1 : destiny;
+        }
+    };
+
+    abstract void next(Cursor cursor, int accounts);
+
+    /**
+     * Per-thread position in the account book.
+     */
+    static final class Cursor {
+
+        final SplittableRandom random;
+        boolean forward;
+        int origin;
+        int destiny;
+
+        Cursor(long seed) {
+            this.random = new SplittableRandom(seed);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package org.example.bank.benchmark;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.concurrent.TimeUnit;
+import org.example.bank.domain.Bank;
+import org.example.bank.domain.account.AccountId;
+import org.example.bank.domain.account.SimpleAccountId;
+import org.example.bank.domain.money.ExchangeRates;
+import org.example.bank.domain.money.FastMoney;
+import org.example.bank.domain.money.Money;
+import org.example.bank.domain.transfer.TransferResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of converting currencies on transfer: a bare conversion, a same-currency transfer against a cross-currency one,
+ * and cross-currency transfers while another thread keeps replacing the rates they read.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@Threads(1)
+@State(Scope.Benchmark)
+public class ExchangeBenchmark {
+
+    private static final Currency EUR = Currency.getInstance("EUR");
+    private static final Currency USD = Currency.getInstance("USD");
+    private static final FastMoney ONE_EURO = FastMoney.of(new Money(1, "EUR"));
+    private static final FastMoney ONE_DOLLAR = FastMoney.of(new Money(1, "USD"));
+    private static final String[] OTHER_CURRENCIES = {"GBP", "JPY", "CHF", "CAD", "AUD", "SEK", "NOK", "DKK"};
+
+    @Param({"STRIPED", "OPTIMISTIC", "OFF_HEAP", "SHARDED"})
+    private RepositoryKind repository;
+
+    private Bank bank;
+    private ExchangeRates rates;
+    private AccountId euros;
+    private AccountId moreEuros;
+    private AccountId dollars;
+    private Object closeable;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        var accountRepository = repository.create(3);
+        closeable = accountRepository;
+        bank = new Bank(accountRepository);
+        euros = new SimpleAccountId("account-0");
+        moreEuros = new SimpleAccountId("account-1");
+        dollars = new SimpleAccountId("account-2");
+        bank.registerAccount(AccountKind.LOCK_FREE.create(euros, new Money(1_000_000_000, "EUR")));
+        bank.registerAccount(AccountKind.LOCK_FREE.create(moreEuros, new Money(1_000_000_000, "EUR")));
+        bank.registerAccount(AccountKind.LOCK_FREE.create(dollars, new Money(1_000_000_000, "USD")));
+
+        // A realistic table, so conversions look their currencies up among others
+        rates = new ExchangeRates();
+        for (var code : OTHER_CURRENCIES) {
+            rates.setRate(EUR, Currency.getInstance(code), new BigDecimal("1.5"));
+        }
+        rates.setRate(EUR, USD, new BigDecimal("1.0850"));
+        rates.setRate(USD, EUR, new BigDecimal("0.9216"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        if (closeable instanceof AutoCloseable autoCloseable) {
+            autoCloseable.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Direction {
+
+        boolean forward;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public FastMoney convert() {
+        return rates.convert(ONE_EURO, USD);
+    }
+
+    @Benchmark
+    public TransferResult sameCurrency(Direction direction) {
+        direction.forward = !direction.forward;
+        return bank.tryTransfer(ONE_EURO, direction.forward ? euros : moreEuros, direction.forward ? moreEuros : euros);
+    }
+
+    @Benchmark
+    public TransferResult crossCurrency(Direction direction) {
+        return exchange(direction);
+    }
+
+    @Benchmark
+    @Group("updatingRates")
+    @GroupThreads(3)
+    public TransferResult transferWhileUpdating(Direction direction) {
+        return exchange(direction);
+    }
+
+    @Benchmark
+    @Group("updatingRates")
+    @GroupThreads(1)
+    public void updateRate(Direction direction) {
+        direction.forward = !direction.forward;
+        rates.setRate(EUR, USD, new BigDecimal(direction.forward ? "1.0851" : "1.0850"));
+    }
+
+    private TransferResult exchange(Direction direction) {
+        direction.forward = !direction.forward;
+        if (direction.forward) {
+            return bank.tryTransfer(ONE_EURO, euros, dollars, rates);
+        }
+        return bank.tryTransfer(ONE_DOLLAR, dollars, euros, rates);
+    }
+}
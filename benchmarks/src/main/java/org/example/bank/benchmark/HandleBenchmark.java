@@ -0,0 +1,120 @@
+package org.example.bank.benchmark;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.example.bank.domain.Bank;
+import org.example.bank.domain.account.Account;
+import org.example.bank.domain.account.AccountId;
+import org.example.bank.domain.account.SimpleAccountId;
+import org.example.bank.domain.money.FastMoney;
+import org.example.bank.domain.money.Money;
+import org.example.bank.domain.transfer.TransferRequest;
+import org.example.bank.domain.transfer.TransferResult;
+import org.example.bank.infraestructure.account.repository.inmemory.IndexedAccountMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Finding accounts by id against by handle. The {@code lookUp} benchmarks get one account out of {@code accounts}
+ * through a {@code ConcurrentHashMap}, through {@code IndexedAccountMap} by id and by the handle it handed out. The
+ * {@code transfer} benchmarks move a cent between two random accounts of a {@code Bank}: by id on the striped and the
+ * {@code ConcurrentHashMap} repositories, and by handle on the striped one.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@Threads(1)
+@State(Scope.Benchmark)
+public class HandleBenchmark {
+
+    private static final FastMoney ONE_CENT = new FastMoney(1, "EUR");
+
+    @Param({"1024", "1048576"})
+    private int accounts;
+
+    private AccountId[] ids;
+    private int[] handles;
+    private ConcurrentHashMap<AccountId, Account> hashMap;
+    private IndexedAccountMap indexedMap;
+    private Bank striped;
+    private Bank concurrentHashMap;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ids = new AccountId[accounts];
+        handles = new int[accounts];
+        hashMap = new ConcurrentHashMap<>();
+        indexedMap = new IndexedAccountMap();
+        striped = new Bank(RepositoryKind.STRIPED.create(accounts));
+        concurrentHashMap = new Bank(RepositoryKind.CONCURRENT_HASH_MAP.create(accounts));
+        for (int i = 0; i < accounts; i++) {
+            ids[i] = new SimpleAccountId("account-" + i);
+            var account = AccountKind.LOCK_FREE.create(ids[i], new Money(1_000_000, "EUR"));
+            hashMap.put(ids[i], account);
+            indexedMap.putIfAbsent(ids[i], account);
+            striped.registerAccount(AccountKind.LOCK_FREE.create(ids[i], new Money(1_000_000, "EUR")));
+            concurrentHashMap.registerAccount(AccountKind.LOCK_FREE.create(ids[i], new Money(1_000_000, "EUR")));
+            handles[i] = striped.handleOf(ids[i]);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        int next;
+
+        int account(int accounts) {
+            // Weyl sequence over the accounts, so consecutive lookups don't hit neighbouring entries
+            next += 0x61C88647;
+            return (next & Integer.MAX_VALUE) % accounts;
+        }
+    }
+
+    @Benchmark
+    public Account lookUpConcurrentHashMap(Cursor cursor) {
+        return hashMap.get(ids[cursor.account(accounts)]);
+    }
+
+    @Benchmark
+    public Account lookUpIndexedById(Cursor cursor) {
+        return indexedMap.get(ids[cursor.account(accounts)]);
+    }
+
+    @Benchmark
+    public Account lookUpIndexedByHandle(Cursor cursor) {
+        var account = cursor.account(accounts);
+        return indexedMap.get(ids[account], handles[account]);
+    }
+
+    @Benchmark
+    public TransferResult transferByIdConcurrentHashMap(Cursor cursor) {
+        return concurrentHashMap.tryTransfer(ONE_CENT, ids[cursor.account(accounts)], ids[cursor.account(accounts)]);
+    }
+
+    @Benchmark
+    public TransferResult transferByIdStriped(Cursor cursor) {
+        return striped.tryTransfer(ONE_CENT, ids[cursor.account(accounts)], ids[cursor.account(accounts)]);
+    }
+
+    @Benchmark
+    public TransferResult transferByHandleStriped(Cursor cursor) {
+        var origin = cursor.account(accounts);
+        var destiny = cursor.account(accounts);
+        return striped.tryTransfer(
+                new TransferRequest(ONE_CENT, ids[origin], ids[destiny], handles[origin], handles[destiny])
+        );
+    }
+}
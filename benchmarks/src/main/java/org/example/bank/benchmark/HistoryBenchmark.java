@@ -0,0 +1,103 @@
+package org.example.bank.benchmark;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.example.bank.domain.Bank;
+import org.example.bank.domain.account.AccountId;
+import org.example.bank.domain.account.SimpleAccountId;
+import org.example.bank.domain.history.Movement;
+import org.example.bank.domain.history.MovementHistory;
+import org.example.bank.domain.metrics.TransferMetrics;
+import org.example.bank.domain.money.FastMoney;
+import org.example.bank.domain.money.Money;
+import org.example.bank.domain.transfer.IdempotencyCache;
+import org.example.bank.domain.transfer.TransferResult;
+import org.example.bank.infraestructure.history.RingBufferMovementHistory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Cost of recording movement history on transfers between {@code accounts} accounts, and of reading a page of the 100
+ * latest movements of an account, both through the visitor, which doesn't allocate, and as a list of movements.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@Threads(1)
+@State(Scope.Benchmark)
+public class HistoryBenchmark {
+
+    private static final FastMoney ONE_EURO = FastMoney.of(new Money(1, "EUR"));
+    private static final int PAGE = 100;
+
+    @Param({"16", "4096"})
+    private int accounts;
+
+    @Param({"false", "true"})
+    private boolean recording;
+
+    private Bank bank;
+    private MovementHistory history;
+    private AccountId[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        history = recording ? new RingBufferMovementHistory(1 << 21) : MovementHistory.disabled();
+        bank = new Bank(RepositoryKind.STRIPED.create(accounts), TransferMetrics.disabled(),
+                        new IdempotencyCache(16, Duration.ofMinutes(1)), history);
+        ids = new AccountId[accounts];
+        for (int i = 0; i < accounts; i++) {
+            ids[i] = new SimpleAccountId("account-" + i);
+            bank.registerAccount(AccountKind.LOCK_FREE.create(ids[i], new Money(1_000_000_000, "EUR")));
+        }
+        // Enough history for every account to fill its first page
+        for (int i = 0; i < accounts * PAGE; i++) {
+            bank.tryTransfer(ONE_EURO, ids[i % accounts], ids[(i + 1) % accounts]);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        int next;
+    }
+
+    @Benchmark
+    public TransferResult transfer(Cursor cursor) {
+        var origin = (cursor.next++ & Integer.MAX_VALUE) % accounts;
+        return bank.tryTransfer(ONE_EURO, ids[origin], ids[(origin + 1) % accounts]);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public TransferResult transferMaxThreads(Cursor cursor) {
+        return transfer(cursor);
+    }
+
+    @Benchmark
+    public int readPage(Cursor cursor, Blackhole blackhole) {
+        var id = ids[(cursor.next++ & Integer.MAX_VALUE) % accounts];
+        return history.read(id, Long.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE, PAGE,
+                            (sequence, timeMillis, counterparty, minorUnits, currency) -> blackhole.consume(minorUnits));
+    }
+
+    @Benchmark
+    public List<Movement> readPageAsList(Cursor cursor) {
+        return history.latest(ids[(cursor.next++ & Integer.MAX_VALUE) % accounts], PAGE);
+    }
+}
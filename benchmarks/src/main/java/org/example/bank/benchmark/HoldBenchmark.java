@@ -0,0 +1,103 @@
+package org.example.bank.benchmark;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.example.bank.domain.Bank;
+import org.example.bank.domain.HoldLedger;
+import org.example.bank.domain.account.AccountId;
+import org.example.bank.domain.account.SimpleAccountId;
+import org.example.bank.domain.money.FastMoney;
+import org.example.bank.domain.money.Money;
+import org.example.bank.domain.transfer.TransferResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Card payments from a customer account of each thread to one merchant: reserving the funds and then paying them,
+ * either emulated with two transfers through a suspense account every payment goes through, or with a hold of
+ * {@code HoldLedger} that is captured. {@code authorizeAndRelease} times a hold that is voided instead.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class HoldBenchmark {
+
+    private static final FastMoney ONE_EURO = FastMoney.of(new Money(1, "EUR"));
+    private static final Duration EXPIRY = Duration.ofMinutes(10);
+    private static final int MAX_THREADS = 256;
+
+    @Param({"OPTIMISTIC", "STRIPED"})
+    private RepositoryKind repositoryKind;
+
+    private final AtomicInteger threads = new AtomicInteger();
+    private Bank bank;
+    private HoldLedger holds;
+    private AccountId merchant;
+    private AccountId suspense;
+    private AccountId[] customers;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        bank = new Bank(repositoryKind.create(MAX_THREADS + 2));
+        holds = new HoldLedger(bank);
+        merchant = new SimpleAccountId("merchant");
+        suspense = new SimpleAccountId("suspense");
+        bank.registerAccount(AccountKind.LOCK_FREE.create(merchant, new Money(0, "EUR")));
+        bank.registerAccount(AccountKind.LOCK_FREE.create(suspense, new Money(0, "EUR")));
+        customers = new AccountId[MAX_THREADS];
+        for (int i = 0; i < MAX_THREADS; i++) {
+            customers[i] = new SimpleAccountId("customer-" + i);
+            bank.registerAccount(AccountKind.LOCK_FREE.create(customers[i], new Money(1_000_000_000, "EUR")));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        holds.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Customer {
+
+        AccountId id;
+
+        @Setup(Level.Trial)
+        public void setUp(HoldBenchmark benchmark) {
+            id = benchmark.customers[benchmark.threads.getAndIncrement() % MAX_THREADS];
+        }
+    }
+
+    @Benchmark
+    public TransferResult suspenseAccount(Customer customer) {
+        bank.tryTransfer(ONE_EURO, customer.id, suspense);
+        return bank.tryTransfer(ONE_EURO, suspense, merchant);
+    }
+
+    @Benchmark
+    public TransferResult authorizeAndCapture(Customer customer) {
+        var hold = holds.authorize(ONE_EURO, customer.id, EXPIRY);
+        return holds.capture(hold, merchant);
+    }
+
+    @Benchmark
+    public boolean authorizeAndRelease(Customer customer) {
+        return holds.release(holds.authorize(ONE_EURO, customer.id, EXPIRY));
+    }
+}
@@ -0,0 +1,90 @@
+package org.example.bank.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.example.bank.domain.Bank;
+import org.example.bank.domain.account.AccountId;
+import org.example.bank.domain.account.SimpleAccountId;
+import org.example.bank.domain.money.FastMoney;
+import org.example.bank.domain.money.Money;
+import org.example.bank.domain.transfer.TransferResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Every thread pays into the same merchant account from an origin account of its own, so the only shared cell is the
+ * merchant balance. Compares a single-cell merchant account with a {@code StripedBalanceAccount} one; run it with
+ * {@code -t} set to 1, 2, 4... to see how deposits scale with threads. {@code depositsWithRefunds} also has the
+ * merchant pay one transfer in ten back, which withdraws from the stripes.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class HotAccountBenchmark {
+
+    private static final FastMoney ONE_EURO = FastMoney.of(new Money(1, "EUR"));
+    private static final int MAX_THREADS = 256;
+
+    @Param({"LOCK_FREE", "STRIPED_BALANCE"})
+    private AccountKind merchantKind;
+
+    @Param({"OPTIMISTIC", "CONCURRENT_HASH_MAP"})
+    private RepositoryKind repositoryKind;
+
+    private final AtomicInteger threads = new AtomicInteger();
+    private Bank bank;
+    private AccountId merchant;
+    private AccountId[] customers;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        bank = new Bank(repositoryKind.create(MAX_THREADS + 1));
+        merchant = new SimpleAccountId("merchant");
+        bank.registerAccount(merchantKind.create(merchant, new Money(0, "EUR")));
+        customers = new AccountId[MAX_THREADS];
+        for (int i = 0; i < MAX_THREADS; i++) {
+            customers[i] = new SimpleAccountId("customer-" + i);
+            bank.registerAccount(AccountKind.LOCK_FREE.create(customers[i], new Money(1_000_000_000, "EUR")));
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Customer {
+
+        AccountId id;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp(HotAccountBenchmark benchmark) {
+            id = benchmark.customers[benchmark.threads.getAndIncrement() % MAX_THREADS];
+        }
+    }
+
+    @Benchmark
+    public TransferResult deposits(Customer customer) {
+        return bank.tryTransfer(ONE_EURO, customer.id, merchant);
+    }
+
+    @Benchmark
+    public TransferResult depositsWithRefunds(Customer customer) {
+        if (++customer.next % 10 == 0) {
+            return bank.tryTransfer(ONE_EURO, merchant, customer.id);
+        }
+        return bank.tryTransfer(ONE_EURO, customer.id, merchant);
+    }
+}
@@ -0,0 +1,102 @@
+package org.example.bank.benchmark;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.example.bank.domain.Bank;
+import org.example.bank.domain.account.AccountId;
+import org.example.bank.domain.account.SimpleAccountId;
+import org.example.bank.domain.metrics.TransferMetrics;
+import org.example.bank.domain.money.FastMoney;
+import org.example.bank.domain.money.Money;
+import org.example.bank.domain.transfer.IdempotencyCache;
+import org.example.bank.domain.transfer.TransferResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Overhead of idempotency keys on transfers. {@code freshKeys} never repeats a key while it is remembered, so every
+ * transfer runs and, once the cache is full, evicts another key; {@code replays} only retries transfers that already
+ * ran, which is a lock-free lookup. The keys are built up front, so building them isn't measured.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@Threads(1)
+@State(Scope.Benchmark)
+public class IdempotencyBenchmark {
+
+    private static final FastMoney ONE_EURO = FastMoney.of(new Money(1, "EUR"));
+    private static final int REPLAYED_KEYS = 1_024;
+
+    @Param({"65536", "1048576"})
+    private int capacity;
+
+    private Bank bank;
+    private AccountId first;
+    private AccountId second;
+    private String[] freshKeys;
+    private String[] replayedKeys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        var cache = new IdempotencyCache(capacity, Duration.ofHours(1));
+        bank = new Bank(RepositoryKind.STRIPED.create(2), TransferMetrics.disabled(), cache);
+        first = new SimpleAccountId("account-0");
+        second = new SimpleAccountId("account-1");
+        bank.registerAccount(AccountKind.LOCK_FREE.create(first, new Money(1_000_000_000, "EUR")));
+        bank.registerAccount(AccountKind.LOCK_FREE.create(second, new Money(1_000_000_000, "EUR")));
+
+        // Fresh keys are never replayed, so the hand evicts each one exactly a capacity worth of keys later
+        freshKeys = new String[capacity * 2];
+        for (int i = 0; i < freshKeys.length; i++) {
+            freshKeys[i] = "fresh-" + i;
+        }
+        replayedKeys = new String[REPLAYED_KEYS];
+        for (int i = 0; i < replayedKeys.length; i++) {
+            replayedKeys[i] = "replayed-" + i;
+            bank.tryTransfer(replayedKeys[i], ONE_EURO, first, second);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        int next;
+    }
+
+    @Benchmark
+    public TransferResult withoutKey(Cursor cursor) {
+        var forward = (cursor.next++ & 1) == 0;
+        return bank.tryTransfer(ONE_EURO, forward ? first : second, forward ? second : first);
+    }
+
+    @Benchmark
+    public TransferResult freshKeys(Cursor cursor) {
+        var key = freshKeys[(cursor.next++ & Integer.MAX_VALUE) % freshKeys.length];
+        return bank.tryTransfer(key, ONE_EURO, first, second);
+    }
+
+    @Benchmark
+    public TransferResult replays(Cursor cursor) {
+        return bank.tryTransfer(replayedKeys[cursor.next++ & (REPLAYED_KEYS - 1)], ONE_EURO, first, second);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public TransferResult replaysMaxThreads(Cursor cursor) {
+        return replays(cursor);
+    }
+}
@@ -0,0 +1,89 @@
+package org.example.bank.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.example.bank.domain.account.AccountId;
+import org.example.bank.domain.account.SimpleAccountId;
+import org.example.bank.domain.money.FastMoney;
+import org.example.bank.domain.money.Money;
+import org.example.bank.infraestructure.account.repository.journal.FsyncPolicy;
+import org.example.bank.infraestructure.account.repository.journal.TransferJournal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of journaling one transfer, append plus commit, under each fsync policy. The journal lives in the default
+ * temporary directory, so point {@code java.io.tmpdir} at the disk to measure.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class JournalBenchmark {
+
+    private static final FastMoney ONE_EURO = FastMoney.of(new Money(1, "EUR"));
+    private static final AccountId ORIGIN = new SimpleAccountId("account-origin");
+    private static final AccountId DESTINY = new SimpleAccountId("account-destiny");
+
+    @Param({"PER_OPERATION", "EVERY_MILLIS", "EVERY_RECORDS"})
+    private FsyncPolicy.Mode policy;
+
+    private Path directory;
+    private TransferJournal journal;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("journal-benchmark");
+        journal = new TransferJournal(directory, switch (policy) {
+            case PER_OPERATION -> FsyncPolicy.perOperation();
+            case EVERY_MILLIS -> FsyncPolicy.everyMillis(10);
+            case EVERY_RECORDS -> FsyncPolicy.everyRecords(1_024);
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        journal.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (var path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long journalSingleThread() {
+        return journal();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long journalFourThreads() {
+        return journal();
+    }
+
+    private long journal() {
+        var sequence = journal.appendTransfer(ONE_EURO, ORIGIN, DESTINY);
+        journal.commit(sequence);
+        return sequence;
+    }
+}
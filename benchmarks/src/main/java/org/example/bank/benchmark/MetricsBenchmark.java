@@ -0,0 +1,100 @@
+package org.example.bank.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.example.bank.domain.Bank;
+import org.example.bank.domain.account.AccountId;
+import org.example.bank.domain.account.LockFreeAccount;
+import org.example.bank.domain.account.SimpleAccountId;
+import org.example.bank.domain.metrics.TransferMetrics;
+import org.example.bank.domain.money.FastMoney;
+import org.example.bank.domain.money.Money;
+import org.example.bank.infraestructure.account.repository.inmemory.InMemoryAccountRepository;
+import org.example.bank.infraestructure.account.repository.inmemory.strategy.RevisitedPessimisticLockTransferStrategy;
+import org.example.bank.infraestructure.metrics.RecordingTransferMetrics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of the metrics layer on the fully instrumented path: a bank, the revisited pessimistic strategy timing its lock
+ * waits and lock-free accounts counting their retries. {@code DISABLED} is what every uninstrumented bank runs.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class MetricsBenchmark {
+
+    private static final int ACCOUNTS = 1024;
+    private static final int INITIAL_BALANCE = 1_000_000_000;
+    private static final FastMoney ONE_EURO = FastMoney.of(new Money(1, "EUR"));
+
+    public enum Instrumentation {
+        DISABLED,
+        ENABLED
+    }
+
+    @Param
+    private Instrumentation metrics;
+
+    @Param
+    private Contention contention;
+
+    private Bank bank;
+    private AccountId[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        var transferMetrics = metrics == Instrumentation.ENABLED
+                ? new RecordingTransferMetrics()
+                : TransferMetrics.disabled();
+        var strategy = new RevisitedPessimisticLockTransferStrategy(transferMetrics);
+        bank = new Bank(new InMemoryAccountRepository(strategy), transferMetrics);
+        ids = new AccountId[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            ids[i] = new SimpleAccountId("account-" + i);
+            bank.registerAccount(new LockFreeAccount(ids[i], new Money(INITIAL_BALANCE, "EUR"), transferMetrics));
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadCursor {
+
+        private Contention.Cursor cursor;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            cursor = new Contention.Cursor(ThreadLocalRandom.current().nextLong());
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void transferSingleThread(ThreadCursor threadCursor) {
+        transfer(threadCursor.cursor);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void transferMaxThreads(ThreadCursor threadCursor) {
+        transfer(threadCursor.cursor);
+    }
+
+    private void transfer(Contention.Cursor cursor) {
+        contention.next(cursor, ACCOUNTS);
+        bank.transfer(ONE_EURO, ids[cursor.origin], ids[cursor.destiny]);
+    }
+}
@@ -0,0 +1,94 @@
+package org.example.bank.benchmark;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.example.bank.domain.Bank;
+import org.example.bank.domain.NettingBank;
+import org.example.bank.domain.account.AccountId;
+import org.example.bank.domain.account.SimpleAccountId;
+import org.example.bank.domain.money.FastMoney;
+import org.example.bank.domain.money.Money;
+import org.example.bank.domain.transfer.TransferResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Bilateral flow between two accounts, two transfers one way for every one back, in bursts of {@value #BURST} that every thread
+ * submits and then waits for: applied one by one through {@link Bank#tryTransfer}, and netted by a
+ * {@link NettingBank}. The teardown prints how many legs the netting bank applied per transfer.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class NettingBenchmark {
+
+    private static final FastMoney ONE_EURO = FastMoney.of(new Money(1, "EUR"));
+    private static final int BURST = 64;
+
+    @Param({"STRIPED", "OPTIMISTIC"})
+    private RepositoryKind repositoryKind;
+
+    private Bank bank;
+    private NettingBank netting;
+    private AccountId first;
+    private AccountId second;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        bank = new Bank(repositoryKind.create(2));
+        netting = new NettingBank(bank, Duration.ofNanos(50_000), 4_096);
+        first = new SimpleAccountId("account-0");
+        second = new SimpleAccountId("account-1");
+        bank.registerAccount(AccountKind.LOCK_FREE.create(first, new Money(1_000_000_000, "EUR")));
+        bank.registerAccount(AccountKind.LOCK_FREE.create(second, new Money(1_000_000_000, "EUR")));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        netting.close();
+        if (netting.transfers() > 0) {
+            System.out.printf("%n%.4f legs per transfer%n", (double) netting.legs() / netting.transfers());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public TransferResult oneByOne() {
+        TransferResult result = null;
+        for (int i = 0; i < BURST; i++) {
+            var forward = i % 3 != 0;
+            result = bank.tryTransfer(ONE_EURO, forward ? first : second, forward ? second : first);
+        }
+        return result;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public TransferResult netted() {
+        @SuppressWarnings("unchecked")
+        var results = (CompletableFuture<TransferResult>[]) new CompletableFuture[BURST];
+        for (int i = 0; i < BURST; i++) {
+            var forward = i % 3 != 0;
+            results[i] = netting.transfer(ONE_EURO, forward ? first : second, forward ? second : first);
+        }
+        return CompletableFuture.allOf(results).thenApply(done -> results[BURST - 1].join()).join();
+    }
+}
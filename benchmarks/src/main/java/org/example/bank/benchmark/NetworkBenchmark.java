@@ -0,0 +1,106 @@
+package org.example.bank.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.example.bank.domain.Bank;
+import org.example.bank.domain.account.AccountId;
+import org.example.bank.domain.account.SimpleAccountId;
+import org.example.bank.domain.money.FastMoney;
+import org.example.bank.domain.money.Money;
+import org.example.bank.domain.transfer.TransferRequest;
+import org.example.bank.domain.transfer.TransferResult;
+import org.example.bank.infraestructure.network.BankClient;
+import org.example.bank.infraestructure.network.BankServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Load driven through {@code BankServer} over loopback, one transfer per operation: waiting for every answer before
+ * sending the next transfer, pipelining {@value #PIPELINE} transfers before waiting for the last one, or sending them
+ * as one batch request. {@code inProcess} is the same transfer without the network, what the server adds on top of.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@Threads(1)
+@State(Scope.Benchmark)
+public class NetworkBenchmark {
+
+    private static final int PIPELINE = 64;
+    private static final FastMoney ONE_CENT = new FastMoney(1, "EUR");
+
+    @Param({"STRIPED", "CONCURRENT_HASH_MAP"})
+    private RepositoryKind repositoryKind;
+
+    private Bank bank;
+    private BankServer server;
+    private BankClient client;
+    private AccountId origin;
+    private AccountId destiny;
+    private List<TransferRequest> batch;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        bank = new Bank(repositoryKind.create(2));
+        origin = new SimpleAccountId("origin");
+        destiny = new SimpleAccountId("destiny");
+        bank.registerAccount(AccountKind.LOCK_FREE.create(origin, new Money(1_000_000_000, "EUR")));
+        bank.registerAccount(AccountKind.LOCK_FREE.create(destiny, new Money(0, "EUR")));
+        server = new BankServer(bank);
+        client = new BankClient(server.address());
+        batch = new ArrayList<>(PIPELINE);
+        for (int i = 0; i < PIPELINE; i++) {
+            batch.add(new TransferRequest(ONE_CENT, origin, destiny));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        client.close();
+        server.close();
+    }
+
+    @Benchmark
+    public TransferResult inProcess() {
+        return bank.tryTransfer(ONE_CENT, origin, destiny);
+    }
+
+    @Benchmark
+    public TransferResult roundTrip() {
+        return client.transfer(ONE_CENT, origin, destiny).join();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PIPELINE)
+    public TransferResult pipelined() {
+        CompletableFuture<TransferResult> last = null;
+        for (int i = 0; i < PIPELINE; i++) {
+            last = client.transfer(ONE_CENT, origin, destiny);
+        }
+        // Answers come in order, so the last one completes after all the others
+        return last.join();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PIPELINE)
+    public List<TransferResult> batched() {
+        return client.transferBatch(batch).join();
+    }
+}
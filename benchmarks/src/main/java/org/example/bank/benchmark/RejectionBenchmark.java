@@ -0,0 +1,92 @@
+package org.example.bank.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.example.bank.domain.Bank;
+import org.example.bank.domain.account.AccountId;
+import org.example.bank.domain.account.SimpleAccountId;
+import org.example.bank.domain.money.FastMoney;
+import org.example.bank.domain.money.Money;
+import org.example.bank.domain.transfer.TransferResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of a rejected transfer against a successful one, through the result API and through the throwing one. The
+ * accounts of the {@code INSUFFICIENT_FUNDS} outcome are empty, so every transfer is rejected.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@Threads(1)
+@State(Scope.Benchmark)
+public class RejectionBenchmark {
+
+    private static final FastMoney ONE_EURO = FastMoney.of(new Money(1, "EUR"));
+
+    public enum Outcome {
+        SUCCESS,
+        INSUFFICIENT_FUNDS
+    }
+
+    @Param({"STRIPED", "OPTIMISTIC", "DESCRIPTOR", "OFF_HEAP", "SHARDED"})
+    private RepositoryKind repository;
+
+    @Param
+    private Outcome outcome;
+
+    private Bank bank;
+    private AccountId first;
+    private AccountId second;
+    private boolean forward;
+    private Object closeable;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        var accountRepository = repository.create(2);
+        closeable = accountRepository;
+        bank = new Bank(accountRepository);
+        first = new SimpleAccountId("account-0");
+        second = new SimpleAccountId("account-1");
+        var balance = new Money(outcome == Outcome.SUCCESS ? 1_000_000_000 : 0, "EUR");
+        bank.registerAccount(AccountKind.LOCK_FREE.create(first, balance));
+        bank.registerAccount(AccountKind.LOCK_FREE.create(second, balance));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        if (closeable instanceof AutoCloseable autoCloseable) {
+            autoCloseable.close();
+        }
+    }
+
+    @Benchmark
+    public TransferResult result() {
+        forward = !forward;
+        return bank.tryTransfer(ONE_EURO, forward ? first : second, forward ? second : first);
+    }
+
+    @Benchmark
+    public RuntimeException exception() {
+        forward = !forward;
+        try {
+            bank.transfer(ONE_EURO, forward ? first : second, forward ? second : first);
+            return null;
+        } catch (RuntimeException e) {
+            return e;
+        }
+    }
+}
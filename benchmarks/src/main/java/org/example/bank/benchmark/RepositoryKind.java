@@ -0,0 +1,43 @@
+package org.example.bank.benchmark;
+
+import java.util.function.IntFunction;
+import org.example.bank.domain.account.repository.AccountRepository;
+import org.example.bank.infraestructure.account.repository.inmemory.InMemoryAccountRepository;
+import org.example.bank.infraestructure.account.repository.inmemory.InMemoryAccountRepositoryConcurrentHashMap;
+import org.example.bank.infraestructure.account.repository.inmemory.strategy.BackoffPolicy;
+import org.example.bank.infraestructure.account.repository.inmemory.strategy.DescriptorTransferStrategy;
+import org.example.bank.infraestructure.account.repository.inmemory.strategy.OptimisticLockTransferStrategy;
+import org.example.bank.infraestructure.account.repository.inmemory.strategy.PessimisticLockTransferStrategy;
+import org.example.bank.infraestructure.account.repository.inmemory.strategy.RevisitedPessimisticLockTransferStrategy;
+import org.example.bank.infraestructure.account.repository.inmemory.strategy.SerializedTransferStrategy;
+import org.example.bank.infraestructure.account.repository.inmemory.strategy.StripedLockTransferStrategy;
+import org.example.bank.infraestructure.account.repository.offheap.OffHeapAccountRepository;
+import org.example.bank.infraestructure.account.repository.sharded.ShardedAccountRepository;
+
+/**
+ * Every repository flavour under benchmark: one per {@code TransferStrategy} plus the standalone repositories.
+ */
+public enum RepositoryKind {
+    SERIALIZED(capacity -> new InMemoryAccountRepository(new SerializedTransferStrategy())),
+    PESSIMISTIC(capacity -> new InMemoryAccountRepository(new PessimisticLockTransferStrategy())),
+    REVISITED_PESSIMISTIC(capacity -> new InMemoryAccountRepository(new RevisitedPessimisticLockTransferStrategy())),
+    STRIPED(capacity -> new InMemoryAccountRepository(new StripedLockTransferStrategy())),
+    OPTIMISTIC(capacity -> new InMemoryAccountRepository(new OptimisticLockTransferStrategy())),
+    OPTIMISTIC_BACKOFF(capacity -> new InMemoryAccountRepository(new OptimisticLockTransferStrategy(
+            BackoffPolicy.exponential(100, 10_000).withLockFallbackAfter(8)
+    ))),
+    DESCRIPTOR(capacity -> new InMemoryAccountRepository(new DescriptorTransferStrategy())),
+    CONCURRENT_HASH_MAP(capacity -> new InMemoryAccountRepositoryConcurrentHashMap()),
+    OFF_HEAP(OffHeapAccountRepository::new),
+    SHARDED(capacity -> new ShardedAccountRepository());
+
+    private final IntFunction<AccountRepository> factory;
+
+    RepositoryKind(IntFunction<AccountRepository> factory) {
+        this.factory = factory;
+    }
+
+    public AccountRepository create(int capacity) {
+        return factory.apply(capacity);
+    }
+}
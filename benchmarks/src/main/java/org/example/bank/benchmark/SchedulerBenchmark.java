@@ -0,0 +1,83 @@
+package org.example.bank.benchmark;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.example.bank.infraestructure.timer.TimingWheel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of the timing wheel behind the transfer scheduler with {@code pending} timers spread over a day of 10 ms ticks.
+ * {@code scheduleAndCancel} adds and removes one more, against the same pair on a {@link ScheduledThreadPoolExecutor}
+ * holding as many tasks; {@code turn} moves the wheel one tick and schedules every timer that expired a day later, as
+ * standing orders do, so it reports ticks per second with {@code pending / 8_640_000} timers due on each.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@Threads(1)
+@State(Scope.Benchmark)
+public class SchedulerBenchmark {
+
+    private static final long DAY_TICKS = 8_640_000;
+
+    @Param({"1000", "1000000"})
+    private int pending;
+
+    private TimingWheel wheel;
+    private ScheduledThreadPoolExecutor executor;
+    private SplittableRandom random;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        random = new SplittableRandom(7);
+        wheel = new TimingWheel(0);
+        executor = new ScheduledThreadPoolExecutor(1);
+        executor.setRemoveOnCancelPolicy(true);
+        for (int i = 0; i < pending; i++) {
+            var deadline = 1 + random.nextLong(DAY_TICKS);
+            wheel.schedule(deadline);
+            executor.schedule(() -> { }, deadline * 10, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public boolean scheduleAndCancel() {
+        return wheel.cancel(wheel.schedule(wheel.now() + 1 + random.nextLong(DAY_TICKS)));
+    }
+
+    @Benchmark
+    public boolean scheduleAndCancelExecutor() {
+        return executor.schedule(() -> { }, 1 + random.nextLong(DAY_TICKS) * 10, TimeUnit.MILLISECONDS).cancel(false);
+    }
+
+    @Benchmark
+    public int turn() {
+        var expired = wheel.advance(wheel.now() + 1);
+        for (int i = 0; i < expired; i++) {
+            var slot = wheel.expired(i);
+            wheel.reschedule(slot, wheel.deadline(slot) + DAY_TICKS);
+        }
+        return expired;
+    }
+}
@@ -0,0 +1,91 @@
+package org.example.bank.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.example.bank.domain.Bank;
+import org.example.bank.domain.account.AccountId;
+import org.example.bank.domain.account.SimpleAccountId;
+import org.example.bank.domain.money.FastMoney;
+import org.example.bank.domain.money.Money;
+import org.example.bank.domain.transfer.SplitLeg;
+import org.example.bank.domain.transfer.TransferResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A payout from one account to {@code legs} accounts, applied at once as a split transfer or as that many separate
+ * transfers, which can partially fail. Both report the time of the whole payout, so the split should stay within a
+ * constant factor of the separate transfers as the legs grow.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@Threads(1)
+@State(Scope.Benchmark)
+public class SplitBenchmark {
+
+    private static final FastMoney ONE_CENT = new FastMoney(1, "EUR");
+    private static final int SELLERS = 1_024;
+
+    @Param({"SERIALIZED", "STRIPED", "DESCRIPTOR", "CONCURRENT_HASH_MAP", "OFF_HEAP"})
+    private RepositoryKind repositoryKind;
+
+    @Param({"2", "16", "256"})
+    private int legs;
+
+    private Bank bank;
+    private AccountId marketplace;
+    private List<SplitLeg> payout;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        bank = new Bank(repositoryKind.create(SELLERS + 1));
+        marketplace = new SimpleAccountId("marketplace");
+        bank.registerAccount(AccountKind.LOCK_FREE.create(marketplace, new Money(1_000_000_000, "EUR")));
+        var sellers = new AccountId[SELLERS];
+        for (int i = 0; i < SELLERS; i++) {
+            sellers[i] = new SimpleAccountId("seller-" + i);
+            bank.registerAccount(AccountKind.LOCK_FREE.create(sellers[i], new Money(0, "EUR")));
+        }
+        payout = new ArrayList<>(legs);
+        for (int i = 0; i < legs; i++) {
+            // Spread over the sellers, so striped locks hit different stripes
+            payout.add(new SplitLeg(ONE_CENT, sellers[i * (SELLERS / legs)]));
+        }
+    }
+
+    @Benchmark
+    public TransferResult split() {
+        return bank.trySplitTransfer(marketplace, payout);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public TransferResult splitMaxThreads() {
+        return split();
+    }
+
+    @Benchmark
+    public TransferResult separateTransfers() {
+        TransferResult last = null;
+        for (int i = 0; i < payout.size(); i++) {
+            var leg = payout.get(i);
+            last = bank.tryTransfer(leg.amount(), marketplace, leg.destiny());
+        }
+        return last;
+    }
+}
@@ -0,0 +1,108 @@
+package org.example.bank.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.example.bank.domain.Bank;
+import org.example.bank.domain.account.AccountId;
+import org.example.bank.domain.account.SimpleAccountId;
+import org.example.bank.domain.account.repository.AccountRepository;
+import org.example.bank.domain.money.FastMoney;
+import org.example.bank.domain.money.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Transfer throughput and latency distribution of every repository, account implementation and contention pattern.
+ * Run it through {@link BenchmarkRunner} to get the allocation rate as well.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class TransferBenchmark {
+
+    private static final int INITIAL_BALANCE = 1_000_000_000;
+    private static final FastMoney ONE_EURO = FastMoney.of(new Money(1, "EUR"));
+
+    @Param({"1024", "1048576"})
+    private int accounts;
+
+    @Param
+    private RepositoryKind repository;
+
+    @Param
+    private AccountKind account;
+
+    @Param
+    private Contention contention;
+
+    private AccountRepository accountRepository;
+    private Bank bank;
+    private AccountId[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        accountRepository = repository.create(accounts);
+        bank = new Bank(accountRepository);
+        ids = new AccountId[accounts];
+        for (int i = 0; i < accounts; i++) {
+            ids[i] = new SimpleAccountId("account-" + i);
+            bank.registerAccount(account.create(ids[i], new Money(INITIAL_BALANCE, "EUR")));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        if (accountRepository instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadCursor {
+
+        private Contention.Cursor cursor;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            cursor = new Contention.Cursor(ThreadLocalRandom.current().nextLong());
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void transferSingleThread(ThreadCursor threadCursor) {
+        transfer(threadCursor.cursor);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void transferFourThreads(ThreadCursor threadCursor) {
+        transfer(threadCursor.cursor);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void transferMaxThreads(ThreadCursor threadCursor) {
+        transfer(threadCursor.cursor);
+    }
+
+    private void transfer(Contention.Cursor cursor) {
+        contention.next(cursor, accounts);
+        bank.transfer(ONE_EURO, ids[cursor.origin], ids[cursor.destiny]);
+    }
+}
@@ -0,0 +1,105 @@
+package org.example.bank.domain;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.example.bank.domain.account.AccountId;
+import org.example.bank.domain.money.FastMoney;
+import org.example.bank.domain.money.Money;
+import org.example.bank.domain.transfer.TransferResult;
+
+/**
+ * Asynchronous facade over a {@link Bank}. Every admitted transfer runs on its own virtual thread, so callers never
+ * block a pool thread while a strategy waits on a lock or spins.
+ * <p>
+ * At most {@code maxInFlight} transfers run at once; up to {@code queueCapacity} more wait parked for a slot. Once
+ * both are full new transfers are refused with a future failed by {@link RejectedExecutionException}, which is the
+ * backpressure signal for the caller. The in-flight limit also bounds how many carrier threads can be pinned by
+ * strategies that lock through {@code synchronized} or busy-spin.
+ */
+public class AsyncBank implements AutoCloseable {
+
+    private final Bank bank;
+    private final int admissionLimit;
+    private final Semaphore inFlight;
+    private final AtomicInteger admitted = new AtomicInteger();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public AsyncBank(Bank bank) {
+        this(bank, Runtime.getRuntime().availableProcessors() * 4, 100_000);
+    }
+
+    public AsyncBank(Bank bank, int maxInFlight, int queueCapacity) {
+        if (maxInFlight < 1 || queueCapacity < 0) {
+            throw new IllegalArgumentException("maxInFlight must be positive and queueCapacity non negative");
+        }
+        this.bank = bank;
+        this.admissionLimit = Math.addExact(maxInFlight, queueCapacity);
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    public CompletableFuture<TransferResult> transfer(Money amount, AccountId origin, AccountId destiny) {
+        return transfer(FastMoney.of(amount), origin, destiny);
+    }
+
+    public CompletableFuture<TransferResult> transfer(FastMoney amount, AccountId origin, AccountId destiny) {
+        if (admitted.incrementAndGet() > admissionLimit) {
+            admitted.decrementAndGet();
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Too many pending transfers"));
+        }
+        var result = new CompletableFuture<TransferResult>();
+        try {
+            executor.execute(() -> run(result, amount, origin, destiny));
+        } catch (RejectedExecutionException e) {
+            admitted.decrementAndGet();
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    /**
+     * Transfers admitted but not yet finished, both running and waiting for a slot.
+     */
+    public int pending() {
+        return admitted.get();
+    }
+
+    private void run(CompletableFuture<TransferResult> result, FastMoney amount, AccountId origin, AccountId destiny) {
+        TransferResult outcome = null;
+        Throwable failure = null;
+        inFlight.acquireUninterruptibly();
+        try {
+            outcome = bank.tryTransfer(amount, origin, destiny);
+        } catch (Throwable e) {
+            failure = e;
+        } finally {
+            inFlight.release();
+            admitted.decrementAndGet();
+        }
+        // completed only after the slot is given back, so a caller joining it sees the capacity free again
+        if (failure == null) {
+            result.complete(outcome);
+        } else {
+            result.completeExceptionally(failure);
+        }
+    }
+
+    /**
+     * Stops admitting transfers and waits for the admitted ones to finish.
+     */
+    @Override
+    public void close() {
+        executor.close();
+    }
+
+    @Override
+    public String toString() {
+        return "AsyncBank{" +
+               "bank=" + bank +
+               ", pending=" + admitted.get() +
+               '}';
+    }
+}
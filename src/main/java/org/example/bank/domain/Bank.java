@@ -1,22 +1,72 @@
 package org.example.bank.domain;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
 import org.example.bank.domain.account.Account;
 import org.example.bank.domain.account.AccountId;
 import org.example.bank.domain.account.repository.AccountRepository;
-import org.example.bank.domain.exceptions.AccountNotFoundException;
+import org.example.bank.domain.audit.BalanceAudit;
+import org.example.bank.domain.history.Movement;
+import org.example.bank.domain.history.MovementHistory;
+import org.example.bank.domain.metrics.TransferMetrics;
+import org.example.bank.domain.money.ExchangeRates;
+import org.example.bank.domain.money.FastMoney;
 import org.example.bank.domain.money.Money;
+import org.example.bank.domain.transfer.IdempotencyCache;
+import org.example.bank.domain.transfer.SplitLeg;
+import org.example.bank.domain.transfer.TransferRequest;
+import org.example.bank.domain.transfer.TransferResult;
 import org.example.bank.infraestructure.account.repository.inmemory.InMemoryAccountRepositoryConcurrentHashMap;
 
 public class Bank {
 
+    private static final int DEFAULT_IDEMPOTENCY_KEYS = 1 << 16;
+    private static final Duration DEFAULT_IDEMPOTENCY_RETENTION = Duration.ofHours(24);
+
     private final AccountRepository accountRepository;
+    private final TransferMetrics metrics;
+    private volatile IdempotencyCache idempotencyCache;
+    private final MovementHistory history;
+    private final Function<TransferRequest, TransferResult> applyRequest =
+            request -> tryTransfer(request.amount(), request.origin(), request.destiny());
 
     public Bank() {
-        this.accountRepository = new InMemoryAccountRepositoryConcurrentHashMap();
+        this(new InMemoryAccountRepositoryConcurrentHashMap());
     }
 
     public Bank(AccountRepository repository) {
+        this(repository, TransferMetrics.disabled());
+    }
+
+    /**
+     * @param metrics receives the outcome and latency of every {@link #transfer}
+     */
+    public Bank(AccountRepository repository, TransferMetrics metrics) {
+        this(repository, metrics, null);
+    }
+
+    /**
+     * @param idempotencyCache remembers the outcome of transfers made with an idempotency key; when null, a default one
+     *                         is only created by the first such transfer
+     */
+    public Bank(AccountRepository repository, TransferMetrics metrics, IdempotencyCache idempotencyCache) {
+        this(repository, metrics, idempotencyCache, MovementHistory.disabled());
+    }
+
+    /**
+     * @param history records every transfer applied, once it is applied
+     */
+    public Bank(
+            AccountRepository repository, TransferMetrics metrics, IdempotencyCache idempotencyCache,
+            MovementHistory history
+    ) {
         this.accountRepository = repository;
+        this.metrics = metrics;
+        this.idempotencyCache = idempotencyCache;
+        this.history = history;
     }
 
     public void registerAccount(Account anAccount) {
@@ -27,13 +77,232 @@ public class Bank {
         return accountRepository.getBalance(id);
     }
 
+    /**
+     * The live account as the repository keeps it: withdrawing from or depositing into it goes around transfers,
+     * metrics, history and any journal, each operation atomic on its own.
+     */
+    public Optional<Account> getAccount(AccountId id) {
+        return accountRepository.getAccount(id);
+    }
+
     public void transfer(Money amount, AccountId origin, AccountId destiny) {
-        var originAccount = accountRepository.getAccount(origin);
-        var destinyAccount = accountRepository.getAccount(destiny);
-        if (originAccount.isEmpty() || destinyAccount.isEmpty()) {
-            throw new AccountNotFoundException();
+        transfer(FastMoney.of(amount), origin, destiny);
+    }
+
+    public void transfer(FastMoney amount, AccountId origin, AccountId destiny) {
+        tryTransfer(amount, origin, destiny).orThrow();
+    }
+
+    public TransferResult tryTransfer(Money amount, AccountId origin, AccountId destiny) {
+        return tryTransfer(FastMoney.of(amount), origin, destiny);
+    }
+
+    /**
+     * Like {@link #transfer} but reports rejections as a result instead of throwing, which is much cheaper when many
+     * transfers are rejected.
+     */
+    public TransferResult tryTransfer(FastMoney amount, AccountId origin, AccountId destiny) {
+        var start = metrics.start();
+        var result = accountRepository.tryTransfer(amount, origin, destiny);
+        metrics.transfer(start, amount, origin, destiny, result.reason());
+        if (result.isSuccess()) {
+            history.record(amount, origin, destiny);
+        }
+        return result;
+    }
+
+    /**
+     * The transfer a request describes, through its handles when it has them.
+     *
+     * @see #handleOf
+     */
+    public TransferResult tryTransfer(TransferRequest request) {
+        var start = metrics.start();
+        var result = accountRepository.tryTransfer(request);
+        metrics.transfer(start, request.amount(), request.origin(), request.destiny(), result.reason());
+        if (result.isSuccess()) {
+            history.record(request.amount(), request.origin(), request.destiny());
+        }
+        return result;
+    }
+
+    /**
+     * A handle for requests to find the account of {@code id} by, for callers that transfer from or to it again and
+     * again, such as standing orders.
+     *
+     * @see AccountRepository#handleOf
+     */
+    public int handleOf(AccountId id) {
+        return accountRepository.handleOf(id);
+    }
+
+    /**
+     * Transfer a client may retry: the first request with a given key applies the transfer and any later request with
+     * the same key gets the same outcome without applying it again, as long as the key is remembered.
+     *
+     * @see IdempotencyCache#deduplicate
+     */
+    public TransferResult tryTransfer(String idempotencyKey, FastMoney amount, AccountId origin, AccountId destiny) {
+        var request = new TransferRequest(amount, origin, destiny);
+        return idempotencyCache().deduplicate(idempotencyKey, request, applyRequest);
+    }
+
+    public void transfer(String idempotencyKey, FastMoney amount, AccountId origin, AccountId destiny) {
+        tryTransfer(idempotencyKey, amount, origin, destiny).orThrow();
+    }
+
+    /**
+     * The default cache takes a few hundred kilobytes, so banks that never see a key don't pay for it.
+     */
+    private IdempotencyCache idempotencyCache() {
+        var cache = idempotencyCache;
+        if (cache == null) {
+            synchronized (this) {
+                cache = idempotencyCache;
+                if (cache == null) {
+                    cache = new IdempotencyCache(DEFAULT_IDEMPOTENCY_KEYS, DEFAULT_IDEMPOTENCY_RETENTION);
+                    idempotencyCache = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    public void transfer(FastMoney amount, AccountId origin, AccountId destiny, ExchangeRates rates) {
+        tryTransfer(amount, origin, destiny, rates).orThrow();
+    }
+
+    /**
+     * Transfer between accounts in different currencies: the amount is withdrawn from the origin as is, and the
+     * destiny receives it converted to its own currency at the current {@code rates}, rounded down to its minor unit.
+     *
+     * @see AccountRepository#tryTransfer(FastMoney, AccountId, AccountId, ExchangeRates)
+     */
+    public TransferResult tryTransfer(FastMoney amount, AccountId origin, AccountId destiny, ExchangeRates rates) {
+        var start = metrics.start();
+        // History converts on its own, so it needs the very rates the transfer was made at
+        var applied = history == MovementHistory.disabled() ? rates : rates.snapshot();
+        var result = accountRepository.tryTransfer(amount, origin, destiny, applied);
+        metrics.transfer(start, amount, origin, destiny, result.reason());
+        if (result.isSuccess() && history != MovementHistory.disabled()) {
+            var credited = accountRepository.getAccount(destiny)
+                                            .map(account -> applied.convert(amount, account.currency()))
+                                            .orElse(amount);
+            history.record(amount, credited, origin, destiny);
+        }
+        return result;
+    }
+
+    /**
+     * Pays every leg out of the origin at once, such as a marketplace payout to its sellers, or rejects all of it.
+     * History and metrics record each leg as a transfer of its own, metrics with an even share of the latency.
+     *
+     * @see AccountRepository#trySplitTransfer
+     */
+    public TransferResult trySplitTransfer(AccountId origin, List<SplitLeg> legs) {
+        var start = metrics.start();
+        var result = accountRepository.trySplitTransfer(origin, legs);
+        var legStart = shareOf(start, legs.size());
+        for (var leg : legs) {
+            metrics.transfer(legStart, leg.amount(), origin, leg.destiny(), result.reason());
+        }
+        if (result.isSuccess() && history != MovementHistory.disabled()) {
+            for (var leg : legs) {
+                history.record(leg.amount(), origin, leg.destiny());
+            }
+        }
+        return result;
+    }
+
+    public void splitTransfer(AccountId origin, List<SplitLeg> legs) {
+        trySplitTransfer(origin, legs).orThrow();
+    }
+
+    /**
+     * Reserves funds of the account for a later capture, such as a card authorization; see {@link HoldLedger}.
+     *
+     * @see AccountRepository#tryHold
+     */
+    public TransferResult tryHold(FastMoney amount, AccountId account) {
+        return accountRepository.tryHold(amount, account);
+    }
+
+    /**
+     * Pays funds the account has on hold to the destiny, or gives them back when it is the account itself. Captures to
+     * another account are recorded like a transfer.
+     *
+     * @see AccountRepository#tryCaptureHold
+     */
+    public TransferResult tryCaptureHold(FastMoney amount, AccountId account, AccountId destiny) {
+        if (account.value().equals(destiny.value())) {
+            return accountRepository.tryCaptureHold(amount, account, destiny);
+        }
+        var start = metrics.start();
+        var result = accountRepository.tryCaptureHold(amount, account, destiny);
+        metrics.transfer(start, amount, account, destiny, result.reason());
+        if (result.isSuccess()) {
+            history.record(amount, account, destiny);
         }
-        accountRepository.transfer(amount, origin, destiny);
+        return result;
+    }
+
+    /**
+     * Applies the transfers in order with amortized lookups and locking, reporting each outcome instead of throwing.
+     * Metrics record every transfer of the batch with an even share of its latency.
+     */
+    public List<TransferResult> transferBatch(List<TransferRequest> requests) {
+        var start = metrics.start();
+        var results = accountRepository.transferBatch(requests);
+        var requestStart = shareOf(start, requests.size());
+        for (int i = 0; i < results.size(); i++) {
+            var request = requests.get(i);
+            metrics.transfer(
+                    requestStart, request.amount(), request.origin(), request.destiny(), results.get(i).reason()
+            );
+        }
+        if (history != MovementHistory.disabled()) {
+            for (int i = 0; i < results.size(); i++) {
+                if (results.get(i).isSuccess()) {
+                    var request = requests.get(i);
+                    history.record(request.amount(), request.origin(), request.destiny());
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * The start to record each of {@code transfers} applied together since {@code start} with, so each one is recorded
+     * as lasting an even share of them all.
+     */
+    private long shareOf(long start, int transfers) {
+        return transfers <= 1 ? start : start + (metrics.start() - start) / transfers * (transfers - 1);
+    }
+
+    /**
+     * The latest movements of an account, newest first. Cross-currency transfers show on each side in the currency of
+     * its account, as much as it moved.
+     *
+     * @param before the sequence of the last movement of the previous page, {@link Long#MAX_VALUE} for the first page
+     * @see MovementHistory
+     */
+    public List<Movement> movements(AccountId id, long before, int limit) {
+        return history.before(id, before, limit);
+    }
+
+    /**
+     * @param from inclusive
+     * @param to   exclusive
+     */
+    public List<Movement> movements(AccountId id, Instant from, Instant to, int limit) {
+        return history.between(id, from, to, limit);
+    }
+
+    /**
+     * @see AccountRepository#audit(int)
+     */
+    public BalanceAudit audit(int largest) {
+        return accountRepository.audit(largest);
     }
 
     @Override
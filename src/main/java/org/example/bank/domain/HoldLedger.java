@@ -0,0 +1,520 @@
+package org.example.bank.domain;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.Duration;
+import java.time.InstantSource;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import org.example.bank.domain.account.Account;
+import org.example.bank.domain.account.AccountId;
+import org.example.bank.domain.exceptions.AccountNotFoundException;
+import org.example.bank.domain.exceptions.CurrencyMismatchException;
+import org.example.bank.domain.exceptions.NegativeTransferAmountException;
+import org.example.bank.domain.money.FastMoney;
+import org.example.bank.domain.money.Money;
+import org.example.bank.domain.transfer.RejectionReason;
+import org.example.bank.domain.transfer.TransferResult;
+import org.example.bank.infraestructure.timer.TimingWheel;
+
+/**
+ * Card-style holds over a {@link Bank}: {@link #authorize} reserves funds of an account, which {@link #capture} later
+ * pays to another account, in full or in part, or {@link #release} gives back. Holds neither captured nor released
+ * in time expire and give their funds back too.
+ * <p>
+ * Authorizing puts the amount on hold on the account itself, through {@link Bank#tryHold}: the repository takes it
+ * out of the balance, which is what the account has available, under the lock or compare-and-set its transfers use,
+ * and keeps it in what the account has on hold. Capturing pays it from there to the destiny, and releasing or
+ * expiring the hold gives it back, through {@link Bank#tryCaptureHold}. There is no account of the ledger in the bank,
+ * and holds on different accounts share nothing there.
+ * <p>
+ * Holds live in the memory of the ledger. A bank over a journaled repository journals the captures paid to another
+ * account like transfers, and after a restart has the funds of the holds that were open back in the balances.
+ * <p>
+ * Holds are slots of chunked parallel primitive arrays, 44 bytes each plus the 28 of their expiry timer, with no object
+ * per hold, and resolving one is a single compare-and-set of its state, which carries the generation of the slot so a
+ * stale hold id never resolves the hold that reuses it. Keeping track of holds never locks.
+ * <p>
+ * Expiry is a {@link TimingWheel} owned by a single daemon thread. Authorizing a hold and resolving it each push a
+ * notice for it on a lock-free stack linked through the slot arrays, in that order since resolving takes the hold id
+ * authorizing returned. Every tick the thread takes the whole stack, schedules or cancels timers as told in the order
+ * they were pushed and turns the wheel. Only that thread frees slots, so a slot is reused once its hold was resolved
+ * and the thread heard of it, within a tick.
+ */
+public final class HoldLedger implements AutoCloseable {
+
+    private static final int CHUNK_BITS = 14;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int MAX_CHUNKS = 1 << (30 - CHUNK_BITS);
+    private static final int EMPTY = -1;
+    private static final int OPENED = 0;
+    private static final int RESOLVED_NOTICE = 1;
+    /**
+     * Generations wrap within the upper half of a hold id.
+     */
+    private static final long GENERATIONS = 0xFFFF_FFFFL;
+    private static final long FREE = 0;
+    private static final long OPEN = 1;
+    private static final long RESOLVED = 2;
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final Bank bank;
+    private final long tickMillis;
+    private final long tickNanos;
+    private final InstantSource clock;
+    private final AtomicReferenceArray<Chunk> chunks = new AtomicReferenceArray<>(MAX_CHUNKS);
+    private final AtomicInteger allocated = new AtomicInteger();
+    /**
+     * Tagged head of the free slots, the tag in the upper half against ABA, the slot plus one in the lower.
+     */
+    private final AtomicLong free = new AtomicLong();
+    private final ConcurrentHashMap<AccountId, Holder> holders = new ConcurrentHashMap<>();
+    private volatile Holder[] table = new Holder[64];
+    private int registered;
+    private final LongAdder open = new LongAdder();
+    /**
+     * Top of the notices not taken yet, each the slot shifted past the bit telling it opened or was resolved.
+     */
+    private final AtomicInteger notices = new AtomicInteger(EMPTY);
+    private final TimingWheel wheel;
+    private int[] timedHolds;
+    private int[] taken = new int[CHUNK_SIZE];
+    private final Thread ticker;
+    private volatile boolean running = true;
+    private volatile long expired;
+
+    public HoldLedger(Bank bank) {
+        this(bank, Duration.ofMillis(10), InstantSource.system());
+    }
+
+    /**
+     * @param tick  how often expired holds are looked for, at least a millisecond
+     * @param clock tells the instant holds expire against
+     */
+    public HoldLedger(Bank bank, Duration tick, InstantSource clock) {
+        if (tick.toMillis() < 1) {
+            throw new IllegalArgumentException("Ticks must last at least a millisecond");
+        }
+        this.bank = bank;
+        this.tickMillis = tick.toMillis();
+        this.tickNanos = tick.toNanos();
+        this.clock = clock;
+        this.wheel = new TimingWheel(Math.floorDiv(clock.millis(), tickMillis));
+        this.timedHolds = new int[wheel.capacity()];
+        this.ticker = Thread.ofPlatform().daemon().name("hold-expiry").start(this::run);
+    }
+
+    public long authorize(Money amount, AccountId account, Duration expiry) {
+        return authorize(FastMoney.of(amount), account, expiry);
+    }
+
+    /**
+     * Puts the amount on hold on the account until captured, released or expired, the expiry rounded up to whole
+     * ticks.
+     *
+     * @return the hold, to {@link #capture} or {@link #release} it
+     */
+    public long authorize(FastMoney amount, AccountId account, Duration expiry) {
+        var holder = holder(account);
+        if (amount.currency() != holder.currency) {
+            throw new CurrencyMismatchException();
+        }
+        if (amount.isNegative()) {
+            throw new NegativeTransferAmountException();
+        }
+        var deadline = Math.ceilDiv(clock.millis() + expiry.toMillis(), tickMillis);
+        var slot = allocate();
+        TransferResult withheld;
+        try {
+            withheld = bank.tryHold(amount, holder.id);
+        } catch (RuntimeException e) {
+            // Never handed out, so its generation can stay
+            push(slot);
+            throw e;
+        }
+        if (!withheld.isSuccess()) {
+            push(slot);
+            withheld.orThrow();
+        }
+        var chunk = chunks.get(slot >>> CHUNK_BITS);
+        var index = slot & (CHUNK_SIZE - 1);
+        chunk.amounts[index] = amount.minorUnits();
+        chunk.holders[index] = holder.index;
+        chunk.deadlines[index] = deadline;
+        var generation = (long) LONGS.getAcquire(chunk.states, index) >>> 2;
+        LONGS.setRelease(chunk.states, index, generation << 2 | OPEN);
+        open.increment();
+        notify(chunk.opened, slot, OPENED);
+        return generation << 32 | slot;
+    }
+
+    /**
+     * Pays the whole hold to the destiny.
+     */
+    public TransferResult capture(long hold, AccountId destiny) {
+        return capture(hold, destiny, (FastMoney) null);
+    }
+
+    public TransferResult capture(long hold, AccountId destiny, Money amount) {
+        return capture(hold, destiny, FastMoney.of(amount));
+    }
+
+    /**
+     * Pays part of the hold to the destiny and gives the rest back to the account it was authorized on. A rejected
+     * capture leaves the hold open.
+     *
+     * @param amount at most what the hold holds, in its currency
+     */
+    public TransferResult capture(long hold, AccountId destiny, FastMoney amount) {
+        var chunk = chunkOf(hold);
+        var index = (int) hold & (CHUNK_SIZE - 1);
+        var expected = (hold >>> 32) << 2 | OPEN;
+        if (chunk == null || (long) LONGS.getAcquire(chunk.states, index) != expected) {
+            return TransferResult.rejected(RejectionReason.HOLD_NOT_FOUND);
+        }
+        var held = chunk.amounts[index];
+        var origin = table[chunk.holders[index]];
+        var target = find(destiny);
+        var currency = origin.currency;
+        var captured = amount == null ? held : amount.minorUnits();
+        if (target == null) {
+            return TransferResult.rejected(RejectionReason.ACCOUNT_NOT_FOUND);
+        }
+        if (target.currency != currency || amount != null && amount.currency() != currency) {
+            return TransferResult.rejected(RejectionReason.CURRENCY_MISMATCH);
+        }
+        if (captured < 0) {
+            return TransferResult.rejected(RejectionReason.NEGATIVE_AMOUNT);
+        }
+        if (captured > held) {
+            return TransferResult.rejected(RejectionReason.INSUFFICIENT_FUNDS);
+        }
+        if (!LONGS.compareAndSet(chunk.states, index, expected, expected - OPEN + RESOLVED)) {
+            return TransferResult.rejected(RejectionReason.HOLD_NOT_FOUND);
+        }
+        resolved(hold);
+        TransferResult paid;
+        try {
+            paid = bank.tryCaptureHold(new FastMoney(captured, currency), origin.id, target.id);
+        } catch (RuntimeException e) {
+            // Such as the destiny balance overflowing: the hold is gone, so it is released as a whole instead
+            giveBack(origin, held);
+            throw e;
+        }
+        if (!paid.isSuccess()) {
+            giveBack(origin, held);
+            return paid;
+        }
+        if (captured < held) {
+            giveBack(origin, held - captured);
+        }
+        return paid;
+    }
+
+    /**
+     * Voids the hold, giving its funds back to the account it was authorized on.
+     *
+     * @return whether the hold was open
+     */
+    public boolean release(long hold) {
+        var chunk = chunkOf(hold);
+        var index = (int) hold & (CHUNK_SIZE - 1);
+        var expected = (hold >>> 32) << 2 | OPEN;
+        if (chunk == null || !LONGS.compareAndSet(chunk.states, index, expected, expected - OPEN + RESOLVED)) {
+            return false;
+        }
+        giveBack(chunk, index);
+        resolved(hold);
+        return true;
+    }
+
+    /**
+     * What the account has on hold, on top of its balance, which is what it has available.
+     */
+    public Money held(AccountId account) {
+        return bank.getAccount(account).orElseThrow(AccountNotFoundException::new).held();
+    }
+
+    /**
+     * Holds authorized and not yet captured, released or expired.
+     */
+    public long open() {
+        return open.sum();
+    }
+
+    /**
+     * Holds that expired so far.
+     */
+    public long expired() {
+        return expired;
+    }
+
+    /**
+     * Stops the expiry thread; holds still open stay so until captured or released. Interrupted while waiting for the
+     * thread, it returns at once with the interrupt status set.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(ticker);
+        try {
+            ticker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            LockSupport.parkNanos(this, tickNanos);
+            if (running) {
+                try {
+                    expireDue();
+                } catch (RuntimeException e) {
+                    // Such as an account balance overflowing on the way back: later holds must still expire
+                    Thread.currentThread().getUncaughtExceptionHandler().uncaughtException(Thread.currentThread(), e);
+                }
+            }
+        }
+    }
+
+    private void expireDue() {
+        var count = 0;
+        for (var notice = notices.getAndSet(EMPTY); notice != EMPTY; notice = link(notice)) {
+            if (count == taken.length) {
+                taken = Arrays.copyOf(taken, count * 2);
+            }
+            taken[count++] = notice;
+        }
+        // Oldest first, so a hold opens before it is resolved
+        while (count > 0) {
+            var notice = taken[--count];
+            var slot = notice >>> 1;
+            var chunk = chunks.get(slot >>> CHUNK_BITS);
+            var index = slot & (CHUNK_SIZE - 1);
+            if ((notice & 1) == OPENED) {
+                schedule(chunk, slot, index);
+            } else {
+                // Already gone if it came up before the notice was taken
+                wheel.cancel(chunk.timers[index]);
+                free(slot);
+            }
+        }
+        var due = wheel.advance(Math.floorDiv(clock.millis(), tickMillis));
+        for (int i = 0; i < due; i++) {
+            var timer = wheel.expired(i);
+            var slot = timedHolds[timer];
+            wheel.release(timer);
+            var chunk = chunks.get(slot >>> CHUNK_BITS);
+            var index = slot & (CHUNK_SIZE - 1);
+            var state = (long) LONGS.getAcquire(chunk.states, index);
+            // Otherwise it was just resolved, and its notice frees it
+            if ((state & 3) == OPEN && LONGS.compareAndSet(chunk.states, index, state, state - OPEN + RESOLVED)) {
+                expired++;
+                giveBack(chunk, index);
+                open.decrement();
+                free(slot);
+            }
+        }
+    }
+
+    private void schedule(Chunk chunk, int slot, int index) {
+        var timer = wheel.schedule(chunk.deadlines[index]);
+        if (TimingWheel.slotOf(timer) >= timedHolds.length) {
+            timedHolds = Arrays.copyOf(timedHolds, wheel.capacity());
+        }
+        timedHolds[TimingWheel.slotOf(timer)] = slot;
+        chunk.timers[index] = timer;
+    }
+
+    /**
+     * Each slot has a link per kind of notice, so it can be on the stack once as opened and once as resolved. The
+     * free slots reuse the resolved links, which nothing reads any more by the time a slot is freed.
+     */
+    private void notify(int[] links, int slot, int kind) {
+        var notice = slot << 1 | kind;
+        while (true) {
+            var top = notices.get();
+            // Taken along with the notice, which the compare-and-set publishes
+            links[slot & (CHUNK_SIZE - 1)] = top;
+            if (notices.compareAndSet(top, notice)) {
+                return;
+            }
+        }
+    }
+
+    private int link(int notice) {
+        var slot = notice >>> 1;
+        var chunk = chunks.get(slot >>> CHUNK_BITS);
+        return ((notice & 1) == OPENED ? chunk.opened : chunk.next)[slot & (CHUNK_SIZE - 1)];
+    }
+
+    /**
+     * Nothing refers to the slot any more but stale hold ids, which the new generation turns away.
+     */
+    private void free(int slot) {
+        var states = chunks.get(slot >>> CHUNK_BITS).states;
+        var index = slot & (CHUNK_SIZE - 1);
+        var state = (long) LONGS.getAcquire(states, index);
+        LONGS.setRelease(states, index, ((state >>> 2) + 1 & GENERATIONS) << 2 | FREE);
+        push(slot);
+    }
+
+    private void giveBack(Chunk chunk, int index) {
+        giveBack(table[chunk.holders[index]], chunk.amounts[index]);
+    }
+
+    /**
+     * The account has the funds of every open hold on it on hold, so only something like its balance overflowing
+     * fails it.
+     */
+    private void giveBack(Holder holder, long minorUnits) {
+        bank.tryCaptureHold(new FastMoney(minorUnits, holder.currency), holder.id, holder.id).orThrow();
+    }
+
+    /**
+     * Accounts for a hold captured or released, and has the expiry thread cancel its timer and free its slot.
+     */
+    private void resolved(long hold) {
+        open.decrement();
+        var slot = (int) hold;
+        notify(chunks.get(slot >>> CHUNK_BITS).next, slot, RESOLVED_NOTICE);
+    }
+
+    private Chunk chunkOf(long hold) {
+        var slot = (int) hold;
+        return slot < 0 || slot >= Math.min(allocated.get(), MAX_CHUNKS << CHUNK_BITS) ? null
+                                                                                      : chunks.get(slot >>> CHUNK_BITS);
+    }
+
+    private int allocate() {
+        var slot = pop();
+        if (slot >= 0) {
+            return slot;
+        }
+        slot = allocated.getAndIncrement();
+        if (slot >= MAX_CHUNKS << CHUNK_BITS) {
+            allocated.decrementAndGet();
+            throw new IllegalStateException("Too many open holds");
+        }
+        var index = slot >>> CHUNK_BITS;
+        if (chunks.get(index) == null) {
+            chunks.compareAndSet(index, null, new Chunk());
+        }
+        return slot;
+    }
+
+    private int pop() {
+        while (true) {
+            var head = free.get();
+            var slot = (int) head - 1;
+            if (slot < 0) {
+                return -1;
+            }
+            var next = chunks.get(slot >>> CHUNK_BITS).next[slot & (CHUNK_SIZE - 1)];
+            if (free.compareAndSet(head, ((head >>> 32) + 1) << 32 | next)) {
+                return slot;
+            }
+        }
+    }
+
+    private void push(int slot) {
+        var next = chunks.get(slot >>> CHUNK_BITS).next;
+        while (true) {
+            var head = free.get();
+            next[slot & (CHUNK_SIZE - 1)] = (int) head;
+            if (free.compareAndSet(head, ((head >>> 32) + 1) << 32 | (slot + 1))) {
+                return;
+            }
+        }
+    }
+
+    private Holder holder(AccountId id) {
+        var holder = find(id);
+        if (holder == null) {
+            throw new AccountNotFoundException();
+        }
+        return holder;
+    }
+
+    /**
+     * @return the account as the ledger keeps it, or null when the bank has no such account
+     */
+    private Holder find(AccountId id) {
+        var holder = holders.get(id);
+        if (holder == null) {
+            var account = bank.getAccount(id).orElse(null);
+            holder = account == null ? null : holders.computeIfAbsent(id, key -> register(account));
+        }
+        return holder;
+    }
+
+    /**
+     * Called at most once per account, from within the map, so accounts can't be registered twice.
+     */
+    private synchronized Holder register(Account account) {
+        var holder = new Holder(registered++, account.id(), account.currency());
+        var holders = table;
+        if (holder.index == holders.length) {
+            holders = Arrays.copyOf(holders, holder.index * 2);
+        }
+        holders[holder.index] = holder;
+        // Published before the holder, so whoever finds its index in a hold finds it in the table
+        table = holders;
+        return holder;
+    }
+
+    @Override
+    public String toString() {
+        return "HoldLedger{" +
+               "open=" + open() +
+               ", expired=" + expired +
+               ", tickMillis=" + tickMillis +
+               '}';
+    }
+
+    /**
+     * An account holds are authorized on.
+     */
+    private static final class Holder {
+
+        private final int index;
+        private final AccountId id;
+        private final Currency currency;
+
+        private Holder(int index, AccountId id, Currency currency) {
+            this.index = index;
+            this.id = id;
+            this.currency = currency;
+        }
+    }
+
+    private static final class Chunk {
+
+        /**
+         * Generation of the slot shifted past the two bits of its status.
+         */
+        private final long[] states = new long[CHUNK_SIZE];
+        private final long[] amounts = new long[CHUNK_SIZE];
+        private final long[] deadlines = new long[CHUNK_SIZE];
+        private final int[] holders = new int[CHUNK_SIZE];
+        /**
+         * Links of the opened notices.
+         */
+        private final int[] opened = new int[CHUNK_SIZE];
+        /**
+         * Links of the resolved notices, and of the free slots.
+         */
+        private final int[] next = new int[CHUNK_SIZE];
+        /**
+         * Expiry timers, only ever touched by the expiry thread.
+         */
+        private final long[] timers = new long[CHUNK_SIZE];
+    }
+}
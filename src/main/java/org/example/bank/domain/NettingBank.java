@@ -0,0 +1,321 @@
+package org.example.bank.domain;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.example.bank.domain.account.AccountId;
+import org.example.bank.domain.exceptions.AccountNotFoundException;
+import org.example.bank.domain.money.FastMoney;
+import org.example.bank.domain.money.Money;
+import org.example.bank.domain.transfer.RejectionReason;
+import org.example.bank.domain.transfer.TransferRequest;
+import org.example.bank.domain.transfer.TransferResult;
+import org.example.bank.infraestructure.concurrent.ConsumerParker;
+import org.example.bank.infraestructure.concurrent.MpscLinkedQueue;
+
+/**
+ * Asynchronous facade over a {@link Bank} that nets transfers before applying them, for flows that keep going back
+ * and forth between the same accounts.
+ * <p>
+ * A single thread gathers transfers in windows of up to {@code maxWindow} transfers or {@code window} of time since
+ * the first one, whichever comes first. It decides every transfer of a window in order against the balances the
+ * window started with, exactly as applying them one by one would, then adds up what each account gains or loses and
+ * applies only that through a single {@link Bank#transferBatch}: one leg from each account that ends up losing to
+ * one that ends up gaining, so opposing flows cancel out and chains like A to B to C become A to C. A window touching
+ * {@code n} accounts applies at most {@code n - 1} legs however many transfers it holds, and every transfer still
+ * gets its own result.
+ * <p>
+ * Deciding against the starting balances is only right while nothing else moves money in those accounts, so the
+ * accounts of a netting bank should only take transfers through it. Should a leg be rejected anyway, the legs already
+ * applied are undone and the window is replayed transfer by transfer. Metrics and movement history of the bank see
+ * the legs, not the transfers they net.
+ */
+public final class NettingBank implements AutoCloseable {
+
+    private static final int SPINS_BEFORE_PARK = 256;
+
+    private final Bank bank;
+    private final long windowNanos;
+    private final int maxWindow;
+    private final MpscLinkedQueue<Pending> inbox = new MpscLinkedQueue<>();
+    private final AtomicInteger submitting = new AtomicInteger();
+    private final Thread thread;
+    private final ConsumerParker parker;
+    private final BooleanSupplier idle;
+    private final List<Pending> pendings = new ArrayList<>();
+    private final LinkedHashMap<AccountId, Position> positions = new LinkedHashMap<>();
+    private volatile boolean running = true;
+    private volatile long transfers;
+    private volatile long legs;
+
+    public NettingBank(Bank bank) {
+        this(bank, Duration.ofNanos(200_000), 4_096);
+    }
+
+    public NettingBank(Bank bank, Duration window, int maxWindow) {
+        if (window.isNegative() || maxWindow < 1) {
+            throw new IllegalArgumentException("window must not be negative and maxWindow must be positive");
+        }
+        this.bank = bank;
+        this.windowNanos = window.toNanos();
+        this.maxWindow = maxWindow;
+        this.thread = Thread.ofPlatform().daemon().name("transfer-netting").unstarted(this::run);
+        this.parker = new ConsumerParker(thread, SPINS_BEFORE_PARK);
+        this.idle = () -> inbox.isEmpty() && running;
+        thread.start();
+    }
+
+    public CompletableFuture<TransferResult> transfer(Money amount, AccountId origin, AccountId destiny) {
+        return transfer(FastMoney.of(amount), origin, destiny);
+    }
+
+    /**
+     * @return completed with the result of the transfer once its window is applied, or failed with
+     * {@link RejectedExecutionException} when the bank is closed
+     */
+    public CompletableFuture<TransferResult> transfer(FastMoney amount, AccountId origin, AccountId destiny) {
+        submitting.incrementAndGet();
+        try {
+            if (!running) {
+                return CompletableFuture.failedFuture(new RejectedExecutionException("Netting bank closed"));
+            }
+            var pending = new Pending(new TransferRequest(amount, origin, destiny), new CompletableFuture<>());
+            inbox.offer(pending);
+            parker.wake();
+            return pending.result;
+        } finally {
+            submitting.decrementAndGet();
+        }
+    }
+
+    /**
+     * Transfers decided so far.
+     */
+    public long transfers() {
+        return transfers;
+    }
+
+    /**
+     * Transfers applied to the bank so far to settle them, each taking the locks a transfer takes.
+     */
+    public long legs() {
+        return legs;
+    }
+
+    /**
+     * Stops admitting transfers and waits for the admitted ones to be applied. Interrupted while waiting, it returns at
+     * once with the interrupt status set, and the admitted transfers are still applied in the background.
+     */
+    @Override
+    public void close() {
+        running = false;
+        parker.wakeAlways();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        while (true) {
+            var first = inbox.poll();
+            if (first != null) {
+                parker.busy();
+                gather(first);
+                settle();
+            } else if (!running && submitting.get() == 0 && inbox.isEmpty()) {
+                // Whoever submits from now on finds the bank closed
+                return;
+            } else {
+                parker.idle(idle);
+            }
+        }
+    }
+
+    private void gather(Pending first) {
+        pendings.add(first);
+        var deadline = System.nanoTime() + windowNanos;
+        while (pendings.size() < maxWindow) {
+            var next = inbox.poll();
+            if (next != null) {
+                pendings.add(next);
+            } else if (System.nanoTime() - deadline >= 0 || !running) {
+                return;
+            } else {
+                // Yield rather than spin, the submitters may need this very core to fill the window
+                Thread.yield();
+            }
+        }
+    }
+
+    private void settle() {
+        var results = new TransferResult[pendings.size()];
+        try {
+            for (int i = 0; i < results.length; i++) {
+                results[i] = decide(pendings.get(i).request);
+            }
+            var netted = netLegs();
+            var outcomes = netted.isEmpty() ? List.<TransferResult>of() : bank.transferBatch(netted);
+            legs += netted.size();
+            if (outcomes.stream().allMatch(TransferResult::isSuccess)) {
+                for (int i = 0; i < results.length; i++) {
+                    pendings.get(i).result.complete(results[i]);
+                }
+            } else {
+                replay(netted, outcomes);
+            }
+        } catch (RuntimeException e) {
+            // Not a rejection, such as a balance overflowing: what the window applied is unknown
+            pendings.forEach(pending -> pending.result.completeExceptionally(e));
+        } finally {
+            transfers += results.length;
+            pendings.clear();
+            positions.clear();
+        }
+    }
+
+    /**
+     * Decides a transfer against the balances the window started with plus what it moved so far.
+     */
+    private TransferResult decide(TransferRequest request) {
+        var origin = position(request.origin());
+        var destiny = position(request.destiny());
+        var amount = request.amount();
+        RejectionReason rejection = null;
+        if (origin.currency == null || destiny.currency == null) {
+            rejection = RejectionReason.ACCOUNT_NOT_FOUND;
+        } else if (amount.currency() != origin.currency || amount.currency() != destiny.currency) {
+            rejection = RejectionReason.CURRENCY_MISMATCH;
+        } else if (amount.isNegative()) {
+            rejection = RejectionReason.NEGATIVE_AMOUNT;
+        } else if (origin.balance < amount.minorUnits()) {
+            rejection = RejectionReason.INSUFFICIENT_FUNDS;
+        }
+        if (rejection != null) {
+            return TransferResult.rejected(rejection);
+        }
+        var credited = Math.addExact(destiny.balance, amount.minorUnits());
+        origin.balance -= amount.minorUnits();
+        origin.delta -= amount.minorUnits();
+        destiny.balance = origin == destiny ? destiny.balance + amount.minorUnits() : credited;
+        destiny.delta += amount.minorUnits();
+        return TransferResult.success();
+    }
+
+    private Position position(AccountId id) {
+        var position = positions.get(id);
+        if (position == null) {
+            position = new Position(id, bank.handleOf(id));
+            try {
+                var balance = FastMoney.of(bank.getBalance(id));
+                position.currency = balance.currency();
+                position.balance = balance.minorUnits();
+            } catch (AccountNotFoundException e) {
+                // Left without currency, which rejects every transfer from or to it
+            }
+            positions.put(id, position);
+        }
+        return position;
+    }
+
+    /**
+     * Pairs, per currency, the accounts that lose money in the window with the ones that gain it, in the order they
+     * came up, each leg settling as much as the smaller of the two still has to.
+     */
+    private List<TransferRequest> netLegs() {
+        var netted = new ArrayList<TransferRequest>();
+        var debtors = new ArrayDeque<Position>();
+        var creditors = new ArrayDeque<Position>();
+        var currencies = new ArrayList<Currency>(1);
+        for (var position : positions.values()) {
+            if (position.delta != 0 && !currencies.contains(position.currency)) {
+                currencies.add(position.currency);
+            }
+        }
+        for (var currency : currencies) {
+            for (var position : positions.values()) {
+                if (position.currency == currency && position.delta < 0) {
+                    debtors.add(position);
+                } else if (position.currency == currency && position.delta > 0) {
+                    creditors.add(position);
+                }
+            }
+            while (!debtors.isEmpty()) {
+                var debtor = debtors.peek();
+                var creditor = creditors.peek();
+                var amount = Math.min(-debtor.delta, creditor.delta);
+                netted.add(new TransferRequest(
+                        new FastMoney(amount, currency), debtor.id, creditor.id, debtor.handle, creditor.handle
+                ));
+                debtor.delta += amount;
+                creditor.delta -= amount;
+                if (debtor.delta == 0) {
+                    debtors.poll();
+                }
+                if (creditor.delta == 0) {
+                    creditors.poll();
+                }
+            }
+        }
+        return netted;
+    }
+
+    /**
+     * Some balance changed under the window through another path: undoes the legs applied and applies every transfer
+     * of the window on its own, in order.
+     */
+    private void replay(List<TransferRequest> netted, List<TransferResult> outcomes) {
+        for (int i = outcomes.size() - 1; i >= 0; i--) {
+            if (outcomes.get(i).isSuccess()) {
+                var leg = netted.get(i);
+                if (!bank.tryTransfer(leg.amount(), leg.destiny(), leg.origin()).isSuccess()) {
+                    throw new IllegalStateException("Could not undo netted leg " + leg);
+                }
+                legs++;
+            }
+        }
+        for (var pending : pendings) {
+            var request = pending.request;
+            pending.result.complete(bank.tryTransfer(request.amount(), request.origin(), request.destiny()));
+            legs++;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "NettingBank{" +
+               "bank=" + bank +
+               ", transfers=" + transfers +
+               ", legs=" + legs +
+               '}';
+    }
+
+    private record Pending(TransferRequest request, CompletableFuture<TransferResult> result) {
+
+    }
+
+    /**
+     * An account as of the window being decided.
+     */
+    private static final class Position {
+
+        private final AccountId id;
+        private final int handle;
+        private Currency currency;
+        private long balance;
+        private long delta;
+
+        private Position(AccountId id, int handle) {
+            this.id = id;
+            this.handle = handle;
+        }
+    }
+}
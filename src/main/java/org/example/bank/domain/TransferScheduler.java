@@ -0,0 +1,245 @@
+package org.example.bank.domain;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.InstantSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+import org.example.bank.domain.account.AccountId;
+import org.example.bank.domain.money.FastMoney;
+import org.example.bank.domain.transfer.TransferRequest;
+import org.example.bank.domain.transfer.TransferResult;
+import org.example.bank.infraestructure.timer.TimingWheel;
+
+/**
+ * Standing orders over a {@link Bank}: transfers that run once at a given instant or keep running every period.
+ * <p>
+ * Orders wait in a {@link TimingWheel}, so scheduling and cancelling take constant time however many are pending, and
+ * each one is a handful of array entries, about 60 bytes, with no per-order object, thread or future. A single
+ * daemon thread turns the wheel every tick and applies all the orders due through {@link Bank#transferBatch}, in
+ * batches of up to {@value #BATCH_SIZE}, finding the accounts through the handles taken when the order was scheduled.
+ * An order fires on the first tick at or after its instant, never before.
+ * A recurring order is due again one period after its previous instant rather than after it ran, so it doesn't drift,
+ * and occurrences missed while the scheduler was held up all fire as soon as it catches up.
+ */
+public final class TransferScheduler implements AutoCloseable {
+
+    private static final int BATCH_SIZE = 4_096;
+    private static final Listener IGNORE = (order, request, result) -> {
+    };
+
+    private final Bank bank;
+    private final long tickMillis;
+    private final long tickNanos;
+    private final InstantSource clock;
+    private final Listener listener;
+    private final Object lock = new Object();
+    private final TimingWheel wheel;
+    private final Thread ticker;
+    private AccountId[] origins;
+    private AccountId[] destinies;
+    private int[] originHandles;
+    private int[] destinyHandles;
+    private long[] amounts;
+    private Currency[] currencies;
+    private long[] periods;
+    private volatile boolean running = true;
+
+    public TransferScheduler(Bank bank) {
+        this(bank, Duration.ofMillis(10), InstantSource.system(), IGNORE);
+    }
+
+    /**
+     * @param tick     how often due orders are looked for, at least a millisecond
+     * @param clock    tells the instant orders are due against
+     * @param listener told the outcome of every order run, from the scheduler thread
+     */
+    public TransferScheduler(Bank bank, Duration tick, InstantSource clock, Listener listener) {
+        if (tick.toMillis() < 1) {
+            throw new IllegalArgumentException("Ticks must last at least a millisecond");
+        }
+        this.bank = bank;
+        this.tickMillis = tick.toMillis();
+        this.tickNanos = tick.toNanos();
+        this.clock = clock;
+        this.listener = listener;
+        this.wheel = new TimingWheel(Math.floorDiv(clock.millis(), tickMillis));
+        grow();
+        this.ticker = Thread.ofPlatform().daemon().name("transfer-scheduler").start(this::run);
+    }
+
+    /**
+     * @return the order, to {@link #cancel} it
+     */
+    public long schedule(TransferRequest request, Instant at) {
+        return schedule(request, at, 0);
+    }
+
+    /**
+     * Runs the transfer at {@code first} and then every {@code period}, rounded up to whole ticks, until cancelled.
+     *
+     * @return the order, to {@link #cancel} it
+     */
+    public long scheduleEvery(TransferRequest request, Instant first, Duration period) {
+        if (period.toMillis() < 1) {
+            throw new IllegalArgumentException("Periods must last at least a millisecond");
+        }
+        return schedule(request, first, Math.ceilDiv(period.toMillis(), tickMillis));
+    }
+
+    /**
+     * Stops an order from running again. An order already picked up by the current tick still runs once.
+     *
+     * @return whether the order was pending
+     */
+    public boolean cancel(long order) {
+        synchronized (lock) {
+            var cancelled = wheel.cancel(order);
+            if (cancelled) {
+                clear(TimingWheel.slotOf(order));
+            }
+            return cancelled;
+        }
+    }
+
+    public int pending() {
+        synchronized (lock) {
+            return wheel.size();
+        }
+    }
+
+    /**
+     * Stops the scheduler thread and waits for it; orders still pending never run. Interrupted while waiting, it
+     * returns at once with the interrupt status set, and the thread stops on its own once done with its current tick.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(ticker);
+        try {
+            ticker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private long schedule(TransferRequest request, Instant at, long periodTicks) {
+        var deadline = Math.ceilDiv(at.toEpochMilli(), tickMillis);
+        var originHandle = handleOf(request.origin(), request.originHandle());
+        var destinyHandle = handleOf(request.destiny(), request.destinyHandle());
+        synchronized (lock) {
+            var order = wheel.schedule(deadline);
+            if (wheel.capacity() > amounts.length) {
+                grow();
+            }
+            var slot = TimingWheel.slotOf(order);
+            origins[slot] = request.origin();
+            destinies[slot] = request.destiny();
+            originHandles[slot] = originHandle;
+            destinyHandles[slot] = destinyHandle;
+            amounts[slot] = request.amount().minorUnits();
+            currencies[slot] = request.amount().currency();
+            periods[slot] = periodTicks;
+            return order;
+        }
+    }
+
+    private void run() {
+        while (running) {
+            LockSupport.parkNanos(this, tickNanos);
+            if (running) {
+                fireDue();
+            }
+        }
+    }
+
+    private void fireDue() {
+        long[] orders;
+        List<TransferRequest> requests;
+        synchronized (lock) {
+            var tick = Math.floorDiv(clock.millis(), tickMillis);
+            var due = wheel.advance(tick);
+            if (due == 0) {
+                return;
+            }
+            orders = new long[due];
+            requests = new ArrayList<>(due);
+            for (int i = 0; i < due; i++) {
+                var slot = wheel.expired(i);
+                var order = wheel.handle(slot);
+                var request = new TransferRequest(
+                        new FastMoney(amounts[slot], currencies[slot]), origins[slot], destinies[slot],
+                        originHandles[slot], destinyHandles[slot]
+                );
+                var deadline = wheel.deadline(slot);
+                do {
+                    if (requests.size() == orders.length) {
+                        orders = Arrays.copyOf(orders, orders.length * 2);
+                    }
+                    orders[requests.size()] = order;
+                    requests.add(request);
+                    deadline += periods[slot];
+                } while (periods[slot] > 0 && deadline <= tick);
+                if (periods[slot] > 0) {
+                    wheel.reschedule(slot, deadline);
+                } else {
+                    clear(slot);
+                    wheel.release(slot);
+                }
+            }
+        }
+        for (int from = 0; from < requests.size(); from += BATCH_SIZE) {
+            var batch = requests.subList(from, Math.min(from + BATCH_SIZE, requests.size()));
+            try {
+                report(orders, from, batch, bank.transferBatch(batch));
+            } catch (RuntimeException e) {
+                // Not a rejection: the outcome of the batch is unknown, but later batches and ticks must still run
+                Thread.currentThread().getUncaughtExceptionHandler().uncaughtException(Thread.currentThread(), e);
+            }
+        }
+    }
+
+    private void report(long[] orders, int from, List<TransferRequest> batch, List<TransferResult> results) {
+        for (int i = 0; i < batch.size(); i++) {
+            listener.fired(orders[from + i], batch.get(i), results.get(i));
+        }
+    }
+
+    private int handleOf(AccountId id, int handle) {
+        return handle != TransferRequest.NO_HANDLE ? handle : bank.handleOf(id);
+    }
+
+    private void clear(int slot) {
+        origins[slot] = null;
+        destinies[slot] = null;
+        currencies[slot] = null;
+    }
+
+    private void grow() {
+        var capacity = wheel.capacity();
+        origins = origins == null ? new AccountId[capacity] : Arrays.copyOf(origins, capacity);
+        destinies = destinies == null ? new AccountId[capacity] : Arrays.copyOf(destinies, capacity);
+        originHandles = originHandles == null ? new int[capacity] : Arrays.copyOf(originHandles, capacity);
+        destinyHandles = destinyHandles == null ? new int[capacity] : Arrays.copyOf(destinyHandles, capacity);
+        amounts = amounts == null ? new long[capacity] : Arrays.copyOf(amounts, capacity);
+        currencies = currencies == null ? new Currency[capacity] : Arrays.copyOf(currencies, capacity);
+        periods = periods == null ? new long[capacity] : Arrays.copyOf(periods, capacity);
+    }
+
+    @Override
+    public String toString() {
+        return "TransferScheduler{" +
+               "pending=" + pending() +
+               ", tickMillis=" + tickMillis +
+               '}';
+    }
+
+    @FunctionalInterface
+    public interface Listener {
+
+        void fired(long order, TransferRequest request, TransferResult result);
+    }
+}
@@ -1,18 +1,64 @@
 package org.example.bank.domain.account;
 
+import java.util.Currency;
+import org.example.bank.domain.money.FastMoney;
 import org.example.bank.domain.money.Money;
 
+/**
+ * Accounts keep their balance in minor units of a single currency. The {@link Money} operations are conveniences over
+ * the {@link FastMoney} ones, which are the ones the transfer strategies use because they don't allocate.
+ * <p>
+ * The balance is what the account has available. Holds take their amount out of it into what the account has on
+ * hold, next to the balance, where transfers can't spend it and only capturing or releasing the hold moves it.
+ */
 public interface Account {
 
-    Account withdraw(Money amount);
+    Account withdraw(FastMoney amount);
 
-    Account deposit(Money amount);
+    Account deposit(FastMoney amount);
 
-    Money balance();
+    long balanceMinorUnits();
+
+    Currency currency();
 
     AccountId id();
 
-    boolean compareAndSubtract(Money originBalance, Money moneyToSubtract);
+    boolean compareAndSubtract(long originBalance, FastMoney moneyToSubtract);
+
+    boolean compareAndAdd(long originBalance, FastMoney moneyToAdd);
+
+    long heldMinorUnits();
+
+    /**
+     * Adds to what the account has on hold, or takes from it when negative, without touching the balance. Strategies
+     * pair it with the withdrawal or deposit that moves the same amount, under the same lock or right after the same
+     * compare-and-set.
+     */
+    void addHeld(long minorUnits);
+
+    default Account withdraw(Money amount) {
+        return withdraw(FastMoney.of(amount));
+    }
+
+    default Account deposit(Money amount) {
+        return deposit(FastMoney.of(amount));
+    }
+
+    default Money balance() {
+        return FastMoney.toMoney(balanceMinorUnits(), currency());
+    }
+
+    default Money held() {
+        return FastMoney.toMoney(heldMinorUnits(), currency());
+    }
+
+    default boolean compareAndSubtract(Money originBalance, Money moneyToSubtract) {
+        return originBalance.currency().equals(currency())
+               && compareAndSubtract(FastMoney.of(originBalance).minorUnits(), FastMoney.of(moneyToSubtract));
+    }
 
-    boolean compareAndAdd(Money originBalance, Money moneyToAdd);
+    default boolean compareAndAdd(Money originBalance, Money moneyToAdd) {
+        return originBalance.currency().equals(currency())
+               && compareAndAdd(FastMoney.of(originBalance).minorUnits(), FastMoney.of(moneyToAdd));
+    }
 }
@@ -1,51 +1,70 @@
 package org.example.bank.domain.account;
 
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.Currency;
+import java.util.concurrent.atomic.AtomicLong;
 import org.example.bank.domain.exceptions.InsufficientFundsException;
 import org.example.bank.domain.exceptions.NegativeTransferAmountException;
+import org.example.bank.domain.metrics.TransferMetrics;
+import org.example.bank.domain.money.FastMoney;
 import org.example.bank.domain.money.Money;
 
 public final class LockFreeAccount implements Account {
 
     private final AccountId id;
-    private final AtomicReference<Money> balance;
+    private final Currency currency;
+    private final AtomicLong balance;
+    private final AtomicLong held = new AtomicLong();
+    private final TransferMetrics metrics;
 
     public LockFreeAccount(AccountId id, Money balance) {
+        this(id, balance, TransferMetrics.disabled());
+    }
+
+    /**
+     * @param metrics counts the compare-and-sets of withdraws and deposits lost against a concurrent update
+     */
+    public LockFreeAccount(AccountId id, Money balance, TransferMetrics metrics) {
         this.id = id;
-        this.balance = new AtomicReference<>(balance);
+        this.currency = balance.currency();
+        this.balance = new AtomicLong(FastMoney.of(balance).minorUnits());
+        this.metrics = metrics;
     }
 
     @Override
-    public LockFreeAccount withdraw(Money amount) {
+    public LockFreeAccount withdraw(FastMoney amount) {
+        amount.requireSameCurrency(currency);
         validateNonNegativeWithdraw(amount);
         while (true) {
-            validateEnoughFunds(amount);
             var expected = this.balance.get();
-            if (this.balance.compareAndSet(expected, expected.subtract(amount))) {
+            validateEnoughFunds(expected, amount);
+            if (this.balance.compareAndSet(expected, expected - amount.minorUnits())) {
                 return this;
             }
+            metrics.casRetry();
         }
     }
 
-    private void validateNonNegativeWithdraw(Money amount) {
+    private void validateNonNegativeWithdraw(FastMoney amount) {
         if (amount.isNegative()) {
             throw new NegativeTransferAmountException();
         }
     }
 
-    private void validateEnoughFunds(Money amount) {
-        if (balance.get().amount().compareTo(amount.amount()) < 0) {
+    private void validateEnoughFunds(long currentBalance, FastMoney amount) {
+        if (currentBalance < amount.minorUnits()) {
             throw new InsufficientFundsException();
         }
     }
 
     @Override
-    public LockFreeAccount deposit(Money amount) {
+    public LockFreeAccount deposit(FastMoney amount) {
+        amount.requireSameCurrency(currency);
         while (true) {
             var expected = this.balance.get();
-            if (this.balance.compareAndSet(expected, expected.add(amount))) {
+            if (this.balance.compareAndSet(expected, Math.addExact(expected, amount.minorUnits()))) {
                 return this;
             }
+            metrics.casRetry();
         }
     }
 
@@ -55,26 +74,42 @@ public final class LockFreeAccount implements Account {
     }
 
     @Override
-    public boolean compareAndSubtract(Money originBalance, Money moneyToSubtract) {
+    public Currency currency() {
+        return currency;
+    }
+
+    @Override
+    public boolean compareAndSubtract(long originBalance, FastMoney moneyToSubtract) {
+        moneyToSubtract.requireSameCurrency(currency);
         validateNonNegativeWithdraw(moneyToSubtract);
-        if (!balance.get().equals(originBalance)) {
+        if (balance.get() != originBalance) {
             return false;
         }
-        var expected = this.balance.get();
-        validateEnoughFunds(moneyToSubtract);
-        return this.balance.compareAndSet(expected, expected.subtract(moneyToSubtract));
+        validateEnoughFunds(originBalance, moneyToSubtract);
+        return this.balance.compareAndSet(originBalance, originBalance - moneyToSubtract.minorUnits());
     }
 
     @Override
-    public boolean compareAndAdd(Money originBalance, Money moneyToAdd) {
-        if (!balance.get().equals(originBalance)) {
+    public boolean compareAndAdd(long originBalance, FastMoney moneyToAdd) {
+        moneyToAdd.requireSameCurrency(currency);
+        if (balance.get() != originBalance) {
             return false;
         }
-        var expected = this.balance.get();
-        return this.balance.compareAndSet(expected, expected.add(moneyToAdd));
+        return this.balance.compareAndSet(originBalance, Math.addExact(originBalance, moneyToAdd.minorUnits()));
     }
 
-    public Money balance() {
+    @Override
+    public long balanceMinorUnits() {
         return balance.get();
     }
+
+    @Override
+    public long heldMinorUnits() {
+        return held.get();
+    }
+
+    @Override
+    public void addHeld(long minorUnits) {
+        held.addAndGet(minorUnits);
+    }
 }
@@ -1,19 +1,28 @@
 package org.example.bank.domain.account;
 
+import java.util.Currency;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.example.bank.domain.exceptions.InsufficientFundsException;
 import org.example.bank.domain.exceptions.NegativeTransferAmountException;
+import org.example.bank.domain.money.FastMoney;
 import org.example.bank.domain.money.Money;
 
 public final class ReadWriteLockAccount implements Account {
 
     private final AccountId id;
-    private Money balance;
+    private final Currency currency;
+    private long balance;
+    private long held;
     private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
 
     public ReadWriteLockAccount(AccountId id, Money balance) {
+        this(id, FastMoney.of(balance));
+    }
+
+    public ReadWriteLockAccount(AccountId id, FastMoney balance) {
         this.id = id;
-        this.balance = balance;
+        this.currency = balance.currency();
+        this.balance = balance.minorUnits();
     }
 
     public ReadWriteLockAccount(String id, Money balance) {
@@ -21,35 +30,37 @@ public final class ReadWriteLockAccount implements Account {
     }
 
     @Override
-    public ReadWriteLockAccount withdraw(Money amount) {
+    public ReadWriteLockAccount withdraw(FastMoney amount) {
         lock.writeLock().lock();
         try {
+            amount.requireSameCurrency(currency);
             validateEnoughFunds(amount);
             validateNonNegativeWithdraw(amount);
-            this.balance = this.balance.subtract(amount);
+            this.balance = Math.subtractExact(this.balance, amount.minorUnits());
             return this;
         } finally {
             lock.writeLock().unlock();
         }
     }
 
-    private void validateNonNegativeWithdraw(Money amount) {
+    private void validateNonNegativeWithdraw(FastMoney amount) {
         if (amount.isNegative()) {
             throw new NegativeTransferAmountException();
         }
     }
 
-    private void validateEnoughFunds(Money amount) {
-        if (balance.amount().compareTo(amount.amount()) < 0) {
+    private void validateEnoughFunds(FastMoney amount) {
+        if (balance < amount.minorUnits()) {
             throw new InsufficientFundsException();
         }
     }
 
     @Override
-    public ReadWriteLockAccount deposit(Money amount) {
+    public ReadWriteLockAccount deposit(FastMoney amount) {
         lock.writeLock().lock();
         try {
-            this.balance = this.balance.add(amount);
+            amount.requireSameCurrency(currency);
+            this.balance = Math.addExact(this.balance, amount.minorUnits());
         } finally {
             lock.writeLock().unlock();
         }
@@ -62,24 +73,40 @@ public final class ReadWriteLockAccount implements Account {
     }
 
     @Override
-    public boolean compareAndSubtract(Money originBalance, Money moneyToSubtract) {
-        if (!balance().equals(originBalance)) {
-            return false;
+    public Currency currency() {
+        return currency;
+    }
+
+    @Override
+    public boolean compareAndSubtract(long originBalance, FastMoney moneyToSubtract) {
+        lock.writeLock().lock();
+        try {
+            if (balance != originBalance) {
+                return false;
+            }
+            withdraw(moneyToSubtract);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
         }
-        withdraw(moneyToSubtract);
-        return true;
     }
 
     @Override
-    public boolean compareAndAdd(Money originBalance, Money moneyToAdd) {
-        if (!balance().equals(originBalance)) {
-            return false;
+    public boolean compareAndAdd(long originBalance, FastMoney moneyToAdd) {
+        lock.writeLock().lock();
+        try {
+            if (balance != originBalance) {
+                return false;
+            }
+            deposit(moneyToAdd);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
         }
-        deposit(moneyToAdd);
-        return true;
     }
 
-    public synchronized Money balance() {
+    @Override
+    public long balanceMinorUnits() {
         lock.readLock().lock();
         try {
             return balance;
@@ -87,4 +114,34 @@ public final class ReadWriteLockAccount implements Account {
             lock.readLock().unlock();
         }
     }
+
+    @Override
+    public long heldMinorUnits() {
+        lock.readLock().lock();
+        try {
+            return held;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void addHeld(long minorUnits) {
+        lock.writeLock().lock();
+        try {
+            held += minorUnits;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public synchronized Money balance() {
+        lock.readLock().lock();
+        try {
+            return FastMoney.toMoney(balance, currency);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
 }
@@ -0,0 +1,160 @@
+package org.example.bank.domain.account;
+
+import java.util.Currency;
+import java.util.concurrent.locks.StampedLock;
+import org.example.bank.domain.exceptions.InsufficientFundsException;
+import org.example.bank.domain.exceptions.NegativeTransferAmountException;
+import org.example.bank.domain.money.FastMoney;
+import org.example.bank.domain.money.Money;
+
+/**
+ * Account for read-heavy traffic: changes take a {@link StampedLock} write lock, while balance reads are optimistic
+ * reads that just retry if a write overlapped them. A read never blocks and never writes to the lock, so any number of
+ * readers share the account's cache lines without invalidating them for one another.
+ */
+public final class StampedLockAccount implements Account {
+
+    private final AccountId id;
+    private final Currency currency;
+    private final StampedLock lock = new StampedLock();
+    private long balance;
+    private long held;
+
+    public StampedLockAccount(AccountId id, Money balance) {
+        this(id, FastMoney.of(balance));
+    }
+
+    public StampedLockAccount(AccountId id, FastMoney balance) {
+        this.id = id;
+        this.currency = balance.currency();
+        this.balance = balance.minorUnits();
+    }
+
+    public StampedLockAccount(String id, Money balance) {
+        this(new SimpleAccountId(id), balance);
+    }
+
+    @Override
+    public StampedLockAccount withdraw(FastMoney amount) {
+        amount.requireSameCurrency(currency);
+        validateNonNegativeWithdraw(amount);
+        var stamp = lock.writeLock();
+        try {
+            validateEnoughFunds(balance, amount);
+            balance -= amount.minorUnits();
+            return this;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public StampedLockAccount deposit(FastMoney amount) {
+        amount.requireSameCurrency(currency);
+        var stamp = lock.writeLock();
+        try {
+            balance = Math.addExact(balance, amount.minorUnits());
+            return this;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public boolean compareAndSubtract(long originBalance, FastMoney moneyToSubtract) {
+        moneyToSubtract.requireSameCurrency(currency);
+        validateNonNegativeWithdraw(moneyToSubtract);
+        var stamp = lock.writeLock();
+        try {
+            if (balance != originBalance) {
+                return false;
+            }
+            validateEnoughFunds(balance, moneyToSubtract);
+            balance -= moneyToSubtract.minorUnits();
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public boolean compareAndAdd(long originBalance, FastMoney moneyToAdd) {
+        moneyToAdd.requireSameCurrency(currency);
+        var stamp = lock.writeLock();
+        try {
+            if (balance != originBalance) {
+                return false;
+            }
+            balance = Math.addExact(balance, moneyToAdd.minorUnits());
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public long balanceMinorUnits() {
+        while (true) {
+            var stamp = lock.tryOptimisticRead();
+            var value = balance;
+            if (stamp != 0 && lock.validate(stamp)) {
+                return value;
+            }
+            // A write is in progress: it only lasts a few instructions, so wait it out instead of taking the read lock
+            Thread.onSpinWait();
+        }
+    }
+
+    @Override
+    public long heldMinorUnits() {
+        while (true) {
+            var stamp = lock.tryOptimisticRead();
+            var value = held;
+            if (stamp != 0 && lock.validate(stamp)) {
+                return value;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    @Override
+    public void addHeld(long minorUnits) {
+        var stamp = lock.writeLock();
+        try {
+            held += minorUnits;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public AccountId id() {
+        return id;
+    }
+
+    @Override
+    public Currency currency() {
+        return currency;
+    }
+
+    private static void validateNonNegativeWithdraw(FastMoney amount) {
+        if (amount.isNegative()) {
+            throw new NegativeTransferAmountException();
+        }
+    }
+
+    private static void validateEnoughFunds(long balance, FastMoney amount) {
+        if (balance < amount.minorUnits()) {
+            throw new InsufficientFundsException();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "StampedLockAccount{" +
+               "id=" + id +
+               ", balance=" + balanceMinorUnits() +
+               ", currency=" + currency +
+               '}';
+    }
+}
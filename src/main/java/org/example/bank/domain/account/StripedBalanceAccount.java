@@ -0,0 +1,215 @@
+package org.example.bank.domain.account;
+
+import java.util.Currency;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import org.example.bank.domain.exceptions.InsufficientFundsException;
+import org.example.bank.domain.exceptions.NegativeTransferAmountException;
+import org.example.bank.domain.money.FastMoney;
+import org.example.bank.domain.money.Money;
+
+/**
+ * Account for designated hot accounts, such as merchants receiving deposits from many threads at once. The balance is
+ * split over stripes, like a {@link java.util.concurrent.atomic.LongAdder}, each on cache lines of its own, and every
+ * thread deposits into the stripe its id hashes to, so deposits scale with cores instead of all hitting one cell.
+ * <p>
+ * No stripe ever goes negative, so the balance can't either. A withdrawal takes the whole amount from the first stripe
+ * that covers it, its own first. When none does, it collapses: holding a lock, it gathers the stripes into its own
+ * one and withdraws from there, or fails if even all of them fall short. Withdrawals that find no stripe covering them
+ * while a collapse moves funds around queue behind it, so they never fail for funds that were only in flight.
+ * <p>
+ * Reading the balance sums the stripes, retrying while a collapse runs. Like a {@code LongAdder} sum it is exact when
+ * no deposit or withdrawal runs at the same time, and otherwise includes some of them.
+ * <p>
+ * There is no single cell to compare against, so the compare-and-set operations treat the expected balance only as a
+ * hint: subtracting succeeds whenever the funds are there and adding always does. Repositories and strategies that
+ * keep balances their own way, such as the descriptor strategy or the off-heap and sharded repositories, copy the
+ * balance when the account is registered and don't stripe it.
+ */
+public final class StripedBalanceAccount implements Account {
+
+    /**
+     * Longs per stripe, two cache lines, so the adjacent line prefetcher doesn't pair stripes either.
+     */
+    private static final int STRIDE = 16;
+
+    private final AccountId id;
+    private final Currency currency;
+    private final AtomicLongArray cells;
+    private final int mask;
+    private final ReentrantLock collapseLock = new ReentrantLock();
+    private final AtomicInteger collapses = new AtomicInteger();
+    /**
+     * Holds are rare next to the deposits the stripes are for, so what is on hold takes a single cell.
+     */
+    private final AtomicLong held = new AtomicLong();
+
+    /**
+     * Stripes as many as the cores, rounded up to a power of two.
+     */
+    public StripedBalanceAccount(AccountId id, Money balance) {
+        this(id, balance, Runtime.getRuntime().availableProcessors());
+    }
+
+    public StripedBalanceAccount(AccountId id, Money balance, int stripes) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("An account needs at least a stripe, was " + stripes);
+        }
+        var size = stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.id = id;
+        this.currency = balance.currency();
+        this.cells = new AtomicLongArray(size * STRIDE);
+        this.mask = size - 1;
+        cells.set(0, FastMoney.of(balance).minorUnits());
+    }
+
+    @Override
+    public StripedBalanceAccount withdraw(FastMoney amount) {
+        amount.requireSameCurrency(currency);
+        validateNonNegativeWithdraw(amount);
+        if (!take(amount.minorUnits())) {
+            throw new InsufficientFundsException();
+        }
+        return this;
+    }
+
+    @Override
+    public StripedBalanceAccount deposit(FastMoney amount) {
+        amount.requireSameCurrency(currency);
+        add(cell(home()), amount.minorUnits());
+        return this;
+    }
+
+    @Override
+    public long balanceMinorUnits() {
+        while (true) {
+            var before = collapses.get();
+            if ((before & 1) == 0) {
+                var sum = 0L;
+                for (int stripe = 0; stripe <= mask; stripe++) {
+                    sum += cells.get(cell(stripe));
+                }
+                if (collapses.get() == before) {
+                    return sum;
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    @Override
+    public long heldMinorUnits() {
+        return held.get();
+    }
+
+    @Override
+    public void addHeld(long minorUnits) {
+        held.addAndGet(minorUnits);
+    }
+
+    @Override
+    public Currency currency() {
+        return currency;
+    }
+
+    @Override
+    public AccountId id() {
+        return id;
+    }
+
+    /**
+     * Withdraws whenever the funds are there, whatever the balance was expected to be.
+     *
+     * @return false when the funds aren't there
+     */
+    @Override
+    public boolean compareAndSubtract(long originBalance, FastMoney moneyToSubtract) {
+        moneyToSubtract.requireSameCurrency(currency);
+        validateNonNegativeWithdraw(moneyToSubtract);
+        return take(moneyToSubtract.minorUnits());
+    }
+
+    /**
+     * Always deposits, whatever the balance was expected to be.
+     */
+    @Override
+    public boolean compareAndAdd(long originBalance, FastMoney moneyToAdd) {
+        deposit(moneyToAdd);
+        return true;
+    }
+
+    public int stripes() {
+        return mask + 1;
+    }
+
+    private boolean take(long minorUnits) {
+        var home = home();
+        for (int i = 0; i <= mask; i++) {
+            if (takeFrom(cell((home + i) & mask), minorUnits)) {
+                return true;
+            }
+        }
+        return collapseAndTake(home, minorUnits);
+    }
+
+    private boolean collapseAndTake(int home, long minorUnits) {
+        collapseLock.lock();
+        collapses.incrementAndGet();
+        try {
+            var target = cell(home);
+            for (int i = 1; i <= mask && cells.get(target) < minorUnits; i++) {
+                var stripe = cell((home + i) & mask);
+                add(target, cells.getAndSet(stripe, 0));
+            }
+            return takeFrom(target, minorUnits);
+        } finally {
+            collapses.incrementAndGet();
+            collapseLock.unlock();
+        }
+    }
+
+    private boolean takeFrom(int cell, long minorUnits) {
+        while (true) {
+            var balance = cells.get(cell);
+            if (balance < minorUnits) {
+                return false;
+            }
+            if (cells.compareAndSet(cell, balance, balance - minorUnits)) {
+                return true;
+            }
+        }
+    }
+
+    private void add(int cell, long minorUnits) {
+        while (true) {
+            var balance = cells.get(cell);
+            if (cells.compareAndSet(cell, balance, Math.addExact(balance, minorUnits))) {
+                return;
+            }
+        }
+    }
+
+    private int home() {
+        return (int) ((Thread.currentThread().threadId() * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+
+    private static int cell(int stripe) {
+        return stripe * STRIDE;
+    }
+
+    private static void validateNonNegativeWithdraw(FastMoney amount) {
+        if (amount.isNegative()) {
+            throw new NegativeTransferAmountException();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "StripedBalanceAccount{" +
+               "id=" + id +
+               ", stripes=" + stripes() +
+               '}';
+    }
+}
@@ -1,9 +1,18 @@
 package org.example.bank.domain.account.repository;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import org.example.bank.domain.account.Account;
 import org.example.bank.domain.account.AccountId;
+import org.example.bank.domain.audit.BalanceAudit;
+import org.example.bank.domain.money.ExchangeRates;
+import org.example.bank.domain.money.FastMoney;
 import org.example.bank.domain.money.Money;
+import org.example.bank.domain.transfer.RejectionReason;
+import org.example.bank.domain.transfer.SplitLeg;
+import org.example.bank.domain.transfer.TransferRequest;
+import org.example.bank.domain.transfer.TransferResult;
 
 public interface AccountRepository {
 
@@ -11,7 +20,100 @@ public interface AccountRepository {
 
     Money getBalance(AccountId id);
 
-    void transfer(Money amount, AccountId origin, AccountId destiny);
+    default void transfer(Money amount, AccountId origin, AccountId destiny) {
+        transfer(FastMoney.of(amount), origin, destiny);
+    }
+
+    /**
+     * Throwing flavour of {@link #tryTransfer}.
+     */
+    default void transfer(FastMoney amount, AccountId origin, AccountId destiny) {
+        tryTransfer(amount, origin, destiny).orThrow();
+    }
+
+    /**
+     * Applies the transfer and reports a rejection as a result, without building any exception, so rejected transfers
+     * cost about the same as successful ones.
+     */
+    TransferResult tryTransfer(FastMoney amount, AccountId origin, AccountId destiny);
+
+    /**
+     * The transfer a request describes, finding the accounts through its handles when the repository hands them out.
+     */
+    default TransferResult tryTransfer(TransferRequest request) {
+        return tryTransfer(request.amount(), request.origin(), request.destiny());
+    }
+
+    /**
+     * A handle to find the account of {@code id} by in later {@link TransferRequest}s without looking the id up again.
+     * Handles are only valid for the repository that handed them out, and only as hints: a request is still applied
+     * to the accounts of its ids.
+     *
+     * @return the handle, or {@link TransferRequest#NO_HANDLE} if the account is missing or the repository doesn't
+     * hand them out
+     */
+    default int handleOf(AccountId id) {
+        return TransferRequest.NO_HANDLE;
+    }
+
+    /**
+     * Transfer between accounts that may hold different currencies: the amount leaves the origin in its currency and
+     * the destiny is credited with it converted at the current {@code rates}. Pairs without a rate are rejected as a
+     * currency mismatch.
+     * <p>
+     * By default the repository only takes the transfers that need no conversion and rejects the others as a currency
+     * mismatch; repositories that can credit a different amount than they debit override it.
+     */
+    default TransferResult tryTransfer(FastMoney amount, AccountId origin, AccountId destiny, ExchangeRates rates) {
+        var destinyAccount = getAccount(destiny);
+        if (destinyAccount.isPresent() && destinyAccount.get().currency() != amount.currency()) {
+            return TransferResult.rejected(RejectionReason.CURRENCY_MISMATCH);
+        }
+        return tryTransfer(amount, origin, destiny);
+    }
 
     Optional<Account> getAccount(AccountId id);
+
+    /**
+     * Split transfer: withdraws the sum of the legs from the origin and deposits every leg in its destiny, all of it
+     * at once or nothing. Rejected as a whole when any account is missing, any leg is negative or in another currency
+     * than its accounts, or the origin can't cover the sum. Destinies may repeat and include the origin.
+     */
+    TransferResult trySplitTransfer(AccountId origin, List<SplitLeg> legs);
+
+    /**
+     * Puts {@code amount} of the balance of the account on hold: it leaves the balance, so no transfer can spend it,
+     * and stays in what the account has on hold until {@link #tryCaptureHold} pays it out or gives it back. Rejected
+     * like a transfer out of the account.
+     */
+    TransferResult tryHold(FastMoney amount, AccountId account);
+
+    /**
+     * Pays {@code amount} of what the account has on hold into the destiny, or back into the balance of the account
+     * when the destiny is the account itself. Rejected as insufficient funds when the account has less on hold.
+     */
+    TransferResult tryCaptureHold(FastMoney amount, AccountId account, AccountId destiny);
+
+    /**
+     * Applies every request in order and reports each outcome; a rejected request doesn't stop the rest.
+     * Implementations override it to resolve each account and take each lock only once per batch.
+     */
+    default List<TransferResult> transferBatch(List<TransferRequest> requests) {
+        var results = new ArrayList<TransferResult>(requests.size());
+        for (var request : requests) {
+            results.add(tryTransfer(request.amount(), request.origin(), request.destiny()));
+        }
+        return results;
+    }
+
+    /**
+     * Totals, largest balances and balance histogram per currency, all taken at the same instant while transfers keep
+     * running. Repositories that can't take such a snapshot may report a scan instead, and say so.
+     *
+     * @param largest how many of the largest balances to report per currency
+     * @throws UnsupportedOperationException if the repository can neither take a snapshot nor scan its accounts
+     */
+    default BalanceAudit audit(int largest) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " can't take consistent snapshots");
+    }
 }
@@ -0,0 +1,8 @@
+package org.example.bank.domain.audit;
+
+import org.example.bank.domain.account.AccountId;
+import org.example.bank.domain.money.Money;
+
+public record AccountBalance(AccountId id, Money balance) {
+
+}
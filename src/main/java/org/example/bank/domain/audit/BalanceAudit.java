@@ -0,0 +1,17 @@
+package org.example.bank.domain.audit;
+
+import java.util.Currency;
+import java.util.Map;
+import org.example.bank.domain.money.FastMoney;
+import org.example.bank.domain.money.Money;
+
+/**
+ * Balances of every account as of a single instant: no transfer is counted on one side only.
+ */
+public record BalanceAudit(Map<Currency, CurrencyAudit> currencies) {
+
+    public Money total(Currency currency) {
+        var audit = currencies.get(currency);
+        return audit == null ? FastMoney.toMoney(0, currency) : audit.total();
+    }
+}
@@ -0,0 +1,171 @@
+package org.example.bank.domain.audit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.function.LongFunction;
+import org.example.bank.domain.account.AccountId;
+import org.example.bank.domain.money.FastMoney;
+
+/**
+ * Accumulates the figures of a {@link BalanceAudit} without allocating per account, so repositories can tally ranges
+ * of their book in parallel and {@link #merge} the partial results. Accounts are identified by whatever {@code long}
+ * reference the repository uses and only the largest ones are resolved to ids at the end.
+ * <p>
+ * Not thread safe: each tally belongs to a single task until it is merged.
+ */
+public final class BalanceTally {
+
+    private static final int BUCKETS = Long.SIZE;
+
+    private final int limit;
+    private final long[] accounts;
+    private final long[] totals;
+    private final long[][] histograms;
+    private final Largest[] largest;
+
+    /**
+     * @param currencies number of currencies, indexed from 0
+     * @param limit      how many of the largest balances to keep per currency
+     */
+    public BalanceTally(int currencies, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("The number of largest balances can't be negative");
+        }
+        this.limit = limit;
+        this.accounts = new long[currencies];
+        this.totals = new long[currencies];
+        this.histograms = new long[currencies][BUCKETS];
+        this.largest = new Largest[currencies];
+        for (int i = 0; i < currencies; i++) {
+            largest[i] = new Largest(limit);
+        }
+    }
+
+    public void add(int currency, long reference, long balance) {
+        accounts[currency]++;
+        totals[currency] = Math.addExact(totals[currency], balance);
+        histograms[currency][BUCKETS - Long.numberOfLeadingZeros(Math.max(balance, 0))]++;
+        largest[currency].offer(reference, balance);
+    }
+
+    /**
+     * Adds the figures of {@code other}, tallied over the same currencies, to this one.
+     */
+    public BalanceTally merge(BalanceTally other) {
+        for (int currency = 0; currency < accounts.length; currency++) {
+            accounts[currency] += other.accounts[currency];
+            totals[currency] = Math.addExact(totals[currency], other.totals[currency]);
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                histograms[currency][bucket] += other.histograms[currency][bucket];
+            }
+            var theirs = other.largest[currency];
+            for (int i = 0; i < theirs.size; i++) {
+                largest[currency].offer(theirs.references[i], theirs.balances[i]);
+            }
+        }
+        return this;
+    }
+
+    public BalanceAudit toAudit(IntFunction<Currency> currencies, LongFunction<AccountId> ids) {
+        var audits = new LinkedHashMap<Currency, CurrencyAudit>();
+        for (int index = 0; index < accounts.length; index++) {
+            if (accounts[index] == 0) {
+                continue;
+            }
+            var currency = currencies.apply(index);
+            var top = largest[index].descending();
+            var balances = new ArrayList<AccountBalance>(top.length);
+            for (var position : top) {
+                balances.add(new AccountBalance(
+                        ids.apply(largest[index].references[position]),
+                        FastMoney.toMoney(largest[index].balances[position], currency)
+                ));
+            }
+            audits.put(currency, new CurrencyAudit(
+                    currency,
+                    accounts[index],
+                    FastMoney.toMoney(totals[index], currency),
+                    List.copyOf(balances),
+                    histograms[index].clone()
+            ));
+        }
+        return new BalanceAudit(audits);
+    }
+
+    /**
+     * Bounded min-heap of balances: the root is the smallest of the largest seen so far.
+     */
+    private static final class Largest {
+
+        private final long[] balances;
+        private final long[] references;
+        private int size;
+
+        private Largest(int limit) {
+            this.balances = new long[limit];
+            this.references = new long[limit];
+        }
+
+        private void offer(long reference, long balance) {
+            if (size < balances.length) {
+                balances[size] = balance;
+                references[size] = reference;
+                siftUp(size++);
+            } else if (size > 0 && balance > balances[0]) {
+                balances[0] = balance;
+                references[0] = reference;
+                siftDown(0);
+            }
+        }
+
+        private Integer[] descending() {
+            var positions = new Integer[size];
+            Arrays.setAll(positions, i -> i);
+            Arrays.sort(positions, (a, b) -> Long.compare(balances[b], balances[a]));
+            return positions;
+        }
+
+        private void siftUp(int position) {
+            while (position > 0) {
+                var parent = (position - 1) >>> 1;
+                if (balances[parent] <= balances[position]) {
+                    return;
+                }
+                swap(parent, position);
+                position = parent;
+            }
+        }
+
+        private void siftDown(int position) {
+            while (true) {
+                var smallest = position;
+                var left = 2 * position + 1;
+                var right = left + 1;
+                if (left < size && balances[left] < balances[smallest]) {
+                    smallest = left;
+                }
+                if (right < size && balances[right] < balances[smallest]) {
+                    smallest = right;
+                }
+                if (smallest == position) {
+                    return;
+                }
+                swap(smallest, position);
+                position = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            var balance = balances[a];
+            balances[a] = balances[b];
+            balances[b] = balance;
+            var reference = references[a];
+            references[a] = references[b];
+            references[b] = reference;
+        }
+    }
+}
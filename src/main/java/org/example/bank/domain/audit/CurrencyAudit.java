@@ -0,0 +1,18 @@
+package org.example.bank.domain.audit;
+
+import java.util.Currency;
+import java.util.List;
+import org.example.bank.domain.money.Money;
+
+/**
+ * Audit figures of the accounts held in one currency.
+ *
+ * @param largest   the largest balances, in descending order
+ * @param histogram number of accounts per balance magnitude: bucket 0 counts the empty accounts and bucket {@code i}
+ *                  the ones holding between {@code 2^(i-1)} and {@code 2^i - 1} minor units
+ */
+public record CurrencyAudit(
+        Currency currency, long accounts, Money total, List<AccountBalance> largest, long[] histogram
+) {
+
+}
@@ -0,0 +1,8 @@
+package org.example.bank.domain.exceptions;
+
+public class CurrencyMismatchException extends IllegalArgumentException {
+
+    public CurrencyMismatchException() {
+        super("Currency mismatch");
+    }
+}
@@ -0,0 +1,8 @@
+package org.example.bank.domain.exceptions;
+
+public class HoldNotFoundException extends IllegalArgumentException {
+
+    public HoldNotFoundException() {
+        super("Hold not found or already resolved");
+    }
+}
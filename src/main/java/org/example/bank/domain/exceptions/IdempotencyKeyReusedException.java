@@ -0,0 +1,8 @@
+package org.example.bank.domain.exceptions;
+
+public class IdempotencyKeyReusedException extends IllegalArgumentException {
+
+    public IdempotencyKeyReusedException() {
+        super("Idempotency key already used for a different transfer");
+    }
+}
@@ -0,0 +1,14 @@
+package org.example.bank.domain.history;
+
+import java.time.Instant;
+import org.example.bank.domain.account.AccountId;
+import org.example.bank.domain.money.FastMoney;
+
+/**
+ * One leg of a transfer as seen from an account: negative when money left it, positive when it arrived.
+ *
+ * @param sequence where the movement sits in the history, to page on from it
+ */
+public record Movement(long sequence, Instant time, AccountId counterparty, FastMoney amount) {
+
+}
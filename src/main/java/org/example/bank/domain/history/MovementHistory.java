@@ -0,0 +1,95 @@
+package org.example.bank.domain.history;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import org.example.bank.domain.account.AccountId;
+import org.example.bank.domain.money.FastMoney;
+
+/**
+ * Movements of every account, newest first. The {@link #disabled()} instance records nothing, which is the default.
+ * <p>
+ * Movements are paged by sequence: every movement has one, larger for later ones, and a page starts right before the
+ * sequence of the last movement of the page before. Sequences of an account are not contiguous.
+ */
+public interface MovementHistory {
+
+    static MovementHistory disabled() {
+        return Disabled.INSTANCE;
+    }
+
+    /**
+     * Records both legs of a transfer that was applied, in the currency of the transfer.
+     */
+    default void record(FastMoney amount, AccountId origin, AccountId destiny) {
+        record(amount, amount, origin, destiny);
+    }
+
+    /**
+     * Records both legs of a transfer that was applied, each as much as its account moved: {@code debited} left the
+     * origin and {@code credited} reached the destiny, which differ across currencies.
+     */
+    void record(FastMoney debited, FastMoney credited, AccountId origin, AccountId destiny);
+
+    /**
+     * Visits the movements of an account from newest to oldest without allocating, as far back as they are kept.
+     *
+     * @param before   only movements with a smaller sequence, {@link Long#MAX_VALUE} to start with the latest one
+     * @param fromMillis only movements at or after this epoch milli
+     * @param toMillis   only movements before this epoch milli
+     * @return how many movements were visited, at most {@code limit}
+     */
+    int read(AccountId account, long before, long fromMillis, long toMillis, int limit, Visitor visitor);
+
+    default List<Movement> latest(AccountId account, int limit) {
+        return before(account, Long.MAX_VALUE, limit);
+    }
+
+    /**
+     * @param sequence the sequence of the last movement of the previous page
+     */
+    default List<Movement> before(AccountId account, long sequence, int limit) {
+        return page(account, sequence, Long.MIN_VALUE, Long.MAX_VALUE, limit);
+    }
+
+    /**
+     * @param from inclusive
+     * @param to   exclusive
+     */
+    default List<Movement> between(AccountId account, Instant from, Instant to, int limit) {
+        return page(account, Long.MAX_VALUE, from.toEpochMilli(), to.toEpochMilli(), limit);
+    }
+
+    private List<Movement> page(AccountId account, long before, long fromMillis, long toMillis, int limit) {
+        var movements = new ArrayList<Movement>(Math.min(limit, 64));
+        read(account, before, fromMillis, toMillis, limit,
+             (sequence, timeMillis, counterparty, minorUnits, currency) -> movements.add(new Movement(
+                     sequence, Instant.ofEpochMilli(timeMillis), counterparty, new FastMoney(minorUnits, currency)
+             )));
+        return movements;
+    }
+
+    @FunctionalInterface
+    interface Visitor {
+
+        void movement(long sequence, long timeMillis, AccountId counterparty, long minorUnits, Currency currency);
+    }
+
+    enum Disabled implements MovementHistory {
+        INSTANCE;
+
+        @Override
+        public void record(FastMoney amount, AccountId origin, AccountId destiny) {
+        }
+
+        @Override
+        public void record(FastMoney debited, FastMoney credited, AccountId origin, AccountId destiny) {
+        }
+
+        @Override
+        public int read(AccountId account, long before, long fromMillis, long toMillis, int limit, Visitor visitor) {
+            return 0;
+        }
+    }
+}
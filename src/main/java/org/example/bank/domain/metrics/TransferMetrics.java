@@ -0,0 +1,59 @@
+package org.example.bank.domain.metrics;
+
+import org.example.bank.domain.account.AccountId;
+import org.example.bank.domain.money.FastMoney;
+import org.example.bank.domain.transfer.RejectionReason;
+
+/**
+ * Hooks the hot path reports to. The {@link #disabled()} instance ignores everything and doesn't even read the clock,
+ * so uninstrumented code pays a couple of empty calls the JIT inlines away.
+ */
+public interface TransferMetrics {
+
+    static TransferMetrics disabled() {
+        return Disabled.INSTANCE;
+    }
+
+    /**
+     * @return the timestamp to hand back to {@link #transfer} once the transfer is over
+     */
+    long start();
+
+    /**
+     * @param rejection why the transfer was rejected, or null when it succeeded
+     */
+    void transfer(long start, FastMoney amount, AccountId origin, AccountId destiny, RejectionReason rejection);
+
+    /**
+     * A thread had to wait this long for a lock that was held by another one.
+     */
+    void lockWait(long nanos);
+
+    /**
+     * A compare-and-set lost against a concurrent update and had to be retried.
+     */
+    void casRetry();
+
+    enum Disabled implements TransferMetrics {
+        INSTANCE;
+
+        @Override
+        public long start() {
+            return 0;
+        }
+
+        @Override
+        public void transfer(
+                long start, FastMoney amount, AccountId origin, AccountId destiny, RejectionReason rejection
+        ) {
+        }
+
+        @Override
+        public void lockWait(long nanos) {
+        }
+
+        @Override
+        public void casRetry() {
+        }
+    }
+}
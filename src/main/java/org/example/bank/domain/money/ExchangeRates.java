@@ -0,0 +1,229 @@
+package org.example.bank.domain.money;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Currency;
+
+/**
+ * Exchange rates between currencies, for transfers between accounts that hold different ones.
+ * <p>
+ * The table is an immutable snapshot behind a volatile field: updates copy it, change the copy and publish it, so
+ * conversions never lock and a transfer that read the old snapshot just completes with it. Every rate is kept
+ * precomputed as the factor from minor units of one currency to minor units of the other, both as a 63 bit binary
+ * fixed-point number and as an integer fraction over a power of ten. Converting multiplies by the first and checks the
+ * result against the second, all in 128 bit integer arithmetic: no {@link BigDecimal} on the way, and the same result
+ * as the exact decimal product.
+ * <p>
+ * Conversions round towards zero to the minor unit of the target currency.
+ */
+public final class ExchangeRates {
+
+    private static final int MANTISSA_BITS = 63;
+    private static final int MIN_SHIFT = 1;
+    private static final int MAX_SHIFT = 127;
+    private static final int MAX_DECIMALS = 18;
+    private static final ExchangeRates NONE = new ExchangeRates();
+
+    private volatile Table table = new Table(new Currency[0], new Conversion[0]);
+
+    /**
+     * Rates for transfers within a single currency: amounts only convert to their own currency, and no rate can be set.
+     */
+    public static ExchangeRates none() {
+        return NONE;
+    }
+
+    /**
+     * A copy of the current rates, which later updates to either don't change: whatever converts with it gets the same
+     * result every time.
+     */
+    public ExchangeRates snapshot() {
+        var copy = new ExchangeRates();
+        copy.table = table;
+        return copy;
+    }
+
+    /**
+     * Sets how many units of {@code to} one unit of {@code from} buys. The opposite direction is a rate of its own.
+     * Writers are serialized, but conversions never wait for them.
+     *
+     * @throws IllegalArgumentException if the rate is not positive, is out of range or converts a currency to itself
+     */
+    public synchronized void setRate(Currency from, Currency to, BigDecimal rate) {
+        if (this == NONE) {
+            throw new UnsupportedOperationException("No rates can be set on ExchangeRates.none()");
+        }
+        if (from == to) {
+            throw new IllegalArgumentException("A currency always converts to itself at 1");
+        }
+        if (rate.signum() <= 0) {
+            throw new IllegalArgumentException("Rates must be positive");
+        }
+        var conversion = Conversion.of(rate, rate.movePointRight(FastMoney.scale(to) - FastMoney.scale(from)));
+        var next = table.including(from).including(to);
+        next.conversions[next.pair(next.indexOf(from), next.indexOf(to))] = conversion;
+        table = next;
+    }
+
+    /**
+     * @return the rate from one currency to the other, or null when there is none
+     */
+    public BigDecimal rate(Currency from, Currency to) {
+        if (from == to) {
+            return BigDecimal.ONE;
+        }
+        var conversion = table.conversion(from, to);
+        return conversion == null ? null : conversion.rate;
+    }
+
+    /**
+     * Converts at the current rate, rounding towards zero to the minor unit of the target currency.
+     *
+     * @return the converted amount, the same amount when it already is in {@code target}, or null when there is no
+     * rate between the currencies
+     * @throws ArithmeticException if the converted amount does not fit in a long
+     */
+    public FastMoney convert(FastMoney amount, Currency target) {
+        if (amount.currency() == target) {
+            return amount;
+        }
+        var conversion = table.conversion(amount.currency(), target);
+        if (conversion == null) {
+            return null;
+        }
+        var minorUnits = amount.minorUnits();
+        var converted = conversion.apply(Math.absExact(minorUnits));
+        return new FastMoney(minorUnits < 0 ? -converted : converted, target);
+    }
+
+    @Override
+    public String toString() {
+        return "ExchangeRates{" +
+               "currencies=" + Arrays.toString(table.currencies) +
+               '}';
+    }
+
+    /**
+     * Square matrix of every known currency against every other, flattened by rows. Never changed once published;
+     * a pair without a rate holds null.
+     */
+    private record Table(Currency[] currencies, Conversion[] conversions) {
+
+        /**
+         * A handful of currencies fit in a cache line or two, so a scan by reference beats hashing.
+         */
+        int indexOf(Currency currency) {
+            for (int i = 0; i < currencies.length; i++) {
+                if (currencies[i] == currency) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        int pair(int from, int to) {
+            return from * currencies.length + to;
+        }
+
+        Conversion conversion(Currency from, Currency to) {
+            var fromIndex = indexOf(from);
+            var toIndex = indexOf(to);
+            return fromIndex < 0 || toIndex < 0 ? null : conversions[pair(fromIndex, toIndex)];
+        }
+
+        /**
+         * A copy that knows the currency, to be changed before it is published.
+         */
+        Table including(Currency currency) {
+            var size = currencies.length;
+            var grown = indexOf(currency) < 0 ? size + 1 : size;
+            var copy = new Table(Arrays.copyOf(currencies, grown), new Conversion[grown * grown]);
+            if (grown > size) {
+                copy.currencies[size] = currency;
+            }
+            for (int from = 0; from < size; from++) {
+                System.arraycopy(conversions, from * size, copy.conversions, from * grown, size);
+            }
+            return copy;
+        }
+    }
+
+    /**
+     * The factor from minor units to minor units as {@code mantissa / 2^shift}, rounded up so it is never below the
+     * exact one, and as {@code numerator / denominator}, exact.
+     */
+    private record Conversion(BigDecimal rate, long mantissa, int shift, long numerator, long denominator) {
+
+        static Conversion of(BigDecimal rate, BigDecimal factor) {
+            var exact = factor.stripTrailingZeros();
+            if (exact.scale() < 0) {
+                exact = exact.setScale(0, RoundingMode.UNNECESSARY);
+            }
+            if (exact.scale() > MAX_DECIMALS || exact.unscaledValue().bitLength() >= Long.SIZE) {
+                throw new IllegalArgumentException("Rate out of range: " + rate);
+            }
+            var shift = shiftOf(exact, rate);
+            var numerator = exact.unscaledValue().longValueExact();
+            var denominator = BigInteger.TEN.pow(exact.scale()).longValueExact();
+            return new Conversion(rate, scaled(exact, shift).longValueExact(), shift, numerator, denominator);
+        }
+
+        /**
+         * {@code floor(minorUnits * factor)} for a non-negative amount. The fixed-point product is never below the
+         * exact one and at most a unit above it for any amount that converts to less than {@code 2^62}, which the
+         * integer fraction tells.
+         */
+        long apply(long minorUnits) {
+            var estimate = multiply(minorUnits, mantissa, shift);
+            while (estimate > 0 && compare(estimate, denominator, minorUnits, numerator) > 0) {
+                estimate--;
+            }
+            return estimate;
+        }
+
+        /**
+         * {@code floor(value * mantissa / 2^shift)}, with the product kept in 128 bits.
+         */
+        private static long multiply(long value, long mantissa, int shift) {
+            var high = Math.multiplyHigh(value, mantissa);
+            if (shift >= Long.SIZE) {
+                return high >>> (shift - Long.SIZE);
+            }
+            if (high >>> (shift - 1) != 0) {
+                throw new ArithmeticException("Converted amount overflows a long");
+            }
+            return (high << (Long.SIZE - shift)) | ((value * mantissa) >>> shift);
+        }
+
+        /**
+         * Compares the 128 bit products {@code a * b} and {@code c * d} of non-negative longs.
+         */
+        private static int compare(long a, long b, long c, long d) {
+            var high = Long.compare(Math.multiplyHigh(a, b), Math.multiplyHigh(c, d));
+            return high != 0 ? high : Long.compareUnsigned(a * b, c * d);
+        }
+
+        /**
+         * The shift that puts the factor, rounded up, in {@code [2^62, 2^63)} once scaled by it.
+         */
+        private static int shiftOf(BigDecimal factor, BigDecimal rate) {
+            var shift = MANTISSA_BITS - 1 - Math.getExponent(factor.doubleValue());
+            // The double exponent can be off by one around powers of two, and rounding up can carry into the next bit
+            for (int bits; shift >= MIN_SHIFT && shift <= MAX_SHIFT; shift += bits < MANTISSA_BITS ? 1 : -1) {
+                bits = scaled(factor, shift).bitLength();
+                if (bits == MANTISSA_BITS) {
+                    return shift;
+                }
+            }
+            throw new IllegalArgumentException("Rate out of range: " + rate);
+        }
+
+        private static BigInteger scaled(BigDecimal factor, int shift) {
+            return factor.multiply(new BigDecimal(BigInteger.ONE.shiftLeft(shift)))
+                         .setScale(0, RoundingMode.CEILING)
+                         .toBigIntegerExact();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package org.example.bank.domain.money;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+import org.example.bank.domain.exceptions.CurrencyMismatchException;
+
+/**
+ * Money held as a {@code long} count of the currency minor units (cents for EUR, yens for JPY), so it can be compared
+ * and added without allocating. Arithmetic is overflow checked and throws {@link ArithmeticException} instead of
+ * wrapping around.
+ * <p>
+ * Currencies are compared by reference: {@link Currency#getInstance} always hands out the same instance per code.
+ */
+public record FastMoney(long minorUnits, Currency currency) {
+
+    public FastMoney(long minorUnits, String currency) {
+        this(minorUnits, Currency.getInstance(currency));
+    }
+
+    /**
+     * @throws ArithmeticException if the amount has more decimals than the currency or does not fit in a long
+     */
+    public static FastMoney of(Money money) {
+        return new FastMoney(toMinorUnits(money.amount(), money.currency()), money.currency());
+    }
+
+    public static long toMinorUnits(BigDecimal amount, Currency currency) {
+        return amount.movePointRight(scale(currency)).longValueExact();
+    }
+
+    public static Money toMoney(long minorUnits, Currency currency) {
+        return new Money(BigDecimal.valueOf(minorUnits, scale(currency)), currency);
+    }
+
+    public static int scale(Currency currency) {
+        return Math.max(currency.getDefaultFractionDigits(), 0);
+    }
+
+    public Money toMoney() {
+        return toMoney(minorUnits, currency);
+    }
+
+    public FastMoney subtract(FastMoney subtrahend) {
+        requireSameCurrency(subtrahend.currency);
+        return new FastMoney(Math.subtractExact(minorUnits, subtrahend.minorUnits), currency);
+    }
+
+    public FastMoney add(FastMoney summand) {
+        requireSameCurrency(summand.currency);
+        return new FastMoney(Math.addExact(minorUnits, summand.minorUnits), currency);
+    }
+
+    public boolean isNegative() {
+        return minorUnits < 0;
+    }
+
+    public void requireSameCurrency(Currency other) {
+        if (currency != other) {
+            throw new CurrencyMismatchException();
+        }
+    }
+}
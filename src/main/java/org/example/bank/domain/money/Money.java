@@ -2,7 +2,11 @@ package org.example.bank.domain.money;
 
 import java.math.BigDecimal;
 import java.util.Currency;
+import org.example.bank.domain.exceptions.CurrencyMismatchException;
 
+/**
+ * Two amounts are equal when they are numerically equal, whatever the scale they were written with (10 == 10.00).
+ */
 public record Money(BigDecimal amount, Currency currency) {
 
     public Money(int amount, String currency) {
@@ -19,14 +23,14 @@ public record Money(BigDecimal amount, Currency currency) {
 
     public Money subtract(Money subtrahend) {
         if (!this.currency.equals(subtrahend.currency)) {
-            throw new IllegalArgumentException("Currency mismatch");
+            throw new CurrencyMismatchException();
         }
         return new Money(this.amount.subtract(subtrahend.amount), this.currency);
     }
 
     public Money add(Money summand) {
         if (!this.currency.equals(summand.currency)) {
-            throw new IllegalArgumentException("Currency mismatch");
+            throw new CurrencyMismatchException();
         }
         return new Money(this.amount.add(summand.amount), this.currency);
     }
@@ -34,4 +38,20 @@ public record Money(BigDecimal amount, Currency currency) {
     public boolean isNegative() {
         return this.amount.compareTo(BigDecimal.ZERO) < 0;
     }
-}
\ No newline at end of file
+
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (!(object instanceof Money money)) {
+            return false;
+        }
+        return amount.compareTo(money.amount) == 0 && currency.equals(money.currency);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * amount.stripTrailingZeros().hashCode() + currency.hashCode();
+    }
+}
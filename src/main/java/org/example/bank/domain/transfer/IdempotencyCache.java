@@ -0,0 +1,160 @@
+package org.example.bank.domain.transfer;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Outcomes of recent transfers by idempotency key, so a client that retries a transfer gets the outcome of the first
+ * attempt instead of moving the money twice.
+ * <p>
+ * Bounded in size and in time: it holds at most {@code capacity} keys, each for at most {@code retention}, so its
+ * memory stays the same however many keys go through it. Keys live in a {@link ConcurrentHashMap}, which makes a
+ * replay a lock-free lookup that at most sets a reference bit. New keys also take a slot of a ring swept by a CLOCK
+ * hand under a lock: the hand evicts the first key that expired or wasn't replayed since the hand last passed it, and
+ * spares the others once by clearing their bit. Keys whose transfer is still running are never evicted; retries
+ * arriving meanwhile wait for its outcome.
+ */
+public final class IdempotencyCache {
+
+    private final ConcurrentHashMap<String, Entry> entries;
+    private final Entry[] ring;
+    private final long retentionNanos;
+    private int hand;
+
+    /**
+     * @param capacity  most keys remembered at once
+     * @param retention how long a key is remembered at most
+     */
+    public IdempotencyCache(int capacity, Duration retention) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.entries = new ConcurrentHashMap<>(capacity);
+        this.ring = new Entry[capacity];
+        this.retentionNanos = retention.toNanos();
+    }
+
+    /**
+     * Runs the transfer the first time the key is seen, and returns the outcome of that run to every later request
+     * with the same key while it is remembered. An exception thrown by the transfer isn't remembered: requests waiting
+     * for it get the same exception, later ones run the transfer again.
+     *
+     * @return the outcome of the first run, or a {@link RejectionReason#KEY_REUSED} rejection when the key was used for
+     * a different transfer
+     * @throws IllegalStateException if more transfers are running than the cache can hold
+     */
+    public TransferResult deduplicate(
+            String key, TransferRequest request, Function<TransferRequest, TransferResult> transfer
+    ) {
+        while (true) {
+            var now = System.nanoTime();
+            var current = entries.get(key);
+            if (current != null && !current.stale(now)) {
+                return replay(current, request);
+            }
+            var entry = new Entry(key, request, now + retentionNanos);
+            var installed = current == null ? entries.putIfAbsent(key, entry) == null
+                                            : entries.replace(key, current, entry);
+            if (installed) {
+                return run(entry, transfer);
+            }
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private static TransferResult replay(Entry entry, TransferRequest request) {
+        if (!entry.referenced) {
+            // Only written when clear, so replays of a popular key don't keep invalidating its cache line
+            entry.referenced = true;
+        }
+        if (!entry.request.equals(request)) {
+            return TransferResult.rejected(RejectionReason.KEY_REUSED);
+        }
+        try {
+            return entry.outcome.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private TransferResult run(Entry entry, Function<TransferRequest, TransferResult> transfer) {
+        try {
+            admit(entry);
+            var result = transfer.apply(entry.request);
+            entry.outcome.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            entries.remove(entry.key, entry);
+            entry.outcome.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Gives the entry a slot of the ring, evicting the key that held it.
+     */
+    private void admit(Entry entry) {
+        synchronized (ring) {
+            var now = System.nanoTime();
+            // Two turns: the first one may only clear reference bits
+            for (int step = 0; step < 2 * ring.length; step++) {
+                var victim = ring[hand];
+                if (victim == null || victim.evictable(now)) {
+                    if (victim != null) {
+                        entries.remove(victim.key, victim);
+                    }
+                    ring[hand] = entry;
+                    advance();
+                    return;
+                }
+                victim.referenced = false;
+                advance();
+            }
+        }
+        throw new IllegalStateException("Every remembered transfer is still running");
+    }
+
+    private void advance() {
+        hand = hand + 1 == ring.length ? 0 : hand + 1;
+    }
+
+    @Override
+    public String toString() {
+        return "IdempotencyCache{" +
+               "size=" + entries.size() +
+               ", capacity=" + ring.length +
+               '}';
+    }
+
+    private static final class Entry {
+
+        final String key;
+        final TransferRequest request;
+        final long expiresAt;
+        final CompletableFuture<TransferResult> outcome = new CompletableFuture<>();
+        volatile boolean referenced;
+
+        Entry(String key, TransferRequest request, long expiresAt) {
+            this.key = key;
+            this.request = request;
+            this.expiresAt = expiresAt;
+        }
+
+        /**
+         * Expired, once its transfer finished: a transfer outliving the retention is still deduplicated.
+         */
+        boolean stale(long now) {
+            return outcome.isDone() && now - expiresAt >= 0;
+        }
+
+        boolean evictable(long now) {
+            return outcome.isDone() && (outcome.isCompletedExceptionally() || stale(now) || !referenced);
+        }
+    }
+}
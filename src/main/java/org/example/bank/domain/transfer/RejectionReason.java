@@ -0,0 +1,101 @@
+package org.example.bank.domain.transfer;
+
+import org.example.bank.domain.account.Account;
+import org.example.bank.domain.exceptions.AccountNotFoundException;
+import org.example.bank.domain.exceptions.CurrencyMismatchException;
+import org.example.bank.domain.exceptions.HoldNotFoundException;
+import org.example.bank.domain.exceptions.IdempotencyKeyReusedException;
+import org.example.bank.domain.exceptions.InsufficientFundsException;
+import org.example.bank.domain.exceptions.NegativeTransferAmountException;
+import org.example.bank.domain.money.FastMoney;
+
+public enum RejectionReason {
+    ACCOUNT_NOT_FOUND,
+    NEGATIVE_AMOUNT,
+    CURRENCY_MISMATCH,
+    INSUFFICIENT_FUNDS,
+    KEY_REUSED,
+    HOLD_NOT_FOUND;
+
+    /**
+     * Checks a transfer between two resolved accounts (null when not found) without touching them.
+     *
+     * @return why it would be rejected, or null when it can be applied as of the current origin balance
+     */
+    public static RejectionReason of(Account origin, Account destiny, FastMoney amount) {
+        return of(origin, amount, destiny, amount);
+    }
+
+    /**
+     * Checks a transfer that withdraws {@code debit} from the origin and deposits {@code credit}, which may be in
+     * another currency, in the destiny. A null credit means it could not be converted to the destiny currency.
+     *
+     * @return why it would be rejected, or null when it can be applied as of the current origin balance
+     */
+    public static RejectionReason of(Account origin, FastMoney debit, Account destiny, FastMoney credit) {
+        if (origin == null || destiny == null) {
+            return ACCOUNT_NOT_FOUND;
+        }
+        if (credit == null || debit.currency() != origin.currency() || credit.currency() != destiny.currency()) {
+            return CURRENCY_MISMATCH;
+        }
+        if (debit.isNegative()) {
+            return NEGATIVE_AMOUNT;
+        }
+        if (origin.balanceMinorUnits() < debit.minorUnits()) {
+            return INSUFFICIENT_FUNDS;
+        }
+        return null;
+    }
+
+    /**
+     * Checks paying {@code amount} of what the origin has on hold into the destiny, which may be the origin itself.
+     *
+     * @return why it would be rejected, or null when it can be applied as of what the origin has on hold
+     */
+    public static RejectionReason ofCapture(Account origin, Account destiny, FastMoney amount) {
+        if (origin == null || destiny == null) {
+            return ACCOUNT_NOT_FOUND;
+        }
+        if (amount.currency() != origin.currency() || amount.currency() != destiny.currency()) {
+            return CURRENCY_MISMATCH;
+        }
+        if (amount.isNegative()) {
+            return NEGATIVE_AMOUNT;
+        }
+        if (origin.heldMinorUnits() < amount.minorUnits()) {
+            return INSUFFICIENT_FUNDS;
+        }
+        return null;
+    }
+
+    /**
+     * The exception the throwing API signals this rejection with. Only built on demand, since filling its stack trace
+     * is what makes throwing expensive.
+     */
+    public RuntimeException exception() {
+        return switch (this) {
+            case ACCOUNT_NOT_FOUND -> new AccountNotFoundException();
+            case NEGATIVE_AMOUNT -> new NegativeTransferAmountException();
+            case CURRENCY_MISMATCH -> new CurrencyMismatchException();
+            case INSUFFICIENT_FUNDS -> new InsufficientFundsException();
+            case KEY_REUSED -> new IdempotencyKeyReusedException();
+            case HOLD_NOT_FOUND -> new HoldNotFoundException();
+        };
+    }
+
+    /**
+     * @return the reason signalled by a domain exception, or null when it isn't a rejection
+     */
+    public static RejectionReason of(RuntimeException exception) {
+        return switch (exception) {
+            case AccountNotFoundException e -> ACCOUNT_NOT_FOUND;
+            case NegativeTransferAmountException e -> NEGATIVE_AMOUNT;
+            case CurrencyMismatchException e -> CURRENCY_MISMATCH;
+            case InsufficientFundsException e -> INSUFFICIENT_FUNDS;
+            case IdempotencyKeyReusedException e -> KEY_REUSED;
+            case HoldNotFoundException e -> HOLD_NOT_FOUND;
+            default -> null;
+        };
+    }
+}
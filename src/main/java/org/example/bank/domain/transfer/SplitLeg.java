@@ -0,0 +1,15 @@
+package org.example.bank.domain.transfer;
+
+import org.example.bank.domain.account.AccountId;
+import org.example.bank.domain.money.FastMoney;
+import org.example.bank.domain.money.Money;
+
+/**
+ * One of the credits a split transfer pays out of its single origin.
+ */
+public record SplitLeg(FastMoney amount, AccountId destiny) {
+
+    public SplitLeg(Money amount, AccountId destiny) {
+        this(FastMoney.of(amount), destiny);
+    }
+}
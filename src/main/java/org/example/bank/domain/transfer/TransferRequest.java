@@ -0,0 +1,26 @@
+package org.example.bank.domain.transfer;
+
+import org.example.bank.domain.account.AccountId;
+import org.example.bank.domain.money.FastMoney;
+import org.example.bank.domain.money.Money;
+
+/**
+ * A transfer to apply, such as in a batch. The handles, when known, let repositories that hand them out find the
+ * accounts without looking their ids up; repositories that don't ignore them.
+ *
+ * @see org.example.bank.domain.account.repository.AccountRepository#handleOf
+ */
+public record TransferRequest(
+        FastMoney amount, AccountId origin, AccountId destiny, int originHandle, int destinyHandle
+) {
+
+    public static final int NO_HANDLE = -1;
+
+    public TransferRequest(FastMoney amount, AccountId origin, AccountId destiny) {
+        this(amount, origin, destiny, NO_HANDLE, NO_HANDLE);
+    }
+
+    public TransferRequest(Money amount, AccountId origin, AccountId destiny) {
+        this(FastMoney.of(amount), origin, destiny);
+    }
+}
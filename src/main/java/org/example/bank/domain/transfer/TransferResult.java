@@ -0,0 +1,82 @@
+package org.example.bank.domain.transfer;
+
+import java.util.Arrays;
+
+/**
+ * Outcome of a single transfer. Instances are shared constants, so reporting a result never allocates.
+ */
+public sealed interface TransferResult permits TransferResult.Success, TransferResult.Rejected {
+
+    static TransferResult success() {
+        return Success.INSTANCE;
+    }
+
+    static TransferResult rejected(RejectionReason reason) {
+        return Rejected.BY_REASON[reason.ordinal()];
+    }
+
+    /**
+     * Runs a transfer that signals rejections with the domain exceptions and turns them into a result. Any other
+     * exception is propagated.
+     */
+    static TransferResult of(Runnable transfer) {
+        try {
+            transfer.run();
+            return success();
+        } catch (RuntimeException e) {
+            var reason = RejectionReason.of(e);
+            if (reason == null) {
+                throw e;
+            }
+            return rejected(reason);
+        }
+    }
+
+    boolean isSuccess();
+
+    /**
+     * @return why the transfer was rejected, or null when it succeeded
+     */
+    RejectionReason reason();
+
+    /**
+     * Bridge to the throwing API: does nothing on success and throws the exception of the rejection otherwise.
+     */
+    void orThrow();
+
+    record Success() implements TransferResult {
+
+        private static final Success INSTANCE = new Success();
+
+        @Override
+        public boolean isSuccess() {
+            return true;
+        }
+
+        @Override
+        public RejectionReason reason() {
+            return null;
+        }
+
+        @Override
+        public void orThrow() {
+        }
+    }
+
+    record Rejected(RejectionReason reason) implements TransferResult {
+
+        private static final Rejected[] BY_REASON = Arrays.stream(RejectionReason.values())
+                                                          .map(Rejected::new)
+                                                          .toArray(Rejected[]::new);
+
+        @Override
+        public boolean isSuccess() {
+            return false;
+        }
+
+        @Override
+        public void orThrow() {
+            throw reason.exception();
+        }
+    }
+}
@@ -1,27 +1,31 @@
 package org.example.bank.infraestructure.account.repository.inmemory;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
 import java.util.Optional;
 import org.example.bank.domain.account.Account;
 import org.example.bank.domain.account.AccountId;
 import org.example.bank.domain.account.repository.AccountRepository;
 import org.example.bank.domain.exceptions.AccountNotFoundException;
+import org.example.bank.domain.money.ExchangeRates;
+import org.example.bank.domain.money.FastMoney;
 import org.example.bank.domain.money.Money;
+import org.example.bank.domain.transfer.SplitLeg;
+import org.example.bank.domain.transfer.TransferRequest;
+import org.example.bank.domain.transfer.TransferResult;
 import org.example.bank.infraestructure.account.repository.inmemory.strategy.TransferStrategy;
 
 public class InMemoryAccountRepository implements AccountRepository {
 
-    private final Map<AccountId, Account> accounts;
+    private final IndexedAccountMap accounts;
     private final TransferStrategy transferStrategy;
 
     public InMemoryAccountRepository(TransferStrategy transferStrategy) {
-        this.accounts = new HashMap<>();
+        this.accounts = new IndexedAccountMap();
         this.transferStrategy = transferStrategy;
     }
 
     @Override public void registerAccount(Account anAccount) {
-        accounts.putIfAbsent(anAccount.id(), anAccount);
+        accounts.putIfAbsent(anAccount.id(), transferStrategy.adopt(anAccount));
     }
 
     @Override public Money getBalance(AccountId id) {
@@ -32,8 +36,42 @@ public class InMemoryAccountRepository implements AccountRepository {
         return account.balance();
     }
 
-    @Override public void transfer(Money amount, AccountId origin, AccountId destiny) {
-        this.transferStrategy.transfer(accounts, amount, origin, destiny);
+    @Override public TransferResult tryTransfer(FastMoney amount, AccountId origin, AccountId destiny) {
+        return this.transferStrategy.tryTransfer(accounts, amount, origin, destiny);
+    }
+
+    @Override
+    public TransferResult tryTransfer(TransferRequest request) {
+        return this.transferStrategy.tryTransfer(
+                TransferStrategy.origin(accounts, request), TransferStrategy.destiny(accounts, request),
+                request.amount(), ExchangeRates.none()
+        );
+    }
+
+    @Override
+    public int handleOf(AccountId id) {
+        var handle = accounts.handleOf(id);
+        return handle >= 0 ? handle : TransferRequest.NO_HANDLE;
+    }
+
+    @Override
+    public TransferResult tryTransfer(FastMoney amount, AccountId origin, AccountId destiny, ExchangeRates rates) {
+        return this.transferStrategy.tryTransfer(accounts, amount, origin, destiny, rates);
+    }
+
+    @Override
+    public TransferResult trySplitTransfer(AccountId origin, List<SplitLeg> legs) {
+        return this.transferStrategy.trySplitTransfer(accounts, origin, legs);
+    }
+
+    @Override
+    public TransferResult tryHold(FastMoney amount, AccountId account) {
+        return this.transferStrategy.tryHold(accounts.get(account), amount);
+    }
+
+    @Override
+    public TransferResult tryCaptureHold(FastMoney amount, AccountId account, AccountId destiny) {
+        return this.transferStrategy.tryCaptureHold(accounts.get(account), accounts.get(destiny), amount);
     }
 
     @Override
@@ -41,6 +79,11 @@ public class InMemoryAccountRepository implements AccountRepository {
         return Optional.ofNullable(accounts.get(id));
     }
 
+    @Override
+    public List<TransferResult> transferBatch(List<TransferRequest> requests) {
+        return this.transferStrategy.transferBatch(accounts, requests);
+    }
+
     @Override
     public String toString() {
         return this.getClass().getSimpleName() + "." + this.transferStrategy.getClass().getSimpleName();
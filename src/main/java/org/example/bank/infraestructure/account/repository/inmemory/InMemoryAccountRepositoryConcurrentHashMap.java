@@ -1,45 +1,171 @@
 package org.example.bank.infraestructure.account.repository.inmemory;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import org.example.bank.domain.account.Account;
 import org.example.bank.domain.account.AccountId;
+import org.example.bank.domain.account.StripedBalanceAccount;
 import org.example.bank.domain.account.repository.AccountRepository;
+import org.example.bank.domain.audit.BalanceAudit;
+import org.example.bank.domain.audit.BalanceTally;
 import org.example.bank.domain.exceptions.AccountNotFoundException;
+import org.example.bank.domain.money.ExchangeRates;
+import org.example.bank.domain.money.FastMoney;
 import org.example.bank.domain.money.Money;
+import org.example.bank.domain.transfer.RejectionReason;
+import org.example.bank.domain.transfer.SplitLeg;
+import org.example.bank.domain.transfer.TransferResult;
 
+/**
+ * Accounts in a {@code ConcurrentHashMap} by {@link AccountId#value()}, each transfer side applied in its map bin.
+ */
 public class InMemoryAccountRepositoryConcurrentHashMap implements AccountRepository {
 
-    private final ConcurrentHashMap<AccountId, Account> accounts;
+    private final ConcurrentHashMap<String, Account> accounts;
 
     public InMemoryAccountRepositoryConcurrentHashMap() {
         accounts = new ConcurrentHashMap<>();
     }
 
     @Override public void registerAccount(Account anAccount) {
-        accounts.putIfAbsent(anAccount.id(), anAccount);
+        accounts.putIfAbsent(anAccount.id().value(), anAccount);
     }
 
     @Override public Money getBalance(AccountId id) {
-        var account = accounts.get(id);
+        var account = accounts.get(id.value());
         if (account == null) {
             throw new AccountNotFoundException();
         }
         return account.balance();
     }
 
-    @Override public void transfer(Money amount, AccountId origin, AccountId destiny) {
-        var originAccount = accounts.get(origin);
-        var destinyAccount = accounts.get(destiny);
-        if (originAccount == null || destinyAccount == null) {
-            throw new AccountNotFoundException();
+    /**
+     * Checks the transfer up front; only a withdrawal racing another one on the same account can still fail inside
+     * {@code computeIfPresent}, and that rare case goes through the exception.
+     */
+    @Override public TransferResult tryTransfer(FastMoney amount, AccountId origin, AccountId destiny) {
+        return tryTransfer(amount, origin, destiny, ExchangeRates.none());
+    }
+
+    @Override
+    public TransferResult tryTransfer(FastMoney amount, AccountId origin, AccountId destiny, ExchangeRates rates) {
+        var originAccount = accounts.get(origin.value());
+        var destinyAccount = accounts.get(destiny.value());
+        var credit = destinyAccount == null ? null : rates.convert(amount, destinyAccount.currency());
+        var rejection = RejectionReason.of(originAccount, amount, destinyAccount, credit);
+        if (rejection != null) {
+            return TransferResult.rejected(rejection);
+        }
+        return TransferResult.of(() -> {
+            accounts.computeIfPresent(origin.value(), (accountId, account) -> account.withdraw(amount));
+            if (destinyAccount instanceof StripedBalanceAccount hot) {
+                // Its stripes take concurrent deposits on their own; the map bin would serialize them again
+                hot.deposit(credit);
+            } else {
+                accounts.computeIfPresent(destiny.value(), (accountId, account) -> account.deposit(credit));
+            }
+        });
+    }
+
+    /**
+     * Checked up front like a transfer; the sum of the legs is then withdrawn in the origin bin at once, and each leg
+     * deposited in its own.
+     */
+    @Override
+    public TransferResult trySplitTransfer(AccountId origin, List<SplitLeg> legs) {
+        var originAccount = accounts.get(origin.value());
+        if (originAccount == null) {
+            return TransferResult.rejected(RejectionReason.ACCOUNT_NOT_FOUND);
+        }
+        var destinies = new Account[legs.size()];
+        var total = 0L;
+        for (int i = 0; i < legs.size(); i++) {
+            var leg = legs.get(i);
+            destinies[i] = accounts.get(leg.destiny().value());
+            var rejection = RejectionReason.of(originAccount, destinies[i], leg.amount());
+            if (rejection != null && rejection != RejectionReason.INSUFFICIENT_FUNDS) {
+                return TransferResult.rejected(rejection);
+            }
+            total += leg.amount().minorUnits();
+            if (total < 0) {
+                // Overflowed, so far more than any balance
+                return TransferResult.rejected(RejectionReason.INSUFFICIENT_FUNDS);
+            }
         }
-        accounts.computeIfPresent(originAccount.id(), (accountId, account) -> account.withdraw(amount));
-        accounts.computeIfPresent(destinyAccount.id(), (accountId, account) -> account.deposit(amount));
+        if (originAccount.balanceMinorUnits() < total) {
+            return TransferResult.rejected(RejectionReason.INSUFFICIENT_FUNDS);
+        }
+        var sum = new FastMoney(total, originAccount.currency());
+        return TransferResult.of(() -> {
+            accounts.computeIfPresent(origin.value(), (accountId, account) -> account.withdraw(sum));
+            for (int i = 0; i < legs.size(); i++) {
+                var credit = legs.get(i).amount();
+                if (destinies[i] instanceof StripedBalanceAccount hot) {
+                    hot.deposit(credit);
+                } else {
+                    accounts.computeIfPresent(destinies[i].id().value(), (key, account) -> account.deposit(credit));
+                }
+            }
+        });
+    }
+
+    /**
+     * Checked up front like a transfer, then withdrawn and put on hold in the bin of the account.
+     */
+    @Override
+    public TransferResult tryHold(FastMoney amount, AccountId account) {
+        var holder = accounts.get(account.value());
+        var rejection = RejectionReason.of(holder, holder, amount);
+        if (rejection != null) {
+            return TransferResult.rejected(rejection);
+        }
+        return TransferResult.of(() -> accounts.computeIfPresent(account.value(), (key, found) -> {
+            found.withdraw(amount);
+            found.addHeld(amount.minorUnits());
+            return found;
+        }));
+    }
+
+    /**
+     * Deposits in the bin of the destiny like the credit of a transfer, then takes the amount from what the account
+     * has on hold, which no transfer reads.
+     */
+    @Override
+    public TransferResult tryCaptureHold(FastMoney amount, AccountId account, AccountId destiny) {
+        var holder = accounts.get(account.value());
+        var destinyAccount = accounts.get(destiny.value());
+        var rejection = RejectionReason.ofCapture(holder, destinyAccount, amount);
+        if (rejection != null) {
+            return TransferResult.rejected(rejection);
+        }
+        if (destinyAccount instanceof StripedBalanceAccount hot) {
+            hot.deposit(amount);
+        } else {
+            accounts.computeIfPresent(destiny.value(), (key, found) -> found.deposit(amount));
+        }
+        holder.addHeld(-amount.minorUnits());
+        return TransferResult.success();
     }
 
     @Override public Optional<Account> getAccount(AccountId id) {
-        return Optional.ofNullable(accounts.get(id));
+        return Optional.ofNullable(accounts.get(id.value()));
+    }
+
+    /**
+     * A scan of the map: every balance is read once, without stopping transfers, so a transfer applied during the scan
+     * may only be counted on one side. The figures are exact while no transfer runs.
+     */
+    @Override
+    public BalanceAudit audit(int largest) {
+        var scanned = List.copyOf(accounts.values());
+        var currencies = scanned.stream().map(Account::currency).distinct().toList();
+        var tally = new BalanceTally(currencies.size(), largest);
+        for (int i = 0; i < scanned.size(); i++) {
+            var account = scanned.get(i);
+            tally.add(currencies.indexOf(account.currency()), i, account.balanceMinorUnits());
+        }
+        return tally.toAudit(currencies::get, reference -> scanned.get((int) reference).id());
     }
 
     @Override
@@ -0,0 +1,110 @@
+package org.example.bank.infraestructure.account.repository.inmemory;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.example.bank.domain.account.Account;
+import org.example.bank.domain.account.AccountId;
+
+/**
+ * Accounts by id for the transfer strategies, each also under a dense {@code int} handle assigned in registration
+ * order. Ids are matched by {@link AccountId#value()}, through a {@code ConcurrentHashMap} of the id strings, so
+ * {@code AccountId.hashCode()} is never called. Callers that hold on to a handle skip the map for a plain array read.
+ * <p>
+ * Accounts can only be added, with {@link #putIfAbsent}. Lookups are lock-free and may run during registration; an
+ * account being registered is reported absent until it is completely there.
+ */
+public class IndexedAccountMap extends AbstractMap<AccountId, Account> {
+
+    private static final VarHandle ACCOUNTS = MethodHandles.arrayElementVarHandle(Account[].class);
+
+    private final ConcurrentHashMap<String, Indexed> byId = new ConcurrentHashMap<>();
+    private volatile Account[] accounts = new Account[16];
+    private volatile int size;
+
+    /**
+     * @return the handle of {@code id}, or -1 when it isn't registered
+     */
+    public int handleOf(AccountId id) {
+        var indexed = byId.get(id.value());
+        return indexed == null ? -1 : indexed.handle;
+    }
+
+    /**
+     * @return the account of {@code handle}, or null when there is none yet
+     */
+    public Account get(int handle) {
+        var current = accounts;
+        return handle >= 0 && handle < current.length ? (Account) ACCOUNTS.getAcquire(current, handle) : null;
+    }
+
+    /**
+     * The account of {@code id} through the handle the caller kept for it, checking the handle still names that id;
+     * a missing or stale handle falls back to looking the id up.
+     */
+    public Account get(AccountId id, int handle) {
+        var account = get(handle);
+        if (account != null && (account.id() == id || account.id().value().equals(id.value()))) {
+            return account;
+        }
+        return get(id);
+    }
+
+    @Override
+    public Account get(Object key) {
+        if (key instanceof AccountId id) {
+            var indexed = byId.get(id.value());
+            return indexed == null ? null : indexed.account;
+        }
+        return null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public synchronized Account putIfAbsent(AccountId key, Account value) {
+        var existing = get(key);
+        if (existing != null) {
+            return existing;
+        }
+        var handle = size;
+        if (handle == accounts.length) {
+            accounts = Arrays.copyOf(accounts, accounts.length * 2);
+        }
+        ACCOUNTS.setRelease(accounts, handle, value);
+        byId.put(key.value(), new Indexed(handle, value));
+        size = handle + 1;
+        return null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * A copy of the entries, in registration order.
+     */
+    @Override
+    public Set<Entry<AccountId, Account>> entrySet() {
+        var entries = new LinkedHashSet<Entry<AccountId, Account>>();
+        for (int handle = 0; handle < size(); handle++) {
+            var account = get(handle);
+            if (account != null) {
+                entries.add(new SimpleImmutableEntry<>(account.id(), account));
+            }
+        }
+        return entries;
+    }
+
+    private record Indexed(int handle, Account account) {
+
+    }
+}
@@ -0,0 +1,52 @@
+package org.example.bank.infraestructure.account.repository.inmemory.strategy;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * How a thread waits after a failed compare-and-set before trying again.
+ * <p>
+ * With a zero {@code minParkNanos} it only hints the processor with {@link Thread#onSpinWait()}. Otherwise it parks
+ * for a random time (full jitter) below {@code minParkNanos * 2^failures}, capped at {@code maxParkNanos}, so
+ * threads that collided don't retry in lock-step. After {@code lockFallbackAfter} consecutive failures the caller
+ * stops competing on its own and queues on a lock instead.
+ */
+public record BackoffPolicy(long minParkNanos, long maxParkNanos, int lockFallbackAfter) {
+
+    private static final int NEVER = Integer.MAX_VALUE;
+    private static final int MAX_SHIFT = 30;
+
+    public BackoffPolicy {
+        if (minParkNanos < 0 || maxParkNanos < minParkNanos || lockFallbackAfter < 1) {
+            throw new IllegalArgumentException("Invalid backoff policy");
+        }
+    }
+
+    public static BackoffPolicy spinWait() {
+        return new BackoffPolicy(0, 0, NEVER);
+    }
+
+    public static BackoffPolicy exponential(long minParkNanos, long maxParkNanos) {
+        return new BackoffPolicy(minParkNanos, maxParkNanos, NEVER);
+    }
+
+    public BackoffPolicy withLockFallbackAfter(int failures) {
+        return new BackoffPolicy(minParkNanos, maxParkNanos, failures);
+    }
+
+    public boolean shouldFallBack(int failures) {
+        return failures >= lockFallbackAfter;
+    }
+
+    public void pause(int failures) {
+        if (minParkNanos == 0) {
+            Thread.onSpinWait();
+            return;
+        }
+        var ceiling = Math.min(maxParkNanos, minParkNanos << Math.min(failures - 1, MAX_SHIFT));
+        if (ceiling < 0) {
+            ceiling = maxParkNanos;
+        }
+        LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(ceiling + 1));
+    }
+}
@@ -0,0 +1,65 @@
+package org.example.bank.infraestructure.account.repository.inmemory.strategy;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import org.example.bank.infraestructure.account.repository.inmemory.strategy.TransactionalAccount.Balance;
+
+/**
+ * Compare-and-set over several {@link TransactionalAccount} cells. The descriptor is first installed in every cell, in
+ * ascending ordinal order, replacing the balance it expects; it then commits with a single CAS of its status and every
+ * cell is finally swapped for its new balance, or back to the expected one if it failed.
+ * <p>
+ * Any thread that meets a descriptor runs the same steps, so a stalled change never blocks the others. Because cells
+ * are always acquired in the same order, chains of descriptors helping each other can't loop.
+ */
+abstract sealed class CellDescriptor permits TransferDescriptor, SplitDescriptor {
+
+    static final int UNDECIDED = 0;
+    static final int SUCCEEDED = 1;
+    static final int FAILED = 2;
+    private static final VarHandle STATUS;
+
+    static {
+        try {
+            STATUS = MethodHandles.lookup().findVarHandle(CellDescriptor.class, "status", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    volatile int status;
+
+    /**
+     * Drives the change to its end, whoever started it.
+     *
+     * @return whether every cell was changed
+     */
+    abstract boolean complete();
+
+    /**
+     * @return the balance the cell is worth while the descriptor owns it
+     */
+    abstract Balance logicalBalance(TransactionalAccount account);
+
+    final void decide(boolean owned) {
+        STATUS.compareAndSet(this, UNDECIDED, owned ? SUCCEEDED : FAILED);
+    }
+
+    final boolean acquire(TransactionalAccount account, Balance expected) {
+        while (status == UNDECIDED) {
+            var current = account.state();
+            if (current == this) {
+                return true;
+            }
+            if (current instanceof CellDescriptor other) {
+                other.complete();
+            } else if (current != expected) {
+                return false;
+            } else if (account.compareAndSet(expected, this)) {
+                return true;
+            }
+        }
+        // Decided by another thread meanwhile; the status CAS of the caller will fail anyway
+        return false;
+    }
+}
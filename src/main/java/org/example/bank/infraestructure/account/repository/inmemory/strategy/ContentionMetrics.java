@@ -0,0 +1,47 @@
+package org.example.bank.infraestructure.account.repository.inmemory.strategy;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compare-and-set counters of a strategy. Striped adders, so counting doesn't add a contended word of its own.
+ */
+public class ContentionMetrics {
+
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+
+    void attempt() {
+        attempts.increment();
+    }
+
+    void failure() {
+        failures.increment();
+    }
+
+    void fallback() {
+        fallbacks.increment();
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(attempts.sum(), failures.sum(), fallbacks.sum());
+    }
+
+    public void reset() {
+        attempts.reset();
+        failures.reset();
+        fallbacks.reset();
+    }
+
+    public record Snapshot(long attempts, long failures, long fallbacks) {
+
+        public double failureRatio() {
+            return attempts == 0 ? 0 : (double) failures / attempts;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ContentionMetrics" + snapshot();
+    }
+}
@@ -0,0 +1,168 @@
+package org.example.bank.infraestructure.account.repository.inmemory.strategy;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import org.example.bank.domain.account.Account;
+import org.example.bank.domain.account.AccountId;
+import org.example.bank.domain.money.ExchangeRates;
+import org.example.bank.domain.money.FastMoney;
+import org.example.bank.domain.transfer.RejectionReason;
+import org.example.bank.domain.transfer.SplitLeg;
+import org.example.bank.domain.transfer.TransferResult;
+import org.example.bank.infraestructure.account.repository.inmemory.strategy.TransactionalAccount.Balance;
+
+/**
+ * Lock-free strategy that commits both legs at once: unlike {@link OptimisticLockTransferStrategy} there is no moment
+ * where the money has left the origin but not reached the destiny. Each attempt reads both balances, builds a
+ * {@link TransferDescriptor} and retries only when one of them changed meanwhile. Split transfers commit every account
+ * they touch the same way through a {@link SplitDescriptor}.
+ * <p>
+ * Accounts are adopted as {@link TransactionalAccount} when registered.
+ */
+public class DescriptorTransferStrategy implements TransferStrategy {
+
+    private static final Comparator<Cell> BY_ORDINAL = Comparator.comparingLong(cell -> cell.account.ordinal);
+
+    @Override
+    public Account adopt(Account account) {
+        return TransactionalAccount.of(account);
+    }
+
+    @Override
+    public TransferResult tryTransfer(
+            Account originAccount, Account destinyAccount, FastMoney amount, ExchangeRates rates
+    ) {
+        var credit = TransferLegs.credit(destinyAccount, amount, rates);
+        var rejection = RejectionReason.of(originAccount, amount, destinyAccount, credit);
+        if (rejection != null) {
+            return TransferResult.rejected(rejection);
+        }
+        return transfer(
+                (TransactionalAccount) originAccount, amount.minorUnits(),
+                (TransactionalAccount) destinyAccount, credit.minorUnits()
+        );
+    }
+
+    /**
+     * Sorts the accounts by ordinal, the order descriptors acquire cells in, and merges the legs of each into one
+     * cell, so the commit takes a CAS per account and a few more per retry.
+     */
+    @Override
+    public TransferResult trySplitTransfer(Map<AccountId, Account> accounts, AccountId origin, List<SplitLeg> legs) {
+        var originAccount = accounts.get(origin);
+        var rejection = TransferLegs.checkSplit(accounts, originAccount, legs);
+        if (rejection != null) {
+            return TransferResult.rejected(rejection);
+        }
+        var changes = new Cell[legs.size() + 1];
+        changes[0] = new Cell((TransactionalAccount) originAccount, -TransferLegs.total(legs));
+        for (int i = 0; i < legs.size(); i++) {
+            var leg = legs.get(i);
+            changes[i + 1] = new Cell((TransactionalAccount) accounts.get(leg.destiny()), leg.amount().minorUnits());
+        }
+        Arrays.sort(changes, BY_ORDINAL);
+        var cells = 0;
+        for (var change : changes) {
+            if (cells > 0 && changes[cells - 1].account == change.account) {
+                changes[cells - 1].delta += change.delta;
+            } else {
+                changes[cells++] = change;
+            }
+        }
+        return split(Arrays.copyOf(changes, cells));
+    }
+
+    /**
+     * What an account has on hold sits outside its cell, so holds take and give with a single-cell compare-and-set
+     * and move what is on hold right after it.
+     */
+    @Override
+    public TransferResult tryHold(Account account, FastMoney amount) {
+        var rejection = RejectionReason.of(account, account, amount);
+        if (rejection != null) {
+            return TransferResult.rejected(rejection);
+        }
+        var cell = (TransactionalAccount) account;
+        while (true) {
+            var balance = cell.settled();
+            if (balance.minorUnits() < amount.minorUnits()) {
+                return TransferResult.rejected(RejectionReason.INSUFFICIENT_FUNDS);
+            }
+            if (cell.compareAndSet(balance, new Balance(balance.minorUnits() - amount.minorUnits()))) {
+                account.addHeld(amount.minorUnits());
+                return TransferResult.success();
+            }
+        }
+    }
+
+    @Override
+    public TransferResult tryCaptureHold(Account account, Account destiny, FastMoney amount) {
+        var rejection = RejectionReason.ofCapture(account, destiny, amount);
+        if (rejection != null) {
+            return TransferResult.rejected(rejection);
+        }
+        destiny.deposit(amount);
+        account.addHeld(-amount.minorUnits());
+        return TransferResult.success();
+    }
+
+    private TransferResult split(Cell[] changes) {
+        var cells = new TransactionalAccount[changes.length];
+        for (int i = 0; i < changes.length; i++) {
+            cells[i] = changes[i].account;
+        }
+        while (true) {
+            var expected = new Balance[changes.length];
+            var updates = new Balance[changes.length];
+            for (int i = 0; i < changes.length; i++) {
+                expected[i] = cells[i].settled();
+                var update = Math.addExact(expected[i].minorUnits(), changes[i].delta);
+                if (update < 0) {
+                    return TransferResult.rejected(RejectionReason.INSUFFICIENT_FUNDS);
+                }
+                updates[i] = new Balance(update);
+            }
+            if (new SplitDescriptor(cells, expected, updates).complete()) {
+                return TransferResult.success();
+            }
+        }
+    }
+
+    private TransferResult transfer(
+            TransactionalAccount origin, long debit, TransactionalAccount destiny, long credit
+    ) {
+        while (true) {
+            var originBalance = origin.settled();
+            if (originBalance.minorUnits() < debit) {
+                return TransferResult.rejected(RejectionReason.INSUFFICIENT_FUNDS);
+            }
+            if (origin == destiny) {
+                return TransferResult.success();
+            }
+            var destinyBalance = destiny.settled();
+            var descriptor = TransferDescriptor.of(
+                    origin, originBalance, new Balance(originBalance.minorUnits() - debit),
+                    destiny, destinyBalance, new Balance(Math.addExact(destinyBalance.minorUnits(), credit))
+            );
+            if (descriptor.complete()) {
+                return TransferResult.success();
+            }
+        }
+    }
+
+    /**
+     * An account a split transfer touches and what it adds to its balance.
+     */
+    private static final class Cell {
+
+        private final TransactionalAccount account;
+        private long delta;
+
+        private Cell(TransactionalAccount account, long delta) {
+            this.account = account;
+            this.delta = delta;
+        }
+    }
+}
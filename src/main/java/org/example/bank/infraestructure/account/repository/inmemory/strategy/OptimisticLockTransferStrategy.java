@@ -1,24 +1,169 @@
 package org.example.bank.infraestructure.account.repository.inmemory.strategy;
 
+import java.util.List;
 import java.util.Map;
-import java.util.function.BooleanSupplier;
+import java.util.concurrent.locks.ReentrantLock;
 import org.example.bank.domain.account.Account;
 import org.example.bank.domain.account.AccountId;
-import org.example.bank.domain.money.Money;
+import org.example.bank.domain.money.ExchangeRates;
+import org.example.bank.domain.money.FastMoney;
+import org.example.bank.domain.transfer.RejectionReason;
+import org.example.bank.domain.transfer.SplitLeg;
+import org.example.bank.domain.transfer.TransferResult;
 
+/**
+ * Retries each leg with compare-and-set, waiting between failures as the {@link BackoffPolicy} says. A thread that
+ * keeps failing on an account falls back to a lock striped by account, so the losers of a hot account queue parked
+ * behind one another instead of all spinning on it; the lock holder still races the threads that haven't given up.
+ */
 public class OptimisticLockTransferStrategy implements TransferStrategy {
 
+    private static final int FALLBACK_LOCKS = 64;
+
+    private final BackoffPolicy backoff;
+    private final ContentionMetrics metrics = new ContentionMetrics();
+    private final ReentrantLock[] fallbackLocks = new ReentrantLock[FALLBACK_LOCKS];
+
+    public OptimisticLockTransferStrategy() {
+        this(BackoffPolicy.spinWait());
+    }
+
+    public OptimisticLockTransferStrategy(BackoffPolicy backoff) {
+        this.backoff = backoff;
+        for (int i = 0; i < FALLBACK_LOCKS; i++) {
+            fallbackLocks[i] = new ReentrantLock();
+        }
+    }
+
     @Override
-    public void transfer(Map<AccountId, Account> accounts, Money amount, AccountId origin, AccountId destiny) {
+    public TransferResult tryTransfer(
+            Account originAccount, Account destinyAccount, FastMoney amount, ExchangeRates rates
+    ) {
+        var credit = TransferLegs.credit(destinyAccount, amount, rates);
+        var rejection = RejectionReason.of(originAccount, amount, destinyAccount, credit);
+        if (rejection != null) {
+            return TransferResult.rejected(rejection);
+        }
+        if (!retry(originAccount, amount, true)) {
+            return TransferResult.rejected(RejectionReason.INSUFFICIENT_FUNDS);
+        }
+        retry(destinyAccount, credit, false);
+        return TransferResult.success();
+    }
+
+    /**
+     * Withdraws the sum of the legs with a single compare-and-set loop, so either every leg is paid or none, then
+     * deposits the legs one by one, as a transfer deposits after its withdrawal.
+     */
+    @Override
+    public TransferResult trySplitTransfer(Map<AccountId, Account> accounts, AccountId origin, List<SplitLeg> legs) {
         var originAccount = accounts.get(origin);
-        var destinyAccount = accounts.get(destiny);
-        retry(() -> originAccount.compareAndSubtract(originAccount.balance(), amount));
-        retry(() -> destinyAccount.compareAndAdd(destinyAccount.balance(), amount));
+        var rejection = TransferLegs.checkSplit(accounts, originAccount, legs);
+        if (rejection != null) {
+            return TransferResult.rejected(rejection);
+        }
+        if (!retry(originAccount, new FastMoney(TransferLegs.total(legs), originAccount.currency()), true)) {
+            return TransferResult.rejected(RejectionReason.INSUFFICIENT_FUNDS);
+        }
+        for (var leg : legs) {
+            retry(accounts.get(leg.destiny()), leg.amount(), false);
+        }
+        return TransferResult.success();
     }
 
-    //Just a simple retry loop
-    private void retry(BooleanSupplier operation) {
-        while (!operation.getAsBoolean()) {
+    /**
+     * Withdraws with the compare-and-set loop of a transfer, then adds to what the account has on hold, so for a moment
+     * the amount is in neither, like a transfer between its withdrawal and its deposit.
+     */
+    @Override
+    public TransferResult tryHold(Account account, FastMoney amount) {
+        var rejection = RejectionReason.of(account, account, amount);
+        if (rejection != null) {
+            return TransferResult.rejected(rejection);
+        }
+        if (!retry(account, amount, true)) {
+            return TransferResult.rejected(RejectionReason.INSUFFICIENT_FUNDS);
         }
+        account.addHeld(amount.minorUnits());
+        return TransferResult.success();
+    }
+
+    @Override
+    public TransferResult tryCaptureHold(Account account, Account destiny, FastMoney amount) {
+        var rejection = RejectionReason.ofCapture(account, destiny, amount);
+        if (rejection != null) {
+            return TransferResult.rejected(rejection);
+        }
+        retry(destiny, amount, false);
+        account.addHeld(-amount.minorUnits());
+        return TransferResult.success();
+    }
+
+    public ContentionMetrics metrics() {
+        return metrics;
+    }
+
+    public BackoffPolicy backoff() {
+        return backoff;
+    }
+
+    /**
+     * No lambda here, so a transfer still doesn't allocate.
+     *
+     * @return false when a withdrawal found the account without enough funds
+     */
+    private boolean retry(Account account, FastMoney amount, boolean withdraw) {
+        var failures = 0;
+        while (true) {
+            var balance = account.balanceMinorUnits();
+            if (withdraw && balance < amount.minorUnits()) {
+                return false;
+            }
+            if (attempt(account, balance, amount, withdraw)) {
+                return true;
+            }
+            failures++;
+            if (backoff.shouldFallBack(failures)) {
+                metrics.fallback();
+                return retryHoldingLock(account, amount, withdraw);
+            }
+            backoff.pause(failures);
+        }
+    }
+
+    private boolean retryHoldingLock(Account account, FastMoney amount, boolean withdraw) {
+        var lock = fallbackLocks[(account.id().hashCode() & Integer.MAX_VALUE) % FALLBACK_LOCKS];
+        lock.lock();
+        try {
+            while (true) {
+                var balance = account.balanceMinorUnits();
+                if (withdraw && balance < amount.minorUnits()) {
+                    return false;
+                }
+                if (attempt(account, balance, amount, withdraw)) {
+                    return true;
+                }
+                Thread.onSpinWait();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean attempt(Account account, long balance, FastMoney amount, boolean withdraw) {
+        metrics.attempt();
+        var applied = withdraw ? account.compareAndSubtract(balance, amount) : account.compareAndAdd(balance, amount);
+        if (!applied) {
+            metrics.failure();
+        }
+        return applied;
+    }
+
+    @Override
+    public String toString() {
+        return "OptimisticLockTransferStrategy{" +
+               "backoff=" + backoff +
+               ", metrics=" + metrics +
+               '}';
     }
 }
@@ -1,9 +1,18 @@
 package org.example.bank.infraestructure.account.repository.inmemory.strategy;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import org.example.bank.domain.account.Account;
 import org.example.bank.domain.account.AccountId;
-import org.example.bank.domain.money.Money;
+import org.example.bank.domain.money.ExchangeRates;
+import org.example.bank.domain.money.FastMoney;
+import org.example.bank.domain.transfer.RejectionReason;
+import org.example.bank.domain.transfer.SplitLeg;
+import org.example.bank.domain.transfer.TransferResult;
 
 /**
  * Pessimistic lock transfer strategy: This can lead to deadlocks, but it is a simple way to avoid them. See
@@ -12,23 +21,70 @@ import org.example.bank.domain.money.Money;
 public class PessimisticLockTransferStrategy implements TransferStrategy {
 
     @Override
-    public void transfer(Map<AccountId, Account> accounts, Money amount, AccountId origin, AccountId destiny) {
-        var originAccount = accounts.get(origin);
-        var destinyAccount = accounts.get(destiny);
+    public TransferResult tryTransfer(
+            Account originAccount, Account destinyAccount, FastMoney amount, ExchangeRates rates
+    ) {
+        if (originAccount == null || destinyAccount == null) {
+            return TransferResult.rejected(RejectionReason.ACCOUNT_NOT_FOUND);
+        }
         if (originAccount.id().hashCode() > destinyAccount.id().hashCode()) {
             synchronized (originAccount) {
                 synchronized (destinyAccount) {
-                    accounts.computeIfPresent(originAccount.id(), (accountId, account) -> account.withdraw(amount));
-                    accounts.computeIfPresent(destinyAccount.id(), (accountId, account) -> account.deposit(amount));
+                    return TransferLegs.apply(originAccount, destinyAccount, amount, rates);
                 }
             }
         } else {
             synchronized (destinyAccount) {
                 synchronized (originAccount) {
-                    accounts.computeIfPresent(originAccount.id(), (accountId, account) -> account.withdraw(amount));
-                    accounts.computeIfPresent(destinyAccount.id(), (accountId, account) -> account.deposit(amount));
+                    return TransferLegs.apply(originAccount, destinyAccount, amount, rates);
                 }
             }
         }
     }
+
+    @Override
+    public TransferResult tryHold(Account account, FastMoney amount) {
+        if (account == null) {
+            return TransferResult.rejected(RejectionReason.ACCOUNT_NOT_FOUND);
+        }
+        synchronized (account) {
+            return TransferLegs.applyHold(account, amount);
+        }
+    }
+
+    @Override
+    public TransferResult tryCaptureHold(Account account, Account destiny, FastMoney amount) {
+        if (account == null || destiny == null) {
+            return TransferResult.rejected(RejectionReason.ACCOUNT_NOT_FOUND);
+        }
+        synchronized (destiny) {
+            return TransferLegs.applyCapture(account, destiny, amount);
+        }
+    }
+
+    /**
+     * Holds the monitor of every account involved, taken from the highest id hash down like the two of a transfer.
+     */
+    @Override
+    public TransferResult trySplitTransfer(Map<AccountId, Account> accounts, AccountId origin, List<SplitLeg> legs) {
+        var involved = Collections.newSetFromMap(new IdentityHashMap<Account, Boolean>());
+        involved.add(accounts.get(origin));
+        for (var leg : legs) {
+            involved.add(accounts.get(leg.destiny()));
+        }
+        involved.remove(null);
+        var ordered = new ArrayList<>(involved);
+        ordered.sort(Comparator.comparingInt((Account account) -> account.id().hashCode()).reversed());
+        return splitHolding(ordered, 0, accounts, origin, legs);
+    }
+
+    private TransferResult splitHolding(List<Account> ordered, int next, Map<AccountId, Account> accounts,
+                                        AccountId origin, List<SplitLeg> legs) {
+        if (next == ordered.size()) {
+            return TransferLegs.applySplit(accounts, origin, legs);
+        }
+        synchronized (ordered.get(next)) {
+            return splitHolding(ordered, next + 1, accounts, origin, legs);
+        }
+    }
 }
@@ -1,15 +1,22 @@
 package org.example.bank.infraestructure.account.repository.inmemory.strategy;
 
 import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 import org.example.bank.domain.account.Account;
 import org.example.bank.domain.account.AccountId;
-import org.example.bank.domain.exceptions.AccountNotFoundException;
-import org.example.bank.domain.money.Money;
+import org.example.bank.domain.metrics.TransferMetrics;
+import org.example.bank.domain.money.ExchangeRates;
+import org.example.bank.domain.money.FastMoney;
+import org.example.bank.domain.transfer.RejectionReason;
+import org.example.bank.domain.transfer.SplitLeg;
+import org.example.bank.domain.transfer.TransferResult;
 
 /**
  * This provides a more robust pessimistic lock strategy to transfer money between accounts with a consistent order of
@@ -18,18 +25,29 @@ import org.example.bank.domain.money.Money;
 public class RevisitedPessimisticLockTransferStrategy implements TransferStrategy {
 
     private final Map<AccountId, Lock> locks;
+    private final TransferMetrics metrics;
 
     public RevisitedPessimisticLockTransferStrategy() {
-        locks = new ConcurrentHashMap<>();
+        this(TransferMetrics.disabled());
+    }
+
+    /**
+     * @param metrics records how long transfers wait for locks held by other transfers
+     */
+    public RevisitedPessimisticLockTransferStrategy(TransferMetrics metrics) {
+        this.locks = new ConcurrentHashMap<>();
+        this.metrics = metrics;
     }
 
     @Override
-    public void transfer(Map<AccountId, Account> accounts, Money amount, AccountId origin, AccountId destiny) {
-        var originAccount = accounts.get(origin);
-        var destinyAccount = accounts.get(destiny);
+    public TransferResult tryTransfer(
+            Account originAccount, Account destinyAccount, FastMoney amount, ExchangeRates rates
+    ) {
         if (originAccount == null || destinyAccount == null) {
-            throw new AccountNotFoundException();
+            return TransferResult.rejected(RejectionReason.ACCOUNT_NOT_FOUND);
         }
+        var origin = originAccount.id();
+        var destiny = destinyAccount.id();
 
         locks.putIfAbsent(origin, new ReentrantLock());
         locks.putIfAbsent(destiny, new ReentrantLock());
@@ -39,13 +57,76 @@ public class RevisitedPessimisticLockTransferStrategy implements TransferStrateg
                                 .map(locks::get)
                                 .toList();
         try {
-            sortedLocks.getFirst().lock();
-            sortedLocks.getLast().lock();
-            accounts.computeIfPresent(originAccount.id(), (accountId, account) -> account.withdraw(amount));
-            accounts.computeIfPresent(destinyAccount.id(), (accountId, account) -> account.deposit(amount));
+            lock(sortedLocks.getFirst());
+            lock(sortedLocks.getLast());
+            return TransferLegs.apply(originAccount, destinyAccount, amount, rates);
         } finally {
             sortedLocks.getLast().unlock();
             sortedLocks.getFirst().unlock();
         }
     }
+
+    @Override
+    public TransferResult tryHold(Account account, FastMoney amount) {
+        if (account == null) {
+            return TransferResult.rejected(RejectionReason.ACCOUNT_NOT_FOUND);
+        }
+        return holding(account, () -> TransferLegs.applyHold(account, amount));
+    }
+
+    @Override
+    public TransferResult tryCaptureHold(Account account, Account destiny, FastMoney amount) {
+        if (account == null || destiny == null) {
+            return TransferResult.rejected(RejectionReason.ACCOUNT_NOT_FOUND);
+        }
+        return holding(destiny, () -> TransferLegs.applyCapture(account, destiny, amount));
+    }
+
+    private TransferResult holding(Account account, Supplier<TransferResult> change) {
+        var lock = locks.computeIfAbsent(account.id(), id -> new ReentrantLock());
+        lock(lock);
+        try {
+            return change.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes the locks of every account involved in the same order as transfers do.
+     */
+    @Override
+    public TransferResult trySplitTransfer(Map<AccountId, Account> accounts, AccountId origin, List<SplitLeg> legs) {
+        var sortedLocks = Stream.concat(Stream.of(origin), legs.stream().map(SplitLeg::destiny))
+                                .map(accounts::get)
+                                .filter(Objects::nonNull)
+                                .map(Account::id)
+                                .distinct()
+                                .sorted(Comparator.comparingInt(System::identityHashCode))
+                                .map(id -> locks.computeIfAbsent(id, key -> new ReentrantLock()))
+                                .toList();
+        var locked = 0;
+        try {
+            for (; locked < sortedLocks.size(); locked++) {
+                lock(sortedLocks.get(locked));
+            }
+            return TransferLegs.applySplit(accounts, origin, legs);
+        } finally {
+            while (locked-- > 0) {
+                sortedLocks.get(locked).unlock();
+            }
+        }
+    }
+
+    /**
+     * Only reads the clock when the lock is taken, so uncontended transfers don't pay for the measurement.
+     */
+    private void lock(Lock lock) {
+        if (lock.tryLock()) {
+            return;
+        }
+        var start = System.nanoTime();
+        lock.lock();
+        metrics.lockWait(System.nanoTime() - start);
+    }
 }
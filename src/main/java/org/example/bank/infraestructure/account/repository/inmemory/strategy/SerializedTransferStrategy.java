@@ -1,16 +1,53 @@
 package org.example.bank.infraestructure.account.repository.inmemory.strategy;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import org.example.bank.domain.account.Account;
 import org.example.bank.domain.account.AccountId;
-import org.example.bank.domain.money.Money;
+import org.example.bank.domain.money.ExchangeRates;
+import org.example.bank.domain.money.FastMoney;
+import org.example.bank.domain.transfer.SplitLeg;
+import org.example.bank.domain.transfer.TransferRequest;
+import org.example.bank.domain.transfer.TransferResult;
 
 public class SerializedTransferStrategy implements TransferStrategy {
 
     @Override
-    public synchronized void transfer(Map<AccountId, Account> accounts, Money amount, AccountId origin, AccountId destiny) {
-            accounts.computeIfPresent(origin, (accountId, account) -> account.withdraw(amount));
-            accounts.computeIfPresent(destiny, (accountId, account) -> account.deposit(amount));
+    public synchronized TransferResult tryTransfer(
+            Account origin, Account destiny, FastMoney amount, ExchangeRates rates
+    ) {
+        return TransferLegs.apply(origin, destiny, amount, rates);
+    }
+
+    @Override
+    public synchronized TransferResult trySplitTransfer(
+            Map<AccountId, Account> accounts, AccountId origin, List<SplitLeg> legs
+    ) {
+        return TransferLegs.applySplit(accounts, origin, legs);
+    }
+
+    @Override
+    public synchronized TransferResult tryHold(Account account, FastMoney amount) {
+        return TransferLegs.applyHold(account, amount);
+    }
+
+    @Override
+    public synchronized TransferResult tryCaptureHold(Account account, Account destiny, FastMoney amount) {
+        return TransferLegs.applyCapture(account, destiny, amount);
+    }
+
+    @Override
+    public synchronized List<TransferResult> transferBatch(Map<AccountId, Account> accounts, List<TransferRequest> requests) {
+        var results = new ArrayList<TransferResult>(requests.size());
+        for (var request : requests) {
+            results.add(TransferLegs.apply(
+                    TransferStrategy.origin(accounts, request),
+                    TransferStrategy.destiny(accounts, request),
+                    request.amount()
+            ));
         }
+        return results;
+    }
 
 }
@@ -0,0 +1,57 @@
+package org.example.bank.infraestructure.account.repository.inmemory.strategy;
+
+import org.example.bank.infraestructure.account.repository.inmemory.strategy.TransactionalAccount.Balance;
+
+/**
+ * Compare-and-set over every cell of a split transfer, one per account however many legs pay into it.
+ */
+final class SplitDescriptor extends CellDescriptor {
+
+    private final TransactionalAccount[] cells;
+    private final Balance[] expected;
+    private final Balance[] updates;
+
+    /**
+     * @param cells distinct, in ascending ordinal order
+     */
+    SplitDescriptor(TransactionalAccount[] cells, Balance[] expected, Balance[] updates) {
+        this.cells = cells;
+        this.expected = expected;
+        this.updates = updates;
+    }
+
+    @Override
+    boolean complete() {
+        if (status == UNDECIDED) {
+            var owned = true;
+            for (int i = 0; owned && i < cells.length; i++) {
+                owned = acquire(cells[i], expected[i]);
+            }
+            decide(owned);
+        }
+        var succeeded = status == SUCCEEDED;
+        for (int i = 0; i < cells.length; i++) {
+            cells[i].compareAndSet(this, succeeded ? updates[i] : expected[i]);
+        }
+        return succeeded;
+    }
+
+    /**
+     * Finds the cell by binary search on its ordinal, so reading a cell the split owns doesn't walk all of its legs.
+     */
+    @Override
+    Balance logicalBalance(TransactionalAccount account) {
+        var low = 0;
+        var high = cells.length - 1;
+        while (cells[(low + high) >>> 1] != account) {
+            var middle = (low + high) >>> 1;
+            if (cells[middle].ordinal < account.ordinal) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        var index = (low + high) >>> 1;
+        return status == SUCCEEDED ? updates[index] : expected[index];
+    }
+}
@@ -0,0 +1,222 @@
+package org.example.bank.infraestructure.account.repository.inmemory.strategy;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import org.example.bank.domain.account.Account;
+import org.example.bank.domain.account.AccountId;
+import org.example.bank.domain.money.ExchangeRates;
+import org.example.bank.domain.money.FastMoney;
+import org.example.bank.domain.transfer.RejectionReason;
+import org.example.bank.domain.transfer.SplitLeg;
+import org.example.bank.domain.transfer.TransferRequest;
+import org.example.bank.domain.transfer.TransferResult;
+import org.example.bank.infraestructure.account.repository.inmemory.IndexedAccountMap;
+
+/**
+ * Pessimistic lock strategy over a fixed, power-of-two table of locks: each account is mapped to a stripe by the hash
+ * of its id, so lock memory stays the same however many accounts there are and nothing is allocated per transfer.
+ * <p>
+ * Locks are always taken in ascending stripe order, which rules out deadlocks. When both accounts fall in the same
+ * stripe (always the case for colliding hash codes) that stripe is taken once. A batch resolves each account once and
+ * holds every stripe it touches, each taken once and in the same ascending order, for the whole batch, and so does a
+ * split transfer.
+ */
+public class StripedLockTransferStrategy implements TransferStrategy {
+
+    private static final int STRIPES_PER_PROCESSOR = 16;
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    public StripedLockTransferStrategy() {
+        this(Runtime.getRuntime().availableProcessors() * STRIPES_PER_PROCESSOR);
+    }
+
+    public StripedLockTransferStrategy(int minimumStripes) {
+        if (minimumStripes <= 0 || minimumStripes > 1 << 30) {
+            throw new IllegalArgumentException("Stripes must be between 1 and 2^30");
+        }
+        var size = Integer.highestOneBit(2 * minimumStripes - 1);
+        this.stripes = new ReentrantLock[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new PaddedLock();
+        }
+    }
+
+    @Override
+    public TransferResult tryTransfer(
+            Account originAccount, Account destinyAccount, FastMoney amount, ExchangeRates rates
+    ) {
+        if (originAccount == null || destinyAccount == null) {
+            return TransferResult.rejected(RejectionReason.ACCOUNT_NOT_FOUND);
+        }
+
+        var originStripe = stripeOf(originAccount.id());
+        var destinyStripe = stripeOf(destinyAccount.id());
+        var first = stripes[Math.min(originStripe, destinyStripe)];
+        var second = stripes[Math.max(originStripe, destinyStripe)];
+        first.lock();
+        try {
+            if (second != first) {
+                second.lock();
+            }
+            try {
+                return TransferLegs.apply(originAccount, destinyAccount, amount, rates);
+            } finally {
+                if (second != first) {
+                    second.unlock();
+                }
+            }
+        } finally {
+            first.unlock();
+        }
+    }
+
+    @Override
+    public TransferResult tryHold(Account account, FastMoney amount) {
+        if (account == null) {
+            return TransferResult.rejected(RejectionReason.ACCOUNT_NOT_FOUND);
+        }
+        var stripe = stripes[stripeOf(account.id())];
+        stripe.lock();
+        try {
+            return TransferLegs.applyHold(account, amount);
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    @Override
+    public TransferResult tryCaptureHold(Account account, Account destiny, FastMoney amount) {
+        if (account == null || destiny == null) {
+            return TransferResult.rejected(RejectionReason.ACCOUNT_NOT_FOUND);
+        }
+        var stripe = stripes[stripeOf(destiny.id())];
+        stripe.lock();
+        try {
+            return TransferLegs.applyCapture(account, destiny, amount);
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    @Override
+    public List<TransferResult> transferBatch(Map<AccountId, Account> accounts, List<TransferRequest> requests) {
+        var resolved = new HashMap<AccountId, Account>();
+        var origins = new Account[requests.size()];
+        var destinies = new Account[requests.size()];
+        var involvedStripes = new long[(stripes.length + Long.SIZE - 1) / Long.SIZE];
+        for (int i = 0; i < requests.size(); i++) {
+            var request = requests.get(i);
+            origins[i] = resolve(accounts, resolved, request.origin(), request.originHandle(), involvedStripes);
+            destinies[i] = resolve(accounts, resolved, request.destiny(), request.destinyHandle(), involvedStripes);
+        }
+
+        lockAll(involvedStripes);
+        try {
+            var results = new ArrayList<TransferResult>(requests.size());
+            for (int i = 0; i < requests.size(); i++) {
+                results.add(TransferLegs.apply(origins[i], destinies[i], requests.get(i).amount()));
+            }
+            return results;
+        } finally {
+            unlockAll(involvedStripes);
+        }
+    }
+
+    /**
+     * Marks the stripes of the legs in a bitmap, so taking them in order costs a bit operation per leg and nothing is
+     * sorted.
+     */
+    @Override
+    public TransferResult trySplitTransfer(Map<AccountId, Account> accounts, AccountId origin, List<SplitLeg> legs) {
+        var involvedStripes = new long[(stripes.length + Long.SIZE - 1) / Long.SIZE];
+        involve(accounts.get(origin), involvedStripes);
+        for (int i = 0; i < legs.size(); i++) {
+            involve(accounts.get(legs.get(i).destiny()), involvedStripes);
+        }
+
+        lockAll(involvedStripes);
+        try {
+            return TransferLegs.applySplit(accounts, origin, legs);
+        } finally {
+            unlockAll(involvedStripes);
+        }
+    }
+
+    /**
+     * A request with a handle skips both maps: the account comes straight out of the repository.
+     */
+    private Account resolve(Map<AccountId, Account> accounts, Map<AccountId, Account> resolved, AccountId id,
+                            int handle, long[] involvedStripes) {
+        if (handle != TransferRequest.NO_HANDLE && accounts instanceof IndexedAccountMap indexed) {
+            var account = indexed.get(id, handle);
+            involve(account, involvedStripes);
+            return account;
+        }
+        var account = resolved.get(id);
+        if (account == null) {
+            account = accounts.get(id);
+            if (account != null) {
+                resolved.put(id, account);
+                involve(account, involvedStripes);
+            }
+        }
+        return account;
+    }
+
+    /**
+     * Stripes go by the id the account was registered with, whatever id the caller found it by.
+     *
+     * @param account null when not found, which takes no stripe
+     */
+    private void involve(Account account, long[] involvedStripes) {
+        if (account == null) {
+            return;
+        }
+        var stripe = stripeOf(account.id());
+        involvedStripes[stripe / Long.SIZE] |= 1L << stripe;
+    }
+
+    /**
+     * Walking the bitmap takes the stripes in ascending order without sorting anything.
+     */
+    private void lockAll(long[] involvedStripes) {
+        for (int word = 0; word < involvedStripes.length; word++) {
+            for (var bits = involvedStripes[word]; bits != 0; bits &= bits - 1) {
+                stripes[word * Long.SIZE + Long.numberOfTrailingZeros(bits)].lock();
+            }
+        }
+    }
+
+    private void unlockAll(long[] involvedStripes) {
+        for (int word = involvedStripes.length - 1; word >= 0; word--) {
+            for (var bits = involvedStripes[word]; bits != 0; bits &= ~Long.highestOneBit(bits)) {
+                stripes[word * Long.SIZE + Long.SIZE - 1 - Long.numberOfLeadingZeros(bits)].unlock();
+            }
+        }
+    }
+
+    public int stripes() {
+        return stripes.length;
+    }
+
+    int stripeOf(AccountId id) {
+        var hash = id.value().hashCode() * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    /**
+     * Lock followed by a cache line of padding. Each lock allocates its state right after itself, so the padding
+     * keeps the state of neighbouring stripes on different cache lines.
+     */
+    @SuppressWarnings("unused")
+    private static final class PaddedLock extends ReentrantLock {
+
+        private long p1, p2, p3, p4, p5, p6, p7, p8;
+    }
+}
@@ -0,0 +1,184 @@
+package org.example.bank.infraestructure.account.repository.inmemory.strategy;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Currency;
+import java.util.concurrent.atomic.AtomicLong;
+import org.example.bank.domain.account.Account;
+import org.example.bank.domain.account.AccountId;
+import org.example.bank.domain.exceptions.InsufficientFundsException;
+import org.example.bank.domain.exceptions.NegativeTransferAmountException;
+import org.example.bank.domain.money.FastMoney;
+import org.example.bank.domain.money.Money;
+
+/**
+ * Account whose single cell holds either an immutable {@link Balance} or the {@link CellDescriptor} of a transfer
+ * in progress, so {@link DescriptorTransferStrategy} can change several accounts in one atomic step. Every write
+ * installs a new {@code Balance}, which makes the identity compare-and-set immune to ABA.
+ * <p>
+ * Reads never wait: a cell owned by a descriptor is worth its new balance once the descriptor succeeded and its
+ * expected one until then. Writes help any descriptor they find to finish first.
+ */
+public final class TransactionalAccount implements Account {
+
+    private static final VarHandle STATE;
+    private static final AtomicLong ORDINALS = new AtomicLong();
+
+    static {
+        try {
+            STATE = MethodHandles.lookup().findVarHandle(TransactionalAccount.class, "state", Object.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final AccountId id;
+    private final Currency currency;
+    final long ordinal;
+    private volatile Object state;
+    /**
+     * Outside the cell: only holds move it, and no descriptor needs it.
+     */
+    private final AtomicLong held = new AtomicLong();
+
+    public TransactionalAccount(AccountId id, Money balance) {
+        this(id, balance.currency(), FastMoney.of(balance).minorUnits());
+    }
+
+    private TransactionalAccount(AccountId id, Currency currency, long balance) {
+        this.id = id;
+        this.currency = currency;
+        this.ordinal = ORDINALS.getAndIncrement();
+        this.state = new Balance(balance);
+    }
+
+    public static TransactionalAccount of(Account account) {
+        if (account instanceof TransactionalAccount transactional) {
+            return transactional;
+        }
+        var adopted = new TransactionalAccount(account.id(), account.currency(), account.balanceMinorUnits());
+        adopted.held.set(account.heldMinorUnits());
+        return adopted;
+    }
+
+    @Override
+    public TransactionalAccount withdraw(FastMoney amount) {
+        amount.requireSameCurrency(currency);
+        validateNonNegative(amount);
+        while (true) {
+            var current = settled();
+            validateEnoughFunds(current.minorUnits(), amount);
+            if (compareAndSet(current, new Balance(current.minorUnits() - amount.minorUnits()))) {
+                return this;
+            }
+        }
+    }
+
+    @Override
+    public TransactionalAccount deposit(FastMoney amount) {
+        amount.requireSameCurrency(currency);
+        while (true) {
+            var current = settled();
+            if (compareAndSet(current, new Balance(Math.addExact(current.minorUnits(), amount.minorUnits())))) {
+                return this;
+            }
+        }
+    }
+
+    @Override
+    public boolean compareAndSubtract(long originBalance, FastMoney moneyToSubtract) {
+        moneyToSubtract.requireSameCurrency(currency);
+        validateNonNegative(moneyToSubtract);
+        var current = settled();
+        if (current.minorUnits() != originBalance) {
+            return false;
+        }
+        validateEnoughFunds(originBalance, moneyToSubtract);
+        return compareAndSet(current, new Balance(originBalance - moneyToSubtract.minorUnits()));
+    }
+
+    @Override
+    public boolean compareAndAdd(long originBalance, FastMoney moneyToAdd) {
+        moneyToAdd.requireSameCurrency(currency);
+        var current = settled();
+        if (current.minorUnits() != originBalance) {
+            return false;
+        }
+        return compareAndSet(current, new Balance(Math.addExact(originBalance, moneyToAdd.minorUnits())));
+    }
+
+    @Override
+    public long balanceMinorUnits() {
+        var current = state;
+        if (current instanceof CellDescriptor descriptor) {
+            return descriptor.logicalBalance(this).minorUnits();
+        }
+        return ((Balance) current).minorUnits();
+    }
+
+    @Override
+    public long heldMinorUnits() {
+        return held.get();
+    }
+
+    @Override
+    public void addHeld(long minorUnits) {
+        held.addAndGet(minorUnits);
+    }
+
+    @Override
+    public Currency currency() {
+        return currency;
+    }
+
+    @Override
+    public AccountId id() {
+        return id;
+    }
+
+    /**
+     * The current balance once no transfer owns the cell, helping the owning one to complete if needed.
+     */
+    Balance settled() {
+        while (true) {
+            var current = state;
+            if (current instanceof Balance balance) {
+                return balance;
+            }
+            ((CellDescriptor) current).complete();
+        }
+    }
+
+    Object state() {
+        return state;
+    }
+
+    boolean compareAndSet(Object expected, Object update) {
+        return STATE.compareAndSet(this, expected, update);
+    }
+
+    private static void validateNonNegative(FastMoney amount) {
+        if (amount.isNegative()) {
+            throw new NegativeTransferAmountException();
+        }
+    }
+
+    private static void validateEnoughFunds(long balance, FastMoney amount) {
+        if (balance < amount.minorUnits()) {
+            throw new InsufficientFundsException();
+        }
+    }
+
+    record Balance(long minorUnits) {
+
+    }
+
+    @Override
+    public String toString() {
+        return "TransactionalAccount{" +
+               "id=" + id +
+               ", balance=" + balanceMinorUnits() +
+               ", currency=" + currency +
+               '}';
+    }
+}
@@ -0,0 +1,58 @@
+package org.example.bank.infraestructure.account.repository.inmemory.strategy;
+
+import org.example.bank.infraestructure.account.repository.inmemory.strategy.TransactionalAccount.Balance;
+
+/**
+ * Double compare-and-set over the two cells of a transfer, with no array to allocate on top of the descriptor.
+ */
+final class TransferDescriptor extends CellDescriptor {
+
+    private final TransactionalAccount first;
+    private final Balance firstExpected;
+    private final Balance firstUpdate;
+    private final TransactionalAccount second;
+    private final Balance secondExpected;
+    private final Balance secondUpdate;
+
+    private TransferDescriptor(
+            TransactionalAccount first, Balance firstExpected, Balance firstUpdate,
+            TransactionalAccount second, Balance secondExpected, Balance secondUpdate
+    ) {
+        this.first = first;
+        this.firstExpected = firstExpected;
+        this.firstUpdate = firstUpdate;
+        this.second = second;
+        this.secondExpected = secondExpected;
+        this.secondUpdate = secondUpdate;
+    }
+
+    static TransferDescriptor of(
+            TransactionalAccount origin, Balance originExpected, Balance originUpdate,
+            TransactionalAccount destiny, Balance destinyExpected, Balance destinyUpdate
+    ) {
+        if (origin.ordinal < destiny.ordinal) {
+            return new TransferDescriptor(origin, originExpected, originUpdate, destiny, destinyExpected, destinyUpdate);
+        }
+        return new TransferDescriptor(destiny, destinyExpected, destinyUpdate, origin, originExpected, originUpdate);
+    }
+
+    @Override
+    boolean complete() {
+        if (status == UNDECIDED) {
+            decide(acquire(first, firstExpected) && acquire(second, secondExpected));
+        }
+        var succeeded = status == SUCCEEDED;
+        first.compareAndSet(this, succeeded ? firstUpdate : firstExpected);
+        second.compareAndSet(this, succeeded ? secondUpdate : secondExpected);
+        return succeeded;
+    }
+
+    @Override
+    Balance logicalBalance(TransactionalAccount account) {
+        var succeeded = status == SUCCEEDED;
+        if (account == first) {
+            return succeeded ? firstUpdate : firstExpected;
+        }
+        return succeeded ? secondUpdate : secondExpected;
+    }
+}
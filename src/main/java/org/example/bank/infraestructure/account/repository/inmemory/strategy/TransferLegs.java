@@ -0,0 +1,136 @@
+package org.example.bank.infraestructure.account.repository.inmemory.strategy;
+
+import java.util.List;
+import java.util.Map;
+import org.example.bank.domain.account.Account;
+import org.example.bank.domain.account.AccountId;
+import org.example.bank.domain.money.ExchangeRates;
+import org.example.bank.domain.money.FastMoney;
+import org.example.bank.domain.transfer.RejectionReason;
+import org.example.bank.domain.transfer.SplitLeg;
+import org.example.bank.domain.transfer.TransferResult;
+
+final class TransferLegs {
+
+    private TransferLegs() {
+    }
+
+    /**
+     * Applies both legs of a transfer whose accounts the caller already holds exclusively, so the funds check can't
+     * go stale before the withdrawal.
+     */
+    static TransferResult apply(Account origin, Account destiny, FastMoney amount) {
+        return apply(origin, destiny, amount, ExchangeRates.none());
+    }
+
+    static TransferResult apply(Account origin, Account destiny, FastMoney amount, ExchangeRates rates) {
+        var credit = credit(destiny, amount, rates);
+        var rejection = RejectionReason.of(origin, amount, destiny, credit);
+        if (rejection != null) {
+            return TransferResult.rejected(rejection);
+        }
+        origin.withdraw(amount);
+        destiny.deposit(credit);
+        return TransferResult.success();
+    }
+
+    /**
+     * Puts the amount on hold on an account the caller already holds exclusively.
+     */
+    static TransferResult applyHold(Account account, FastMoney amount) {
+        var rejection = RejectionReason.of(account, account, amount);
+        if (rejection != null) {
+            return TransferResult.rejected(rejection);
+        }
+        account.withdraw(amount);
+        account.addHeld(amount.minorUnits());
+        return TransferResult.success();
+    }
+
+    /**
+     * Pays what the account has on hold into a destiny the caller already holds exclusively. The deposit goes first,
+     * so a destiny balance that would overflow leaves the hold untouched.
+     */
+    static TransferResult applyCapture(Account account, Account destiny, FastMoney amount) {
+        var rejection = RejectionReason.ofCapture(account, destiny, amount);
+        if (rejection != null) {
+            return TransferResult.rejected(rejection);
+        }
+        destiny.deposit(amount);
+        account.addHeld(-amount.minorUnits());
+        return TransferResult.success();
+    }
+
+    /**
+     * Applies a split transfer whose accounts the caller already holds exclusively: checks every leg, then withdraws
+     * the sum and deposits leg by leg, undoing the deposits made if one of them fails.
+     */
+    static TransferResult applySplit(Map<AccountId, Account> accounts, AccountId origin, List<SplitLeg> legs) {
+        var originAccount = accounts.get(origin);
+        var rejection = checkSplit(accounts, originAccount, legs);
+        if (rejection != null) {
+            return TransferResult.rejected(rejection);
+        }
+        var total = new FastMoney(total(legs), originAccount.currency());
+        originAccount.withdraw(total);
+        var deposited = 0;
+        try {
+            for (; deposited < legs.size(); deposited++) {
+                var leg = legs.get(deposited);
+                accounts.get(leg.destiny()).deposit(leg.amount());
+            }
+        } catch (RuntimeException e) {
+            // Such as a balance overflowing: no leg may stay applied
+            for (int i = deposited - 1; i >= 0; i--) {
+                var leg = legs.get(i);
+                accounts.get(leg.destiny()).withdraw(leg.amount());
+            }
+            originAccount.deposit(total);
+            throw e;
+        }
+        return TransferResult.success();
+    }
+
+    /**
+     * Checks a split transfer without touching the accounts.
+     *
+     * @param origin null when not found
+     * @return why it would be rejected, or null when it can be applied as of the current origin balance
+     */
+    static RejectionReason checkSplit(Map<AccountId, Account> accounts, Account origin, List<SplitLeg> legs) {
+        if (origin == null) {
+            return RejectionReason.ACCOUNT_NOT_FOUND;
+        }
+        var total = 0L;
+        for (var leg : legs) {
+            var rejection = RejectionReason.of(origin, accounts.get(leg.destiny()), leg.amount());
+            if (rejection != null && rejection != RejectionReason.INSUFFICIENT_FUNDS) {
+                return rejection;
+            }
+            total += leg.amount().minorUnits();
+            if (total < 0) {
+                // Overflowed, so far more than any balance
+                return RejectionReason.INSUFFICIENT_FUNDS;
+            }
+        }
+        return origin.balanceMinorUnits() < total ? RejectionReason.INSUFFICIENT_FUNDS : null;
+    }
+
+    /**
+     * @return the sum of the legs of a split transfer that passed {@link #checkSplit}
+     */
+    static long total(List<SplitLeg> legs) {
+        var total = 0L;
+        for (var leg : legs) {
+            total += leg.amount().minorUnits();
+        }
+        return total;
+    }
+
+    /**
+     * @return the amount converted to the currency of the destiny, or null when it is not found or can't be converted
+     */
+    static FastMoney credit(Account destiny, FastMoney amount, ExchangeRates rates) {
+        return destiny == null ? null : rates.convert(amount, destiny.currency());
+    }
+}
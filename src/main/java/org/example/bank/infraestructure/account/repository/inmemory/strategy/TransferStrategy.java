@@ -1,11 +1,99 @@
 package org.example.bank.infraestructure.account.repository.inmemory.strategy;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import org.example.bank.domain.account.Account;
 import org.example.bank.domain.account.AccountId;
+import org.example.bank.domain.money.ExchangeRates;
+import org.example.bank.domain.money.FastMoney;
 import org.example.bank.domain.money.Money;
+import org.example.bank.domain.transfer.SplitLeg;
+import org.example.bank.domain.transfer.TransferRequest;
+import org.example.bank.domain.transfer.TransferResult;
+import org.example.bank.infraestructure.account.repository.inmemory.IndexedAccountMap;
 
 public interface TransferStrategy {
 
-    void transfer(Map<AccountId, Account> accounts, Money amount, AccountId origin, AccountId destiny);
+    /**
+     * The account the strategy will work with once registered, for strategies that need their own account flavour.
+     */
+    default Account adopt(Account account) {
+        return account;
+    }
+
+    default void transfer(Map<AccountId, Account> accounts, Money amount, AccountId origin, AccountId destiny) {
+        transfer(accounts, FastMoney.of(amount), origin, destiny);
+    }
+
+    default void transfer(Map<AccountId, Account> accounts, FastMoney amount, AccountId origin, AccountId destiny) {
+        tryTransfer(accounts, amount, origin, destiny).orThrow();
+    }
+
+    default TransferResult tryTransfer(
+            Map<AccountId, Account> accounts, FastMoney amount, AccountId origin, AccountId destiny
+    ) {
+        return tryTransfer(accounts, amount, origin, destiny, ExchangeRates.none());
+    }
+
+    /**
+     * Applies the transfer, reporting rejections as a result: strategies check the transfer before touching the
+     * accounts, so no exception is built on the way. The destiny is credited with the amount converted to its
+     * currency at the current {@code rates}.
+     */
+    default TransferResult tryTransfer(
+            Map<AccountId, Account> accounts, FastMoney amount, AccountId origin, AccountId destiny, ExchangeRates rates
+    ) {
+        return tryTransfer(accounts.get(origin), accounts.get(destiny), amount, rates);
+    }
+
+    /**
+     * The transfer between accounts already looked up, such as by handle, each null when not found.
+     */
+    TransferResult tryTransfer(Account origin, Account destiny, FastMoney amount, ExchangeRates rates);
+
+    /**
+     * @see org.example.bank.domain.account.repository.AccountRepository#trySplitTransfer
+     */
+    TransferResult trySplitTransfer(Map<AccountId, Account> accounts, AccountId origin, List<SplitLeg> legs);
+
+    /**
+     * Puts an account already looked up, null when not found, on hold under the lock or compare-and-set the strategy
+     * withdraws with.
+     *
+     * @see org.example.bank.domain.account.repository.AccountRepository#tryHold
+     */
+    TransferResult tryHold(Account account, FastMoney amount);
+
+    /**
+     * Only the balance of the destiny changes, so it is the only account the strategy needs to hold.
+     *
+     * @see org.example.bank.domain.account.repository.AccountRepository#tryCaptureHold
+     */
+    TransferResult tryCaptureHold(Account account, Account destiny, FastMoney amount);
+
+    default List<TransferResult> transferBatch(Map<AccountId, Account> accounts, List<TransferRequest> requests) {
+        var results = new ArrayList<TransferResult>(requests.size());
+        for (var request : requests) {
+            results.add(tryTransfer(
+                    origin(accounts, request), destiny(accounts, request), request.amount(), ExchangeRates.none()
+            ));
+        }
+        return results;
+    }
+
+    /**
+     * The origin of the request, through its handle when it has one.
+     */
+    static Account origin(Map<AccountId, Account> accounts, TransferRequest request) {
+        return lookUp(accounts, request.origin(), request.originHandle());
+    }
+
+    static Account destiny(Map<AccountId, Account> accounts, TransferRequest request) {
+        return lookUp(accounts, request.destiny(), request.destinyHandle());
+    }
+
+    private static Account lookUp(Map<AccountId, Account> accounts, AccountId id, int handle) {
+        return accounts instanceof IndexedAccountMap indexed ? indexed.get(id, handle) : accounts.get(id);
+    }
 }
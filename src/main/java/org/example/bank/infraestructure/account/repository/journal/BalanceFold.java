@@ -0,0 +1,67 @@
+package org.example.bank.infraestructure.account.repository.journal;
+
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Folds a stretch of the journal into per-account changes, to be applied on top of the snapshot taken right before
+ * it. Each transfer only adds its amount to one balance and subtracts it from another, so the result doesn't depend
+ * on the order concurrent transfers were journaled in. Only the accounts the stretch touches are kept in memory; the
+ * snapshot is streamed.
+ */
+final class BalanceFold implements Consumer<JournalEntry> {
+
+    private final Map<String, Change> changes = new HashMap<>();
+
+    @Override
+    public void accept(JournalEntry entry) {
+        switch (entry.type()) {
+            case OPEN -> changes.computeIfAbsent(entry.origin(), id -> new Change(entry.currency())).open(entry.amount());
+            case TRANSFER -> {
+                changes.computeIfAbsent(entry.origin(), id -> new Change(entry.currency())).delta -= entry.amount();
+                changes.computeIfAbsent(entry.destiny(), id -> new Change(entry.currency())).delta += entry.amount();
+            }
+        }
+    }
+
+    /**
+     * Emits every account of {@code snapshot}, which may be null, and then those opened in the folded stretch, each
+     * with its balance at the end of the stretch.
+     */
+    void apply(BalanceSnapshot snapshot, BalanceSink sink) {
+        if (snapshot != null) {
+            snapshot.forEach((id, currency, minorUnits) -> {
+                var change = changes.remove(id);
+                sink.accept(id, currency, change == null ? minorUnits : minorUnits + change.delta);
+            });
+        }
+        changes.forEach((id, change) -> {
+            // Transfers are only journaled between registered accounts, so anything else is an account never opened
+            if (change.opened) {
+                sink.accept(id, change.currency, change.opening + change.delta);
+            }
+        });
+        changes.clear();
+    }
+
+    private static final class Change {
+
+        final Currency currency;
+        boolean opened;
+        long opening;
+        long delta;
+
+        Change(Currency currency) {
+            this.currency = currency;
+        }
+
+        void open(long balance) {
+            if (!opened) {
+                opened = true;
+                opening = balance;
+            }
+        }
+    }
+}
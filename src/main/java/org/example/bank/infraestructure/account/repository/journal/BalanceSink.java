@@ -0,0 +1,9 @@
+package org.example.bank.infraestructure.account.repository.journal;
+
+import java.util.Currency;
+
+@FunctionalInterface
+interface BalanceSink {
+
+    void accept(String id, Currency currency, long minorUnits);
+}
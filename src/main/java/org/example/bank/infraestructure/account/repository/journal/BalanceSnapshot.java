@@ -0,0 +1,251 @@
+package org.example.bank.infraestructure.account.repository.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Balances of every account as of a journal sequence, in a memory-mapped columnar file:
+ * {@code [magic | version | sequence | accounts | currencies | id bytes]}, the currency codes, the id dictionary as
+ * {@code accounts + 1} offsets into a UTF-8 blob, a column of currency indexes, a column of balances and a CRC32C of
+ * everything before it. Sections are 8-byte aligned and little-endian.
+ */
+final class BalanceSnapshot {
+
+    private static final int MAGIC = 0x504E5342;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final String SUFFIX = ".snapshot";
+
+    private final MappedByteBuffer buffer;
+    private final long sequence;
+    private final int accounts;
+    private final Currency[] currencies;
+    private final int offsetsAt;
+    private final int idsAt;
+    private final int currencyIndexesAt;
+    private final int balancesAt;
+
+    private BalanceSnapshot(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+        this.sequence = buffer.getLong(8);
+        this.accounts = buffer.getInt(16);
+        this.currencies = new Currency[buffer.getInt(20)];
+        var idBytes = buffer.getInt(24);
+        var code = new byte[3];
+        for (int i = 0; i < currencies.length; i++) {
+            buffer.get(HEADER_BYTES + i * 3, code);
+            currencies[i] = Currency.getInstance(new String(code, StandardCharsets.US_ASCII));
+        }
+        this.offsetsAt = align(HEADER_BYTES + currencies.length * 3);
+        this.idsAt = align(offsetsAt + (accounts + 1) * Integer.BYTES);
+        this.currencyIndexesAt = align(idsAt + idBytes);
+        this.balancesAt = align(currencyIndexesAt + accounts * Short.BYTES);
+    }
+
+    /**
+     * The most recent snapshot of the directory that is complete and intact.
+     */
+    static Optional<BalanceSnapshot> latest(Path directory) {
+        for (var path : list(directory).reversed()) {
+            var buffer = map(path);
+            if (buffer != null && isIntact(buffer)) {
+                return Optional.of(new BalanceSnapshot(buffer));
+            }
+        }
+        return Optional.empty();
+    }
+
+    long sequence() {
+        return sequence;
+    }
+
+    int size() {
+        return accounts;
+    }
+
+    void forEach(BalanceSink sink) {
+        var id = new byte[64];
+        for (int i = 0; i < accounts; i++) {
+            var from = buffer.getInt(offsetsAt + i * Integer.BYTES);
+            var length = buffer.getInt(offsetsAt + (i + 1) * Integer.BYTES) - from;
+            if (length > id.length) {
+                id = new byte[length];
+            }
+            buffer.get(idsAt + from, id, 0, length);
+            sink.accept(
+                    new String(id, 0, length, StandardCharsets.UTF_8),
+                    currencies[buffer.getShort(currencyIndexesAt + i * Short.BYTES)],
+                    buffer.getLong(balancesAt + i * Long.BYTES)
+            );
+        }
+    }
+
+    /**
+     * Deletes every snapshot older than {@code sequence}.
+     */
+    static void deleteBefore(Path directory, long sequence) {
+        for (var path : list(directory)) {
+            if (sequenceOf(path) < sequence) {
+                delete(path);
+            }
+        }
+    }
+
+    private static boolean isIntact(MappedByteBuffer buffer) {
+        if (buffer.capacity() < HEADER_BYTES + Integer.BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            return false;
+        }
+        var end = buffer.capacity() - Integer.BYTES;
+        var crc = new CRC32C();
+        crc.update(buffer.slice(0, end));
+        return buffer.getInt(end) == (int) crc.getValue();
+    }
+
+    private static List<Path> list(Path directory) {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(SUFFIX))
+                        .sorted(Comparator.comparingLong(BalanceSnapshot::sequenceOf))
+                        .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long sequenceOf(Path path) {
+        var name = path.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    private static MappedByteBuffer map(Path path) {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                return null;
+            }
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return buffer;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int align(long offset) {
+        return Math.toIntExact((offset + 7) & ~7L);
+    }
+
+    /**
+     * Collects the rows column by column and writes them as a new snapshot, under a temporary name first so a crash
+     * never leaves a partial file behind a valid name.
+     */
+    static final class Writer implements BalanceSink {
+
+        private final Map<Currency, Short> currencyIndexes = new HashMap<>();
+        private final List<Currency> currencies = new ArrayList<>();
+        private int[] idOffsets = new int[1024];
+        private byte[] ids = new byte[16 * 1024];
+        private short[] currencyColumn = new short[1024];
+        private long[] balances = new long[1024];
+        private int accounts;
+        private int idBytes;
+        private Currency lastCurrency;
+        private short lastCurrencyIndex;
+
+        @Override
+        public void accept(String id, Currency currency, long minorUnits) {
+            if (accounts + 2 > idOffsets.length) {
+                var grown = idOffsets.length * 2;
+                idOffsets = Arrays.copyOf(idOffsets, grown);
+                currencyColumn = Arrays.copyOf(currencyColumn, grown);
+                balances = Arrays.copyOf(balances, grown);
+            }
+            var bytes = id.getBytes(StandardCharsets.UTF_8);
+            if (idBytes + bytes.length > ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(ids.length * 2, idBytes + bytes.length));
+            }
+            System.arraycopy(bytes, 0, ids, idBytes, bytes.length);
+            idOffsets[accounts] = idBytes;
+            idBytes = Math.addExact(idBytes, bytes.length);
+            currencyColumn[accounts] = indexOf(currency);
+            balances[accounts] = minorUnits;
+            accounts++;
+            idOffsets[accounts] = idBytes;
+        }
+
+        private short indexOf(Currency currency) {
+            if (currency != lastCurrency) {
+                lastCurrency = currency;
+                lastCurrencyIndex = currencyIndexes.computeIfAbsent(currency, known -> {
+                    currencies.add(known);
+                    return (short) (currencies.size() - 1);
+                });
+            }
+            return lastCurrencyIndex;
+        }
+
+        void write(Path directory, long sequence) {
+            var offsetsAt = align(HEADER_BYTES + currencies.size() * 3L);
+            var idsAt = align(offsetsAt + (accounts + 1L) * Integer.BYTES);
+            var currencyIndexesAt = align(idsAt + (long) idBytes);
+            var balancesAt = align(currencyIndexesAt + (long) accounts * Short.BYTES);
+            var end = align(balancesAt + (long) accounts * Long.BYTES);
+            var path = directory.resolve("%020d%s".formatted(sequence, SUFFIX));
+            var temporary = directory.resolve(path.getFileName() + ".tmp");
+            try (var channel = FileChannel.open(
+                    temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE
+            )) {
+                var buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, end + Integer.BYTES);
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                buffer.putInt(0, MAGIC).putInt(4, VERSION).putLong(8, sequence).putInt(16, accounts)
+                      .putInt(20, currencies.size()).putInt(24, idBytes);
+                for (int i = 0; i < currencies.size(); i++) {
+                    buffer.put(HEADER_BYTES + i * 3, currencies.get(i).getCurrencyCode().getBytes(StandardCharsets.US_ASCII));
+                }
+                buffer.slice(offsetsAt, (accounts + 1) * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN)
+                      .asIntBuffer().put(idOffsets, 0, accounts + 1);
+                buffer.put(idsAt, ids, 0, idBytes);
+                buffer.slice(currencyIndexesAt, accounts * Short.BYTES).order(ByteOrder.LITTLE_ENDIAN)
+                      .asShortBuffer().put(currencyColumn, 0, accounts);
+                buffer.slice(balancesAt, accounts * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN)
+                      .asLongBuffer().put(balances, 0, accounts);
+                var crc = new CRC32C();
+                crc.update(buffer.slice(0, end));
+                buffer.putInt(end, (int) crc.getValue());
+                buffer.force();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            try {
+                Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
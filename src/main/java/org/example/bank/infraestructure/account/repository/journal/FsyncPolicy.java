@@ -0,0 +1,41 @@
+package org.example.bank.infraestructure.account.repository.journal;
+
+/**
+ * When appended records are forced to disk. Until then they live in the page cache: they survive a crash of the
+ * process, but not of the machine.
+ */
+public record FsyncPolicy(Mode mode, long interval) {
+
+    public enum Mode {
+        /**
+         * Every commit waits until its record is durable; concurrent commits share one fsync (group commit).
+         */
+        PER_OPERATION,
+        /**
+         * A background thread forces the journal every {@code interval} milliseconds.
+         */
+        EVERY_MILLIS,
+        /**
+         * The commit that leaves {@code interval} records not yet durable forces them all.
+         */
+        EVERY_RECORDS
+    }
+
+    public FsyncPolicy {
+        if (mode != Mode.PER_OPERATION && interval < 1) {
+            throw new IllegalArgumentException("Fsync interval must be positive");
+        }
+    }
+
+    public static FsyncPolicy perOperation() {
+        return new FsyncPolicy(Mode.PER_OPERATION, 0);
+    }
+
+    public static FsyncPolicy everyMillis(long millis) {
+        return new FsyncPolicy(Mode.EVERY_MILLIS, millis);
+    }
+
+    public static FsyncPolicy everyRecords(long records) {
+        return new FsyncPolicy(Mode.EVERY_RECORDS, records);
+    }
+}
@@ -0,0 +1,67 @@
+package org.example.bank.infraestructure.account.repository.journal;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps restarts short by folding the segments a {@link TransferJournal} has moved past into a new balance snapshot,
+ * then deleting them along with the older snapshots. It only reads files the journal will never write again, so
+ * transfers go on undisturbed while it runs.
+ * <p>
+ * A snapshot holds the balances as of a journal sequence, so recovering from it and replaying the records after that
+ * sequence gives back exactly what replaying the whole journal would.
+ */
+public final class JournalCompactor implements AutoCloseable {
+
+    private final TransferJournal journal;
+    private final ScheduledExecutorService scheduler;
+
+    public JournalCompactor(TransferJournal journal) {
+        this.journal = journal;
+        this.scheduler = null;
+    }
+
+    public JournalCompactor(TransferJournal journal, Duration period) {
+        this.journal = journal;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("journal-compactor").factory()
+        );
+        scheduler.scheduleWithFixedDelay(this::compact, period.toMillis(), period.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return the sequence the latest snapshot is up to date with
+     */
+    public synchronized long compact() {
+        var previous = BalanceSnapshot.latest(journal.directory());
+        var snapshotted = previous.map(BalanceSnapshot::sequence).orElse(0L);
+        var upTo = journal.completedSequence();
+        if (upTo > snapshotted) {
+            var fold = new BalanceFold();
+            journal.replay(snapshotted + 1, upTo, fold);
+            var writer = new BalanceSnapshot.Writer();
+            fold.apply(previous.orElse(null), writer);
+            writer.write(journal.directory(), upTo);
+            snapshotted = upTo;
+        }
+        BalanceSnapshot.deleteBefore(journal.directory(), snapshotted);
+        journal.deleteSegmentsUpTo(snapshotted);
+        return snapshotted;
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "JournalCompactor{" +
+               "journal=" + journal +
+               '}';
+    }
+}
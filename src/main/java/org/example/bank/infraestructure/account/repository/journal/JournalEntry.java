@@ -0,0 +1,15 @@
+package org.example.bank.infraestructure.account.repository.journal;
+
+import java.util.Currency;
+
+/**
+ * A decoded journal record. An {@link Type#OPEN} entry registers {@code origin} with an opening balance of
+ * {@code amount}; a {@link Type#TRANSFER} moves {@code amount} from {@code origin} to {@code destiny}.
+ */
+public record JournalEntry(long sequence, Type type, String origin, String destiny, Currency currency, long amount) {
+
+    public enum Type {
+        OPEN,
+        TRANSFER
+    }
+}
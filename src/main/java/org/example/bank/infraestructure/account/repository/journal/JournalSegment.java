@@ -0,0 +1,257 @@
+package org.example.bank.infraestructure.account.repository.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Currency;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * One pre-sized, memory-mapped journal file holding the records from {@code firstSequence} on. Records are
+ * {@value #RECORD_BYTES} bytes:
+ * {@code [sequence:8 | crc32c:4 | type:1 | origin length:1 | destiny length:1 | 0:1 | amount:8 | currency:3 | 0:1 |
+ * origin:50 | destiny:50]}, ids in UTF-8. The checksum covers everything after it, and a record only counts when its
+ * sequence is the expected one and its checksum matches, so a torn or stale record ends the journal.
+ */
+final class JournalSegment {
+
+    static final int RECORD_BYTES = 128;
+    static final int MAX_ID_BYTES = 50;
+
+    private static final int SEQUENCE = 0;
+    private static final int CHECKSUM = 8;
+    private static final int TYPE = 12;
+    private static final int ORIGIN_LENGTH = 13;
+    private static final int DESTINY_LENGTH = 14;
+    private static final int AMOUNT = 16;
+    private static final int CURRENCY = 24;
+    private static final int ORIGIN = 28;
+    private static final int DESTINY = ORIGIN + MAX_ID_BYTES;
+    private static final String SUFFIX = ".seg";
+    private static final byte[] EMPTY_RECORD = new byte[RECORD_BYTES];
+
+    final Path path;
+    final long firstSequence;
+    final int capacity;
+    private final MappedByteBuffer buffer;
+    private int forcedRecords;
+
+    private JournalSegment(Path path, long firstSequence, int capacity, MappedByteBuffer buffer) {
+        this.path = path;
+        this.firstSequence = firstSequence;
+        this.capacity = capacity;
+        this.buffer = buffer;
+    }
+
+    static JournalSegment create(Path directory, long firstSequence, int capacity) {
+        var path = directory.resolve("%020d%s".formatted(firstSequence, SUFFIX));
+        return new JournalSegment(path, firstSequence, capacity, map(path, (long) capacity * RECORD_BYTES));
+    }
+
+    static JournalSegment open(Path path) {
+        try {
+            var capacity = Math.toIntExact(Files.size(path) / RECORD_BYTES);
+            return new JournalSegment(path, firstSequenceOf(path), capacity, map(path, (long) capacity * RECORD_BYTES));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Segment files of the directory, oldest first.
+     */
+    static List<Path> list(Path directory) {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(SUFFIX)).sorted().toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static long firstSequenceOf(Path path) {
+        var name = path.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    /**
+     * Fills {@code record} with a complete record, checksum included.
+     */
+    static void encode(
+            ByteBuffer record, CRC32C crc, long sequence, JournalEntry.Type type,
+            String origin, String destiny, Currency currency, long amount
+    ) {
+        record.put(0, EMPTY_RECORD);
+        record.putLong(SEQUENCE, sequence);
+        record.put(TYPE, (byte) type.ordinal());
+        record.put(ORIGIN_LENGTH, (byte) encodeId(record, ORIGIN, origin));
+        record.put(DESTINY_LENGTH, (byte) encodeId(record, DESTINY, destiny));
+        record.putLong(AMOUNT, amount);
+        var code = currency.getCurrencyCode();
+        for (int i = 0; i < 3; i++) {
+            record.put(CURRENCY + i, (byte) code.charAt(i));
+        }
+        crc.reset();
+        crc.update(record.array(), TYPE, RECORD_BYTES - TYPE);
+        record.putInt(CHECKSUM, (int) crc.getValue());
+    }
+
+    private static int encodeId(ByteBuffer record, int offset, String id) {
+        if (id == null) {
+            return 0;
+        }
+        if (id.length() <= MAX_ID_BYTES && isAscii(id)) {
+            for (int i = 0; i < id.length(); i++) {
+                record.put(offset + i, (byte) id.charAt(i));
+            }
+            return id.length();
+        }
+        var bytes = id.getBytes(StandardCharsets.UTF_8);
+        requireFits(bytes);
+        record.put(offset, bytes);
+        return bytes.length;
+    }
+
+    /**
+     * @throws IllegalArgumentException if records can't hold the id
+     */
+    static void requireFits(String id) {
+        if (id.length() > MAX_ID_BYTES || !isAscii(id)) {
+            requireFits(id.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void requireFits(byte[] id) {
+        if (id.length > MAX_ID_BYTES) {
+            throw new IllegalArgumentException("Account ids can't be longer than " + MAX_ID_BYTES + " bytes");
+        }
+    }
+
+    private static boolean isAscii(String id) {
+        for (int i = 0; i < id.length(); i++) {
+            if (id.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void write(int index, ByteBuffer record) {
+        buffer.put(offsetOf(index), record, 0, RECORD_BYTES);
+    }
+
+    boolean isValid(int index, long expectedSequence, CRC32C crc) {
+        var offset = offsetOf(index);
+        if (buffer.getLong(offset + SEQUENCE) != expectedSequence) {
+            return false;
+        }
+        crc.reset();
+        crc.update(buffer.slice(offset + TYPE, RECORD_BYTES - TYPE));
+        return buffer.getInt(offset + CHECKSUM) == (int) crc.getValue();
+    }
+
+    JournalEntry read(int index) {
+        var offset = offsetOf(index);
+        var code = new byte[3];
+        buffer.get(offset + CURRENCY, code);
+        return new JournalEntry(
+                buffer.getLong(offset + SEQUENCE),
+                JournalEntry.Type.values()[buffer.get(offset + TYPE)],
+                decodeId(offset + ORIGIN, buffer.get(offset + ORIGIN_LENGTH)),
+                decodeId(offset + DESTINY, buffer.get(offset + DESTINY_LENGTH)),
+                Currency.getInstance(new String(code, StandardCharsets.US_ASCII)),
+                buffer.getLong(offset + AMOUNT)
+        );
+    }
+
+    private String decodeId(int offset, int length) {
+        if (length == 0) {
+            return null;
+        }
+        var bytes = new byte[length];
+        buffer.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Counts the valid records from the start of the segment.
+     */
+    int validRecords(CRC32C crc) {
+        var count = 0;
+        while (count < capacity && isValid(count, firstSequence + count, crc)) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Wipes every record written past {@code index} by an earlier run, so none of them can pass for a new one once the
+     * sequence reaches it again.
+     */
+    void clearFrom(int index) {
+        var cleared = false;
+        for (int i = index; i < capacity; i++) {
+            if (buffer.getLong(offsetOf(i) + SEQUENCE) != 0) {
+                buffer.put(offsetOf(i), EMPTY_RECORD);
+                cleared = true;
+            }
+        }
+        if (cleared) {
+            buffer.force();
+        }
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    /**
+     * Forces only the records written since the last call, instead of asking the kernel to scan the whole mapping.
+     * Callers must not run it concurrently.
+     */
+    void forceUpTo(int records) {
+        if (records > forcedRecords) {
+            buffer.force(offsetOf(forcedRecords), (records - forcedRecords) * RECORD_BYTES);
+            forcedRecords = records;
+        }
+    }
+
+    static void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int offsetOf(int index) {
+        return index * RECORD_BYTES;
+    }
+
+    private static MappedByteBuffer map(Path path, long size) {
+        try (var channel = FileChannel.open(
+                path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE
+        )) {
+            // The mapping outlives the channel and grows a new file to its full size up front
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "JournalSegment{" +
+               "path=" + path +
+               ", firstSequence=" + firstSequence +
+               ", capacity=" + capacity +
+               '}';
+    }
+}
@@ -0,0 +1,180 @@
+package org.example.bank.infraestructure.account.repository.journal;
+
+import java.util.List;
+import java.util.Optional;
+import org.example.bank.domain.account.Account;
+import org.example.bank.domain.account.AccountId;
+import org.example.bank.domain.account.ReadWriteLockAccount;
+import org.example.bank.domain.account.SimpleAccountId;
+import org.example.bank.domain.account.repository.AccountRepository;
+import org.example.bank.domain.audit.BalanceAudit;
+import org.example.bank.domain.money.FastMoney;
+import org.example.bank.domain.money.Money;
+import org.example.bank.domain.transfer.SplitLeg;
+import org.example.bank.domain.transfer.TransferRequest;
+import org.example.bank.domain.transfer.TransferResult;
+
+/**
+ * Makes any repository durable: openings and transfers are journaled once the delegate committed them and before the
+ * call returns. On creation the latest snapshot of the journal directory is loaded and only the journal after it is
+ * replayed; the resulting balances are registered in the delegate again, under {@link SimpleAccountId}s.
+ * <p>
+ * Only changes made through the repository are journaled, not those made directly on an {@link Account} it returned.
+ * <p>
+ * Holds are not journaled, only the captures that pay them to another account, as transfers: the journal keeps every
+ * account with what it has on hold still in its balance. A recovered repository starts with nothing on hold, as if
+ * the holds open when it stopped had been released, so their funds are neither stuck nor counted twice.
+ */
+public final class JournaledAccountRepository implements AccountRepository, AutoCloseable {
+
+    private final AccountRepository delegate;
+    private final TransferJournal journal;
+
+    public JournaledAccountRepository(AccountRepository delegate, TransferJournal journal) {
+        this.delegate = delegate;
+        this.journal = journal;
+        recover();
+    }
+
+    private void recover() {
+        var snapshot = BalanceSnapshot.latest(journal.directory());
+        var fold = new BalanceFold();
+        journal.replay(snapshot.map(BalanceSnapshot::sequence).orElse(0L) + 1, fold);
+        fold.apply(snapshot.orElse(null), (id, currency, minorUnits) -> delegate.registerAccount(new ReadWriteLockAccount(
+                new SimpleAccountId(id),
+                new FastMoney(minorUnits, currency)
+        )));
+    }
+
+    /**
+     * The opening is journaled before the account is registered, with its balance from before anyone could transfer
+     * from or to it, so every transfer of the account is journaled after its opening.
+     *
+     * @throws IllegalArgumentException if the id is too long to be journaled, before registering anything
+     */
+    @Override
+    public synchronized void registerAccount(Account anAccount) {
+        // Checked up front: an account live in the delegate but never opened in the journal would not be recovered
+        JournalSegment.requireFits(anAccount.id().value());
+        if (delegate.getAccount(anAccount.id()).isPresent()) {
+            return;
+        }
+        var opening = journal.appendOpen(anAccount.id(), anAccount.currency(), anAccount.balanceMinorUnits());
+        delegate.registerAccount(anAccount);
+        journal.commit(opening);
+    }
+
+    @Override
+    public Money getBalance(AccountId id) {
+        return delegate.getBalance(id);
+    }
+
+    @Override
+    public TransferResult tryTransfer(FastMoney amount, AccountId origin, AccountId destiny) {
+        var result = delegate.tryTransfer(amount, origin, destiny);
+        if (result.isSuccess()) {
+            journal.commit(journal.appendTransfer(amount, origin, destiny));
+        }
+        return result;
+    }
+
+    @Override
+    public TransferResult tryTransfer(TransferRequest request) {
+        var result = delegate.tryTransfer(request);
+        if (result.isSuccess()) {
+            journal.commit(journal.appendTransfer(request.amount(), request.origin(), request.destiny()));
+        }
+        return result;
+    }
+
+    @Override
+    public int handleOf(AccountId id) {
+        return delegate.handleOf(id);
+    }
+
+    @Override
+    public Optional<Account> getAccount(AccountId id) {
+        return delegate.getAccount(id);
+    }
+
+    /**
+     * The whole batch shares a single commit.
+     */
+    @Override
+    public List<TransferResult> transferBatch(List<TransferRequest> requests) {
+        var results = delegate.transferBatch(requests);
+        var last = -1L;
+        for (int i = 0; i < requests.size(); i++) {
+            if (results.get(i).isSuccess()) {
+                var request = requests.get(i);
+                last = journal.appendTransfer(request.amount(), request.origin(), request.destiny());
+            }
+        }
+        if (last >= 0) {
+            journal.commit(last);
+        }
+        return results;
+    }
+
+    /**
+     * Journals every leg as a transfer out of the origin, all of them sharing a single commit.
+     */
+    @Override
+    public TransferResult trySplitTransfer(AccountId origin, List<SplitLeg> legs) {
+        var result = delegate.trySplitTransfer(origin, legs);
+        if (result.isSuccess()) {
+            var last = -1L;
+            for (var leg : legs) {
+                last = journal.appendTransfer(leg.amount(), origin, leg.destiny());
+            }
+            if (last >= 0) {
+                journal.commit(last);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public TransferResult tryHold(FastMoney amount, AccountId account) {
+        return delegate.tryHold(amount, account);
+    }
+
+    @Override
+    public TransferResult tryCaptureHold(FastMoney amount, AccountId account, AccountId destiny) {
+        var result = delegate.tryCaptureHold(amount, account, destiny);
+        if (result.isSuccess() && !account.value().equals(destiny.value())) {
+            journal.commit(journal.appendTransfer(amount, account, destiny));
+        }
+        return result;
+    }
+
+    @Override
+    public BalanceAudit audit(int largest) {
+        return delegate.audit(largest);
+    }
+
+    public TransferJournal journal() {
+        return journal;
+    }
+
+    @Override
+    public void close() {
+        journal.close();
+        if (delegate instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException("Failed to close " + delegate, e);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Journaled" + delegate;
+    }
+}
@@ -0,0 +1,282 @@
+package org.example.bank.infraestructure.account.repository.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Currency;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+import org.example.bank.domain.account.AccountId;
+import org.example.bank.domain.money.FastMoney;
+
+/**
+ * Append-only journal of account openings and committed transfers, as fixed-size records in memory-mapped segment
+ * files named after their first sequence. Appending is a copy into the mapping under a short lock; making records
+ * durable is a separate {@link #commit(long)} step driven by the {@link FsyncPolicy}, so many appends can share one
+ * fsync.
+ * <p>
+ * Opening the journal finds the last valid record, wipes whatever an interrupted run left after it and continues from
+ * there. Segments the journal has moved past can be folded into a snapshot and deleted, see {@link JournalCompactor}.
+ */
+public final class TransferJournal implements AutoCloseable {
+
+    public static final int DEFAULT_RECORDS_PER_SEGMENT = 1 << 20;
+    private static final int MAX_RECORDS_PER_SEGMENT = Integer.MAX_VALUE / JournalSegment.RECORD_BYTES;
+
+    private final Path directory;
+    private final FsyncPolicy policy;
+    private final int recordsPerSegment;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final ByteBuffer record = ByteBuffer.allocate(JournalSegment.RECORD_BYTES);
+    private final CRC32C crc = new CRC32C();
+    private final AtomicLong durableSequence = new AtomicLong();
+    private final ScheduledExecutorService flusher;
+    private JournalSegment segment;
+    private volatile long segmentStart;
+    private int segmentRecords;
+    private long nextSequence;
+    private volatile long writtenSequence;
+    private volatile boolean closed;
+
+    public TransferJournal(Path directory, FsyncPolicy policy) {
+        this(directory, policy, DEFAULT_RECORDS_PER_SEGMENT);
+    }
+
+    public TransferJournal(Path directory, FsyncPolicy policy, int recordsPerSegment) {
+        if (recordsPerSegment < 1 || recordsPerSegment > MAX_RECORDS_PER_SEGMENT) {
+            throw new IllegalArgumentException("Records per segment must be between 1 and " + MAX_RECORDS_PER_SEGMENT);
+        }
+        this.directory = directory;
+        this.policy = policy;
+        this.recordsPerSegment = recordsPerSegment;
+        open();
+        this.flusher = policy.mode() == FsyncPolicy.Mode.EVERY_MILLIS ? startFlusher(policy.interval()) : null;
+    }
+
+    private void open() {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        var paths = JournalSegment.list(directory);
+        // Compaction may have removed the oldest segments
+        var expected = paths.isEmpty() ? 1L : JournalSegment.firstSequenceOf(paths.getFirst());
+        for (var path : paths) {
+            if (segment != null && segmentRecords < segment.capacity || JournalSegment.firstSequenceOf(path) != expected) {
+                // Past the end of the journal: nothing valid can follow a gap
+                JournalSegment.delete(path);
+                continue;
+            }
+            segment = JournalSegment.open(path);
+            segmentRecords = segment.validRecords(crc);
+            expected += segmentRecords;
+        }
+        if (segment == null) {
+            segment = JournalSegment.create(directory, expected, recordsPerSegment);
+        } else {
+            segment.clearFrom(segmentRecords);
+        }
+        segmentStart = segment.firstSequence;
+        nextSequence = expected;
+        writtenSequence = expected - 1;
+        durableSequence.set(expected - 1);
+    }
+
+    public long appendOpen(AccountId id, Currency currency, long balance) {
+        return append(JournalEntry.Type.OPEN, id.value(), null, currency, balance);
+    }
+
+    public long appendTransfer(FastMoney amount, AccountId origin, AccountId destiny) {
+        return append(JournalEntry.Type.TRANSFER, origin.value(), destiny.value(), amount.currency(), amount.minorUnits());
+    }
+
+    private long append(JournalEntry.Type type, String origin, String destiny, Currency currency, long amount) {
+        appendLock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Journal closed");
+            }
+            if (segmentRecords == segment.capacity) {
+                roll();
+            }
+            var sequence = nextSequence;
+            JournalSegment.encode(record, crc, sequence, type, origin, destiny, currency, amount);
+            segment.write(segmentRecords++, record);
+            nextSequence++;
+            writtenSequence = sequence;
+            return sequence;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Older segments are forced before the journal moves on, so only the current one can hold records that aren't
+     * durable.
+     */
+    private void roll() {
+        segment.force();
+        durableSequence.accumulateAndGet(nextSequence - 1, Math::max);
+        segment = JournalSegment.create(directory, nextSequence, recordsPerSegment);
+        segmentRecords = 0;
+        segmentStart = nextSequence;
+    }
+
+    /**
+     * Makes the record durable as far as the policy requires before returning.
+     */
+    public void commit(long sequence) {
+        switch (policy.mode()) {
+            case PER_OPERATION -> sync(sequence);
+            case EVERY_RECORDS -> {
+                if (sequence - durableSequence.get() >= policy.interval()) {
+                    sync(sequence);
+                }
+            }
+            case EVERY_MILLIS -> {
+            }
+        }
+    }
+
+    /**
+     * Waits until every record up to {@code sequence} is on disk. One caller forces the journal for all the records
+     * written so far while the others queue, and most of them find their record already durable when they get in.
+     */
+    public void sync(long sequence) {
+        if (durableSequence.get() >= sequence) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            if (durableSequence.get() >= sequence) {
+                return;
+            }
+            JournalSegment current;
+            int records;
+            long written;
+            appendLock.lock();
+            try {
+                current = segment;
+                records = segmentRecords;
+                written = writtenSequence;
+            } finally {
+                appendLock.unlock();
+            }
+            current.forceUpTo(records);
+            durableSequence.accumulateAndGet(written, Math::max);
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Feeds every valid record from {@code fromSequence} on, oldest first, to {@code consumer}.
+     */
+    public void replay(long fromSequence, Consumer<JournalEntry> consumer) {
+        replay(fromSequence, Long.MAX_VALUE, consumer);
+    }
+
+    /**
+     * Feeds the valid records between both sequences, inclusive, oldest first, to {@code consumer}.
+     *
+     * @throws IllegalStateException when the records from {@code fromSequence} were already compacted away
+     */
+    public void replay(long fromSequence, long toSequence, Consumer<JournalEntry> consumer) {
+        var scratch = new CRC32C();
+        var paths = JournalSegment.list(directory);
+        var expected = fromSequence;
+        for (int s = 0; s < paths.size(); s++) {
+            if (s + 1 < paths.size() && JournalSegment.firstSequenceOf(paths.get(s + 1)) <= expected) {
+                continue;
+            }
+            var first = JournalSegment.firstSequenceOf(paths.get(s));
+            if (first > expected) {
+                if (expected == fromSequence) {
+                    throw new IllegalStateException("Journal starts after sequence " + fromSequence);
+                }
+                return;
+            }
+            var replayed = JournalSegment.open(paths.get(s));
+            for (var i = (int) (expected - first); i < replayed.capacity; i++, expected++) {
+                if (expected > toSequence || !replayed.isValid(i, expected, scratch)) {
+                    return;
+                }
+                consumer.accept(replayed.read(i));
+            }
+        }
+    }
+
+    /**
+     * Last sequence of the segments the journal has moved past, which will never change again.
+     */
+    public long completedSequence() {
+        return segmentStart - 1;
+    }
+
+    /**
+     * Deletes the completed segments whose records are all at or before {@code sequence}.
+     */
+    public void deleteSegmentsUpTo(long sequence) {
+        var paths = JournalSegment.list(directory);
+        var limit = Math.min(sequence, completedSequence()) + 1;
+        for (int s = 0; s + 1 < paths.size(); s++) {
+            if (JournalSegment.firstSequenceOf(paths.get(s + 1)) > limit) {
+                return;
+            }
+            JournalSegment.delete(paths.get(s));
+        }
+    }
+
+    public long writtenSequence() {
+        return writtenSequence;
+    }
+
+    public long durableSequence() {
+        return durableSequence.get();
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    private ScheduledExecutorService startFlusher(long millis) {
+        var executor = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("journal-fsync").factory()
+        );
+        executor.scheduleWithFixedDelay(() -> sync(writtenSequence), millis, millis, TimeUnit.MILLISECONDS);
+        return executor;
+    }
+
+    @Override
+    public void close() {
+        appendLock.lock();
+        try {
+            closed = true;
+        } finally {
+            appendLock.unlock();
+        }
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        sync(writtenSequence);
+    }
+
+    @Override
+    public String toString() {
+        return "TransferJournal{" +
+               "directory=" + directory +
+               ", policy=" + policy +
+               ", writtenSequence=" + writtenSequence +
+               ", durableSequence=" + durableSequence.get() +
+               '}';
+    }
+}
@@ -0,0 +1,44 @@
+package org.example.bank.infraestructure.account.repository.offheap;
+
+import java.util.concurrent.RecursiveTask;
+import org.example.bank.domain.audit.BalanceTally;
+
+/**
+ * Tallies the audited balances of a range of slots, splitting it in halves until they are small enough to scan.
+ */
+final class AuditTask extends RecursiveTask<BalanceTally> {
+
+    private static final int SLOTS_PER_TASK = 1 << 16;
+
+    private final OffHeapAccountRepository repository;
+    private final long epoch;
+    private final int from;
+    private final int to;
+    private final int currencies;
+    private final int largest;
+
+    AuditTask(OffHeapAccountRepository repository, long epoch, int from, int to, int currencies, int largest) {
+        this.repository = repository;
+        this.epoch = epoch;
+        this.from = from;
+        this.to = to;
+        this.currencies = currencies;
+        this.largest = largest;
+    }
+
+    @Override
+    protected BalanceTally compute() {
+        if (to - from <= SLOTS_PER_TASK) {
+            var tally = new BalanceTally(currencies, largest);
+            for (int slot = from; slot < to; slot++) {
+                tally.add(repository.currencyIndexOf(slot), slot, repository.auditedBalanceOf(slot, epoch));
+            }
+            return tally;
+        }
+        var middle = (from + to) >>> 1;
+        var left = new AuditTask(repository, epoch, from, middle, currencies, largest);
+        left.fork();
+        var right = new AuditTask(repository, epoch, middle, to, currencies, largest).compute();
+        return left.join().merge(right);
+    }
+}
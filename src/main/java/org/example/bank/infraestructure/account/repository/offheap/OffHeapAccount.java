@@ -0,0 +1,82 @@
+package org.example.bank.infraestructure.account.repository.offheap;
+
+import java.util.Currency;
+import org.example.bank.domain.account.Account;
+import org.example.bank.domain.account.AccountId;
+import org.example.bank.domain.exceptions.NegativeTransferAmountException;
+import org.example.bank.domain.money.FastMoney;
+
+/**
+ * Short-lived view over one slot of an {@link OffHeapAccountRepository}; every operation goes straight to the slot.
+ */
+final class OffHeapAccount implements Account {
+
+    private final OffHeapAccountRepository repository;
+    private final int slot;
+    private final AccountId id;
+
+    OffHeapAccount(OffHeapAccountRepository repository, int slot, AccountId id) {
+        this.repository = repository;
+        this.slot = slot;
+        this.id = id;
+    }
+
+    @Override
+    public OffHeapAccount withdraw(FastMoney amount) {
+        amount.requireSameCurrency(currency());
+        validateNonNegativeWithdraw(amount);
+        repository.add(slot, -amount.minorUnits());
+        return this;
+    }
+
+    @Override
+    public OffHeapAccount deposit(FastMoney amount) {
+        amount.requireSameCurrency(currency());
+        repository.add(slot, amount.minorUnits());
+        return this;
+    }
+
+    @Override
+    public long balanceMinorUnits() {
+        return repository.balanceOf(slot);
+    }
+
+    @Override
+    public long heldMinorUnits() {
+        return repository.heldOf(slot);
+    }
+
+    @Override
+    public void addHeld(long minorUnits) {
+        repository.addHeld(slot, minorUnits);
+    }
+
+    @Override
+    public Currency currency() {
+        return repository.currencyOf(slot);
+    }
+
+    @Override
+    public AccountId id() {
+        return id;
+    }
+
+    @Override
+    public boolean compareAndSubtract(long originBalance, FastMoney moneyToSubtract) {
+        moneyToSubtract.requireSameCurrency(currency());
+        validateNonNegativeWithdraw(moneyToSubtract);
+        return repository.compareAndAdd(slot, originBalance, -moneyToSubtract.minorUnits());
+    }
+
+    @Override
+    public boolean compareAndAdd(long originBalance, FastMoney moneyToAdd) {
+        moneyToAdd.requireSameCurrency(currency());
+        return repository.compareAndAdd(slot, originBalance, moneyToAdd.minorUnits());
+    }
+
+    private void validateNonNegativeWithdraw(FastMoney amount) {
+        if (amount.isNegative()) {
+            throw new NegativeTransferAmountException();
+        }
+    }
+}
@@ -0,0 +1,663 @@
+package org.example.bank.infraestructure.account.repository.offheap;
+
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import org.example.bank.domain.account.Account;
+import org.example.bank.domain.account.AccountId;
+import org.example.bank.domain.account.SimpleAccountId;
+import org.example.bank.domain.account.repository.AccountRepository;
+import org.example.bank.domain.audit.BalanceAudit;
+import org.example.bank.domain.exceptions.AccountNotFoundException;
+import org.example.bank.domain.exceptions.InsufficientFundsException;
+import org.example.bank.domain.money.ExchangeRates;
+import org.example.bank.domain.money.FastMoney;
+import org.example.bank.domain.money.Money;
+import org.example.bank.domain.transfer.RejectionReason;
+import org.example.bank.domain.transfer.SplitLeg;
+import org.example.bank.domain.transfer.TransferRequest;
+import org.example.bank.domain.transfer.TransferResult;
+
+/**
+ * Account book kept outside the Java heap, meant for tens of millions of accounts with a small heap and flat GC times.
+ * <p>
+ * Every account is a 32 byte slot {@code [version | balance | id offset | id length | currency]}, its id is stored as
+ * chars in a separate region and the id to slot index is an open addressing table of ints, so there are no per-account
+ * objects for the collector to trace. What each account has on hold is a long of its own in a parallel region, only
+ * written holding the slot. The memory comes from {@code ByteBuffer.allocateDirect}, so
+ * {@code -XX:MaxDirectMemorySize} has to leave room for it.
+ * <p>
+ * Writers take a slot by moving its version from even to odd with a CAS, which makes both legs of a transfer a single
+ * atomic step. A batch takes every slot it touches once, in ascending slot order, and applies all its transfers before
+ * releasing them. Balance reads are seqlock reads: they retry when the version moved, and never write to the slot.
+ * Registration is serialized and publishes the slot through a release store of its index entry.
+ * <p>
+ * Audits read every balance as of the instant they start without stopping the writers. Starting an audit opens a new
+ * epoch, and the first writer to lock a slot during that epoch saves its balance as the slot pre-image before changing
+ * it. The audit then takes each slot pre-image when it has one for the epoch and its balance otherwise. Pre-images
+ * live in their own region, allocated by the first audit.
+ */
+public class OffHeapAccountRepository implements AccountRepository {
+
+    private static final int AVERAGE_ID_LENGTH = 16;
+    private static final int SLOT_BYTES = 32;
+    private static final int VERSION = 0;
+    private static final int BALANCE = 8;
+    private static final int ID_OFFSET = 16;
+    private static final int ID_LENGTH = 24;
+    private static final int CURRENCY = 28;
+    private static final int SPINS_BEFORE_YIELD = 64;
+    private static final int PRE_IMAGE_BYTES = 16;
+    private static final int PRE_IMAGE_EPOCH = 0;
+    private static final int PRE_IMAGE_BALANCE = 8;
+
+    private final int capacity;
+    private final int indexMask;
+    private final OffHeapRegion index;
+    private final OffHeapRegion slots;
+    private final OffHeapRegion ids;
+    private final OffHeapRegion holds;
+    private volatile Currency[] currencies;
+    private volatile int size;
+    private long idsTop;
+    private final Object auditLock = new Object();
+    private OffHeapRegion preImages;
+    private long audits;
+    /**
+     * Epoch of the running audit in the high half and the number of slots it covers in the low half; 0 when idle.
+     */
+    private volatile long audit;
+
+    public OffHeapAccountRepository(int capacity) {
+        this(capacity, AVERAGE_ID_LENGTH);
+    }
+
+    public OffHeapAccountRepository(int capacity, int averageIdLength) {
+        if (capacity <= 0 || capacity > 1 << 29) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^29 accounts");
+        }
+        var buckets = Integer.highestOneBit(2 * capacity - 1) << 1;
+        this.capacity = capacity;
+        this.indexMask = buckets - 1;
+        this.index = new OffHeapRegion((long) buckets * Integer.BYTES);
+        this.index.allocateAll();
+        this.slots = new OffHeapRegion((long) capacity * SLOT_BYTES);
+        this.ids = new OffHeapRegion((long) capacity * averageIdLength * Character.BYTES);
+        this.holds = new OffHeapRegion((long) capacity * Long.BYTES);
+        this.currencies = new Currency[0];
+    }
+
+    @Override
+    public synchronized void registerAccount(Account anAccount) {
+        var id = anAccount.id().value();
+        var bucket = hash(id) & indexMask;
+        for (var entry = index.getInt(bucketOffset(bucket)); entry != 0; entry = index.getInt(bucketOffset(bucket))) {
+            if (idEquals(entry - 1, id)) {
+                return;
+            }
+            bucket = (bucket + 1) & indexMask;
+        }
+        if (size == capacity) {
+            throw new IllegalStateException("Off-heap account book is full");
+        }
+        var slot = size;
+        var idOffset = storeId(id);
+        var offset = slotOffset(slot);
+        slots.ensureAllocated(offset, SLOT_BYTES);
+        slots.setLongOpaque(offset + BALANCE, anAccount.balanceMinorUnits());
+        slots.setLongOpaque(offset + ID_OFFSET, idOffset);
+        slots.setInt(offset + ID_LENGTH, id.length());
+        slots.setInt(offset + CURRENCY, currencyIndex(anAccount.currency()));
+        holds.ensureAllocated(heldOffset(slot), Long.BYTES);
+        holds.setLongOpaque(heldOffset(slot), anAccount.heldMinorUnits());
+        index.setIntRelease(bucketOffset(bucket), slot + 1);
+        size = slot + 1;
+    }
+
+    @Override
+    public Money getBalance(AccountId id) {
+        var slot = slotOf(id);
+        if (slot < 0) {
+            throw new AccountNotFoundException();
+        }
+        return FastMoney.toMoney(balanceOf(slot), currencyOf(slot));
+    }
+
+    @Override
+    public TransferResult tryTransfer(FastMoney amount, AccountId origin, AccountId destiny) {
+        return tryTransfer(amount, origin, destiny, ExchangeRates.none());
+    }
+
+    /**
+     * Converts before locking: the currency of a slot never changes, so only the balances need the slots locked.
+     */
+    @Override
+    public TransferResult tryTransfer(FastMoney amount, AccountId origin, AccountId destiny, ExchangeRates rates) {
+        var originSlot = slotOf(origin);
+        var destinySlot = slotOf(destiny);
+        if (originSlot < 0 || destinySlot < 0) {
+            return TransferResult.rejected(RejectionReason.ACCOUNT_NOT_FOUND);
+        }
+        var credit = rates.convert(amount, currencyOf(destinySlot));
+        if (credit == null) {
+            return TransferResult.rejected(RejectionReason.CURRENCY_MISMATCH);
+        }
+
+        var first = Math.min(originSlot, destinySlot);
+        var second = Math.max(originSlot, destinySlot);
+        var firstVersion = lock(first);
+        var secondVersion = first == second ? firstVersion : lock(second);
+        try {
+            return applyLocked(originSlot, amount, destinySlot, credit, audit);
+        } finally {
+            if (first != second) {
+                unlock(second, secondVersion);
+            }
+            unlock(first, firstVersion);
+        }
+    }
+
+    @Override
+    public List<TransferResult> transferBatch(List<TransferRequest> requests) {
+        var originSlots = new int[requests.size()];
+        var destinySlots = new int[requests.size()];
+        var involvedSlots = new int[requests.size() * 2];
+        var involved = 0;
+        for (int i = 0; i < requests.size(); i++) {
+            originSlots[i] = slotOf(requests.get(i).origin());
+            destinySlots[i] = slotOf(requests.get(i).destiny());
+            if (originSlots[i] >= 0 && destinySlots[i] >= 0) {
+                involvedSlots[involved++] = originSlots[i];
+                involvedSlots[involved++] = destinySlots[i];
+            }
+        }
+        var distinct = sortDistinct(involvedSlots, involved);
+
+        var versions = lockAll(involvedSlots, distinct);
+        try {
+            var running = audit;
+            var results = new ArrayList<TransferResult>(requests.size());
+            for (int i = 0; i < requests.size(); i++) {
+                var amount = requests.get(i).amount();
+                results.add(applyLocked(originSlots[i], amount, destinySlots[i], amount, running));
+            }
+            return results;
+        } finally {
+            unlockAll(involvedSlots, versions);
+        }
+    }
+
+    /**
+     * Checked before locking, since currencies never change, then applied holding every slot involved, taken once
+     * each in ascending order like a batch.
+     */
+    @Override
+    public TransferResult trySplitTransfer(AccountId origin, List<SplitLeg> legs) {
+        var originSlot = slotOf(origin);
+        if (originSlot < 0) {
+            return TransferResult.rejected(RejectionReason.ACCOUNT_NOT_FOUND);
+        }
+        var destinySlots = new int[legs.size()];
+        var involvedSlots = new int[legs.size() + 1];
+        involvedSlots[0] = originSlot;
+        var total = 0L;
+        for (int i = 0; i < legs.size(); i++) {
+            var amount = legs.get(i).amount();
+            destinySlots[i] = slotOf(legs.get(i).destiny());
+            if (destinySlots[i] < 0) {
+                return TransferResult.rejected(RejectionReason.ACCOUNT_NOT_FOUND);
+            }
+            if (amount.currency() != currencyOf(originSlot) || amount.currency() != currencyOf(destinySlots[i])) {
+                return TransferResult.rejected(RejectionReason.CURRENCY_MISMATCH);
+            }
+            if (amount.isNegative()) {
+                return TransferResult.rejected(RejectionReason.NEGATIVE_AMOUNT);
+            }
+            involvedSlots[i + 1] = destinySlots[i];
+            total += amount.minorUnits();
+            if (total < 0) {
+                // Overflowed, so far more than any balance
+                return TransferResult.rejected(RejectionReason.INSUFFICIENT_FUNDS);
+            }
+        }
+        var distinct = sortDistinct(involvedSlots, involvedSlots.length);
+
+        var versions = lockAll(involvedSlots, distinct);
+        try {
+            var originOffset = slotOffset(originSlot) + BALANCE;
+            if (slots.getLongOpaque(originOffset) < total) {
+                return TransferResult.rejected(RejectionReason.INSUFFICIENT_FUNDS);
+            }
+            var running = audit;
+            for (int i = 0; i < distinct; i++) {
+                saveForAudit(involvedSlots[i], running);
+            }
+            slots.setLongOpaque(originOffset, slots.getLongOpaque(originOffset) - total);
+            var deposited = 0;
+            try {
+                for (; deposited < legs.size(); deposited++) {
+                    var offset = slotOffset(destinySlots[deposited]) + BALANCE;
+                    var credit = legs.get(deposited).amount().minorUnits();
+                    slots.setLongOpaque(offset, Math.addExact(slots.getLongOpaque(offset), credit));
+                }
+            } catch (ArithmeticException e) {
+                // A balance would overflow: no leg may stay applied
+                while (deposited-- > 0) {
+                    var offset = slotOffset(destinySlots[deposited]) + BALANCE;
+                    var credit = legs.get(deposited).amount().minorUnits();
+                    slots.setLongOpaque(offset, slots.getLongOpaque(offset) - credit);
+                }
+                slots.setLongOpaque(originOffset, slots.getLongOpaque(originOffset) + total);
+                throw e;
+            }
+            return TransferResult.success();
+        } finally {
+            unlockAll(involvedSlots, versions);
+        }
+    }
+
+    /**
+     * Takes the slot like a transfer takes its origin.
+     */
+    @Override
+    public TransferResult tryHold(FastMoney amount, AccountId account) {
+        var slot = slotOf(account);
+        if (slot < 0) {
+            return TransferResult.rejected(RejectionReason.ACCOUNT_NOT_FOUND);
+        }
+        if (amount.currency() != currencyOf(slot)) {
+            return TransferResult.rejected(RejectionReason.CURRENCY_MISMATCH);
+        }
+        if (amount.isNegative()) {
+            return TransferResult.rejected(RejectionReason.NEGATIVE_AMOUNT);
+        }
+        var version = lock(slot);
+        try {
+            var offset = slotOffset(slot) + BALANCE;
+            var balance = slots.getLongOpaque(offset);
+            if (balance < amount.minorUnits()) {
+                return TransferResult.rejected(RejectionReason.INSUFFICIENT_FUNDS);
+            }
+            saveForAudit(slot, audit);
+            slots.setLongOpaque(offset, balance - amount.minorUnits());
+            holds.setLongOpaque(heldOffset(slot), holds.getLongOpaque(heldOffset(slot)) + amount.minorUnits());
+            return TransferResult.success();
+        } finally {
+            unlock(slot, version);
+        }
+    }
+
+    /**
+     * Takes both slots like a transfer: the balance of the destiny changes, and what the account has on hold is only
+     * written holding its slot.
+     */
+    @Override
+    public TransferResult tryCaptureHold(FastMoney amount, AccountId account, AccountId destiny) {
+        var slot = slotOf(account);
+        var destinySlot = slotOf(destiny);
+        if (slot < 0 || destinySlot < 0) {
+            return TransferResult.rejected(RejectionReason.ACCOUNT_NOT_FOUND);
+        }
+        if (amount.currency() != currencyOf(slot) || amount.currency() != currencyOf(destinySlot)) {
+            return TransferResult.rejected(RejectionReason.CURRENCY_MISMATCH);
+        }
+        if (amount.isNegative()) {
+            return TransferResult.rejected(RejectionReason.NEGATIVE_AMOUNT);
+        }
+
+        var first = Math.min(slot, destinySlot);
+        var second = Math.max(slot, destinySlot);
+        var firstVersion = lock(first);
+        var secondVersion = first == second ? firstVersion : lock(second);
+        try {
+            var onHold = holds.getLongOpaque(heldOffset(slot));
+            if (onHold < amount.minorUnits()) {
+                return TransferResult.rejected(RejectionReason.INSUFFICIENT_FUNDS);
+            }
+            var offset = slotOffset(destinySlot) + BALANCE;
+            var destinyBalance = Math.addExact(slots.getLongOpaque(offset), amount.minorUnits());
+            saveForAudit(destinySlot, audit);
+            slots.setLongOpaque(offset, destinyBalance);
+            holds.setLongOpaque(heldOffset(slot), onHold - amount.minorUnits());
+            return TransferResult.success();
+        } finally {
+            if (first != second) {
+                unlock(second, secondVersion);
+            }
+            unlock(first, firstVersion);
+        }
+    }
+
+    /**
+     * Sorts the first {@code count} slots and moves the distinct ones to the front.
+     *
+     * @return how many are distinct
+     */
+    private static int sortDistinct(int[] involved, int count) {
+        Arrays.sort(involved, 0, count);
+        var distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || involved[distinct - 1] != involved[i]) {
+                involved[distinct++] = involved[i];
+            }
+        }
+        return distinct;
+    }
+
+    /**
+     * Locks the first {@code count} slots, which must be sorted and distinct so concurrent callers can't deadlock.
+     *
+     * @return the locked version of each
+     */
+    private long[] lockAll(int[] involved, int count) {
+        var versions = new long[count];
+        for (int i = 0; i < count; i++) {
+            versions[i] = lock(involved[i]);
+        }
+        return versions;
+    }
+
+    private void unlockAll(int[] involved, long[] versions) {
+        for (int i = versions.length - 1; i >= 0; i--) {
+            unlock(involved[i], versions[i]);
+        }
+    }
+
+    @Override
+    public Optional<Account> getAccount(AccountId id) {
+        var slot = slotOf(id);
+        return slot < 0 ? Optional.empty() : Optional.of(new OffHeapAccount(this, slot, id));
+    }
+
+    /**
+     * Runs the slots in parallel on the common fork/join pool. Audits run one at a time.
+     */
+    @Override
+    public BalanceAudit audit(int largest) {
+        synchronized (auditLock) {
+            if (preImages == null) {
+                preImages = new OffHeapRegion((long) capacity * PRE_IMAGE_BYTES);
+            }
+            long epoch;
+            int covered;
+            Currency[] known;
+            // Registrations hold the same monitor, so an account is either fully in the audit or not at all
+            synchronized (this) {
+                covered = size;
+                known = currencies;
+                if (covered > 0) {
+                    preImages.ensureAllocated(0, (long) covered * PRE_IMAGE_BYTES);
+                }
+                epoch = ++audits;
+                audit = epoch << 32 | covered;
+            }
+            try {
+                return ForkJoinPool.commonPool()
+                                   .invoke(new AuditTask(this, epoch, 0, covered, known.length, largest))
+                                   .toAudit(index -> known[index], slot -> idOf((int) slot));
+            } finally {
+                audit = 0;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    int slotOf(AccountId accountId) {
+        var id = accountId.value();
+        var bucket = hash(id) & indexMask;
+        for (var entry = index.getIntAcquire(bucketOffset(bucket));
+             entry != 0;
+             entry = index.getIntAcquire(bucketOffset(bucket))) {
+            if (idEquals(entry - 1, id)) {
+                return entry - 1;
+            }
+            bucket = (bucket + 1) & indexMask;
+        }
+        return -1;
+    }
+
+    long balanceOf(int slot) {
+        var offset = slotOffset(slot);
+        for (int spins = 0; ; spins++) {
+            var version = slots.getLongAcquire(offset + VERSION);
+            if ((version & 1) == 0) {
+                var balance = slots.getLongOpaque(offset + BALANCE);
+                VarHandle.loadLoadFence();
+                if (slots.getLongOpaque(offset + VERSION) == version) {
+                    return balance;
+                }
+            }
+            onContention(spins);
+        }
+    }
+
+    long heldOf(int slot) {
+        return holds.getLongOpaque(heldOffset(slot));
+    }
+
+    void addHeld(int slot, long delta) {
+        var version = lock(slot);
+        try {
+            holds.setLongOpaque(heldOffset(slot), holds.getLongOpaque(heldOffset(slot)) + delta);
+        } finally {
+            unlock(slot, version);
+        }
+    }
+
+    Currency currencyOf(int slot) {
+        return currencies[currencyIndexOf(slot)];
+    }
+
+    int currencyIndexOf(int slot) {
+        return slots.getInt(slotOffset(slot) + CURRENCY);
+    }
+
+    /**
+     * Balance of the slot when the audit of the given epoch started. The first version read must be volatile: paired
+     * with the volatile read of the audit by writers once they hold their locks, it guarantees that a writer either saw
+     * the audit or locked the slot before the audit looked at it.
+     */
+    long auditedBalanceOf(int slot, long epoch) {
+        var offset = slotOffset(slot);
+        var preImage = preImageOffset(slot);
+        for (int spins = 0; ; spins++) {
+            var version = slots.getLongVolatile(offset + VERSION);
+            if ((version & 1) == 0) {
+                var balance = preImages.getLongOpaque(preImage + PRE_IMAGE_EPOCH) == epoch
+                        ? preImages.getLongOpaque(preImage + PRE_IMAGE_BALANCE)
+                        : slots.getLongOpaque(offset + BALANCE);
+                VarHandle.loadLoadFence();
+                if (slots.getLongOpaque(offset + VERSION) == version) {
+                    return balance;
+                }
+            }
+            onContention(spins);
+        }
+    }
+
+    AccountId idOf(int slot) {
+        var offset = slotOffset(slot);
+        var idOffset = slots.getLongOpaque(offset + ID_OFFSET);
+        var id = new char[slots.getInt(offset + ID_LENGTH)];
+        for (int i = 0; i < id.length; i++) {
+            id[i] = ids.getChar(idOffset + (long) i * Character.BYTES);
+        }
+        return new SimpleAccountId(new String(id));
+    }
+
+    void add(int slot, long delta) {
+        apply(slot, false, 0, delta);
+    }
+
+    boolean compareAndAdd(int slot, long expectedBalance, long delta) {
+        return apply(slot, true, expectedBalance, delta);
+    }
+
+    private boolean apply(int slot, boolean conditional, long expectedBalance, long delta) {
+        var version = lock(slot);
+        try {
+            var offset = slotOffset(slot) + BALANCE;
+            var balance = slots.getLongOpaque(offset);
+            if (conditional && balance != expectedBalance) {
+                return false;
+            }
+            saveForAudit(slot, audit);
+            var newBalance = Math.addExact(balance, delta);
+            if (delta < 0 && newBalance < 0) {
+                throw new InsufficientFundsException();
+            }
+            slots.setLongOpaque(offset, newBalance);
+            return true;
+        } finally {
+            unlock(slot, version);
+        }
+    }
+
+    /**
+     * @param credit what the destiny receives, the debit converted to its currency
+     */
+    private TransferResult applyLocked(int originSlot, FastMoney debit, int destinySlot, FastMoney credit,
+                                       long running) {
+        if (originSlot < 0 || destinySlot < 0) {
+            return TransferResult.rejected(RejectionReason.ACCOUNT_NOT_FOUND);
+        }
+        if (debit.currency() != currencyOf(originSlot) || credit.currency() != currencyOf(destinySlot)) {
+            return TransferResult.rejected(RejectionReason.CURRENCY_MISMATCH);
+        }
+        if (debit.isNegative()) {
+            return TransferResult.rejected(RejectionReason.NEGATIVE_AMOUNT);
+        }
+        if (slots.getLongOpaque(slotOffset(originSlot) + BALANCE) < debit.minorUnits()) {
+            return TransferResult.rejected(RejectionReason.INSUFFICIENT_FUNDS);
+        }
+        move(originSlot, debit.minorUnits(), destinySlot, credit.minorUnits(), running);
+        return TransferResult.success();
+    }
+
+    /**
+     * Both slots must be locked and the origin known to hold the debit.
+     *
+     * @param running the audit read once all the slots of the operation were locked, so all of them are saved or none
+     */
+    private void move(int originSlot, long debit, int destinySlot, long credit, long running) {
+        if (originSlot == destinySlot) {
+            return;
+        }
+        saveForAudit(originSlot, running);
+        saveForAudit(destinySlot, running);
+        var originBalance = slots.getLongOpaque(slotOffset(originSlot) + BALANCE);
+        var destinyBalance = Math.addExact(slots.getLongOpaque(slotOffset(destinySlot) + BALANCE), credit);
+        slots.setLongOpaque(slotOffset(originSlot) + BALANCE, originBalance - debit);
+        slots.setLongOpaque(slotOffset(destinySlot) + BALANCE, destinyBalance);
+    }
+
+    /**
+     * Saves the balance of a slot locked by the caller as its pre-image, if an audit is running and it has none yet.
+     */
+    private void saveForAudit(int slot, long running) {
+        if (running == 0 || slot >= (int) running) {
+            return;
+        }
+        var epoch = running >>> 32;
+        var preImage = preImageOffset(slot);
+        if (preImages.getLongOpaque(preImage + PRE_IMAGE_EPOCH) != epoch) {
+            preImages.setLongOpaque(preImage + PRE_IMAGE_BALANCE, slots.getLongOpaque(slotOffset(slot) + BALANCE));
+            preImages.setLongOpaque(preImage + PRE_IMAGE_EPOCH, epoch);
+        }
+    }
+
+    private long lock(int slot) {
+        var offset = slotOffset(slot) + VERSION;
+        for (int spins = 0; ; spins++) {
+            var version = slots.getLongOpaque(offset);
+            if ((version & 1) == 0 && slots.compareAndSetLong(offset, version, version + 1)) {
+                return version + 1;
+            }
+            onContention(spins);
+        }
+    }
+
+    private void unlock(int slot, long lockedVersion) {
+        slots.setLongRelease(slotOffset(slot) + VERSION, lockedVersion + 1);
+    }
+
+    private static void onContention(int spins) {
+        if (spins < SPINS_BEFORE_YIELD) {
+            Thread.onSpinWait();
+        } else {
+            Thread.yield();
+        }
+    }
+
+    private boolean idEquals(int slot, String id) {
+        var offset = slotOffset(slot);
+        if (slots.getInt(offset + ID_LENGTH) != id.length()) {
+            return false;
+        }
+        var idOffset = slots.getLongOpaque(offset + ID_OFFSET);
+        for (int i = 0; i < id.length(); i++) {
+            if (ids.getChar(idOffset + (long) i * Character.BYTES) != id.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long storeId(String id) {
+        var idOffset = idsTop;
+        if (!id.isEmpty()) {
+            ids.ensureAllocated(idOffset, (long) id.length() * Character.BYTES);
+        }
+        for (int i = 0; i < id.length(); i++) {
+            ids.setChar(idOffset + (long) i * Character.BYTES, id.charAt(i));
+        }
+        idsTop += (long) id.length() * Character.BYTES;
+        return idOffset;
+    }
+
+    private int currencyIndex(Currency currency) {
+        var known = currencies;
+        for (int i = 0; i < known.length; i++) {
+            if (known[i] == currency) {
+                return i;
+            }
+        }
+        var extended = Arrays.copyOf(known, known.length + 1);
+        extended[known.length] = currency;
+        currencies = extended;
+        return known.length;
+    }
+
+    private static int hash(String id) {
+        var hash = id.hashCode() * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private static long slotOffset(int slot) {
+        return (long) slot * SLOT_BYTES;
+    }
+
+    private static long heldOffset(int slot) {
+        return (long) slot * Long.BYTES;
+    }
+
+    private static long preImageOffset(int slot) {
+        return (long) slot * PRE_IMAGE_BYTES;
+    }
+
+    private static long bucketOffset(int bucket) {
+        return (long) bucket * Integer.BYTES;
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,113 @@
+package org.example.bank.infraestructure.account.repository.offheap;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A fixed-size block of native memory addressed with {@code long} offsets. It is backed by direct buffers of at most
+ * {@value #MAX_CHUNK_SHIFT}-bit size, allocated on first use, because a single buffer can't go past 2GB.
+ * <p>
+ * Atomic access goes through {@link VarHandle} views, so long and int fields must be naturally aligned. Chunks are
+ * allocated by the single writer and reach the readers through whatever release/acquire pair publishes the offsets
+ * that point into them.
+ */
+final class OffHeapRegion {
+
+    private static final int MAX_CHUNK_SHIFT = 26;
+    private static final int MIN_CHUNK_SHIFT = 12;
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    private final int chunkShift;
+    private final long chunkMask;
+    private final ByteBuffer[] chunks;
+
+    OffHeapRegion(long bytes) {
+        var requiredShift = 64 - Long.numberOfLeadingZeros(Math.max(bytes - 1, 1));
+        this.chunkShift = Math.clamp(requiredShift, MIN_CHUNK_SHIFT, MAX_CHUNK_SHIFT);
+        this.chunkMask = (1L << chunkShift) - 1;
+        this.chunks = new ByteBuffer[(int) ((bytes + chunkMask) >>> chunkShift)];
+    }
+
+    long size() {
+        return (long) chunks.length << chunkShift;
+    }
+
+    /**
+     * Allocates (zeroed) every chunk overlapping {@code [offset, offset + length)}. Not thread safe.
+     */
+    void ensureAllocated(long offset, long length) {
+        if (offset + length > size()) {
+            throw new IndexOutOfBoundsException("Off-heap region of " + size() + " bytes exhausted");
+        }
+        for (long chunk = offset >>> chunkShift; chunk <= (offset + length - 1) >>> chunkShift; chunk++) {
+            if (chunks[(int) chunk] == null) {
+                chunks[(int) chunk] = ByteBuffer.allocateDirect((1 << chunkShift) + Long.BYTES)
+                                                .alignedSlice(Long.BYTES)
+                                                .order(ByteOrder.nativeOrder());
+            }
+        }
+    }
+
+    void allocateAll() {
+        ensureAllocated(0, size());
+    }
+
+    private ByteBuffer chunk(long offset) {
+        return chunks[(int) (offset >>> chunkShift)];
+    }
+
+    private int local(long offset) {
+        return (int) (offset & chunkMask);
+    }
+
+    long getLongOpaque(long offset) {
+        return (long) LONGS.getOpaque(chunk(offset), local(offset));
+    }
+
+    long getLongVolatile(long offset) {
+        return (long) LONGS.getVolatile(chunk(offset), local(offset));
+    }
+
+    long getLongAcquire(long offset) {
+        return (long) LONGS.getAcquire(chunk(offset), local(offset));
+    }
+
+    void setLongOpaque(long offset, long value) {
+        LONGS.setOpaque(chunk(offset), local(offset), value);
+    }
+
+    void setLongRelease(long offset, long value) {
+        LONGS.setRelease(chunk(offset), local(offset), value);
+    }
+
+    boolean compareAndSetLong(long offset, long expected, long value) {
+        return LONGS.compareAndSet(chunk(offset), local(offset), expected, value);
+    }
+
+    int getInt(long offset) {
+        return (int) INTS.get(chunk(offset), local(offset));
+    }
+
+    int getIntAcquire(long offset) {
+        return (int) INTS.getAcquire(chunk(offset), local(offset));
+    }
+
+    void setInt(long offset, int value) {
+        INTS.set(chunk(offset), local(offset), value);
+    }
+
+    void setIntRelease(long offset, int value) {
+        INTS.setRelease(chunk(offset), local(offset), value);
+    }
+
+    char getChar(long offset) {
+        return chunk(offset).getChar(local(offset));
+    }
+
+    void setChar(long offset, char value) {
+        chunk(offset).putChar(local(offset), value);
+    }
+}
@@ -0,0 +1,61 @@
+package org.example.bank.infraestructure.account.repository.sharded;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Currency;
+import org.example.bank.domain.account.AccountId;
+
+/**
+ * Balance of one account, and what it has on hold. Only the owning shard writes them, with release stores, so readers
+ * on any thread get a consistent value of each with a plain acquire load and no lock.
+ */
+final class AccountCell {
+
+    private static final VarHandle BALANCE;
+    private static final VarHandle HELD;
+
+    static {
+        try {
+            BALANCE = MethodHandles.lookup().findVarHandle(AccountCell.class, "balance", long.class);
+            HELD = MethodHandles.lookup().findVarHandle(AccountCell.class, "held", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    final AccountId id;
+    final Currency currency;
+    final int shard;
+    private long balance;
+    private long held;
+
+    AccountCell(AccountId id, Currency currency, int shard, long balance, long held) {
+        this.id = id;
+        this.currency = currency;
+        this.shard = shard;
+        this.balance = balance;
+        this.held = held;
+    }
+
+    long balance() {
+        return (long) BALANCE.getAcquire(this);
+    }
+
+    /**
+     * Owning shard only.
+     */
+    void balance(long newBalance) {
+        BALANCE.setRelease(this, newBalance);
+    }
+
+    long held() {
+        return (long) HELD.getAcquire(this);
+    }
+
+    /**
+     * Owning shard only.
+     */
+    void held(long newHeld) {
+        HELD.setRelease(this, newHeld);
+    }
+}
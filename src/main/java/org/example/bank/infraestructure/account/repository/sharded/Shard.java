@@ -0,0 +1,224 @@
+package org.example.bank.infraestructure.account.repository.sharded;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.example.bank.infraestructure.concurrent.ConsumerParker;
+import org.example.bank.infraestructure.concurrent.MpscLinkedQueue;
+
+/**
+ * Single thread owning the balances of its partition. Commands arrive through a lock-free MPSC inbox, from clients
+ * and from other shards, and are applied one at a time without any lock.
+ * <p>
+ * Clients {@link #admit} every command they submit and tell when it is {@link #done}, so the shards can stop taking
+ * new commands and wait for the admitted ones, and whatever they forward to each other, before any of them stops.
+ */
+final class Shard implements Runnable {
+
+    private static final int SPINS_BEFORE_PARK = 256;
+
+    private final ShardedAccountRepository engine;
+    private final MpscLinkedQueue<ShardCommand> inbox;
+    private final AtomicInteger submitting = new AtomicInteger();
+    private final AtomicInteger admitted = new AtomicInteger();
+    private final Thread thread;
+    private final ConsumerParker parker;
+    private final BooleanSupplier idle;
+    private volatile boolean admitting = true;
+    private volatile boolean running;
+
+    Shard(ShardedAccountRepository engine, int index) {
+        this.engine = engine;
+        this.inbox = new MpscLinkedQueue<>();
+        this.running = true;
+        this.thread = Thread.ofPlatform().daemon().name("transfer-shard-" + index).unstarted(this);
+        this.parker = new ConsumerParker(thread, SPINS_BEFORE_PARK);
+        this.idle = () -> inbox.isEmpty() && running;
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    /**
+     * @return whether the client may submit a command, which it must then tell is {@link #done}
+     */
+    boolean admit() {
+        admitted.incrementAndGet();
+        if (!admitting) {
+            admitted.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    void done() {
+        admitted.decrementAndGet();
+    }
+
+    /**
+     * Stops admitting commands and waits for the ones admitted to complete, while the shard keeps running.
+     */
+    void drain() {
+        admitting = false;
+        while (admitted.get() != 0) {
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Completes the command with {@link ShardCommand#CLOSED} once the shard is stopped.
+     */
+    void submit(ShardCommand command) {
+        submitting.incrementAndGet();
+        try {
+            if (!running) {
+                command.complete(ShardCommand.CLOSED);
+                return;
+            }
+            inbox.offer(command);
+            parker.wake();
+        } finally {
+            submitting.decrementAndGet();
+        }
+    }
+
+    void stop() {
+        admitting = false;
+        running = false;
+        parker.wakeAlways();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            var command = inbox.poll();
+            if (command != null) {
+                parker.busy();
+                execute(command);
+            } else {
+                parker.idle(idle);
+            }
+        }
+        // Whoever submits from now on finds the shard stopped, so once nobody is submitting nothing else comes
+        while (true) {
+            var command = inbox.poll();
+            if (command != null) {
+                command.complete(ShardCommand.CLOSED);
+            } else if (submitting.get() == 0 && inbox.isEmpty()) {
+                return;
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    private void execute(ShardCommand command) {
+        switch (command.operation) {
+            case ShardCommand.TRANSFER -> debit(command);
+            case ShardCommand.CREDIT -> credit(command);
+            case ShardCommand.ADJUST -> adjust(command);
+            case ShardCommand.REFUND -> refund(command);
+            case ShardCommand.HOLD -> hold(command);
+            default -> throw new IllegalStateException("Unknown shard operation " + command.operation);
+        }
+    }
+
+    private void debit(ShardCommand command) {
+        var origin = command.origin;
+        var funds = command.held ? origin.held() : origin.balance();
+        if (funds < command.amount) {
+            command.complete(ShardCommand.INSUFFICIENT_FUNDS);
+            return;
+        }
+        if (command.destiny.shard != origin.shard) {
+            take(command, funds);
+            command.operation = ShardCommand.CREDIT;
+            engine.shard(command.destiny.shard).submit(command);
+        } else if (command.destiny != origin || command.held) {
+            // Taking from what the origin has on hold leaves even its own balance as it was
+            var destinyBalance = command.destiny.balance();
+            if (destinyBalance > Long.MAX_VALUE - command.credit) {
+                command.complete(ShardCommand.OVERFLOW);
+                return;
+            }
+            take(command, funds);
+            command.destiny.balance(destinyBalance + command.credit);
+            command.complete(ShardCommand.APPLIED);
+        } else {
+            command.complete(ShardCommand.APPLIED);
+        }
+    }
+
+    private static void take(ShardCommand command, long funds) {
+        if (command.held) {
+            command.origin.held(funds - command.amount);
+        } else {
+            command.origin.balance(funds - command.amount);
+        }
+    }
+
+    private void credit(ShardCommand command) {
+        var destinyBalance = command.destiny.balance();
+        if (destinyBalance > Long.MAX_VALUE - command.credit) {
+            // Completed once the origin has its money back, so nothing is in flight after it
+            command.operation = ShardCommand.REFUND;
+            engine.shard(command.origin.shard).submit(command);
+            return;
+        }
+        command.destiny.balance(destinyBalance + command.credit);
+        command.complete(ShardCommand.APPLIED);
+    }
+
+    /**
+     * Gives back to the origin what it was debited for a credit that would overflow, which it held moments ago.
+     */
+    private void refund(ShardCommand command) {
+        if (command.held) {
+            command.origin.held(command.origin.held() + command.amount);
+        } else {
+            command.origin.balance(command.origin.balance() + command.amount);
+        }
+        command.complete(ShardCommand.OVERFLOW);
+    }
+
+    private void hold(ShardCommand command) {
+        var account = command.origin;
+        var balance = account.balance();
+        if (balance < command.amount) {
+            command.complete(ShardCommand.INSUFFICIENT_FUNDS);
+            return;
+        }
+        account.balance(balance - command.amount);
+        account.held(account.held() + command.amount);
+        command.complete(ShardCommand.APPLIED);
+    }
+
+    private void adjust(ShardCommand command) {
+        var account = command.origin;
+        if (command.held) {
+            account.held(account.held() + command.amount);
+            command.complete(ShardCommand.APPLIED);
+            return;
+        }
+        var balance = account.balance();
+        if (command.conditional && balance != command.expectedBalance) {
+            command.complete(ShardCommand.BALANCE_MISMATCH);
+            return;
+        }
+        if (command.amount > 0 && balance > Long.MAX_VALUE - command.amount) {
+            command.complete(ShardCommand.OVERFLOW);
+            return;
+        }
+        if (command.amount < 0 && balance + command.amount < 0) {
+            command.complete(ShardCommand.INSUFFICIENT_FUNDS);
+            return;
+        }
+        account.balance(balance + command.amount);
+        command.complete(ShardCommand.APPLIED);
+    }
+}
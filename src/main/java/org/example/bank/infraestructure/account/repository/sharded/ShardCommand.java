@@ -0,0 +1,108 @@
+package org.example.bank.infraestructure.account.repository.sharded;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Unit of work handed to a shard. A cross-shard transfer travels as the same command: the origin shard debits and
+ * forwards it as a credit to the destiny shard, which completes it, or sends it back as a refund to the origin shard
+ * when the credit can't be applied. Capturing a hold travels the same way, out of what the origin has on hold.
+ */
+final class ShardCommand {
+
+    static final int TRANSFER = 0;
+    static final int CREDIT = 1;
+    static final int ADJUST = 2;
+    static final int REFUND = 3;
+    static final int HOLD = 4;
+
+    static final int PENDING = 0;
+    static final int APPLIED = 1;
+    static final int INSUFFICIENT_FUNDS = 2;
+    static final int BALANCE_MISMATCH = 3;
+    static final int OVERFLOW = 4;
+    static final int CLOSED = 5;
+
+    private static final int SPINS_BEFORE_PARK = 128;
+
+    int operation;
+    final AccountCell origin;
+    final AccountCell destiny;
+    final long amount;
+    /**
+     * What a transfer deposits in the destiny: the amount converted to its currency.
+     */
+    final long credit;
+    final boolean conditional;
+    final long expectedBalance;
+    /**
+     * Whether the amount comes out of, or goes back to, what the origin has on hold instead of its balance.
+     */
+    final boolean held;
+    private final Thread waiter;
+    private volatile int status;
+
+    private ShardCommand(int operation, AccountCell origin, AccountCell destiny, long amount, long credit,
+                         boolean conditional, long expectedBalance, boolean held) {
+        this.operation = operation;
+        this.origin = origin;
+        this.destiny = destiny;
+        this.amount = amount;
+        this.credit = credit;
+        this.conditional = conditional;
+        this.expectedBalance = expectedBalance;
+        this.held = held;
+        this.waiter = Thread.currentThread();
+    }
+
+    static ShardCommand transfer(AccountCell origin, AccountCell destiny, long amount, long credit) {
+        return new ShardCommand(TRANSFER, origin, destiny, amount, credit, false, 0, false);
+    }
+
+    /**
+     * Transfers out of what the account has on hold, into the balance of the destiny, which may be the account itself.
+     */
+    static ShardCommand capture(AccountCell account, AccountCell destiny, long amount) {
+        return new ShardCommand(TRANSFER, account, destiny, amount, amount, false, 0, true);
+    }
+
+    /**
+     * Moves {@code amount} of the account balance into what it has on hold.
+     */
+    static ShardCommand hold(AccountCell account, long amount) {
+        return new ShardCommand(HOLD, account, null, amount, 0, false, 0, false);
+    }
+
+    /**
+     * Adds {@code delta} to the account balance, optionally only if it is {@code expectedBalance}.
+     */
+    static ShardCommand adjust(AccountCell account, long delta, boolean conditional, long expectedBalance) {
+        return new ShardCommand(ADJUST, account, null, delta, 0, conditional, expectedBalance, false);
+    }
+
+    /**
+     * Adds {@code delta} to what the account has on hold, leaving its balance alone.
+     */
+    static ShardCommand adjustHeld(AccountCell account, long delta) {
+        return new ShardCommand(ADJUST, account, null, delta, 0, false, 0, true);
+    }
+
+    void complete(int result) {
+        status = result;
+        LockSupport.unpark(waiter);
+    }
+
+    int status() {
+        return status;
+    }
+
+    int await() {
+        for (int spins = 0; status == PENDING; spins++) {
+            if (spins < SPINS_BEFORE_PARK) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.park(this);
+            }
+        }
+        return status;
+    }
+}
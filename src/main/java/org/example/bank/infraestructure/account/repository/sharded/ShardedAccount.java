@@ -0,0 +1,80 @@
+package org.example.bank.infraestructure.account.repository.sharded;
+
+import java.util.Currency;
+import org.example.bank.domain.account.Account;
+import org.example.bank.domain.account.AccountId;
+import org.example.bank.domain.exceptions.NegativeTransferAmountException;
+import org.example.bank.domain.money.FastMoney;
+
+/**
+ * View over an account owned by a shard: reads are direct, every change is a command to the owning shard.
+ */
+final class ShardedAccount implements Account {
+
+    private final ShardedAccountRepository engine;
+    private final AccountCell account;
+
+    ShardedAccount(ShardedAccountRepository engine, AccountCell account) {
+        this.engine = engine;
+        this.account = account;
+    }
+
+    @Override
+    public ShardedAccount withdraw(FastMoney amount) {
+        amount.requireSameCurrency(account.currency);
+        validateNonNegativeWithdraw(amount);
+        engine.adjust(account, -amount.minorUnits(), false, 0);
+        return this;
+    }
+
+    @Override
+    public ShardedAccount deposit(FastMoney amount) {
+        amount.requireSameCurrency(account.currency);
+        engine.adjust(account, amount.minorUnits(), false, 0);
+        return this;
+    }
+
+    @Override
+    public long balanceMinorUnits() {
+        return account.balance();
+    }
+
+    @Override
+    public long heldMinorUnits() {
+        return account.held();
+    }
+
+    @Override
+    public void addHeld(long minorUnits) {
+        engine.adjustHeld(account, minorUnits);
+    }
+
+    @Override
+    public Currency currency() {
+        return account.currency;
+    }
+
+    @Override
+    public AccountId id() {
+        return account.id;
+    }
+
+    @Override
+    public boolean compareAndSubtract(long originBalance, FastMoney moneyToSubtract) {
+        moneyToSubtract.requireSameCurrency(account.currency);
+        validateNonNegativeWithdraw(moneyToSubtract);
+        return engine.adjust(account, -moneyToSubtract.minorUnits(), true, originBalance);
+    }
+
+    @Override
+    public boolean compareAndAdd(long originBalance, FastMoney moneyToAdd) {
+        moneyToAdd.requireSameCurrency(account.currency);
+        return engine.adjust(account, moneyToAdd.minorUnits(), true, originBalance);
+    }
+
+    private void validateNonNegativeWithdraw(FastMoney amount) {
+        if (amount.isNegative()) {
+            throw new NegativeTransferAmountException();
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package org.example.bank.infraestructure.account.repository.sharded;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import org.example.bank.domain.account.Account;
+import org.example.bank.domain.account.AccountId;
+import org.example.bank.domain.account.repository.AccountRepository;
+import org.example.bank.domain.exceptions.AccountNotFoundException;
+import org.example.bank.domain.exceptions.InsufficientFundsException;
+import org.example.bank.domain.money.ExchangeRates;
+import org.example.bank.domain.money.FastMoney;
+import org.example.bank.domain.money.Money;
+import org.example.bank.domain.transfer.RejectionReason;
+import org.example.bank.domain.transfer.SplitLeg;
+import org.example.bank.domain.transfer.TransferResult;
+
+/**
+ * Transfer engine that partitions the accounts by the hash of {@link AccountId#value()} across single-threaded
+ * shards. Each shard is the only writer of its balances, so no account is ever locked or CASed by more than one thread
+ * and a hot account costs no more than a cold one.
+ * <p>
+ * {@link #transfer} submits the transfer to the shard owning the origin account and waits for the outcome. When both
+ * accounts live in the same shard it is applied inline; otherwise the origin shard debits and forwards a credit
+ * message to the destiny shard, which completes it. While that message is in flight the amount is in neither account.
+ * Holds are commands to the shard owning the account too, and capturing one travels like a transfer.
+ * <p>
+ * Shards are daemon threads; {@link #close()} stops them once the traffic is over.
+ */
+public final class ShardedAccountRepository implements AccountRepository, AutoCloseable {
+
+    private final ConcurrentHashMap<String, AccountCell> accounts;
+    private final Shard[] shards;
+
+    public ShardedAccountRepository() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public ShardedAccountRepository(int numberOfShards) {
+        if (numberOfShards <= 0) {
+            throw new IllegalArgumentException("At least one shard is needed");
+        }
+        this.accounts = new ConcurrentHashMap<>();
+        this.shards = new Shard[numberOfShards];
+        for (int i = 0; i < numberOfShards; i++) {
+            shards[i] = new Shard(this, i);
+        }
+        for (var shard : shards) {
+            shard.start();
+        }
+    }
+
+    @Override
+    public void registerAccount(Account anAccount) {
+        var id = anAccount.id();
+        accounts.computeIfAbsent(
+                id.value(),
+                value -> new AccountCell(
+                        id, anAccount.currency(), shardOf(id), anAccount.balanceMinorUnits(), anAccount.heldMinorUnits()
+                )
+        );
+    }
+
+    @Override
+    public Money getBalance(AccountId id) {
+        var account = accounts.get(id.value());
+        if (account == null) {
+            throw new AccountNotFoundException();
+        }
+        return FastMoney.toMoney(account.balance(), account.currency);
+    }
+
+    @Override
+    public TransferResult tryTransfer(FastMoney amount, AccountId origin, AccountId destiny) {
+        return tryTransfer(amount, origin, destiny, ExchangeRates.none());
+    }
+
+    /**
+     * Converts in the calling thread, so the shards still only add and subtract.
+     */
+    @Override
+    public TransferResult tryTransfer(FastMoney amount, AccountId origin, AccountId destiny, ExchangeRates rates) {
+        var originAccount = accounts.get(origin.value());
+        var destinyAccount = accounts.get(destiny.value());
+        if (originAccount == null || destinyAccount == null) {
+            return TransferResult.rejected(RejectionReason.ACCOUNT_NOT_FOUND);
+        }
+        var credit = rates.convert(amount, destinyAccount.currency);
+        if (credit == null || amount.currency() != originAccount.currency) {
+            return TransferResult.rejected(RejectionReason.CURRENCY_MISMATCH);
+        }
+        if (amount.isNegative()) {
+            return TransferResult.rejected(RejectionReason.NEGATIVE_AMOUNT);
+        }
+        var command = ShardCommand.transfer(originAccount, destinyAccount, amount.minorUnits(), credit.minorUnits());
+        var status = execute(originAccount.shard, command);
+        if (status == ShardCommand.INSUFFICIENT_FUNDS) {
+            return TransferResult.rejected(RejectionReason.INSUFFICIENT_FUNDS);
+        }
+        throwOnFailure(status);
+        return TransferResult.success();
+    }
+
+    /**
+     * The origin shard withdraws the sum of the legs, then the destiny shards deposit them, all of them at the same
+     * time. Like the credit of a transfer between shards, a leg is in no account while on its way, and the split counts
+     * as admitted on the origin shard until every leg landed, so closing waits for it. A leg that would overflow its
+     * destiny balance goes back to the origin and is reported with an {@link ArithmeticException}: the one case where
+     * only part of a split is applied.
+     */
+    @Override
+    public TransferResult trySplitTransfer(AccountId origin, List<SplitLeg> legs) {
+        var originAccount = accounts.get(origin.value());
+        if (originAccount == null) {
+            return TransferResult.rejected(RejectionReason.ACCOUNT_NOT_FOUND);
+        }
+        var destinies = new AccountCell[legs.size()];
+        var total = 0L;
+        for (int i = 0; i < legs.size(); i++) {
+            var amount = legs.get(i).amount();
+            destinies[i] = accounts.get(legs.get(i).destiny().value());
+            if (destinies[i] == null) {
+                return TransferResult.rejected(RejectionReason.ACCOUNT_NOT_FOUND);
+            }
+            if (amount.currency() != originAccount.currency || amount.currency() != destinies[i].currency) {
+                return TransferResult.rejected(RejectionReason.CURRENCY_MISMATCH);
+            }
+            if (amount.isNegative()) {
+                return TransferResult.rejected(RejectionReason.NEGATIVE_AMOUNT);
+            }
+            total += amount.minorUnits();
+            if (total < 0) {
+                // Overflowed, so far more than any balance
+                return TransferResult.rejected(RejectionReason.INSUFFICIENT_FUNDS);
+            }
+        }
+
+        var shard = shards[originAccount.shard];
+        if (!shard.admit()) {
+            throwOnFailure(ShardCommand.CLOSED);
+        }
+        try {
+            var debit = ShardCommand.adjust(originAccount, -total, false, 0);
+            shard.submit(debit);
+            var status = debit.await();
+            if (status == ShardCommand.INSUFFICIENT_FUNDS) {
+                return TransferResult.rejected(RejectionReason.INSUFFICIENT_FUNDS);
+            }
+            throwOnFailure(status);
+            var credits = new ShardCommand[legs.size()];
+            for (int i = 0; i < legs.size(); i++) {
+                credits[i] = ShardCommand.adjust(destinies[i], legs.get(i).amount().minorUnits(), false, 0);
+                shards[destinies[i].shard].submit(credits[i]);
+            }
+            var overflowed = 0L;
+            for (int i = 0; i < legs.size(); i++) {
+                if (credits[i].await() == ShardCommand.OVERFLOW) {
+                    overflowed += legs.get(i).amount().minorUnits();
+                }
+            }
+            if (overflowed > 0) {
+                var refund = ShardCommand.adjust(originAccount, overflowed, false, 0);
+                shard.submit(refund);
+                refund.await();
+                throwOnFailure(ShardCommand.OVERFLOW);
+            }
+            return TransferResult.success();
+        } finally {
+            shard.done();
+        }
+    }
+
+    @Override
+    public TransferResult tryHold(FastMoney amount, AccountId account) {
+        var holder = accounts.get(account.value());
+        if (holder == null) {
+            return TransferResult.rejected(RejectionReason.ACCOUNT_NOT_FOUND);
+        }
+        if (amount.currency() != holder.currency) {
+            return TransferResult.rejected(RejectionReason.CURRENCY_MISMATCH);
+        }
+        if (amount.isNegative()) {
+            return TransferResult.rejected(RejectionReason.NEGATIVE_AMOUNT);
+        }
+        var status = execute(holder.shard, ShardCommand.hold(holder, amount.minorUnits()));
+        if (status == ShardCommand.INSUFFICIENT_FUNDS) {
+            return TransferResult.rejected(RejectionReason.INSUFFICIENT_FUNDS);
+        }
+        throwOnFailure(status);
+        return TransferResult.success();
+    }
+
+    /**
+     * Submitted to the shard owning the account, which takes the amount from what the account has on hold and credits
+     * the destiny like the origin shard of a transfer does. A credit that would overflow goes back on hold.
+     */
+    @Override
+    public TransferResult tryCaptureHold(FastMoney amount, AccountId account, AccountId destiny) {
+        var holder = accounts.get(account.value());
+        var destinyAccount = accounts.get(destiny.value());
+        if (holder == null || destinyAccount == null) {
+            return TransferResult.rejected(RejectionReason.ACCOUNT_NOT_FOUND);
+        }
+        if (amount.currency() != holder.currency || amount.currency() != destinyAccount.currency) {
+            return TransferResult.rejected(RejectionReason.CURRENCY_MISMATCH);
+        }
+        if (amount.isNegative()) {
+            return TransferResult.rejected(RejectionReason.NEGATIVE_AMOUNT);
+        }
+        var status = execute(holder.shard, ShardCommand.capture(holder, destinyAccount, amount.minorUnits()));
+        if (status == ShardCommand.INSUFFICIENT_FUNDS) {
+            return TransferResult.rejected(RejectionReason.INSUFFICIENT_FUNDS);
+        }
+        throwOnFailure(status);
+        return TransferResult.success();
+    }
+
+    @Override
+    public Optional<Account> getAccount(AccountId id) {
+        return Optional.ofNullable(accounts.get(id.value())).map(account -> new ShardedAccount(this, account));
+    }
+
+    public int shards() {
+        return shards.length;
+    }
+
+    /**
+     * Stops admitting commands on every shard and waits for the admitted ones, credits forwarded between shards
+     * included, before stopping any shard, so no transfer is left half applied. Later calls are refused with an
+     * {@link IllegalStateException}.
+     */
+    @Override
+    public void close() {
+        for (var shard : shards) {
+            shard.drain();
+        }
+        for (var shard : shards) {
+            shard.stop();
+        }
+    }
+
+    /**
+     * @return whether the balance was the expected one (always true when not conditional)
+     */
+    boolean adjust(AccountCell account, long delta, boolean conditional, long expectedBalance) {
+        var command = ShardCommand.adjust(account, delta, conditional, expectedBalance);
+        var status = execute(account.shard, command);
+        if (status == ShardCommand.BALANCE_MISMATCH) {
+            return false;
+        }
+        throwOnFailure(status);
+        return true;
+    }
+
+    void adjustHeld(AccountCell account, long delta) {
+        throwOnFailure(execute(account.shard, ShardCommand.adjustHeld(account, delta)));
+    }
+
+    private int execute(int index, ShardCommand command) {
+        var shard = shards[index];
+        if (!shard.admit()) {
+            return ShardCommand.CLOSED;
+        }
+        try {
+            shard.submit(command);
+            return command.await();
+        } finally {
+            shard.done();
+        }
+    }
+
+    Shard shard(int index) {
+        return shards[index];
+    }
+
+    private int shardOf(AccountId id) {
+        var hash = id.value().hashCode() * 0x9E3779B9;
+        return Math.floorMod(hash ^ (hash >>> 16), shards.length);
+    }
+
+    private static void throwOnFailure(int status) {
+        switch (status) {
+            case ShardCommand.APPLIED -> {
+            }
+            case ShardCommand.INSUFFICIENT_FUNDS -> throw new InsufficientFundsException();
+            case ShardCommand.OVERFLOW -> throw new ArithmeticException("long overflow");
+            case ShardCommand.CLOSED -> throw new IllegalStateException("Transfer engine is closed");
+            default -> throw new IllegalStateException("Unexpected shard status " + status);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + "[" + shards.length + " shards]";
+    }
+}
@@ -0,0 +1,69 @@
+package org.example.bank.infraestructure.concurrent;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Lets the single consumer of a {@link MpscLinkedQueue} spin for a while and then park once the queue runs dry, and
+ * its producers wake it up.
+ * <p>
+ * A producer offers and then checks whether the consumer is parked; the consumer says it parks and then checks the
+ * queue once more. Each side is a store followed by a load, which the processor may reorder, so both are fenced:
+ * otherwise the producer could miss the consumer parking while the consumer misses the item, and the consumer would
+ * park for good with the item in the queue.
+ */
+public final class ConsumerParker {
+
+    private final Thread consumer;
+    private final int spinsBeforePark;
+    private volatile boolean parked;
+    private int idleSpins;
+
+    public ConsumerParker(Thread consumer, int spinsBeforePark) {
+        this.consumer = consumer;
+        this.spinsBeforePark = spinsBeforePark;
+    }
+
+    /**
+     * Producers, once they offered: wakes the consumer up if it is parked.
+     */
+    public void wake() {
+        VarHandle.fullFence();
+        if (parked) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    /**
+     * Wakes the consumer up whether it is parked or not, such as to have it see it should stop.
+     */
+    public void wakeAlways() {
+        LockSupport.unpark(consumer);
+    }
+
+    /**
+     * Consumer, when it got something: the next time it runs dry it spins again before parking.
+     */
+    public void busy() {
+        idleSpins = 0;
+    }
+
+    /**
+     * Consumer, when it got nothing: spins for a while and after that parks until woken up, unless {@code stillIdle}
+     * no longer holds once it said it parks. A spurious wake up just returns.
+     */
+    public void idle(BooleanSupplier stillIdle) {
+        if (idleSpins < spinsBeforePark) {
+            idleSpins++;
+            Thread.onSpinWait();
+            return;
+        }
+        parked = true;
+        VarHandle.fullFence();
+        if (stillIdle.getAsBoolean()) {
+            LockSupport.park(this);
+        }
+        parked = false;
+    }
+}
@@ -0,0 +1,81 @@
+package org.example.bank.infraestructure.concurrent;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Unbounded lock-free queue for many producers and a single consumer (Vyukov's linked queue). Producers swap
+ * themselves in as the tail with one atomic exchange and then link the previous tail to them; the consumer only ever
+ * reads forward from its own head, so it never contends with the producers.
+ * <p>
+ * Between those two producer steps the queue may look empty to the consumer. That is fine for a consumer that polls
+ * in a loop, but {@link #poll()} returning null doesn't mean no {@link #offer(Object)} has started.
+ */
+public final class MpscLinkedQueue<E> {
+
+    private static final VarHandle TAIL;
+    private static final VarHandle NEXT;
+
+    static {
+        try {
+            var lookup = MethodHandles.lookup();
+            TAIL = lookup.findVarHandle(MpscLinkedQueue.class, "tail", Node.class);
+            NEXT = lookup.findVarHandle(Node.class, "next", Node.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @SuppressWarnings("unused") // accessed through TAIL
+    private volatile Node<E> tail;
+    private Node<E> head;
+
+    public MpscLinkedQueue() {
+        var stub = new Node<E>(null);
+        this.head = stub;
+        this.tail = stub;
+    }
+
+    /**
+     * Safe to call from any thread.
+     */
+    public void offer(E value) {
+        var node = new Node<>(value);
+        @SuppressWarnings("unchecked")
+        var previous = (Node<E>) TAIL.getAndSet(this, node);
+        NEXT.setRelease(previous, node);
+    }
+
+    /**
+     * Consumer thread only.
+     */
+    public E poll() {
+        @SuppressWarnings("unchecked")
+        var next = (Node<E>) NEXT.getAcquire(head);
+        if (next == null) {
+            return null;
+        }
+        var value = next.value;
+        next.value = null;
+        head = next;
+        return value;
+    }
+
+    /**
+     * Consumer thread only.
+     */
+    public boolean isEmpty() {
+        return NEXT.getAcquire(head) == null;
+    }
+
+    private static final class Node<E> {
+
+        private E value;
+        @SuppressWarnings("unused") // accessed through NEXT
+        private Node<E> next;
+
+        private Node(E value) {
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package org.example.bank.infraestructure.history;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.InstantSource;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.example.bank.domain.account.AccountId;
+import org.example.bank.domain.history.MovementHistory;
+import org.example.bank.domain.money.FastMoney;
+
+/**
+ * Movement history of the whole bank in one append-only ring of the latest {@code capacity} movements, so memory is
+ * fixed and the oldest movements of any account are dropped first.
+ * <p>
+ * The ring is split in chunks of parallel primitive arrays allocated on first use, 44 bytes per movement and no object
+ * per movement. A transfer reserves two consecutive sequences with one atomic add, writes each leg into its entry and
+ * links it into the chain of its account: every entry points to the previous movement of the same account, and the
+ * account head points to the latest one. Linking is a CAS on the head, or on the entry of a later movement of the
+ * account that got linked first, so chains stay in sequence order and appending never locks.
+ * <p>
+ * Readers never write. They follow a chain reading each entry as a seqlock: its stamp holds its sequence once it is
+ * complete, and a reader that finds another stamp before or after reading the fields knows the ring wrapped over it
+ * and stops there. Paging on from the last sequence of a page jumps straight to it instead of walking from the head.
+ * <p>
+ * History is recorded after a transfer is applied, outside of any lock of the repository. Two transfers of the same
+ * account that run at once may therefore be recorded in the opposite order they were applied.
+ */
+public final class RingBufferMovementHistory implements MovementHistory {
+
+    private static final int MAX_CHUNK_BITS = 12;
+    private static final long NONE = -1;
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final InstantSource clock;
+    private final long mask;
+    private final int chunkBits;
+    private final AtomicReferenceArray<Chunk> chunks;
+    private final AtomicLong written = new AtomicLong();
+    private final ConcurrentHashMap<AccountId, Track> tracks = new ConcurrentHashMap<>();
+    private volatile AccountId[] ids = new AccountId[64];
+    private volatile Currency[] currencies = new Currency[0];
+    private int accounts;
+
+    public RingBufferMovementHistory(int capacity) {
+        this(capacity, InstantSource.system());
+    }
+
+    /**
+     * @param capacity how many movements are kept, a power of two; each transfer takes two
+     */
+    public RingBufferMovementHistory(int capacity, InstantSource clock) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two, was " + capacity);
+        }
+        this.clock = clock;
+        this.mask = capacity - 1;
+        this.chunkBits = Math.min(MAX_CHUNK_BITS, Integer.numberOfTrailingZeros(capacity));
+        this.chunks = new AtomicReferenceArray<>(capacity >>> chunkBits);
+    }
+
+    @Override
+    public void record(FastMoney debited, FastMoney credited, AccountId origin, AccountId destiny) {
+        if (origin.equals(destiny)) {
+            return;
+        }
+        var time = clock.millis();
+        var from = track(origin);
+        var to = track(destiny);
+        var debitedCurrency = currencyIndex(debited.currency());
+        var creditedCurrency = credited.currency() == debited.currency()
+                               ? debitedCurrency
+                               : currencyIndex(credited.currency());
+        var sequence = written.getAndAdd(2);
+        append(sequence, from, to.index, -debited.minorUnits(), debitedCurrency, time);
+        append(sequence + 1, to, from.index, credited.minorUnits(), creditedCurrency, time);
+    }
+
+    @Override
+    public int read(AccountId account, long before, long fromMillis, long toMillis, int limit, Visitor visitor) {
+        var track = tracks.get(account);
+        if (track == null) {
+            return 0;
+        }
+        var sequence = before != Long.MAX_VALUE && belongs(before, track.index) ? previous(before) : track.get();
+        var visited = 0;
+        while (sequence != NONE && visited < limit) {
+            var chunk = chunks.get(chunkOf(sequence));
+            var slot = slotOf(sequence);
+            if ((long) LONGS.getAcquire(chunk.stamps, slot) != sequence) {
+                break;
+            }
+            var time = chunk.times[slot];
+            var minorUnits = chunk.amounts[slot];
+            var counterparty = chunk.counterparties[slot];
+            var currency = chunk.currencies[slot];
+            var previous = (long) LONGS.getVolatile(chunk.previous, slot);
+            VarHandle.loadLoadFence();
+            if ((long) LONGS.getVolatile(chunk.stamps, slot) != sequence || time < fromMillis) {
+                break;
+            }
+            if (sequence < before && time < toMillis) {
+                // Read after the stamp, so they already hold whatever the entry refers to
+                visitor.movement(sequence, time, ids[counterparty], minorUnits, currencies[currency]);
+                visited++;
+            }
+            sequence = previous;
+        }
+        return visited;
+    }
+
+    /**
+     * Movements recorded so far, including the ones the ring already dropped.
+     */
+    public long recorded() {
+        return written.get();
+    }
+
+    private void append(long sequence, Track track, int counterparty, long minorUnits, int currency, long time) {
+        var chunk = chunk(sequence);
+        var slot = slotOf(sequence);
+        // Readers still on the entry this one overwrites see it go before any field changes
+        LONGS.setOpaque(chunk.stamps, slot, NONE);
+        VarHandle.storeStoreFence();
+        chunk.times[slot] = time;
+        chunk.amounts[slot] = minorUnits;
+        chunk.accounts[slot] = track.index;
+        chunk.counterparties[slot] = counterparty;
+        chunk.currencies[slot] = currency;
+        LONGS.setRelease(chunk.stamps, slot, sequence);
+        link(sequence, chunk.previous, slot, track);
+    }
+
+    /**
+     * Links the entry in the chain of its account behind the first movement that is later than it, the head itself
+     * unless a later movement of the account got there first.
+     */
+    private void link(long sequence, long[] previous, int slot, Track track) {
+        var successor = NONE;
+        var next = track.get();
+        while (true) {
+            if (next < sequence) {
+                // Unreachable until the CAS below publishes it
+                previous[slot] = next;
+                var linked = successor == NONE ? track.compareAndSet(next, sequence)
+                                               : casPrevious(successor, next, sequence);
+                if (linked) {
+                    return;
+                }
+                next = successor == NONE ? track.get() : previous(successor);
+            } else if (belongs(next, track.index)) {
+                successor = next;
+                next = previous(successor);
+            } else {
+                // The ring already wrapped over the later movement, and over this one soon after
+                return;
+            }
+        }
+    }
+
+    private boolean belongs(long sequence, int account) {
+        if (sequence < 0) {
+            return false;
+        }
+        var chunk = chunks.get(chunkOf(sequence));
+        var slot = slotOf(sequence);
+        if (chunk == null || (long) LONGS.getAcquire(chunk.stamps, slot) != sequence) {
+            return false;
+        }
+        var owner = chunk.accounts[slot];
+        VarHandle.loadLoadFence();
+        return owner == account && (long) LONGS.getVolatile(chunk.stamps, slot) == sequence;
+    }
+
+    private long previous(long sequence) {
+        return (long) LONGS.getVolatile(chunks.get(chunkOf(sequence)).previous, slotOf(sequence));
+    }
+
+    private boolean casPrevious(long sequence, long expected, long value) {
+        return LONGS.compareAndSet(chunks.get(chunkOf(sequence)).previous, slotOf(sequence), expected, value);
+    }
+
+    private Chunk chunk(long sequence) {
+        var index = chunkOf(sequence);
+        var chunk = chunks.get(index);
+        if (chunk == null) {
+            chunks.compareAndSet(index, null, new Chunk(1 << chunkBits));
+            chunk = chunks.get(index);
+        }
+        return chunk;
+    }
+
+    private int chunkOf(long sequence) {
+        return (int) ((sequence & mask) >>> chunkBits);
+    }
+
+    private int slotOf(long sequence) {
+        return (int) (sequence & ((1L << chunkBits) - 1));
+    }
+
+    private Track track(AccountId id) {
+        var track = tracks.get(id);
+        return track != null ? track : tracks.computeIfAbsent(id, this::register);
+    }
+
+    /**
+     * Called at most once per account, from within the map, so ids can't be registered twice.
+     */
+    private synchronized Track register(AccountId id) {
+        var index = accounts++;
+        var table = ids;
+        if (index == table.length) {
+            table = Arrays.copyOf(table, index * 2);
+        }
+        table[index] = id;
+        // Published before the track, so readers find the id of any counterparty they come across
+        ids = table;
+        return new Track(index);
+    }
+
+    private int currencyIndex(Currency currency) {
+        var table = currencies;
+        for (int i = 0; i < table.length; i++) {
+            if (table[i] == currency) {
+                return i;
+            }
+        }
+        return addCurrency(currency);
+    }
+
+    private synchronized int addCurrency(Currency currency) {
+        var table = currencies;
+        for (int i = 0; i < table.length; i++) {
+            if (table[i] == currency) {
+                return i;
+            }
+        }
+        table = Arrays.copyOf(table, table.length + 1);
+        table[table.length - 1] = currency;
+        currencies = table;
+        return table.length - 1;
+    }
+
+    @Override
+    public String toString() {
+        return "RingBufferMovementHistory{" +
+               "capacity=" + (mask + 1) +
+               ", recorded=" + recorded() +
+               ", accounts=" + tracks.size() +
+               '}';
+    }
+
+    /**
+     * The sequence of the latest movement of an account.
+     */
+    private static final class Track extends AtomicLong {
+
+        private final int index;
+
+        private Track(int index) {
+            super(NONE);
+            this.index = index;
+        }
+    }
+
+    private static final class Chunk {
+
+        private final long[] stamps;
+        private final long[] times;
+        private final long[] amounts;
+        private final long[] previous;
+        private final int[] accounts;
+        private final int[] counterparties;
+        private final int[] currencies;
+
+        private Chunk(int size) {
+            stamps = new long[size];
+            Arrays.fill(stamps, NONE);
+            times = new long[size];
+            amounts = new long[size];
+            previous = new long[size];
+            accounts = new int[size];
+            counterparties = new int[size];
+            currencies = new int[size];
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package org.example.bank.infraestructure.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free log-linear histogram of nanosecond latencies, in the spirit of HdrHistogram: values below 64 get a bucket
+ * each and every power of two above is split in 32 buckets, so any recorded value is reported within 3%. Values above
+ * 2^40ns, about 18 minutes, land in the last bucket.
+ * <p>
+ * Counts are striped by thread so concurrent recorders rarely share a cache line; a snapshot sums the stripes.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_VALUE_BITS = 40;
+    private static final int BUCKETS = (MAX_VALUE_BITS - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+    private static final long MAX_VALUE = (1L << MAX_VALUE_BITS) - 1;
+
+    private final AtomicLongArray[] stripes;
+    private final int stripeMask;
+
+    public LatencyHistogram() {
+        var stripeCount = Integer.highestOneBit(Math.max(Runtime.getRuntime().availableProcessors(), 1) * 2 - 1);
+        this.stripes = new AtomicLongArray[stripeCount];
+        this.stripeMask = stripeCount - 1;
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new AtomicLongArray(BUCKETS);
+        }
+    }
+
+    public void record(long nanos) {
+        var stripe = stripes[(int) mix(Thread.currentThread().threadId()) & stripeMask];
+        stripe.getAndIncrement(bucketOf(Math.clamp(nanos, 0, MAX_VALUE)));
+    }
+
+    public Snapshot snapshot() {
+        var counts = new long[BUCKETS];
+        for (var stripe : stripes) {
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                counts[bucket] += stripe.get(bucket);
+            }
+        }
+        return new Snapshot(counts);
+    }
+
+    public void reset() {
+        for (var stripe : stripes) {
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                stripe.set(bucket, 0);
+            }
+        }
+    }
+
+    static int bucketOf(long value) {
+        if (value < 2 * SUB_BUCKETS) {
+            return (int) value;
+        }
+        var shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    static long lowestValueOf(int bucket) {
+        if (bucket < 2 * SUB_BUCKETS) {
+            return bucket;
+        }
+        var shift = bucket / SUB_BUCKETS - 1;
+        return (long) (bucket % SUB_BUCKETS + SUB_BUCKETS) << shift;
+    }
+
+    static long highestValueOf(int bucket) {
+        return bucket + 1 < BUCKETS ? lowestValueOf(bucket + 1) - 1 : MAX_VALUE;
+    }
+
+    private static long mix(long value) {
+        var mixed = value * 0x9E3779B97F4A7C15L;
+        return mixed ^ (mixed >>> 32);
+    }
+
+    /**
+     * Counts summed over every stripe at one moment. Values are reported as the upper bound of their bucket.
+     */
+    public static final class Snapshot {
+
+        private final long[] counts;
+        private final long count;
+
+        private Snapshot(long[] counts) {
+            this.counts = counts;
+            var total = 0L;
+            for (var bucketCount : counts) {
+                total += bucketCount;
+            }
+            this.count = total;
+        }
+
+        public long count() {
+            return count;
+        }
+
+        /**
+         * @param percentile between 0 and 100
+         * @return the smallest value at least that percentage of the recorded values are below or equal to, 0 when
+         *         nothing was recorded
+         */
+        public long valueAtPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            var rank = Math.max((long) Math.ceil(Math.clamp(percentile, 0, 100) / 100 * count), 1);
+            var seen = 0L;
+            for (int bucket = 0; bucket < counts.length; bucket++) {
+                seen += counts[bucket];
+                if (seen >= rank) {
+                    return highestValueOf(bucket);
+                }
+            }
+            return MAX_VALUE;
+        }
+
+        public long max() {
+            return valueAtPercentile(100);
+        }
+
+        public double mean() {
+            if (count == 0) {
+                return 0;
+            }
+            var sum = 0.0;
+            for (int bucket = 0; bucket < counts.length; bucket++) {
+                if (counts[bucket] != 0) {
+                    sum += counts[bucket] * ((lowestValueOf(bucket) + highestValueOf(bucket)) / 2.0);
+                }
+            }
+            return sum / count;
+        }
+
+        @Override
+        public String toString() {
+            return "LatencyHistogram.Snapshot{" +
+                   "count=" + count +
+                   ", p50=" + valueAtPercentile(50) +
+                   ", p99=" + valueAtPercentile(99) +
+                   ", max=" + max() +
+                   '}';
+        }
+    }
+}
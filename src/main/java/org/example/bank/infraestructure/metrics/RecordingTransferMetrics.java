@@ -0,0 +1,206 @@
+package org.example.bank.infraestructure.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import org.example.bank.domain.account.AccountId;
+import org.example.bank.domain.metrics.TransferMetrics;
+import org.example.bank.domain.money.FastMoney;
+import org.example.bank.domain.transfer.RejectionReason;
+
+/**
+ * {@link TransferMetrics} that counts with striped {@link LongAdder}s and records latencies in
+ * {@link LatencyHistogram}s, so recording never contends on a shared word. Transfers slower than the threshold are
+ * also emitted as {@code org.example.bank.SlowTransfer} JFR events, when a recording has them enabled.
+ * <p>
+ * {@link #register} publishes the figures as an MXBean; register one instance per bank or strategy to compare them.
+ */
+public class RecordingTransferMetrics implements TransferMetrics, TransferMetricsMXBean {
+
+    private static final RejectionReason[] REASONS = RejectionReason.values();
+
+    private final long slowTransferNanos;
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder[] rejected = new LongAdder[REASONS.length];
+    private final LongAdder casRetries = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LatencyHistogram lockWaits = new LatencyHistogram();
+
+    public RecordingTransferMetrics() {
+        this(Duration.ofMillis(10));
+    }
+
+    public RecordingTransferMetrics(Duration slowTransferThreshold) {
+        this.slowTransferNanos = slowTransferThreshold.toNanos();
+        for (int i = 0; i < rejected.length; i++) {
+            rejected[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public long start() {
+        return System.nanoTime();
+    }
+
+    @Override
+    public void transfer(long start, FastMoney amount, AccountId origin, AccountId destiny, RejectionReason rejection) {
+        var nanos = System.nanoTime() - start;
+        latency.record(nanos);
+        if (rejection == null) {
+            succeeded.increment();
+        } else {
+            rejected[rejection.ordinal()].increment();
+        }
+        if (nanos >= slowTransferNanos) {
+            emitSlowTransfer(nanos, amount, origin, destiny, rejection);
+        }
+    }
+
+    @Override
+    public void lockWait(long nanos) {
+        lockWaits.record(nanos);
+    }
+
+    @Override
+    public void casRetry() {
+        casRetries.increment();
+    }
+
+    public Snapshot snapshot() {
+        var rejections = new EnumMap<RejectionReason, Long>(RejectionReason.class);
+        for (var reason : REASONS) {
+            rejections.put(reason, rejected[reason.ordinal()].sum());
+        }
+        return new Snapshot(succeeded.sum(), rejections, casRetries.sum(), latency.snapshot(), lockWaits.snapshot());
+    }
+
+    /**
+     * Registers this instance in the platform MBean server as {@code org.example.bank:type=TransferMetrics,name=...}.
+     */
+    public ObjectName register(String name) {
+        try {
+            var objectName = new ObjectName("org.example.bank:type=TransferMetrics,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            return objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("Can't register the transfer metrics " + name, e);
+        }
+    }
+
+    public static void unregister(ObjectName name) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        } catch (JMException e) {
+            throw new IllegalStateException("Can't unregister the transfer metrics " + name, e);
+        }
+    }
+
+    @Override
+    public long getTransfers() {
+        var transfers = succeeded.sum();
+        for (var adder : rejected) {
+            transfers += adder.sum();
+        }
+        return transfers;
+    }
+
+    @Override
+    public long getSucceeded() {
+        return succeeded.sum();
+    }
+
+    @Override
+    public Map<String, Long> getRejections() {
+        var rejections = new LinkedHashMap<String, Long>();
+        for (var reason : REASONS) {
+            rejections.put(reason.name(), rejected[reason.ordinal()].sum());
+        }
+        return rejections;
+    }
+
+    @Override
+    public long getLatencyP50() {
+        return latency.snapshot().valueAtPercentile(50);
+    }
+
+    @Override
+    public long getLatencyP99() {
+        return latency.snapshot().valueAtPercentile(99);
+    }
+
+    @Override
+    public long getLatencyP999() {
+        return latency.snapshot().valueAtPercentile(99.9);
+    }
+
+    @Override
+    public long getLatencyMax() {
+        return latency.snapshot().max();
+    }
+
+    @Override
+    public long getLockWaits() {
+        return lockWaits.snapshot().count();
+    }
+
+    @Override
+    public long getLockWaitP99() {
+        return lockWaits.snapshot().valueAtPercentile(99);
+    }
+
+    @Override
+    public long getCasRetries() {
+        return casRetries.sum();
+    }
+
+    @Override
+    public long getSlowTransferThreshold() {
+        return slowTransferNanos;
+    }
+
+    @Override
+    public void reset() {
+        succeeded.reset();
+        for (var adder : rejected) {
+            adder.reset();
+        }
+        casRetries.reset();
+        latency.reset();
+        lockWaits.reset();
+    }
+
+    private static void emitSlowTransfer(
+            long nanos, FastMoney amount, AccountId origin, AccountId destiny, RejectionReason rejection
+    ) {
+        var event = new SlowTransferEvent();
+        if (event.shouldCommit()) {
+            event.origin = origin.value();
+            event.destiny = destiny.value();
+            event.amount = amount.minorUnits();
+            event.currency = amount.currency().getCurrencyCode();
+            event.rejection = rejection == null ? "" : rejection.name();
+            event.latency = nanos;
+            event.commit();
+        }
+    }
+
+    public record Snapshot(
+            long succeeded,
+            Map<RejectionReason, Long> rejections,
+            long casRetries,
+            LatencyHistogram.Snapshot latency,
+            LatencyHistogram.Snapshot lockWaits
+    ) {
+
+    }
+
+    @Override
+    public String toString() {
+        return "RecordingTransferMetrics" + snapshot();
+    }
+}
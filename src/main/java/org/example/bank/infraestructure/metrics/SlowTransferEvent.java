@@ -0,0 +1,40 @@
+package org.example.bank.infraestructure.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name(SlowTransferEvent.NAME)
+@Label("Slow Transfer")
+@Category("Bank")
+@Description("A transfer that took longer than the slow transfer threshold")
+@StackTrace(false)
+final class SlowTransferEvent extends Event {
+
+    static final String NAME = "org.example.bank.SlowTransfer";
+
+    @Label("Origin")
+    String origin;
+
+    @Label("Destiny")
+    String destiny;
+
+    @Label("Amount")
+    @Description("Amount in minor units of the currency")
+    long amount;
+
+    @Label("Currency")
+    String currency;
+
+    @Label("Rejection")
+    @Description("Why the transfer was rejected, empty when it succeeded")
+    String rejection;
+
+    @Label("Latency")
+    @Timespan(Timespan.NANOSECONDS)
+    long latency;
+}
@@ -0,0 +1,33 @@
+package org.example.bank.infraestructure.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of a {@link RecordingTransferMetrics}. Latencies are in nanoseconds.
+ */
+public interface TransferMetricsMXBean {
+
+    long getTransfers();
+
+    long getSucceeded();
+
+    Map<String, Long> getRejections();
+
+    long getLatencyP50();
+
+    long getLatencyP99();
+
+    long getLatencyP999();
+
+    long getLatencyMax();
+
+    long getLockWaits();
+
+    long getLockWaitP99();
+
+    long getCasRetries();
+
+    long getSlowTransferThreshold();
+
+    void reset();
+}
@@ -0,0 +1,322 @@
+package org.example.bank.infraestructure.network;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ProtocolException;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+import org.example.bank.domain.account.AccountId;
+import org.example.bank.domain.money.FastMoney;
+import org.example.bank.domain.money.Money;
+import org.example.bank.domain.transfer.TransferRequest;
+import org.example.bank.domain.transfer.TransferResult;
+import org.example.bank.infraestructure.concurrent.MpscLinkedQueue;
+
+/**
+ * Client of a {@link BankServer} over one connection, safe to share between threads.
+ * <p>
+ * Requests never wait for the answer to the previous ones: each one is encoded into a buffer and whichever caller
+ * finds no write in progress writes out everything buffered so far, so requests made while a write is on its way go
+ * out together in the next one. A virtual thread reads the answers and completes the futures, so callbacks attached
+ * to them without an executor run on it and should not block.
+ * <p>
+ * Once the connection fails or the client is closed, every request waiting for an answer and any made afterwards
+ * fail with the {@link IOException} that brought it down.
+ */
+public final class BankClient implements AutoCloseable {
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final SocketChannel channel;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final MpscLinkedQueue<Pending> inflight = new MpscLinkedQueue<>();
+    private final Thread reader;
+    private ByteBuffer pending = ByteBuffer.allocate(BUFFER_BYTES);
+    private ByteBuffer writing = ByteBuffer.allocate(BUFFER_BYTES);
+    private boolean flushing;
+    private int nextId;
+    private IOException failure;
+
+    public BankClient(SocketAddress server) {
+        try {
+            this.channel = SocketChannel.open(server);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.reader = Thread.ofVirtual().name("bank-client-reader").start(this::read);
+    }
+
+    public CompletableFuture<TransferResult> transfer(Money amount, AccountId origin, AccountId destiny) {
+        return transfer(FastMoney.of(amount), origin, destiny);
+    }
+
+    /**
+     * @return completed with the result of the transfer, or with an {@link IllegalStateException} if the server
+     * failed it without rejecting it
+     */
+    public CompletableFuture<TransferResult> transfer(FastMoney amount, AccountId origin, AccountId destiny) {
+        var originId = BankProtocol.encodeId(origin);
+        var destinyId = BankProtocol.encodeId(destiny);
+        var result = new CompletableFuture<TransferResult>();
+        lock.lock();
+        try {
+            var buffer = frame(BankProtocol.TRANSFER, BankProtocol.transferBytes(originId, destinyId), result);
+            if (buffer != null) {
+                BankProtocol.putTransfer(buffer, amount, originId, destinyId);
+            }
+        } finally {
+            lock.unlock();
+        }
+        flush();
+        return result;
+    }
+
+    /**
+     * @return completed with the balance, or with the exception of the rejection when the account does not exist
+     */
+    public CompletableFuture<Money> balance(AccountId id) {
+        var encodedId = BankProtocol.encodeId(id);
+        var result = new CompletableFuture<Money>();
+        lock.lock();
+        try {
+            var buffer = frame(BankProtocol.BALANCE, 1 + encodedId.length, result);
+            if (buffer != null) {
+                BankProtocol.putId(buffer, encodedId);
+            }
+        } finally {
+            lock.unlock();
+        }
+        flush();
+        return result;
+    }
+
+    /**
+     * Sends the transfers as one request, which the server applies in order like {@code Bank#transferBatch}.
+     *
+     * @throws IllegalArgumentException if they don't fit in a frame
+     */
+    public CompletableFuture<List<TransferResult>> transferBatch(List<TransferRequest> requests) {
+        var ids = new byte[requests.size() * 2][];
+        var bytes = 4L;
+        for (int i = 0; i < requests.size(); i++) {
+            ids[2 * i] = BankProtocol.encodeId(requests.get(i).origin());
+            ids[2 * i + 1] = BankProtocol.encodeId(requests.get(i).destiny());
+            bytes += BankProtocol.transferBytes(ids[2 * i], ids[2 * i + 1]);
+        }
+        if (BankProtocol.HEADER_BYTES - 4 + bytes > BankProtocol.MAX_FRAME_BYTES) {
+            throw new IllegalArgumentException("Batch of " + requests.size() + " transfers does not fit in a frame");
+        }
+        var result = new CompletableFuture<List<TransferResult>>();
+        lock.lock();
+        try {
+            var buffer = frame(BankProtocol.BATCH, (int) bytes, result);
+            if (buffer != null) {
+                buffer.putInt(requests.size());
+                for (int i = 0; i < requests.size(); i++) {
+                    BankProtocol.putTransfer(buffer, requests.get(i).amount(), ids[2 * i], ids[2 * i + 1]);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        flush();
+        return result;
+    }
+
+    /**
+     * Drops the connection, failing the requests still waiting for an answer.
+     */
+    @Override
+    public void close() {
+        fail(new IOException("Client closed"));
+        try {
+            reader.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Starts a frame of {@code bodyBytes} in the pending buffer and expects its answer. Called with the lock held.
+     *
+     * @return the buffer to write the body into, or null when the connection is down and the result already failed
+     */
+    private ByteBuffer frame(byte opcode, int bodyBytes, CompletableFuture<?> result) {
+        if (failure != null) {
+            result.completeExceptionally(failure);
+            return null;
+        }
+        var frameBytes = BankProtocol.HEADER_BYTES + bodyBytes;
+        if (pending.remaining() < frameBytes) {
+            var larger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + frameBytes));
+            pending = larger.put(pending.flip());
+        }
+        var id = nextId++;
+        pending.putInt(frameBytes - 4).putInt(id).put(opcode);
+        inflight.offer(new Pending(id, opcode, result));
+        return pending;
+    }
+
+    /**
+     * Writes out the pending buffer unless another caller is already at it, and keeps at it while callers add more.
+     */
+    private void flush() {
+        var owner = false;
+        try {
+            while (true) {
+                lock.lock();
+                try {
+                    if (!owner) {
+                        if (flushing) {
+                            return;
+                        }
+                        flushing = owner = true;
+                    }
+                    if (failure != null || pending.position() == 0) {
+                        flushing = false;
+                        return;
+                    }
+                    var filled = pending;
+                    pending = writing;
+                    writing = filled;
+                } finally {
+                    lock.unlock();
+                }
+                writing.flip();
+                while (writing.hasRemaining()) {
+                    channel.write(writing);
+                }
+                writing.clear();
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void fail(IOException cause) {
+        lock.lock();
+        try {
+            if (failure == null) {
+                failure = cause;
+            }
+        } finally {
+            lock.unlock();
+        }
+        try {
+            // Wakes up the reader, which fails what is in flight
+            channel.close();
+        } catch (IOException e) {
+            // Closing anyway
+        }
+    }
+
+    private void read() {
+        var in = ByteBuffer.allocate(BUFFER_BYTES);
+        var decoder = new BankProtocol.Decoder();
+        IOException cause;
+        try {
+            while (channel.read(in) >= 0) {
+                in.flip();
+                var needed = dispatch(in, decoder);
+                in.compact();
+                if (needed > in.capacity()) {
+                    var larger = ByteBuffer.allocate(Math.max(needed, in.capacity() * 2));
+                    in = larger.put(in.flip());
+                }
+            }
+            cause = new EOFException("Connection closed by the server");
+        } catch (IOException e) {
+            cause = e;
+        } catch (RuntimeException e) {
+            cause = new ProtocolException("Malformed answer: " + e);
+        }
+        fail(cause);
+        // No request gets in flight once failed, so these are all that are left
+        IOException failed;
+        lock.lock();
+        try {
+            failed = failure;
+        } finally {
+            lock.unlock();
+        }
+        for (var request = inflight.poll(); request != null; request = inflight.poll()) {
+            request.result.completeExceptionally(failed);
+        }
+    }
+
+    /**
+     * Completes the requests of every complete answer read so far.
+     *
+     * @return the bytes the next answer takes, header included, when it was not complete
+     */
+    private int dispatch(ByteBuffer in, BankProtocol.Decoder decoder) throws ProtocolException {
+        while (in.remaining() >= 4) {
+            var length = in.getInt(in.position());
+            if (length < BankProtocol.HEADER_BYTES - 4 || length > BankProtocol.MAX_FRAME_BYTES) {
+                throw new ProtocolException("Invalid frame length " + length);
+            }
+            if (in.remaining() < 4 + length) {
+                return 4 + length;
+            }
+            var limit = in.limit();
+            var end = in.position() + 4 + length;
+            in.position(in.position() + 4).limit(end);
+            var id = in.getInt();
+            var status = in.get();
+            var request = inflight.poll();
+            if (request == null || request.id != id) {
+                throw new ProtocolException("Answer to request " + id + " that is not the oldest in flight");
+            }
+            complete(request, status, in, decoder);
+            in.limit(limit).position(end);
+        }
+        return 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void complete(Pending request, byte status, ByteBuffer in, BankProtocol.Decoder decoder) {
+        if (status == BankProtocol.ERROR) {
+            request.result.completeExceptionally(new IllegalStateException(BankProtocol.getError(in)));
+            return;
+        }
+        switch (request.opcode) {
+            case BankProtocol.TRANSFER -> ((CompletableFuture<TransferResult>) request.result)
+                    .complete(BankProtocol.result(status));
+            case BankProtocol.BALANCE -> {
+                if (status == BankProtocol.OK) {
+                    var minorUnits = in.getLong();
+                    ((CompletableFuture<Money>) request.result)
+                            .complete(FastMoney.toMoney(minorUnits, decoder.getCurrency(in)));
+                } else {
+                    request.result.completeExceptionally(BankProtocol.result(status).reason().exception());
+                }
+            }
+            default -> {
+                var results = new ArrayList<TransferResult>(in.getInt());
+                while (in.hasRemaining()) {
+                    results.add(BankProtocol.result(in.get()));
+                }
+                ((CompletableFuture<List<TransferResult>>) request.result).complete(results);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "BankClient{" +
+               "channel=" + channel +
+               '}';
+    }
+
+    private record Pending(int id, byte opcode, CompletableFuture<?> result) {
+
+    }
+}
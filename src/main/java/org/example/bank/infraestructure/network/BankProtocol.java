@@ -0,0 +1,157 @@
+package org.example.bank.infraestructure.network;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.List;
+import org.example.bank.domain.account.AccountId;
+import org.example.bank.domain.account.SimpleAccountId;
+import org.example.bank.domain.money.FastMoney;
+import org.example.bank.domain.transfer.RejectionReason;
+import org.example.bank.domain.transfer.TransferRequest;
+import org.example.bank.domain.transfer.TransferResult;
+
+/**
+ * Wire format shared by {@link BankServer} and {@link BankClient}, big endian. Every frame is
+ * {@code [length:4 | request id:4 | code:1 | body]}, the length counting what follows it. Requests carry an opcode and
+ * responses a status, echoing the id of the request they answer; a connection answers its requests in the order it
+ * got them, so clients may send many before reading any answer.
+ * <ul>
+ * <li>{@link #TRANSFER}: {@code [amount:8 | currency:3 | origin length:1 | origin | destiny length:1 | destiny]},
+ * answered with an empty body</li>
+ * <li>{@link #BALANCE}: {@code [id length:1 | id]}, answered with {@code [amount:8 | currency:3]} when {@link #OK}</li>
+ * <li>{@link #BATCH}: {@code [count:4 | count transfer bodies]}, answered with {@code [count:4 | count statuses:1]}
+ * when {@link #OK}</li>
+ * </ul>
+ * Amounts are in minor units, currencies ISO 4217 codes and ids UTF-8. A status is {@link #OK}, one plus the ordinal
+ * of a {@link RejectionReason}, or {@link #ERROR} followed by {@code [message length:2 | message]} when the request
+ * was malformed or failed without being rejected.
+ */
+final class BankProtocol {
+
+    static final byte TRANSFER = 1;
+    static final byte BALANCE = 2;
+    static final byte BATCH = 3;
+
+    static final byte OK = 0;
+    static final byte ERROR = -1;
+
+    static final int HEADER_BYTES = 4 + 4 + 1;
+    static final int MAX_FRAME_BYTES = 1 << 20;
+    static final int MAX_ID_BYTES = 255;
+    static final int MAX_ERROR_BYTES = 512;
+
+    private static final RejectionReason[] REASONS = RejectionReason.values();
+
+    private BankProtocol() {
+    }
+
+    static byte status(TransferResult result) {
+        return result.isSuccess() ? OK : (byte) (1 + result.reason().ordinal());
+    }
+
+    /**
+     * @throws IllegalArgumentException if the status is not {@link #OK} or a rejection
+     */
+    static TransferResult result(byte status) {
+        if (status == OK) {
+            return TransferResult.success();
+        }
+        if (status < 1 || status > REASONS.length) {
+            throw new IllegalArgumentException("Unknown status " + status);
+        }
+        return TransferResult.rejected(REASONS[status - 1]);
+    }
+
+    static int transferBytes(byte[] origin, byte[] destiny) {
+        return 8 + 3 + 1 + origin.length + 1 + destiny.length;
+    }
+
+    static void putTransfer(ByteBuffer buffer, FastMoney amount, byte[] origin, byte[] destiny) {
+        buffer.putLong(amount.minorUnits());
+        putCurrency(buffer, amount.currency());
+        putId(buffer, origin);
+        putId(buffer, destiny);
+    }
+
+    /**
+     * @throws IllegalArgumentException if an id does not fit in a frame
+     */
+    static byte[] encodeId(AccountId id) {
+        var bytes = id.value().getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_ID_BYTES) {
+            throw new IllegalArgumentException("Account ids can't be longer than " + MAX_ID_BYTES + " bytes");
+        }
+        return bytes;
+    }
+
+    static void putId(ByteBuffer buffer, byte[] id) {
+        buffer.put((byte) id.length);
+        buffer.put(id);
+    }
+
+    static void putCurrency(ByteBuffer buffer, Currency currency) {
+        var code = currency.getCurrencyCode();
+        for (int i = 0; i < 3; i++) {
+            buffer.put((byte) code.charAt(i));
+        }
+    }
+
+    static byte[] encodeError(RuntimeException e) {
+        var message = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+        var bytes = message.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= MAX_ERROR_BYTES) {
+            return bytes;
+        }
+        // May cut a character in two, which decodes to a replacement character
+        return Arrays.copyOf(bytes, MAX_ERROR_BYTES);
+    }
+
+    static String getError(ByteBuffer buffer) {
+        var bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decodes the parts of frames that are repeated a lot, remembering the last currency seen so a connection that
+     * sticks to one does not look it up again.
+     */
+    static final class Decoder {
+
+        private final byte[] scratch = new byte[MAX_ID_BYTES];
+        private int lastCode = -1;
+        private Currency lastCurrency;
+
+        /**
+         * Appends the transfer in the buffer to {@code requests}.
+         *
+         * @throws java.nio.BufferUnderflowException if the transfer is cut short
+         * @throws IllegalArgumentException          if the currency is unknown
+         */
+        void getTransfer(ByteBuffer buffer, List<TransferRequest> requests) {
+            var minorUnits = buffer.getLong();
+            var currency = getCurrency(buffer);
+            var origin = getId(buffer);
+            var destiny = getId(buffer);
+            requests.add(new TransferRequest(new FastMoney(minorUnits, currency), origin, destiny));
+        }
+
+        AccountId getId(ByteBuffer buffer) {
+            var length = Byte.toUnsignedInt(buffer.get());
+            buffer.get(scratch, 0, length);
+            return new SimpleAccountId(new String(scratch, 0, length, StandardCharsets.UTF_8));
+        }
+
+        Currency getCurrency(ByteBuffer buffer) {
+            var code = (buffer.get() & 0xFF) << 16 | (buffer.get() & 0xFF) << 8 | buffer.get() & 0xFF;
+            if (code != lastCode) {
+                var chars = new char[] {(char) (code >>> 16), (char) (code >>> 8 & 0xFF), (char) (code & 0xFF)};
+                lastCurrency = Currency.getInstance(new String(chars));
+                lastCode = code;
+            }
+            return lastCurrency;
+        }
+    }
+}
@@ -0,0 +1,367 @@
+package org.example.bank.infraestructure.network;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.example.bank.domain.Bank;
+import org.example.bank.domain.account.AccountId;
+import org.example.bank.domain.money.FastMoney;
+import org.example.bank.domain.transfer.RejectionReason;
+import org.example.bank.domain.transfer.TransferRequest;
+import org.example.bank.domain.transfer.TransferResult;
+
+/**
+ * TCP front end of a {@link Bank} speaking {@link BankProtocol}, with a virtual thread blocked on each connection.
+ * <p>
+ * A connection reads whatever the client has sent so far and goes through every complete request in it before
+ * answering any: consecutive transfers and batches, however many requests they came in, are applied with a single
+ * {@link Bank#transferBatch}, and all the answers go back in as few writes as they fit in. A balance request applies
+ * the transfers before it first, so a client always reads its own writes. The more a client pipelines, the larger
+ * the batches get; a client waiting for each answer gets a batch of one. Metrics of the bank don't see the transfers
+ * made through the server, movement history does.
+ */
+public final class BankServer implements AutoCloseable {
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final Bank bank;
+    private final ServerSocketChannel serverChannel;
+    private final InetSocketAddress address;
+    private final ConcurrentHashMap<SocketChannel, Thread> connections = new ConcurrentHashMap<>();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final Thread acceptor;
+    private volatile boolean running = true;
+
+    /**
+     * Listens on a free port of the loopback interface.
+     */
+    public BankServer(Bank bank) {
+        this(bank, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    }
+
+    public BankServer(Bank bank, SocketAddress address) {
+        this.bank = bank;
+        try {
+            this.serverChannel = ServerSocketChannel.open().bind(address);
+            this.address = (InetSocketAddress) serverChannel.getLocalAddress();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.acceptor = Thread.ofVirtual().name("bank-server-acceptor").start(this::accept);
+    }
+
+    public InetSocketAddress address() {
+        return address;
+    }
+
+    /**
+     * Requests taken so far, answered or about to be.
+     */
+    public long requests() {
+        return requests.sum();
+    }
+
+    /**
+     * Batches the transfers answered so far were applied in.
+     */
+    public long batches() {
+        return batches.sum();
+    }
+
+    /**
+     * Stops accepting connections, drops the open ones and waits for their threads to be done with the bank.
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            serverChannel.close();
+        } catch (IOException e) {
+            // Closing anyway
+        }
+        try {
+            acceptor.join();
+            for (var connection : connections.entrySet()) {
+                closeQuietly(connection.getKey());
+                connection.getValue().join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void accept() {
+        while (running) {
+            SocketChannel channel;
+            try {
+                channel = serverChannel.accept();
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                // Such as running out of file descriptors: the client sees the connection fail
+                continue;
+            }
+            var thread = Thread.ofVirtual().name("bank-connection").unstarted(() -> serve(channel));
+            connections.put(channel, thread);
+            thread.start();
+        }
+    }
+
+    private void serve(SocketChannel channel) {
+        try {
+            new Connection(channel).serve();
+        } catch (IOException e) {
+            // The client left, broke the framing or the server is closing: the connection is dropped
+        } finally {
+            closeQuietly(channel);
+            connections.remove(channel);
+        }
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Nothing left to do with it
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "BankServer{" +
+               "address=" + address +
+               ", connections=" + connections.size() +
+               ", requests=" + requests +
+               ", batches=" + batches +
+               '}';
+    }
+
+    /**
+     * State of one connection, only touched by its thread. The transfers decoded and not applied yet make up a run,
+     * each entry of it a request to answer: a single transfer or a batch of {@code count} transfers.
+     */
+    private final class Connection {
+
+        private static final int SINGLE = -1;
+
+        private final SocketChannel channel;
+        private final BankProtocol.Decoder decoder = new BankProtocol.Decoder();
+        private final ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        private final List<TransferRequest> run = new ArrayList<>();
+        private ByteBuffer in = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        private int[] entryIds = new int[64];
+        private int[] entryCounts = new int[64];
+        private int entries;
+
+        private Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        private void serve() throws IOException {
+            while (channel.read(in) >= 0) {
+                in.flip();
+                var needed = process();
+                applyRun();
+                flush();
+                in.compact();
+                if (needed > in.capacity()) {
+                    var larger = ByteBuffer.allocateDirect(Math.max(needed, in.capacity() * 2));
+                    larger.put(in.flip());
+                    in = larger;
+                }
+            }
+        }
+
+        /**
+         * Goes through the complete requests read so far.
+         *
+         * @return the bytes the next request takes, header included, when it was not complete
+         */
+        private int process() throws IOException {
+            while (in.remaining() >= 4) {
+                var length = in.getInt(in.position());
+                if (length < BankProtocol.HEADER_BYTES - 4 || length > BankProtocol.MAX_FRAME_BYTES) {
+                    throw new ProtocolException("Invalid frame length " + length);
+                }
+                if (in.remaining() < 4 + length) {
+                    return 4 + length;
+                }
+                var limit = in.limit();
+                var end = in.position() + 4 + length;
+                in.position(in.position() + 4).limit(end);
+                var id = in.getInt();
+                var opcode = in.get();
+                try {
+                    handle(id, opcode);
+                } catch (BufferUnderflowException e) {
+                    applyRun();
+                    error(id, "Frame shorter than its request");
+                } catch (IllegalArgumentException e) {
+                    applyRun();
+                    error(id, e);
+                }
+                requests.increment();
+                in.limit(limit).position(end);
+            }
+            return 0;
+        }
+
+        private void handle(int id, byte opcode) throws IOException {
+            switch (opcode) {
+                case BankProtocol.TRANSFER -> {
+                    decodeTransfers(1);
+                    entry(id, SINGLE);
+                }
+                case BankProtocol.BATCH -> {
+                    var count = in.getInt();
+                    if (count < 0) {
+                        throw new IllegalArgumentException("Negative batch size " + count);
+                    }
+                    decodeTransfers(count);
+                    entry(id, count);
+                }
+                case BankProtocol.BALANCE -> {
+                    var account = decoder.getId(in);
+                    requireEnd();
+                    applyRun();
+                    balance(id, account);
+                }
+                default -> throw new IllegalArgumentException("Unknown opcode " + opcode);
+            }
+        }
+
+        /**
+         * Adds the transfers of the frame to the run, or none of them if the frame is malformed.
+         */
+        private void decodeTransfers(int count) {
+            var mark = run.size();
+            try {
+                for (int i = 0; i < count; i++) {
+                    decoder.getTransfer(in, run);
+                }
+                requireEnd();
+            } catch (RuntimeException e) {
+                run.subList(mark, run.size()).clear();
+                throw e;
+            }
+        }
+
+        private void requireEnd() {
+            if (in.hasRemaining()) {
+                throw new IllegalArgumentException("Frame longer than its request");
+            }
+        }
+
+        private void entry(int id, int count) {
+            if (entries == entryIds.length) {
+                entryIds = Arrays.copyOf(entryIds, entries * 2);
+                entryCounts = Arrays.copyOf(entryCounts, entries * 2);
+            }
+            entryIds[entries] = id;
+            entryCounts[entries] = count;
+            entries++;
+        }
+
+        private void applyRun() throws IOException {
+            if (entries == 0) {
+                return;
+            }
+            List<TransferResult> results = List.of();
+            RuntimeException failure = null;
+            if (!run.isEmpty()) {
+                try {
+                    results = bank.transferBatch(run);
+                    batches.increment();
+                } catch (RuntimeException e) {
+                    // Not a rejection, such as a balance overflowing: what the run applied is unknown
+                    failure = e;
+                }
+            }
+            var next = 0;
+            for (int i = 0; i < entries; i++) {
+                var id = entryIds[i];
+                var count = entryCounts[i];
+                if (failure != null) {
+                    error(id, failure);
+                } else if (count == SINGLE) {
+                    ensure(BankProtocol.HEADER_BYTES);
+                    out.putInt(BankProtocol.HEADER_BYTES - 4).putInt(id).put(BankProtocol.status(results.get(next++)));
+                } else {
+                    ensure(BankProtocol.HEADER_BYTES + 4);
+                    out.putInt(BankProtocol.HEADER_BYTES + count).putInt(id).put(BankProtocol.OK).putInt(count);
+                    for (int j = 0; j < count; j++) {
+                        ensure(1);
+                        out.put(BankProtocol.status(results.get(next++)));
+                    }
+                }
+            }
+            run.clear();
+            entries = 0;
+        }
+
+        private void balance(int id, AccountId account) throws IOException {
+            FastMoney balance;
+            try {
+                balance = FastMoney.of(bank.getBalance(account));
+            } catch (RuntimeException e) {
+                var reason = RejectionReason.of(e);
+                if (reason == null) {
+                    error(id, e);
+                } else {
+                    ensure(BankProtocol.HEADER_BYTES);
+                    out.putInt(BankProtocol.HEADER_BYTES - 4).putInt(id)
+                       .put(BankProtocol.status(TransferResult.rejected(reason)));
+                }
+                return;
+            }
+            ensure(BankProtocol.HEADER_BYTES + 11);
+            out.putInt(BankProtocol.HEADER_BYTES - 4 + 11).putInt(id).put(BankProtocol.OK)
+               .putLong(balance.minorUnits());
+            BankProtocol.putCurrency(out, balance.currency());
+        }
+
+        private void error(int id, RuntimeException e) throws IOException {
+            writeError(id, BankProtocol.encodeError(e));
+        }
+
+        private void error(int id, String message) throws IOException {
+            writeError(id, BankProtocol.encodeError(new IllegalArgumentException(message)));
+        }
+
+        private void writeError(int id, byte[] message) throws IOException {
+            ensure(BankProtocol.HEADER_BYTES + 2 + message.length);
+            out.putInt(BankProtocol.HEADER_BYTES - 4 + 2 + message.length).putInt(id).put(BankProtocol.ERROR)
+               .putShort((short) message.length).put(message);
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (out.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            out.flip();
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            out.clear();
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package org.example.bank.infraestructure.timer;
+
+import java.util.Arrays;
+
+/**
+ * Hierarchical timing wheel over integer ticks: scheduling and cancelling are O(1), and advancing costs the timers that
+ * expire or move down a level meanwhile plus a few bit operations per non-empty bucket reached, however many ticks.
+ * <p>
+ * There are six levels of 64 buckets; a bucket of level {@code k} spans {@code 64^k}
+ * ticks, so the wheel reaches {@code 2^36} ticks ahead and timers further away wait in the last bucket of the top
+ * level until they get closer. When the wheel turns past the end of a bucket span, the timers of the next bucket of
+ * the level above are spread over the level below, and the timers of the current bottom bucket expire.
+ * <p>
+ * Timers are slots of parallel primitive arrays linked into their bucket by index, 24 bytes each and no object per
+ * timer. Callers keep whatever the timer stands for in their own arrays indexed by {@link #slotOf slot}, sized to
+ * {@link #capacity()}. Handles carry a generation, so a handle whose timer expired or was cancelled never touches the
+ * timer that reuses its slot. Not thread-safe.
+ */
+public final class TimingWheel {
+
+    private static final int LEVELS = 6;
+    private static final int BITS = 6;
+    private static final int BUCKETS = 1 << BITS;
+    private static final int NONE = -1;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final int[] heads = new int[LEVELS * BUCKETS];
+    private final long[] occupied = new long[LEVELS];
+    private long[] deadlines;
+    private int[] next;
+    private int[] previous;
+    private int[] buckets;
+    private int[] generations;
+    private int free = NONE;
+    private int allocated;
+    private int size;
+    private long now;
+    private int[] expired = new int[INITIAL_CAPACITY];
+    private int expiredCount;
+
+    /**
+     * @param now the tick the wheel starts at, as already elapsed
+     */
+    public TimingWheel(long now) {
+        this.now = now;
+        Arrays.fill(heads, NONE);
+        deadlines = new long[INITIAL_CAPACITY];
+        next = new int[INITIAL_CAPACITY];
+        previous = new int[INITIAL_CAPACITY];
+        buckets = new int[INITIAL_CAPACITY];
+        generations = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Schedules a timer. A deadline that already elapsed expires on the next tick.
+     *
+     * @return the handle of the timer
+     */
+    public long schedule(long deadline) {
+        var slot = allocate();
+        deadlines[slot] = deadline;
+        link(slot, now + 1);
+        size++;
+        return handle(slot);
+    }
+
+    /**
+     * Schedules again a timer handed out by {@link #advance} that wasn't released yet, keeping its handle.
+     */
+    public void reschedule(int slot, long deadline) {
+        if (buckets[slot] != NONE) {
+            throw new IllegalStateException("Timer " + slot + " is still scheduled");
+        }
+        deadlines[slot] = deadline;
+        link(slot, now + 1);
+        size++;
+    }
+
+    /**
+     * @return whether the timer was still scheduled
+     */
+    public boolean cancel(long handle) {
+        var slot = slotOf(handle);
+        if (slot < 0 || slot >= allocated || generations[slot] != (int) (handle >>> 32) || buckets[slot] == NONE) {
+            return false;
+        }
+        unlink(slot);
+        size--;
+        release(slot);
+        return true;
+    }
+
+    /**
+     * Turns the wheel up to the tick, collecting the timers that expire on the way. They are no longer scheduled but
+     * keep their slot until {@link #release released} or {@link #reschedule rescheduled}.
+     *
+     * @return how many timers expired, read with {@link #expired(int)}
+     */
+    public int advance(long tick) {
+        expiredCount = 0;
+        while (now < tick) {
+            var event = nextEvent();
+            if (event > tick) {
+                now = tick;
+                break;
+            }
+            now = event;
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((now & ((1L << (level * BITS)) - 1)) == 0) {
+                    cascade(level);
+                }
+            }
+            collect(bucketIndex(0, now));
+        }
+        return expiredCount;
+    }
+
+    /**
+     * @return the slot of the i-th timer expired by the last {@link #advance}
+     */
+    public int expired(int i) {
+        return expired[i];
+    }
+
+    /**
+     * Frees the slot of a timer handed out by {@link #advance}; its handle is no longer valid.
+     */
+    public void release(int slot) {
+        generations[slot]++;
+        next[slot] = free;
+        free = slot;
+    }
+
+    public long deadline(int slot) {
+        return deadlines[slot];
+    }
+
+    public long handle(int slot) {
+        return (long) generations[slot] << 32 | slot;
+    }
+
+    public static int slotOf(long handle) {
+        return (int) handle;
+    }
+
+    /**
+     * Slots are always below it; it only grows.
+     */
+    public int capacity() {
+        return deadlines.length;
+    }
+
+    /**
+     * Timers scheduled and not yet expired.
+     */
+    public int size() {
+        return size;
+    }
+
+    public long now() {
+        return now;
+    }
+
+    private int allocate() {
+        if (free != NONE) {
+            var slot = free;
+            free = next[slot];
+            return slot;
+        }
+        if (allocated == deadlines.length) {
+            var capacity = allocated * 2;
+            deadlines = Arrays.copyOf(deadlines, capacity);
+            next = Arrays.copyOf(next, capacity);
+            previous = Arrays.copyOf(previous, capacity);
+            buckets = Arrays.copyOf(buckets, capacity);
+            generations = Arrays.copyOf(generations, capacity);
+        }
+        return allocated++;
+    }
+
+    /**
+     * The first tick that expires or cascades a non-empty bucket, found through the bitmaps of non-empty buckets, so
+     * turning the wheel skips every tick with nothing to do.
+     */
+    private long nextEvent() {
+        var earliest = Long.MAX_VALUE;
+        for (int level = 0; level < LEVELS; level++) {
+            if (occupied[level] == 0) {
+                continue;
+            }
+            var shift = level * BITS;
+            var position = (int) ((now >>> shift) & (BUCKETS - 1));
+            // Buckets ahead of the current one come first, the current one itself is a whole turn away
+            var distance = Long.numberOfTrailingZeros(Long.rotateRight(occupied[level], position + 1)) + 1;
+            earliest = Math.min(earliest, ((now >>> shift) + distance) << shift);
+        }
+        return earliest;
+    }
+
+    /**
+     * @param earliest the first tick the timer may expire at: the next one, or the current one while cascading
+     */
+    private void link(int slot, long earliest) {
+        var deadline = Math.max(deadlines[slot], earliest);
+        var delta = deadline - now;
+        var level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << ((level + 1) * BITS)) {
+            level++;
+        }
+        // Beyond the reach of the wheel: park it in the farthest top bucket, it is spread again when reached
+        var bucket = delta >= 1L << (LEVELS * BITS) ? bucketIndex(level, now - (1L << (level * BITS)))
+                                                     : bucketIndex(level, deadline);
+        var head = heads[bucket];
+        next[slot] = head;
+        previous[slot] = NONE;
+        if (head != NONE) {
+            previous[head] = slot;
+        }
+        heads[bucket] = slot;
+        buckets[slot] = bucket;
+        occupied[level] |= 1L << bucket;
+    }
+
+    private void unlink(int slot) {
+        var bucket = buckets[slot];
+        if (previous[slot] == NONE) {
+            heads[bucket] = next[slot];
+            if (next[slot] == NONE) {
+                occupied[bucket / BUCKETS] &= ~(1L << bucket);
+            }
+        } else {
+            next[previous[slot]] = next[slot];
+        }
+        if (next[slot] != NONE) {
+            previous[next[slot]] = previous[slot];
+        }
+        buckets[slot] = NONE;
+    }
+
+    /**
+     * Spreads the timers of the bucket the wheel just reached at this level over the levels below.
+     */
+    private void cascade(int level) {
+        var bucket = bucketIndex(level, now);
+        var slot = heads[bucket];
+        heads[bucket] = NONE;
+        occupied[level] &= ~(1L << bucket);
+        while (slot != NONE) {
+            var following = next[slot];
+            link(slot, now);
+            slot = following;
+        }
+    }
+
+    private void collect(int bucket) {
+        var slot = heads[bucket];
+        heads[bucket] = NONE;
+        occupied[0] &= ~(1L << bucket);
+        while (slot != NONE) {
+            var following = next[slot];
+            buckets[slot] = NONE;
+            size--;
+            if (expiredCount == expired.length) {
+                expired = Arrays.copyOf(expired, expiredCount * 2);
+            }
+            expired[expiredCount++] = slot;
+            slot = following;
+        }
+    }
+
+    private static int bucketIndex(int level, long tick) {
+        return level * BUCKETS + (int) ((tick >>> (level * BITS)) & (BUCKETS - 1));
+    }
+}
@@ -1,27 +1,67 @@
 package org.example.bank.domain;
 
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Currency;
+import java.util.Comparator;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
 import org.example.bank.domain.account.Account;
+import org.example.bank.domain.account.AccountId;
+import org.example.bank.domain.account.LockFreeAccount;
 import org.example.bank.domain.account.MalfunctioningHashcodeAccountId;
 import org.example.bank.domain.account.ReadWriteLockAccount;
 import org.example.bank.domain.account.SimpleAccountId;
+import org.example.bank.domain.account.StampedLockAccount;
+import org.example.bank.domain.account.StripedBalanceAccount;
+import org.example.bank.domain.audit.AccountBalance;
 import org.example.bank.domain.exceptions.AccountNotFoundException;
 import org.example.bank.domain.exceptions.InsufficientFundsException;
 import org.example.bank.domain.exceptions.NegativeTransferAmountException;
+import org.example.bank.domain.history.Movement;
+import org.example.bank.domain.metrics.TransferMetrics;
+import org.example.bank.domain.money.ExchangeRates;
+import org.example.bank.domain.money.FastMoney;
 import org.example.bank.domain.money.Money;
+import org.example.bank.domain.transfer.IdempotencyCache;
+import org.example.bank.domain.transfer.RejectionReason;
+import org.example.bank.domain.transfer.SplitLeg;
+import org.example.bank.domain.transfer.TransferRequest;
+import org.example.bank.domain.transfer.TransferResult;
 import org.example.bank.infraestructure.account.repository.inmemory.InMemoryAccountRepository;
 import org.example.bank.infraestructure.account.repository.inmemory.InMemoryAccountRepositoryConcurrentHashMap;
-import org.example.bank.infraestructure.account.repository.inmemory.strategy.OptimisticLockTransferStrategy;
+import org.example.bank.infraestructure.account.repository.inmemory.strategy.BackoffPolicy;
+import org.example.bank.infraestructure.account.repository.inmemory.strategy.DescriptorTransferStrategy;
 import org.example.bank.infraestructure.account.repository.inmemory.strategy.PessimisticLockTransferStrategy;
+import org.example.bank.infraestructure.account.repository.inmemory.strategy.OptimisticLockTransferStrategy;
 import org.example.bank.infraestructure.account.repository.inmemory.strategy.RevisitedPessimisticLockTransferStrategy;
 import org.example.bank.infraestructure.account.repository.inmemory.strategy.SerializedTransferStrategy;
+import org.example.bank.infraestructure.account.repository.inmemory.strategy.StripedLockTransferStrategy;
+import org.example.bank.infraestructure.account.repository.offheap.OffHeapAccountRepository;
+import org.example.bank.infraestructure.account.repository.sharded.ShardedAccountRepository;
+import org.example.bank.infraestructure.history.RingBufferMovementHistory;
+import org.example.bank.infraestructure.metrics.RecordingTransferMetrics;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
-import org.junit.jupiter.api.RepeatedTest;
-import org.junit.jupiter.api.RepetitionInfo;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtensionContext;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -60,6 +100,21 @@ class BankTest {
         Assertions.assertThrows(AccountNotFoundException.class, () -> this.bank.getBalance(unregisteredAccount));
     }
 
+    @ParameterizedTest
+    @ArgumentsSource(BankProvider.class)
+    void shouldMatchAccountIdsByTheirValue(Bank bankInstance) {
+        bankInstance.registerAccount(new ReadWriteLockAccount(new SimpleAccountId("A"), euros(100)));
+        bankInstance.registerAccount(createAccountWithBalance("B", euros(0)));
+        var a = new MalfunctioningHashcodeAccountId("A", () -> 42);
+        var b = new SimpleAccountId("B");
+
+        bankInstance.transfer(euros(30), a, b);
+
+        Assertions.assertTrue(bankInstance.getAccount(a).isPresent());
+        Assertions.assertEquals(euros(70), bankInstance.getBalance(a));
+        Assertions.assertEquals(euros(30), bankInstance.getBalance(b));
+    }
+
     @ParameterizedTest
     @ArgumentsSource(BankProvider.class)
     void shouldTransferMoney(Bank bankInstance) {
@@ -74,6 +129,21 @@ class BankTest {
         Assertions.assertEquals(euros(150), bankInstance.getBalance(b.id()));
     }
 
+    @ParameterizedTest
+    @ArgumentsSource(BankProvider.class)
+    void shouldTransferAmountsWithCents(Bank bankInstance) {
+        var a = createAccountWithBalance("A", euros(100));
+        var b = createAccountWithBalance("B", euros(100));
+        bankInstance.registerAccount(a);
+        bankInstance.registerAccount(b);
+
+        bankInstance.transfer(euros("0.25"), a.id(), b.id());
+        bankInstance.transfer(new FastMoney(25, "EUR"), a.id(), b.id());
+
+        Assertions.assertEquals(euros("99.50"), bankInstance.getBalance(a.id()));
+        Assertions.assertEquals(euros("100.5"), bankInstance.getBalance(b.id()));
+    }
+
     @ParameterizedTest
     @ArgumentsSource(BankProvider.class)
     void shouldSupportConcurrentlyTransfers(Bank bankInstance) {
@@ -159,89 +229,1089 @@ class BankTest {
         );
     }
 
-    @RepeatedTest(3)
-    void compareTransferMethodsEfficiency(RepetitionInfo repetitionInfo) {
-        var a = createAccountWithBalance("A", euros(1000));
-        var b = createAccountWithBalance("B", euros(1000));
+    @ParameterizedTest
+    @ArgumentsSource(BankProvider.class)
+    void shouldReportRejectedTransfersAsResults(Bank bankInstance) {
+        var a = createAccountWithBalance("A", euros(10));
+        var b = createAccountWithBalance("B", euros(10));
+        bankInstance.registerAccount(a);
+        bankInstance.registerAccount(b);
+
+        Assertions.assertEquals(TransferResult.success(), bankInstance.tryTransfer(euros(4), a.id(), b.id()));
+        Assertions.assertEquals(
+                TransferResult.rejected(RejectionReason.INSUFFICIENT_FUNDS),
+                bankInstance.tryTransfer(euros(7), a.id(), b.id())
+        );
+        Assertions.assertEquals(
+                TransferResult.rejected(RejectionReason.NEGATIVE_AMOUNT),
+                bankInstance.tryTransfer(euros(-1), a.id(), b.id())
+        );
+        Assertions.assertEquals(
+                TransferResult.rejected(RejectionReason.CURRENCY_MISMATCH),
+                bankInstance.tryTransfer(new Money(1, "USD"), a.id(), b.id())
+        );
+        Assertions.assertEquals(
+                TransferResult.rejected(RejectionReason.ACCOUNT_NOT_FOUND),
+                bankInstance.tryTransfer(euros(1), a.id(), new SimpleAccountId("C"))
+        );
+        Assertions.assertEquals(euros(6), bankInstance.getBalance(a.id()));
+        Assertions.assertEquals(euros(14), bankInstance.getBalance(b.id()));
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(BankProvider.class)
+    void shouldConvertTransfersBetweenAccountsInDifferentCurrencies(Bank bankInstance) {
+        var a = createAccountWithBalance("A", euros(100));
+        var b = createAccountWithBalance("B", new Money(0, "USD"));
+        var c = createAccountWithBalance("C", new Money(0, "JPY"));
+        bankInstance.registerAccount(a);
+        bankInstance.registerAccount(b);
+        bankInstance.registerAccount(c);
+        var rates = new ExchangeRates();
+        rates.setRate(Currency.getInstance("EUR"), Currency.getInstance("USD"), new BigDecimal("1.0850"));
+        rates.setRate(Currency.getInstance("EUR"), Currency.getInstance("JPY"), new BigDecimal("161.237"));
+
+        Assertions.assertEquals(TransferResult.success(), bankInstance.tryTransfer(
+                FastMoney.of(euros(10)), a.id(), b.id(), rates
+        ));
+        Assertions.assertEquals(TransferResult.success(), bankInstance.tryTransfer(
+                FastMoney.of(euros("10.01")), a.id(), c.id(), rates
+        ));
+        Assertions.assertEquals(
+                TransferResult.rejected(RejectionReason.CURRENCY_MISMATCH),
+                bankInstance.tryTransfer(FastMoney.of(new Money(1, "USD")), b.id(), c.id(), rates)
+        );
+        Assertions.assertEquals(
+                TransferResult.rejected(RejectionReason.INSUFFICIENT_FUNDS),
+                bankInstance.tryTransfer(FastMoney.of(euros(100)), a.id(), b.id(), rates)
+        );
+        Assertions.assertEquals(euros("79.99"), bankInstance.getBalance(a.id()));
+        Assertions.assertEquals(new Money(new BigDecimal("10.85"), Currency.getInstance("USD")),
+                                bankInstance.getBalance(b.id()));
+        // 10.01 EUR are 1613.98237 JPY, rounded down to the yen
+        Assertions.assertEquals(new Money(1613, "JPY"), bankInstance.getBalance(c.id()));
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(BankProvider.class)
+    void shouldConvertAtEitherRateWhileRatesChange(Bank bankInstance) throws InterruptedException {
+        var a = createAccountWithBalance("A", euros(1_000));
+        var b = createAccountWithBalance("B", new Money(0, "USD"));
+        bankInstance.registerAccount(a);
+        bankInstance.registerAccount(b);
+        var eur = Currency.getInstance("EUR");
+        var usd = Currency.getInstance("USD");
+        var rates = new ExchangeRates();
+        rates.setRate(eur, usd, new BigDecimal("1.10"));
+        var transfers = 1_000;
+
+        var updater = Thread.ofPlatform().start(() -> {
+            for (int i = 0; i < transfers; i++) {
+                rates.setRate(eur, usd, new BigDecimal(i % 2 == 0 ? "1.20" : "1.10"));
+            }
+        });
+        var oneEuro = FastMoney.of(euros(1));
+        Stream.generate(() -> CompletableFuture.runAsync(() -> bankInstance.transfer(oneEuro, a.id(), b.id(), rates)))
+              .limit(transfers)
+              .toList()
+              .forEach(CompletableFuture::join);
+        updater.join();
+
+        Assertions.assertEquals(euros(0), bankInstance.getBalance(a.id()));
+        // Every transfer credits 110 or 120 cents, whichever rate it read
+        var credited = FastMoney.of(bankInstance.getBalance(b.id())).minorUnits() - 110L * transfers;
+        Assertions.assertTrue(credited >= 0 && credited <= 10L * transfers && credited % 10 == 0);
+    }
+
+    @Test
+    void shouldConvertLikeExactDecimalArithmeticRoundedDown() {
+        var random = new SplittableRandom(17);
+        var from = Currency.getInstance("EUR");
+        for (var to : List.of("USD", "JPY", "KWD", "GBP")) {
+            var target = Currency.getInstance(to);
+            for (int i = 0; i < 1_000; i++) {
+                var rate = BigDecimal.valueOf(random.nextLong(1, 100_000_000), random.nextInt(2, 9));
+                var rates = new ExchangeRates();
+                rates.setRate(from, target, rate);
+                var amount = new FastMoney(random.nextLong(0, 1_000_000_000L), from);
+
+                var expected = amount.toMoney().amount().multiply(rate)
+                                     .setScale(FastMoney.scale(target), RoundingMode.DOWN);
+                Assertions.assertEquals(new Money(expected, target), rates.convert(amount, target).toMoney());
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(BankProvider.class)
+    void shouldReplayTheOutcomeOfRetriedTransfers(Bank bankInstance) {
+        var a = createAccountWithBalance("A", euros(10));
+        var b = createAccountWithBalance("B", euros(0));
+        bankInstance.registerAccount(a);
+        bankInstance.registerAccount(b);
+        var fourEuros = FastMoney.of(euros(4));
+        var eightEuros = FastMoney.of(euros(8));
+
+        Assertions.assertEquals(TransferResult.success(), bankInstance.tryTransfer("first", fourEuros, a.id(), b.id()));
+        Assertions.assertEquals(TransferResult.success(), bankInstance.tryTransfer("first", fourEuros, a.id(), b.id()));
+        var rejected = TransferResult.rejected(RejectionReason.INSUFFICIENT_FUNDS);
+        Assertions.assertEquals(rejected, bankInstance.tryTransfer("second", eightEuros, a.id(), b.id()));
+        bankInstance.transfer(FastMoney.of(euros(4)), b.id(), a.id());
+        Assertions.assertEquals(rejected, bankInstance.tryTransfer("second", eightEuros, a.id(), b.id()));
+        Assertions.assertEquals(
+                TransferResult.rejected(RejectionReason.KEY_REUSED),
+                bankInstance.tryTransfer("first", eightEuros, a.id(), b.id())
+        );
+
+        Assertions.assertEquals(euros(10), bankInstance.getBalance(a.id()));
+        Assertions.assertEquals(euros(0), bankInstance.getBalance(b.id()));
+    }
+
+    @Test
+    void shouldApplyConcurrentRetriesOfATransferOnlyOnce() {
+        var a = createAccountWithBalance("A", euros(1_000));
+        var b = createAccountWithBalance("B", euros(0));
         this.bank.registerAccount(a);
         this.bank.registerAccount(b);
+        var oneEuro = FastMoney.of(euros(1));
 
-        int numberOfTransfers = 1_000;
+        IntStream.range(0, 100)
+                 .mapToObj(i -> "transfer-" + i % 10)
+                 .map(key -> CompletableFuture.runAsync(() -> this.bank.transfer(key, oneEuro, a.id(), b.id())))
+                 .toList()
+                 .forEach(CompletableFuture::join);
 
-        long totalConcurrentHashMap = 0;
-        long totalSerializedTransferTime = 0;
-        long totalPessimisticLockTransferTime = 0;
-        long totalOptimisticLockTransferTime = 0;
+        Assertions.assertEquals(euros(990), this.bank.getBalance(a.id()));
+        Assertions.assertEquals(euros(10), this.bank.getBalance(b.id()));
+    }
 
-        // Measure serializedTransfer
-        long start = System.nanoTime();
-        for (int i = 0; i < numberOfTransfers; i++) {
-            concurrentlyTransfer(new Bank(new InMemoryAccountRepositoryConcurrentHashMap()), numberOfTransfers);
+    @Test
+    void shouldForgetTransfersBeyondTheIdempotencyCacheCapacityOrRetention() throws InterruptedException {
+        var cache = new IdempotencyCache(2, Duration.ofMillis(200));
+        var repository = new InMemoryAccountRepositoryConcurrentHashMap();
+        var bankInstance = new Bank(repository, TransferMetrics.disabled(), cache);
+        var a = createAccountWithBalance("A", euros(100));
+        var b = createAccountWithBalance("B", euros(0));
+        bankInstance.registerAccount(a);
+        bankInstance.registerAccount(b);
+        var oneEuro = FastMoney.of(euros(1));
+
+        bankInstance.transfer("replayed", oneEuro, a.id(), b.id());
+        bankInstance.transfer("forgotten", oneEuro, a.id(), b.id());
+        bankInstance.transfer("replayed", oneEuro, a.id(), b.id());
+        // The hand spares the replayed key once and evicts the other one
+        bankInstance.transfer("new", oneEuro, a.id(), b.id());
+        bankInstance.transfer("replayed", oneEuro, a.id(), b.id());
+        bankInstance.transfer("forgotten", oneEuro, a.id(), b.id());
+        bankInstance.transfer("replayed", oneEuro, a.id(), b.id());
+        Assertions.assertEquals(2, cache.size());
+        Assertions.assertEquals(euros(4), bankInstance.getBalance(b.id()));
+
+        Thread.sleep(Duration.ofMillis(300));
+        bankInstance.transfer("replayed", oneEuro, a.id(), b.id());
+        Assertions.assertEquals(euros(5), bankInstance.getBalance(b.id()));
+    }
+
+    @Test
+    void shouldRunScheduledTransfersWhenDue() throws InterruptedException {
+        var a = createAccountWithBalance("A", euros(100));
+        var b = createAccountWithBalance("B", euros(0));
+        this.bank.registerAccount(a);
+        this.bank.registerAccount(b);
+        var start = Instant.parse("2026-01-01T00:00:00Z");
+        var now = new AtomicReference<>(start);
+        var fired = new LinkedBlockingQueue<TransferResult>();
+        try (var scheduler = new TransferScheduler(this.bank, Duration.ofMillis(1), now::get,
+                                                   (order, request, result) -> fired.add(result))) {
+            var salary = new TransferRequest(euros(10), a.id(), b.id());
+            scheduler.scheduleEvery(salary, start.plus(Duration.ofDays(1)), Duration.ofDays(30));
+            scheduler.schedule(new TransferRequest(euros(5), a.id(), b.id()), start.plus(Duration.ofHours(1)));
+            var cancelled = scheduler.schedule(salary, start.plus(Duration.ofHours(2)));
+            Assertions.assertTrue(scheduler.cancel(cancelled));
+            Assertions.assertFalse(scheduler.cancel(cancelled));
+            Assertions.assertEquals(2, scheduler.pending());
+
+            now.set(start.plus(Duration.ofMinutes(59)));
+            Assertions.assertNull(fired.poll(50, TimeUnit.MILLISECONDS));
+            now.set(start.plus(Duration.ofHours(3)));
+            Assertions.assertEquals(TransferResult.success(), fired.poll(10, TimeUnit.SECONDS));
+            Assertions.assertNull(fired.poll(50, TimeUnit.MILLISECONDS));
+            // Two months later: the first salary and the one of the following month are both due
+            now.set(start.plus(Duration.ofDays(32)));
+            Assertions.assertEquals(TransferResult.success(), fired.poll(10, TimeUnit.SECONDS));
+            Assertions.assertEquals(TransferResult.success(), fired.poll(10, TimeUnit.SECONDS));
+            Assertions.assertEquals(1, scheduler.pending());
         }
-        long end = System.nanoTime();
-        long concurrentHashMapTransferTime = end - start;
-        totalConcurrentHashMap += concurrentHashMapTransferTime;
+        Assertions.assertEquals(euros(75), this.bank.getBalance(a.id()));
+        Assertions.assertEquals(euros(25), this.bank.getBalance(b.id()));
+    }
 
-        // Measure serializedTransfer
-        start = System.nanoTime();
-        for (int i = 0; i < numberOfTransfers; i++) {
-            concurrentlyTransfer(
-                    new Bank(new InMemoryAccountRepository(new SerializedTransferStrategy())),
-                    numberOfTransfers
-            );
+    @Test
+    void shouldPageThroughTheMovementsOfAnAccount() {
+        var start = Instant.parse("2026-01-01T00:00:00Z");
+        var now = new AtomicReference<>(start);
+        var bankInstance = new Bank(
+                new InMemoryAccountRepository(new StripedLockTransferStrategy()), TransferMetrics.disabled(),
+                new IdempotencyCache(16, Duration.ofMinutes(1)), new RingBufferMovementHistory(1_024, now::get)
+        );
+        var a = createAccountWithBalance("A", euros(100));
+        var b = createAccountWithBalance("B", euros(0));
+        var c = createAccountWithBalance("C", euros(0));
+        bankInstance.registerAccount(a);
+        bankInstance.registerAccount(b);
+        bankInstance.registerAccount(c);
+
+        for (int i = 1; i <= 5; i++) {
+            bankInstance.transfer(euros(i), a.id(), b.id());
+            now.set(now.get().plus(Duration.ofMinutes(1)));
         }
-        end = System.nanoTime();
-        long serializedTransferTime = end - start;
-        totalSerializedTransferTime += serializedTransferTime;
+        Assertions.assertFalse(bankInstance.tryTransfer(euros(1_000), a.id(), b.id()).isSuccess());
+        bankInstance.transferBatch(List.of(
+                new TransferRequest(euros(2), b.id(), c.id()),
+                new TransferRequest(euros(1), c.id(), a.id())
+        ));
 
-        // Measure pessimisticLockTransfer
-        start = System.nanoTime();
-        for (int i = 0; i < numberOfTransfers; i++) {
-            concurrentlyTransfer(
-                    new Bank(new InMemoryAccountRepository(new PessimisticLockTransferStrategy())),
-                    numberOfTransfers
+        var first = bankInstance.movements(a.id(), Long.MAX_VALUE, 3);
+        Assertions.assertEquals(List.of(100L, -500L, -400L), minorUnits(first));
+        Assertions.assertEquals(c.id(), first.get(0).counterparty());
+        Assertions.assertEquals(b.id(), first.get(1).counterparty());
+        var second = bankInstance.movements(a.id(), first.get(2).sequence(), 3);
+        Assertions.assertEquals(List.of(-300L, -200L, -100L), minorUnits(second));
+        Assertions.assertTrue(bankInstance.movements(a.id(), second.get(2).sequence(), 3).isEmpty());
+
+        var between = bankInstance.movements(a.id(), start.plus(Duration.ofMinutes(1)),
+                                             start.plus(Duration.ofMinutes(3)), 10);
+        Assertions.assertEquals(List.of(-300L, -200L), minorUnits(between));
+        Assertions.assertEquals(start.plus(Duration.ofMinutes(2)), between.get(0).time());
+        Assertions.assertEquals(List.of(-200L, 500L, 400L, 300L, 200L, 100L),
+                                minorUnits(bankInstance.movements(b.id(), Long.MAX_VALUE, 10)));
+        Assertions.assertTrue(bankInstance.movements(new SimpleAccountId("D"), Long.MAX_VALUE, 10).isEmpty());
+    }
+
+    @Test
+    void shouldRecordEachSideOfACrossCurrencyTransferInTheCurrencyOfItsAccount() {
+        var bankInstance = new Bank(
+                new InMemoryAccountRepository(new StripedLockTransferStrategy()), TransferMetrics.disabled(),
+                new IdempotencyCache(16, Duration.ofMinutes(1)), new RingBufferMovementHistory(16)
+        );
+        var a = createAccountWithBalance("A", euros(100));
+        var b = createAccountWithBalance("B", new Money(0, "USD"));
+        bankInstance.registerAccount(a);
+        bankInstance.registerAccount(b);
+        var rates = new ExchangeRates();
+        rates.setRate(Currency.getInstance("EUR"), Currency.getInstance("USD"), new BigDecimal("1.0850"));
+
+        bankInstance.transfer(FastMoney.of(euros(10)), a.id(), b.id(), rates);
+
+        Assertions.assertEquals(
+                new FastMoney(-10_00, "EUR"), bankInstance.movements(a.id(), Long.MAX_VALUE, 1).get(0).amount()
+        );
+        Assertions.assertEquals(
+                new FastMoney(10_85, "USD"), bankInstance.movements(b.id(), Long.MAX_VALUE, 1).get(0).amount()
+        );
+    }
+
+    @Test
+    void shouldKeepOnlyTheLatestMovementsOnceTheHistoryWraps() {
+        var history = new RingBufferMovementHistory(8);
+        var bankInstance = new Bank(
+                new InMemoryAccountRepository(new SerializedTransferStrategy()), TransferMetrics.disabled(),
+                new IdempotencyCache(16, Duration.ofMinutes(1)), history
+        );
+        var a = createAccountWithBalance("A", euros(100));
+        var b = createAccountWithBalance("B", euros(0));
+        bankInstance.registerAccount(a);
+        bankInstance.registerAccount(b);
+
+        for (int i = 1; i <= 10; i++) {
+            bankInstance.transfer(euros(i), a.id(), b.id());
+        }
+
+        Assertions.assertEquals(20, history.recorded());
+        Assertions.assertEquals(List.of(-1_000L, -900L, -800L, -700L),
+                                minorUnits(bankInstance.movements(a.id(), Long.MAX_VALUE, 100)));
+        Assertions.assertEquals(List.of(1_000L, 900L, 800L, 700L),
+                                minorUnits(bankInstance.movements(b.id(), Long.MAX_VALUE, 100)));
+    }
+
+    @Test
+    void shouldRecordEveryMovementOnceUnderConcurrentTransfers() throws InterruptedException {
+        var history = new RingBufferMovementHistory(1 << 20);
+        var bankInstance = new Bank(
+                new InMemoryAccountRepository(new OptimisticLockTransferStrategy()), TransferMetrics.disabled(),
+                new IdempotencyCache(16, Duration.ofMinutes(1)), history
+        );
+        var ids = IntStream.range(0, 8).mapToObj(i -> (AccountId) new SimpleAccountId("account-" + i)).toList();
+        ids.forEach(id -> bankInstance.registerAccount(new LockFreeAccount(id, euros(1_000_000))));
+        var running = new AtomicBoolean(true);
+        var failure = new AtomicReference<Throwable>();
+        // Pages read while transfers run must always come newest first
+        var reader = Thread.ofPlatform().start(() -> {
+            try {
+                var random = ThreadLocalRandom.current();
+                while (running.get()) {
+                    var page = bankInstance.movements(ids.get(random.nextInt(ids.size())), Long.MAX_VALUE, 50);
+                    for (int i = 1; i < page.size(); i++) {
+                        Assertions.assertTrue(page.get(i - 1).sequence() > page.get(i).sequence());
+                    }
+                }
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        var writers = IntStream.range(0, 4).mapToObj(t -> Thread.ofPlatform().start(() -> {
+            var random = ThreadLocalRandom.current();
+            for (int i = 0; i < 20_000; i++) {
+                var origin = random.nextInt(ids.size());
+                var destiny = (origin + 1 + random.nextInt(ids.size() - 1)) % ids.size();
+                bankInstance.transfer(euros(1 + random.nextInt(5)), ids.get(origin), ids.get(destiny));
+            }
+        })).toList();
+        for (var writer : writers) {
+            writer.join();
+        }
+        running.set(false);
+        reader.join();
+        Assertions.assertNull(failure.get());
+
+        var movements = new long[2];
+        for (var id : ids) {
+            movements[0] = 0;
+            movements[1] = 0;
+            history.read(id, Long.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE,
+                         (sequence, timeMillis, counterparty, minorUnits, currency) -> {
+                             movements[0] += minorUnits;
+                             movements[1]++;
+                         });
+            var balance = FastMoney.of(bankInstance.getBalance(id)).minorUnits();
+            Assertions.assertEquals(balance - 100_000_000L, movements[0], "Movements of " + id);
+        }
+        Assertions.assertEquals(2 * 4 * 20_000, history.recorded());
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(BankProvider.class)
+    void shouldKeepTheBalanceOfAHotAccountUnderConcurrentDepositsAndWithdrawals(Bank bankInstance)
+            throws InterruptedException {
+        var hot = new StripedBalanceAccount(new SimpleAccountId("merchant"), euros(0), 8);
+        bankInstance.registerAccount(hot);
+        var customers = IntStream.range(0, 4).mapToObj(i -> createAccountWithBalance("customer-" + i, euros(10_000)))
+                                 .toList();
+        customers.forEach(bankInstance::registerAccount);
+
+        // Customers pay the merchant, which keeps refunding them as it gets paid
+        var threads = customers.stream().map(customer -> Thread.ofPlatform().start(() -> {
+            for (int i = 0; i < 5_000; i++) {
+                bankInstance.transfer(euros(2), customer.id(), hot.id());
+                bankInstance.tryTransfer(euros(1), hot.id(), customer.id());
+            }
+        })).toList();
+        for (var thread : threads) {
+            thread.join();
+        }
+
+        var paid = customers.stream().mapToLong(c -> 10_000 - bankInstance.getBalance(c.id()).amount().longValue())
+                            .sum();
+        Assertions.assertEquals(euros((int) paid), bankInstance.getBalance(hot.id()));
+        Assertions.assertTrue(paid >= 4 * 5_000);
+    }
+
+    @Test
+    void shouldWithdrawFromAHotAccountWhateverStripeTheFundsAreIn() throws InterruptedException {
+        var hot = new StripedBalanceAccount(new SimpleAccountId("merchant"), euros(0), 4);
+        var depositors = IntStream.range(0, 16).mapToObj(i -> Thread.ofPlatform().start(
+                () -> hot.deposit(FastMoney.of(euros(1)))
+        )).toList();
+        for (var depositor : depositors) {
+            depositor.join();
+        }
+
+        Assertions.assertEquals(4, hot.stripes());
+        Assertions.assertEquals(euros(16), hot.balance());
+        // No single stripe may cover it, so this collapses them
+        hot.withdraw(euros(15));
+        Assertions.assertEquals(euros(1), hot.balance());
+        Assertions.assertThrows(InsufficientFundsException.class, () -> hot.withdraw(euros(2)));
+        Assertions.assertFalse(hot.compareAndSubtract(100, FastMoney.of(euros(2))));
+        Assertions.assertTrue(hot.compareAndSubtract(0, FastMoney.of(euros(1))));
+        Assertions.assertEquals(euros(0), hot.balance());
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(BankProvider.class)
+    void shouldNetOpposingTransfersIntoAFewLegs(Bank bankInstance) throws InterruptedException {
+        var a = createAccountWithBalance("A", euros(1_000));
+        var b = createAccountWithBalance("B", euros(1_000));
+        bankInstance.registerAccount(a);
+        bankInstance.registerAccount(b);
+        var futures = new ArrayList<CompletableFuture<TransferResult>>();
+
+        try (var netting = new NettingBank(bankInstance, Duration.ofMillis(50), 100_000)) {
+            for (int i = 0; i < 2_000; i++) {
+                futures.add(netting.transfer(euros(1), a.id(), b.id()));
+                futures.add(netting.transfer(euros(1), b.id(), a.id()));
+            }
+            futures.add(netting.transfer(euros(3), a.id(), b.id()));
+            futures.forEach(future -> Assertions.assertEquals(TransferResult.success(), future.join()));
+            Assertions.assertEquals(4_001, netting.transfers());
+            Assertions.assertTrue(netting.legs() * 10 <= netting.transfers(), netting.toString());
+        }
+
+        Assertions.assertEquals(euros(997), bankInstance.getBalance(a.id()));
+        Assertions.assertEquals(euros(1_003), bankInstance.getBalance(b.id()));
+    }
+
+    @Test
+    void shouldDecideEveryNettedTransferAsIfAppliedInOrder() throws InterruptedException {
+        var a = createAccountWithBalance("A", euros(10));
+        var b = createAccountWithBalance("B", euros(0));
+        var c = createAccountWithBalance("C", euros(0));
+        this.bank.registerAccount(a);
+        this.bank.registerAccount(b);
+        this.bank.registerAccount(c);
+
+        // The window only closes once it holds all six
+        try (var netting = new NettingBank(this.bank, Duration.ofMinutes(1), 6)) {
+            var results = List.of(
+                    netting.transfer(euros(10), a.id(), b.id()),
+                    netting.transfer(euros(1), a.id(), b.id()),
+                    netting.transfer(euros(4), b.id(), a.id()),
+                    netting.transfer(euros(6), b.id(), c.id()),
+                    netting.transfer(euros(1), a.id(), new SimpleAccountId("missing")),
+                    netting.transfer(euros(-1), c.id(), a.id())
             );
+
+            Assertions.assertEquals(List.of(
+                    TransferResult.success(),
+                    TransferResult.rejected(RejectionReason.INSUFFICIENT_FUNDS),
+                    TransferResult.success(),
+                    TransferResult.success(),
+                    TransferResult.rejected(RejectionReason.ACCOUNT_NOT_FOUND),
+                    TransferResult.rejected(RejectionReason.NEGATIVE_AMOUNT)
+            ), results.stream().map(CompletableFuture::join).toList());
+            // A to B and B to C chain into A to C
+            Assertions.assertEquals(1, netting.legs());
         }
-        end = System.nanoTime();
-        long pessimisticLockTransferTime = end - start;
-        totalPessimisticLockTransferTime += pessimisticLockTransferTime;
 
-        // Measure optimisticLockTransfer
-        start = System.nanoTime();
+        Assertions.assertEquals(euros(4), this.bank.getBalance(a.id()));
+        Assertions.assertEquals(euros(0), this.bank.getBalance(b.id()));
+        Assertions.assertEquals(euros(6), this.bank.getBalance(c.id()));
+    }
+
+    @Test
+    void shouldReplayANettedWindowOneByOneWhenBalancesChangedUnderIt() throws InterruptedException {
+        // Reports 5 more than A holds, as if someone withdrew them right after the window read the balance
+        var bankInstance = new Bank(new InMemoryAccountRepositoryConcurrentHashMap() {
+            @Override
+            public Money getBalance(AccountId id) {
+                var balance = super.getBalance(id);
+                return id.equals(new SimpleAccountId("A")) ? balance.add(euros(5)) : balance;
+            }
+        });
+        var a = createAccountWithBalance("A", euros(10));
+        var b = createAccountWithBalance("B", euros(0));
+        bankInstance.registerAccount(a);
+        bankInstance.registerAccount(b);
+
+        try (var netting = new NettingBank(bankInstance, Duration.ofMinutes(1), 2)) {
+            var first = netting.transfer(euros(8), a.id(), b.id());
+            var second = netting.transfer(euros(4), a.id(), b.id());
+
+            Assertions.assertEquals(TransferResult.success(), first.join());
+            Assertions.assertEquals(TransferResult.rejected(RejectionReason.INSUFFICIENT_FUNDS), second.join());
+        }
+        Assertions.assertEquals(euros(8), bankInstance.getBalance(b.id()));
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(BankProvider.class)
+    void shouldHoldFundsUntilCapturedOrReleased(Bank bankInstance) throws InterruptedException {
+        var a = createAccountWithBalance("A", euros(100));
+        var b = createAccountWithBalance("B", euros(0));
+        bankInstance.registerAccount(a);
+        bankInstance.registerAccount(b);
+
+        try (var holds = new HoldLedger(bankInstance)) {
+            var hotel = holds.authorize(euros(30), a.id(), Duration.ofDays(7));
+            Assertions.assertEquals(euros(70), bankInstance.getBalance(a.id()));
+            Assertions.assertEquals(euros(30), holds.held(a.id()));
+            Assertions.assertEquals(euros(30), bankInstance.getAccount(a.id()).orElseThrow().held());
+            Assertions.assertEquals(TransferResult.rejected(RejectionReason.INSUFFICIENT_FUNDS),
+                                    bankInstance.tryTransfer(euros(71), a.id(), b.id()));
+            Assertions.assertEquals(TransferResult.rejected(RejectionReason.INSUFFICIENT_FUNDS),
+                                    holds.capture(hotel, b.id(), euros(31)));
+            Assertions.assertEquals(TransferResult.rejected(RejectionReason.ACCOUNT_NOT_FOUND),
+                                    holds.capture(hotel, new SimpleAccountId("missing")));
+            Assertions.assertEquals(TransferResult.success(), holds.capture(hotel, b.id(), euros(20)));
+            Assertions.assertEquals(TransferResult.rejected(RejectionReason.HOLD_NOT_FOUND),
+                                    holds.capture(hotel, b.id()));
+
+            var fuel = holds.authorize(euros(50), a.id(), Duration.ofDays(7));
+            Assertions.assertThrows(InsufficientFundsException.class,
+                                    () -> holds.authorize(euros(31), a.id(), Duration.ofDays(7)));
+            Assertions.assertTrue(holds.release(fuel));
+            Assertions.assertFalse(holds.release(fuel));
+            Assertions.assertEquals(0, holds.open());
+            Assertions.assertEquals(euros(0), holds.held(a.id()));
+        }
+        Assertions.assertEquals(euros(80), bankInstance.getBalance(a.id()));
+        Assertions.assertEquals(euros(20), bankInstance.getBalance(b.id()));
+    }
+
+    @Test
+    void shouldGiveBackTheFundsOfHoldsThatExpire() throws InterruptedException {
+        var a = createAccountWithBalance("A", euros(100));
+        var b = createAccountWithBalance("B", euros(0));
+        this.bank.registerAccount(a);
+        this.bank.registerAccount(b);
+        var start = Instant.parse("2026-01-01T00:00:00Z");
+        var now = new AtomicReference<>(start);
+
+        try (var holds = new HoldLedger(this.bank, Duration.ofMillis(1), now::get)) {
+            var expiring = holds.authorize(euros(40), a.id(), Duration.ofHours(1));
+            var captured = holds.authorize(euros(10), a.id(), Duration.ofHours(1));
+            holds.authorize(euros(5), a.id(), Duration.ofDays(1));
+            Assertions.assertEquals(TransferResult.success(), holds.capture(captured, b.id()));
+
+            now.set(start.plus(Duration.ofHours(2)));
+            var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (holds.open() > 1 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            Assertions.assertEquals(1, holds.open());
+            Assertions.assertEquals(1, holds.expired());
+            Assertions.assertEquals(euros(5), holds.held(a.id()));
+            Assertions.assertEquals(TransferResult.rejected(RejectionReason.HOLD_NOT_FOUND),
+                                    holds.capture(expiring, b.id()));
+
+            // Likely reuses a slot freed meanwhile, which the stale hold ids must not reach
+            var reusing = holds.authorize(euros(1), a.id(), Duration.ofHours(1));
+            Assertions.assertFalse(holds.release(expiring));
+            Assertions.assertFalse(holds.release(captured));
+            Assertions.assertTrue(holds.release(reusing));
+        }
+        Assertions.assertEquals(euros(85), this.bank.getBalance(a.id()));
+        Assertions.assertEquals(euros(10), this.bank.getBalance(b.id()));
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(BankProvider.class)
+    void shouldKeepEveryCentWhileHoldsAndTransfersRunConcurrently(Bank bankInstance) throws InterruptedException {
+        var a = createAccountWithBalance("A", euros(1_000));
+        var b = createAccountWithBalance("B", euros(1_000));
+        bankInstance.registerAccount(a);
+        bankInstance.registerAccount(b);
+
+        try (var holds = new HoldLedger(bankInstance)) {
+            var futures = IntStream.range(0, 4).mapToObj(thread -> CompletableFuture.runAsync(() -> {
+                var random = ThreadLocalRandom.current();
+                for (int i = 0; i < 2_000; i++) {
+                    var from = random.nextBoolean() ? a : b;
+                    var to = from == a ? b : a;
+                    bankInstance.tryTransfer(euros(1), from.id(), to.id());
+                    try {
+                        var hold = holds.authorize(euros(2), from.id(), Duration.ofMinutes(1));
+                        if (random.nextBoolean()) {
+                            Assertions.assertTrue(holds.release(hold));
+                        } else {
+                            Assertions.assertTrue(holds.capture(hold, to.id(), euros(1)).isSuccess());
+                        }
+                    } catch (InsufficientFundsException e) {
+                        // Every transfer and hold may drain one of the accounts for a while
+                    }
+                }
+            })).toList();
+            futures.forEach(CompletableFuture::join);
+            Assertions.assertEquals(0, holds.open());
+        }
+        var total = bankInstance.getBalance(a.id()).add(bankInstance.getBalance(b.id()));
+        Assertions.assertEquals(euros(2_000), total);
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(BankProvider.class)
+    void shouldReportTheResultOfEveryTransferInABatch(Bank bankInstance) {
+        var a = createAccountWithBalance("A", euros(10));
+        var b = createAccountWithBalance("B", euros(0));
+        bankInstance.registerAccount(a);
+        bankInstance.registerAccount(b);
+
+        var results = bankInstance.transferBatch(List.of(
+                new TransferRequest(euros(6), a.id(), b.id()),
+                new TransferRequest(euros(6), a.id(), b.id()),
+                new TransferRequest(euros(1), a.id(), new SimpleAccountId("missing")),
+                new TransferRequest(euros(-1), a.id(), b.id()),
+                new TransferRequest(euros(2), b.id(), a.id())
+        ));
+
+        Assertions.assertEquals(List.of(
+                TransferResult.success(),
+                TransferResult.rejected(RejectionReason.INSUFFICIENT_FUNDS),
+                TransferResult.rejected(RejectionReason.ACCOUNT_NOT_FOUND),
+                TransferResult.rejected(RejectionReason.NEGATIVE_AMOUNT),
+                TransferResult.success()
+        ), results);
+        Assertions.assertEquals(euros(6), bankInstance.getBalance(a.id()));
+        Assertions.assertEquals(euros(4), bankInstance.getBalance(b.id()));
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(BankProvider.class)
+    void shouldTransferToTheAccountsOfTheIdsWhateverHandlesTheRequestsCarry(Bank bankInstance) {
+        var a = createAccountWithBalance("A", euros(10));
+        var b = createAccountWithBalance("B", euros(0));
+        bankInstance.registerAccount(a);
+        bankInstance.registerAccount(b);
+        var missing = new SimpleAccountId("missing");
+        var handleOfA = bankInstance.handleOf(a.id());
+        var handleOfB = bankInstance.handleOf(b.id());
+        var one = FastMoney.of(euros(1));
+
+        Assertions.assertEquals(TransferRequest.NO_HANDLE, bankInstance.handleOf(missing));
+        var three = FastMoney.of(euros(3));
+        Assertions.assertEquals(
+                TransferResult.success(),
+                bankInstance.tryTransfer(new TransferRequest(three, a.id(), b.id(), handleOfA, handleOfB))
+        );
+        var results = bankInstance.transferBatch(List.of(
+                new TransferRequest(one, a.id(), b.id(), handleOfA, handleOfB),
+                new TransferRequest(one, a.id(), b.id(), handleOfB, handleOfA),
+                new TransferRequest(one, a.id(), missing, handleOfA, handleOfB),
+                new TransferRequest(one, a.id(), b.id(), 1_000, TransferRequest.NO_HANDLE)
+        ));
+
+        Assertions.assertEquals(List.of(
+                TransferResult.success(),
+                TransferResult.success(),
+                TransferResult.rejected(RejectionReason.ACCOUNT_NOT_FOUND),
+                TransferResult.success()
+        ), results);
+        Assertions.assertEquals(euros(4), bankInstance.getBalance(a.id()));
+        Assertions.assertEquals(euros(6), bankInstance.getBalance(b.id()));
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(BankProvider.class)
+    void shouldSupportConcurrentlyTransferBatches(Bank bankInstance) {
+        var originalBalance = euros(20_000);
+        var a = createAccountWithBalance("A", originalBalance);
+        var b = createAccountWithBalance("B", originalBalance);
+        var c = createAccountWithBalance("AA", originalBalance);
+        bankInstance.registerAccount(a);
+        bankInstance.registerAccount(b);
+        bankInstance.registerAccount(c);
+
+        var batch = List.of(
+                new TransferRequest(euros(1), a.id(), b.id()),
+                new TransferRequest(euros(1), b.id(), c.id()),
+                new TransferRequest(euros(2), c.id(), a.id())
+        );
+        int numberOfBatches = 5_000;
+        var futures = new ArrayList<CompletableFuture<Void>>();
+        for (int i = 0; i < numberOfBatches; i++) {
+            futures.add(CompletableFuture.runAsync(() -> bankInstance.transferBatch(batch)));
+        }
+        futures.forEach(CompletableFuture::join);
+
+        Assertions.assertEquals(originalBalance.add(numberOfBatches), bankInstance.getBalance(a.id()));
+        Assertions.assertEquals(originalBalance, bankInstance.getBalance(b.id()));
+        Assertions.assertEquals(originalBalance.subtract(numberOfBatches), bankInstance.getBalance(c.id()));
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(BankProvider.class)
+    void shouldSupportConcurrentlyAsyncTransfers(Bank bankInstance) {
+        var originalBalance = euros(20_000);
+        var a = createAccountWithBalance("A", originalBalance);
+        var b = createAccountWithBalance("B", originalBalance);
+        bankInstance.registerAccount(a);
+        bankInstance.registerAccount(b);
+
+        int numberOfTransfers = 20_000;
+        try (var asyncBank = new AsyncBank(bankInstance, 8, numberOfTransfers * 2)) {
+            var futures = new ArrayList<CompletableFuture<TransferResult>>();
+            for (int i = 0; i < numberOfTransfers; i++) {
+                futures.add(asyncBank.transfer(euros(1), a.id(), b.id()));
+                futures.add(asyncBank.transfer(euros(1), b.id(), a.id()));
+            }
+            futures.forEach(future -> Assertions.assertEquals(TransferResult.success(), future.join()));
+            Assertions.assertEquals(0, asyncBank.pending());
+        }
+
+        Assertions.assertEquals(originalBalance, bankInstance.getBalance(a.id()));
+        Assertions.assertEquals(originalBalance, bankInstance.getBalance(b.id()));
+    }
+
+    @Test
+    void shouldRejectAsyncTransfersWhenTheAdmissionQueueIsFull() {
+        var release = new CountDownLatch(1);
+        var blockingBank = new Bank(new InMemoryAccountRepositoryConcurrentHashMap() {
+            @Override
+            public TransferResult tryTransfer(FastMoney amount, AccountId origin, AccountId destiny) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.tryTransfer(amount, origin, destiny);
+            }
+        });
+        var a = createAccountWithBalance("A", euros(10));
+        var b = createAccountWithBalance("B", euros(10));
+        blockingBank.registerAccount(a);
+        blockingBank.registerAccount(b);
+
+        try (var asyncBank = new AsyncBank(blockingBank, 1, 1)) {
+            var running = asyncBank.transfer(euros(1), a.id(), b.id());
+            var queued = asyncBank.transfer(euros(20), a.id(), b.id());
+            var refused = asyncBank.transfer(euros(1), a.id(), b.id());
+
+            var exception = Assertions.assertThrows(CompletionException.class, refused::join);
+            Assertions.assertInstanceOf(RejectedExecutionException.class, exception.getCause());
+            release.countDown();
+            Assertions.assertEquals(TransferResult.success(), running.join());
+            Assertions.assertEquals(TransferResult.rejected(RejectionReason.INSUFFICIENT_FUNDS), queued.join());
+        }
+        Assertions.assertEquals(euros(9), blockingBank.getBalance(a.id()));
+    }
+
+    @Test
+    void shouldCountCompareAndSetAttemptsOfOptimisticTransfers() {
+        var strategy = new OptimisticLockTransferStrategy(BackoffPolicy.spinWait().withLockFallbackAfter(1));
+        var bankInstance = new Bank(new InMemoryAccountRepository(strategy));
+
+        concurrentlyTransfer(bankInstance, 1_000);
+
+        var metrics = strategy.metrics().snapshot();
+        Assertions.assertTrue(metrics.attempts() >= 12_000);
+        Assertions.assertEquals(metrics.attempts() - 12_000, metrics.failures());
+        Assertions.assertEquals(metrics.failures() > 0, metrics.fallbacks() > 0);
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(BankProvider.class)
+    void shouldTransferBetweenAccountsWhoseIdsShareTheSameStringHashCode(Bank bankInstance) {
+        // "Aa" and "BB" hash alike, so every combination of 9 of them collides under String.hashCode
+        var ids = new ArrayList<SimpleAccountId>();
+        for (int combination = 0; combination < 1 << 9; combination++) {
+            var id = new StringBuilder();
+            for (int block = 0; block < 9; block++) {
+                id.append((combination >> block & 1) == 0 ? "Aa" : "BB");
+            }
+            ids.add(new SimpleAccountId(id.toString()));
+        }
+        ids.forEach(id -> bankInstance.registerAccount(new ReadWriteLockAccount(id, euros(1))));
+
+        for (int i = 0; i + 1 < ids.size(); i++) {
+            bankInstance.transfer(euros(1), ids.get(i), ids.get(i + 1));
+        }
+
+        Assertions.assertEquals(euros(0), bankInstance.getBalance(ids.getFirst()));
+        Assertions.assertEquals(euros(1), bankInstance.getBalance(ids.get(ids.size() / 2)));
+        Assertions.assertEquals(euros(2), bankInstance.getBalance(ids.getLast()));
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(BankProvider.class)
+    void shouldReadConsistentBalancesOfStampedLockAccountsWhileTransferring(Bank bankInstance) {
+        var originalBalance = euros(5_000);
+        var a = new StampedLockAccount("A", originalBalance);
+        var b = new StampedLockAccount("B", originalBalance);
+        bankInstance.registerAccount(a);
+        bankInstance.registerAccount(b);
+
+        int numberOfTransfers = 5_000;
+        var reader = CompletableFuture.supplyAsync(() -> {
+            var previous = bankInstance.getBalance(a.id());
+            while (previous.amount().signum() > 0) {
+                var current = bankInstance.getBalance(a.id());
+                if (current.amount().compareTo(previous.amount()) > 0) {
+                    return false;
+                }
+                previous = current;
+            }
+            return true;
+        });
+        var futures = new ArrayList<CompletableFuture<Void>>();
         for (int i = 0; i < numberOfTransfers; i++) {
-            concurrentlyTransfer(
-                    new Bank(new InMemoryAccountRepository(new OptimisticLockTransferStrategy())),
-                    numberOfTransfers
-            );
+            futures.add(CompletableFuture.runAsync(() -> bankInstance.transfer(euros(1), a.id(), b.id())));
         }
-        end = System.nanoTime();
-        long optimisticLockTransferTime = end - start;
-        totalOptimisticLockTransferTime += optimisticLockTransferTime;
-
-        // Print the mean time taken and speedup after all repetitions
-        if (repetitionInfo.getCurrentRepetition() == repetitionInfo.getTotalRepetitions()) {
-            System.out.println("Mean time taken by concurrentHashMap: " + (totalConcurrentHashMap / repetitionInfo.getTotalRepetitions()) + " ns");
-            System.out.println("Mean time taken by serializedTransfer: " + (totalSerializedTransferTime / repetitionInfo.getTotalRepetitions()) + " ns");
-            System.out.println("Mean time taken by pessimisticLockTransfer: " + (totalPessimisticLockTransferTime / repetitionInfo.getTotalRepetitions()) + " ns");
-            System.out.println("Mean time taken by optimisticLockTransfer: " + (totalOptimisticLockTransferTime / repetitionInfo.getTotalRepetitions()) + " ns");
-            System.out.println("---------------------------------------------");
-            System.out.printf(
-                    "Mean speedup of serializedTransfer: %.2f x%n",
-                    (double) totalSerializedTransferTime / totalSerializedTransferTime
-            );
-            System.out.printf(
-                    "Mean speedup of concurrentHashMap: %.2f x%n",
-                    (double) totalSerializedTransferTime / totalConcurrentHashMap
-            );
-            System.out.printf(
-                    "Mean speedup of pessimisticLockTransfer: %.2f x%n",
-                    (double) totalSerializedTransferTime / totalPessimisticLockTransferTime
-            );
-            System.out.printf(
-                    "Mean speedup of optimisticLockTransfer: %.2f x %n",
-                    (double) totalSerializedTransferTime / totalOptimisticLockTransferTime
+        futures.forEach(CompletableFuture::join);
+
+        Assertions.assertTrue(reader.join(), "the balance of the origin went up while only taking money out");
+        Assertions.assertEquals(euros(0), bankInstance.getBalance(a.id()));
+        Assertions.assertEquals(originalBalance.add(numberOfTransfers), bankInstance.getBalance(b.id()));
+    }
+
+    @Test
+    void shouldAuditConsistentTotalsWhileTransferring() {
+        var bankInstance = new Bank(new OffHeapAccountRepository(1_024));
+        var ids = new ArrayList<AccountId>();
+        for (int i = 0; i < 1_000; i++) {
+            var account = createAccountWithBalance("account-" + i, euros(i));
+            ids.add(account.id());
+            bankInstance.registerAccount(account);
+        }
+        bankInstance.registerAccount(createAccountWithBalance("dollars", new Money(7, "USD")));
+        var euro = Currency.getInstance("EUR");
+        var totalEuros = euros(999 * 1_000 / 2);
+
+        var transfers = CompletableFuture.runAsync(() -> {
+            var random = new SplittableRandom(42);
+            for (int i = 0; i < 200_000; i++) {
+                try {
+                    bankInstance.transfer(euros(1), ids.get(random.nextInt(1_000)), ids.get(random.nextInt(1_000)));
+                } catch (InsufficientFundsException e) {
+                    // empty origin, try another pair
+                }
+            }
+        });
+        do {
+            var audit = bankInstance.audit(10);
+            var euros = audit.currencies().get(euro);
+            Assertions.assertEquals(totalEuros, audit.total(euro));
+            Assertions.assertEquals(1_000, euros.accounts());
+            Assertions.assertEquals(1_000, LongStream.of(euros.histogram()).sum());
+            Assertions.assertEquals(10, euros.largest().size());
+        } while (!transfers.isDone());
+        transfers.join();
+
+        var audit = bankInstance.audit(10);
+        var largest = ids.stream()
+                         .map(bankInstance::getBalance)
+                         .sorted(Comparator.comparing(Money::amount).reversed())
+                         .limit(10)
+                         .toList();
+        var audited = audit.currencies().get(euro).largest().stream().map(AccountBalance::balance).toList();
+        Assertions.assertEquals(largest, audited);
+        Assertions.assertEquals(new Money(7, "USD"), audit.total(Currency.getInstance("USD")));
+    }
+
+    @Test
+    void shouldAuditTheAccountsOfTheDefaultRepository() {
+        for (int i = 1; i <= 20; i++) {
+            bank.registerAccount(createAccountWithBalance("account-" + i, euros(i)));
+        }
+        bank.registerAccount(createAccountWithBalance("dollars", new Money(7, "USD")));
+        bank.transfer(euros(5), new SimpleAccountId("account-5"), new SimpleAccountId("account-1"));
+
+        var audit = bank.audit(3);
+
+        var euro = audit.currencies().get(Currency.getInstance("EUR"));
+        Assertions.assertEquals(20, euro.accounts());
+        Assertions.assertEquals(euros(210), euro.total());
+        Assertions.assertEquals(
+                List.of(euros(20), euros(19), euros(18)),
+                euro.largest().stream().map(AccountBalance::balance).toList()
+        );
+        Assertions.assertEquals(new Money(7, "USD"), audit.total(Currency.getInstance("USD")));
+    }
+
+    @Test
+    void shouldNotAuditRepositoriesThatCanNeitherSnapshotNorScan() {
+        var bankInstance = new Bank(new InMemoryAccountRepository(new StripedLockTransferStrategy()));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> bankInstance.audit(10));
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(SplitBankProvider.class)
+    void shouldSplitATransferAcrossSeveralAccountsAllOrNothing(Bank bankInstance) {
+        var a = createAccountWithBalance("A", euros(100));
+        var b = createAccountWithBalance("B", euros(0));
+        var c = createAccountWithBalance("C", euros(0));
+        bankInstance.registerAccount(a);
+        bankInstance.registerAccount(b);
+        bankInstance.registerAccount(c);
+
+        Assertions.assertEquals(TransferResult.rejected(RejectionReason.INSUFFICIENT_FUNDS),
+                                bankInstance.trySplitTransfer(a.id(), List.of(
+                                        new SplitLeg(euros(60), b.id()), new SplitLeg(euros(41), c.id())
+                                )));
+        Assertions.assertEquals(TransferResult.rejected(RejectionReason.ACCOUNT_NOT_FOUND),
+                                bankInstance.trySplitTransfer(a.id(), List.of(
+                                        new SplitLeg(euros(1), b.id()), new SplitLeg(euros(1), new SimpleAccountId("X"))
+                                )));
+        Assertions.assertEquals(TransferResult.rejected(RejectionReason.NEGATIVE_AMOUNT),
+                                bankInstance.trySplitTransfer(a.id(), List.of(
+                                        new SplitLeg(euros(10), b.id()), new SplitLeg(euros(-10), c.id())
+                                )));
+        Assertions.assertEquals(euros(100), bankInstance.getBalance(a.id()));
+        Assertions.assertEquals(euros(0), bankInstance.getBalance(b.id()));
+
+        bankInstance.splitTransfer(a.id(), List.of(
+                new SplitLeg(euros(30), b.id()),
+                new SplitLeg(euros(20), c.id()),
+                new SplitLeg(euros(10), b.id()),
+                new SplitLeg(euros(5), a.id())
+        ));
+
+        Assertions.assertEquals(euros(40), bankInstance.getBalance(a.id()));
+        Assertions.assertEquals(euros(40), bankInstance.getBalance(b.id()));
+        Assertions.assertEquals(euros(20), bankInstance.getBalance(c.id()));
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(SplitBankProvider.class)
+    void shouldNeverApplyPartOfASplitTransferUnderConcurrency(Bank bankInstance) {
+        var sellers = IntStream.range(0, 200).mapToObj(i -> createAccountWithBalance("seller-" + i, euros(0))).toList();
+        var marketplaces = IntStream.range(0, 4).mapToObj(i -> createAccountWithBalance("market-" + i, euros(1_000)))
+                                    .toList();
+        sellers.forEach(bankInstance::registerAccount);
+        marketplaces.forEach(bankInstance::registerAccount);
+        var payout = sellers.stream().map(seller -> new SplitLeg(euros(1), seller.id())).toList();
+
+        var futures = marketplaces.stream().map(market -> CompletableFuture.runAsync(() -> {
+            var random = ThreadLocalRandom.current();
+            for (int i = 0; i < 4; i++) {
+                Assertions.assertTrue(bankInstance.trySplitTransfer(market.id(), payout).isSuccess());
+                // Sellers keep paying each other, and back to the marketplaces, meanwhile
+                var seller = sellers.get(random.nextInt(sellers.size())).id();
+                bankInstance.tryTransfer(euros(1), seller, sellers.get(random.nextInt(sellers.size())).id());
+                bankInstance.tryTransfer(euros(1), seller, market.id());
+            }
+        })).toList();
+        futures.forEach(CompletableFuture::join);
+
+        var total = Stream.concat(sellers.stream(), marketplaces.stream())
+                          .map(account -> bankInstance.getBalance(account.id()))
+                          .reduce(euros(0), Money::add);
+        Assertions.assertEquals(euros(4_000), total);
+        // Every payout of 200 legs applied whole, and sellers paid back at most a euro per round
+        var kept = marketplaces.stream().mapToLong(account -> FastMoney.of(bankInstance.getBalance(account.id()))
+                                                                      .minorUnits()).sum();
+        var paidBack = kept - FastMoney.of(euros(4_000 - 4 * 4 * 200)).minorUnits();
+        Assertions.assertTrue(paidBack >= 0 && paidBack <= FastMoney.of(euros(16)).minorUnits(), "" + paidBack);
+    }
+
+    @Test
+    void shouldSplitTransfersHoldingTheMonitorsOfEveryAccount() {
+        var bankInstance = new Bank(new InMemoryAccountRepository(new PessimisticLockTransferStrategy()));
+        var a = createAccountWithBalance("A", euros(10));
+        var b = createAccountWithBalance("B", euros(0));
+        bankInstance.registerAccount(a);
+        bankInstance.registerAccount(b);
+
+        bankInstance.splitTransfer(a.id(), List.of(new SplitLeg(euros(3), b.id()), new SplitLeg(euros(2), a.id())));
+
+        Assertions.assertEquals(euros(7), bankInstance.getBalance(a.id()));
+        Assertions.assertEquals(euros(3), bankInstance.getBalance(b.id()));
+    }
+
+    @Test
+    void shouldRefuseTransfersOnceTheShardsAreStopped() throws Exception {
+        var repository = new ShardedAccountRepository(2);
+        var bankInstance = new Bank(repository);
+        var a = createAccountWithBalance("A", euros(10));
+        var b = createAccountWithBalance("B", euros(0));
+        bankInstance.registerAccount(a);
+        bankInstance.registerAccount(b);
+        repository.close();
+
+        Assertions.assertThrows(IllegalStateException.class, () -> bankInstance.transfer(euros(1), a.id(), b.id()));
+        Assertions.assertEquals(euros(10), bankInstance.getBalance(a.id()));
+    }
+
+    @Test
+    void shouldKeepEveryCentOfTransfersBetweenShardsRunningWhileTheyAreStopped() throws Exception {
+        var repository = new ShardedAccountRepository(4);
+        var bankInstance = new Bank(repository);
+        var accounts = IntStream.range(0, 32).mapToObj(i -> createAccountWithBalance("account-" + i, euros(100)))
+                                .toList();
+        accounts.forEach(bankInstance::registerAccount);
+        var transferred = new CountDownLatch(4 * 1_000);
+
+        var threads = IntStream.range(0, 4).mapToObj(t -> Thread.ofPlatform().start(() -> {
+            var random = ThreadLocalRandom.current();
+            try {
+                while (true) {
+                    var origin = accounts.get(random.nextInt(accounts.size())).id();
+                    var destiny = accounts.get(random.nextInt(accounts.size())).id();
+                    bankInstance.tryTransfer(euros(1 + random.nextInt(5)), origin, destiny);
+                    transferred.countDown();
+                }
+            } catch (IllegalStateException closed) {
+                // The shards are stopped
+            }
+        })).toList();
+        transferred.await();
+        repository.close();
+        for (var thread : threads) {
+            thread.join();
+        }
+
+        var total = accounts.stream().map(account -> bankInstance.getBalance(account.id())).reduce(euros(0), Money::add);
+        Assertions.assertEquals(euros(3_200), total);
+    }
+
+    @Test
+    void shouldRecordTheOutcomeAndLatencyOfTransfers() throws Exception {
+        var metrics = new RecordingTransferMetrics(Duration.ZERO);
+        var strategy = new RevisitedPessimisticLockTransferStrategy(metrics);
+        var bankInstance = new Bank(new InMemoryAccountRepository(strategy), metrics);
+        var a = new LockFreeAccount(new SimpleAccountId("A"), euros(1_000), metrics);
+        var b = new LockFreeAccount(new SimpleAccountId("B"), euros(0), metrics);
+        bankInstance.registerAccount(a);
+        bankInstance.registerAccount(b);
+        var name = metrics.register("shouldRecordTheOutcomeAndLatencyOfTransfers");
+
+        var events = Files.createTempFile("slow-transfers", ".jfr");
+        try (var recording = new Recording()) {
+            recording.enable("org.example.bank.SlowTransfer");
+            recording.start();
+            var futures = new ArrayList<CompletableFuture<Void>>();
+            for (int i = 0; i < 1_000; i++) {
+                futures.add(CompletableFuture.runAsync(() -> bankInstance.transfer(euros(1), a.id(), b.id())));
+            }
+            futures.forEach(CompletableFuture::join);
+            Assertions.assertThrows(
+                    InsufficientFundsException.class,
+                    () -> bankInstance.transfer(euros(1), a.id(), b.id())
             );
+            recording.stop();
+            recording.dump(events);
+
+            Assertions.assertEquals(1_001, RecordingFile.readAllEvents(events).size());
+            Assertions.assertEquals(1_001L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Transfers"));
+        } finally {
+            Files.delete(events);
+            RecordingTransferMetrics.unregister(name);
         }
+
+        var snapshot = metrics.snapshot();
+        Assertions.assertEquals(1_000, snapshot.succeeded());
+        Assertions.assertEquals(1, snapshot.rejections().get(RejectionReason.INSUFFICIENT_FUNDS));
+        Assertions.assertEquals(1_001, snapshot.latency().count());
+        Assertions.assertTrue(snapshot.latency().valueAtPercentile(50) <= snapshot.latency().max());
+    }
+
+    @Test
+    void shouldRecordEveryTransferOfBatchesAndSplitTransfers() {
+        var metrics = new RecordingTransferMetrics();
+        var bankInstance = new Bank(new InMemoryAccountRepository(new StripedLockTransferStrategy()), metrics);
+        var a = createAccountWithBalance("A", euros(10));
+        var b = createAccountWithBalance("B", euros(0));
+        bankInstance.registerAccount(a);
+        bankInstance.registerAccount(b);
+
+        bankInstance.transferBatch(List.of(
+                new TransferRequest(euros(6), a.id(), b.id()),
+                new TransferRequest(euros(6), a.id(), b.id()),
+                new TransferRequest(euros(1), a.id(), new SimpleAccountId("missing"))
+        ));
+        bankInstance.trySplitTransfer(a.id(), List.of(new SplitLeg(euros(1), b.id()), new SplitLeg(euros(3), b.id())));
+        bankInstance.trySplitTransfer(b.id(), List.of(new SplitLeg(euros(2), a.id()), new SplitLeg(euros(9), a.id())));
+
+        var snapshot = metrics.snapshot();
+        Assertions.assertEquals(3, snapshot.succeeded());
+        Assertions.assertEquals(3, snapshot.rejections().get(RejectionReason.INSUFFICIENT_FUNDS));
+        Assertions.assertEquals(1, snapshot.rejections().get(RejectionReason.ACCOUNT_NOT_FOUND));
+        Assertions.assertEquals(7, snapshot.latency().count());
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(BankProvider.class)
+    void shouldSupportConcurrentlyTransfersAcrossChainedAccounts(Bank bankInstance) {
+        concurrentlyTransfer(bankInstance, 1_000);
     }
 
     void concurrentlyTransfer(Bank bankInstance, int numberOfTransfers) {
@@ -314,6 +1384,10 @@ class BankTest {
         Assertions.assertEquals(originalBalance, bankInstance.getBalance(c.id()));
     }
 
+    private static List<Long> minorUnits(List<Movement> movements) {
+        return movements.stream().map(movement -> movement.amount().minorUnits()).toList();
+    }
+
     private Account createAccountWithBalance(String id, Money balance) {
         return new ReadWriteLockAccount(id, balance);
     }
@@ -327,19 +1401,47 @@ class BankTest {
         return new Money(amount, "EUR");
     }
 
+    private static Money euros(String amount) {
+        return new Money(new BigDecimal(amount), Currency.getInstance("EUR"));
+    }
+
     private static Money randomMoney() {
         return new Money(ThreadLocalRandom.current().nextInt(0, 1000), "EUR");
     }
 
     static class BankProvider implements ArgumentsProvider {
 
+        @Override
+        public Stream<? extends Arguments> provideArguments(ExtensionContext context) {
+            return Stream.of(
+                    Arguments.of(new Bank(new InMemoryAccountRepository(new OptimisticLockTransferStrategy()))),
+                    Arguments.of(new Bank(new InMemoryAccountRepository(new OptimisticLockTransferStrategy(
+                            BackoffPolicy.exponential(100, 10_000).withLockFallbackAfter(4)
+                    )))),
+                    Arguments.of(new Bank(new InMemoryAccountRepository(new RevisitedPessimisticLockTransferStrategy()))),
+                    Arguments.of(new Bank(new InMemoryAccountRepository(new SerializedTransferStrategy()))),
+                    Arguments.of(new Bank(new InMemoryAccountRepository(new DescriptorTransferStrategy()))),
+                    Arguments.of(new Bank(new InMemoryAccountRepository(new StripedLockTransferStrategy()))),
+                    Arguments.of(new Bank(new InMemoryAccountRepositoryConcurrentHashMap())),
+                    Arguments.of(new Bank(new OffHeapAccountRepository(1_024))),
+                    Arguments.of(new Bank(new ShardedAccountRepository(4)))
+            );
+        }
+    }
+
+    static class SplitBankProvider implements ArgumentsProvider {
+
         @Override
         public Stream<? extends Arguments> provideArguments(ExtensionContext context) {
             return Stream.of(
                     Arguments.of(new Bank(new InMemoryAccountRepository(new OptimisticLockTransferStrategy()))),
                     Arguments.of(new Bank(new InMemoryAccountRepository(new RevisitedPessimisticLockTransferStrategy()))),
                     Arguments.of(new Bank(new InMemoryAccountRepository(new SerializedTransferStrategy()))),
-                    Arguments.of(new Bank(new InMemoryAccountRepositoryConcurrentHashMap()))
+                    Arguments.of(new Bank(new InMemoryAccountRepository(new DescriptorTransferStrategy()))),
+                    Arguments.of(new Bank(new InMemoryAccountRepository(new StripedLockTransferStrategy()))),
+                    Arguments.of(new Bank(new InMemoryAccountRepositoryConcurrentHashMap())),
+                    Arguments.of(new Bank(new OffHeapAccountRepository(1_024))),
+                    Arguments.of(new Bank(new ShardedAccountRepository(4)))
             );
         }
     }
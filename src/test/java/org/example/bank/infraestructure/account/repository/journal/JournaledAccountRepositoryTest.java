@@ -0,0 +1,328 @@
+package org.example.bank.infraestructure.account.repository.journal;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import org.example.bank.domain.Bank;
+import org.example.bank.domain.HoldLedger;
+import org.example.bank.domain.account.Account;
+import org.example.bank.domain.account.ReadWriteLockAccount;
+import org.example.bank.domain.account.SimpleAccountId;
+import org.example.bank.domain.money.ExchangeRates;
+import org.example.bank.domain.money.FastMoney;
+import org.example.bank.domain.money.Money;
+import org.example.bank.domain.transfer.RejectionReason;
+import org.example.bank.domain.transfer.SplitLeg;
+import org.example.bank.domain.transfer.TransferRequest;
+import org.example.bank.domain.transfer.TransferResult;
+import org.example.bank.infraestructure.account.repository.inmemory.InMemoryAccountRepository;
+import org.example.bank.infraestructure.account.repository.inmemory.strategy.StripedLockTransferStrategy;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JournaledAccountRepositoryTest {
+
+    private static final SimpleAccountId A = new SimpleAccountId("A");
+    private static final SimpleAccountId B = new SimpleAccountId("B");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldRecoverBalancesAcrossSegmentsAfterReopening() throws Exception {
+        try (var repository = open(FsyncPolicy.perOperation())) {
+            repository.registerAccount(new ReadWriteLockAccount(A, euros(100)));
+            repository.registerAccount(new ReadWriteLockAccount(B, euros(0)));
+            for (int i = 0; i < 10; i++) {
+                repository.transfer(euros(3), A, B);
+            }
+        }
+
+        try (var repository = open(FsyncPolicy.perOperation())) {
+            Assertions.assertEquals(euros(70), repository.getBalance(A));
+            Assertions.assertEquals(euros(30), repository.getBalance(B));
+            Assertions.assertEquals(12, repository.journal().writtenSequence());
+        }
+    }
+
+    @Test
+    void shouldOnlyJournalTheTransfersOfABatchThatSucceeded() throws Exception {
+        try (var repository = open(FsyncPolicy.everyRecords(2))) {
+            repository.registerAccount(new ReadWriteLockAccount(A, euros(10)));
+            repository.registerAccount(new ReadWriteLockAccount(B, euros(0)));
+            var results = repository.transferBatch(List.of(
+                    new TransferRequest(euros(8), A, B),
+                    new TransferRequest(euros(8), A, B),
+                    new TransferRequest(euros(1), B, A)
+            ));
+            Assertions.assertEquals(TransferResult.rejected(RejectionReason.INSUFFICIENT_FUNDS), results.get(1));
+            Assertions.assertEquals(4, repository.journal().writtenSequence());
+        }
+
+        try (var repository = open(FsyncPolicy.everyRecords(2))) {
+            Assertions.assertEquals(euros(3), repository.getBalance(A));
+            Assertions.assertEquals(euros(7), repository.getBalance(B));
+        }
+    }
+
+    @Test
+    void shouldJournalEveryLegOfASplitTransfer() throws Exception {
+        var c = new SimpleAccountId("C");
+        try (var repository = open(FsyncPolicy.perOperation())) {
+            repository.registerAccount(new ReadWriteLockAccount(A, euros(100)));
+            repository.registerAccount(new ReadWriteLockAccount(B, euros(0)));
+            repository.registerAccount(new ReadWriteLockAccount(c, euros(0)));
+            Assertions.assertEquals(
+                    TransferResult.success(),
+                    repository.trySplitTransfer(A, List.of(new SplitLeg(euros(30), B), new SplitLeg(euros(20), c)))
+            );
+            Assertions.assertEquals(
+                    TransferResult.rejected(RejectionReason.INSUFFICIENT_FUNDS),
+                    repository.trySplitTransfer(A, List.of(new SplitLeg(euros(30), B), new SplitLeg(euros(30), c)))
+            );
+            Assertions.assertEquals(5, repository.journal().writtenSequence());
+        }
+
+        try (var repository = open(FsyncPolicy.perOperation())) {
+            Assertions.assertEquals(euros(50), repository.getBalance(A));
+            Assertions.assertEquals(euros(30), repository.getBalance(B));
+            Assertions.assertEquals(euros(20), repository.getBalance(c));
+        }
+    }
+
+    @Test
+    void shouldJournalWhatHoldsMove() throws Exception {
+        try (var repository = open(FsyncPolicy.perOperation());
+             var holds = new HoldLedger(new Bank(repository))) {
+            repository.registerAccount(new ReadWriteLockAccount(A, euros(100)));
+            repository.registerAccount(new ReadWriteLockAccount(B, euros(0)));
+            var captured = holds.authorize(euros(30), A, Duration.ofDays(1));
+            holds.authorize(euros(10), A, Duration.ofDays(1));
+            Assertions.assertEquals(TransferResult.success(), holds.capture(captured, B, euros(20)));
+        }
+
+        try (var repository = open(FsyncPolicy.perOperation())) {
+            // The hold still open when the repository closed is gone, and its funds with A again
+            Assertions.assertEquals(euros(80), repository.getBalance(A));
+            Assertions.assertEquals(euros(20), repository.getBalance(B));
+        }
+    }
+
+    @Test
+    void shouldGiveBackTheFundsOfOpenHoldsWhenReopened() throws Exception {
+        try (var repository = open(FsyncPolicy.perOperation());
+             var holds = new HoldLedger(new Bank(repository))) {
+            repository.registerAccount(new ReadWriteLockAccount(A, euros(100)));
+            repository.registerAccount(new ReadWriteLockAccount(B, euros(0)));
+            holds.authorize(euros(60), A, Duration.ofDays(1));
+            Assertions.assertEquals(euros(40), repository.getBalance(A));
+        }
+
+        try (var repository = open(FsyncPolicy.perOperation());
+             var holds = new HoldLedger(new Bank(repository))) {
+            Assertions.assertEquals(euros(100), repository.getBalance(A));
+            Assertions.assertEquals(euros(0), holds.held(A));
+            var hold = holds.authorize(euros(100), A, Duration.ofDays(1));
+            Assertions.assertEquals(TransferResult.success(), holds.capture(hold, B));
+        }
+
+        try (var repository = open(FsyncPolicy.perOperation())) {
+            Assertions.assertEquals(euros(0), repository.getBalance(A));
+            Assertions.assertEquals(euros(100), repository.getBalance(B));
+        }
+    }
+
+    @Test
+    void shouldRecoverTheOpeningBalanceOfAccountsTransferredFromAsSoonAsRegistered() throws Exception {
+        var journaled = new AtomicReference<JournaledAccountRepository>();
+        var delegate = new InMemoryAccountRepository(new StripedLockTransferStrategy()) {
+            @Override
+            public void registerAccount(Account anAccount) {
+                super.registerAccount(anAccount);
+                // A client finding the account the moment it's there
+                if (anAccount.id().equals(A)) {
+                    journaled.get().transfer(euros(5), A, B);
+                }
+            }
+        };
+        var journal = new TransferJournal(directory, FsyncPolicy.perOperation(), 4);
+        try (var repository = new JournaledAccountRepository(delegate, journal)) {
+            journaled.set(repository);
+            repository.registerAccount(new ReadWriteLockAccount(B, euros(0)));
+            repository.registerAccount(new ReadWriteLockAccount(A, euros(100)));
+        }
+
+        try (var repository = open(FsyncPolicy.perOperation())) {
+            Assertions.assertEquals(euros(95), repository.getBalance(A));
+            Assertions.assertEquals(euros(5), repository.getBalance(B));
+        }
+    }
+
+    @Test
+    void shouldOnlyTakeTransfersThatNeedNoConversion() throws Exception {
+        var rates = new ExchangeRates();
+        rates.setRate(Currency.getInstance("EUR"), Currency.getInstance("USD"), new BigDecimal("1.0850"));
+        var dollars = new SimpleAccountId("C");
+        try (var repository = open(FsyncPolicy.perOperation())) {
+            repository.registerAccount(new ReadWriteLockAccount(A, euros(100)));
+            repository.registerAccount(new ReadWriteLockAccount(B, euros(0)));
+            repository.registerAccount(new ReadWriteLockAccount(dollars, new Money(0, "USD")));
+
+            Assertions.assertEquals(
+                    TransferResult.rejected(RejectionReason.CURRENCY_MISMATCH),
+                    repository.tryTransfer(FastMoney.of(euros(10)), A, dollars, rates)
+            );
+            Assertions.assertEquals(
+                    TransferResult.success(), repository.tryTransfer(FastMoney.of(euros(10)), A, B, rates)
+            );
+        }
+
+        try (var repository = open(FsyncPolicy.perOperation())) {
+            Assertions.assertEquals(euros(90), repository.getBalance(A));
+            Assertions.assertEquals(euros(10), repository.getBalance(B));
+            Assertions.assertEquals(new Money(0, "USD"), repository.getBalance(dollars));
+        }
+    }
+
+    @Test
+    void shouldNotRegisterAccountsWhoseIdsCanNotBeJournaled() throws Exception {
+        var tooLong = new SimpleAccountId("A".repeat(JournalSegment.MAX_ID_BYTES + 1));
+        try (var repository = open(FsyncPolicy.perOperation())) {
+            var account = new ReadWriteLockAccount(tooLong, euros(10));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> repository.registerAccount(account));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> repository.registerAccount(account));
+            Assertions.assertTrue(repository.getAccount(tooLong).isEmpty());
+            Assertions.assertEquals(0, repository.journal().writtenSequence());
+        }
+    }
+
+    @Test
+    void shouldDropATornRecordAndNeverReplayWhatFollowedIt() throws Exception {
+        try (var repository = open(FsyncPolicy.perOperation())) {
+            repository.registerAccount(new ReadWriteLockAccount(A, euros(100)));
+            repository.registerAccount(new ReadWriteLockAccount(B, euros(0)));
+            repository.transfer(euros(1), A, B);
+            repository.transfer(euros(2), A, B);
+            repository.transfer(euros(4), A, B);
+        }
+        // Four records per segment: damage the second transfer, so the third one, in the next segment, is unreachable
+        corrupt(directory.resolve("%020d.seg".formatted(1)), 3);
+
+        try (var repository = open(FsyncPolicy.perOperation())) {
+            Assertions.assertEquals(euros(99), repository.getBalance(A));
+            repository.transfer(euros(10), A, B);
+        }
+
+        try (var repository = open(FsyncPolicy.perOperation())) {
+            Assertions.assertEquals(euros(89), repository.getBalance(A));
+            Assertions.assertEquals(euros(11), repository.getBalance(B));
+        }
+    }
+
+    @Test
+    void shouldRecoverConcurrentTransfers() throws Exception {
+        int numberOfTransfers = 10_000;
+        try (var repository = open(FsyncPolicy.everyMillis(5), 4_096)) {
+            repository.registerAccount(new ReadWriteLockAccount(A, euros(numberOfTransfers)));
+            repository.registerAccount(new ReadWriteLockAccount(B, euros(numberOfTransfers)));
+            var futures = new ArrayList<CompletableFuture<Void>>();
+            for (int i = 0; i < numberOfTransfers; i++) {
+                futures.add(CompletableFuture.runAsync(() -> repository.transfer(euros(1), A, B)));
+                futures.add(CompletableFuture.runAsync(() -> repository.transfer(euros(2), B, A)));
+            }
+            futures.forEach(CompletableFuture::join);
+        }
+
+        try (var repository = open(FsyncPolicy.everyMillis(5), 4_096)) {
+            Assertions.assertEquals(euros(2 * numberOfTransfers), repository.getBalance(A));
+            Assertions.assertEquals(euros(0), repository.getBalance(B));
+        }
+    }
+
+    @Test
+    void shouldRecoverFromTheLatestSnapshotAndTheJournalAfterIt() throws Exception {
+        try (var repository = open(FsyncPolicy.perOperation())) {
+            repository.registerAccount(new ReadWriteLockAccount(A, euros(100)));
+            repository.registerAccount(new ReadWriteLockAccount(B, euros(0)));
+            var compactor = new JournalCompactor(repository.journal());
+            for (int i = 0; i < 10; i++) {
+                repository.transfer(euros(1), A, B);
+            }
+            Assertions.assertEquals(8, compactor.compact());
+            repository.registerAccount(new ReadWriteLockAccount(new SimpleAccountId("C"), euros(5)));
+            repository.transfer(euros(5), new SimpleAccountId("C"), A);
+            for (int i = 0; i < 10; i++) {
+                repository.transfer(euros(2), A, B);
+            }
+            Assertions.assertEquals(20, compactor.compact());
+        }
+        try (var files = Files.list(directory)) {
+            Assertions.assertEquals(
+                    List.of("00000000000000000020.snapshot", "00000000000000000021.seg"),
+                    files.map(path -> path.getFileName().toString()).sorted().toList()
+            );
+        }
+
+        try (var repository = open(FsyncPolicy.perOperation())) {
+            Assertions.assertEquals(euros(75), repository.getBalance(A));
+            Assertions.assertEquals(euros(30), repository.getBalance(B));
+            Assertions.assertEquals(euros(0), repository.getBalance(new SimpleAccountId("C")));
+        }
+    }
+
+    @Test
+    void shouldCompactWhileTransfersGoOn() throws Exception {
+        int numberOfTransfers = 5_000;
+        try (var repository = open(FsyncPolicy.everyMillis(5), 64);
+             var compactor = new JournalCompactor(repository.journal(), Duration.ofMillis(1))) {
+            repository.registerAccount(new ReadWriteLockAccount(A, euros(numberOfTransfers)));
+            repository.registerAccount(new ReadWriteLockAccount(B, euros(numberOfTransfers)));
+            var futures = new ArrayList<CompletableFuture<Void>>();
+            for (int i = 0; i < numberOfTransfers; i++) {
+                futures.add(CompletableFuture.runAsync(() -> repository.transfer(euros(1), A, B)));
+                futures.add(CompletableFuture.runAsync(() -> repository.transfer(euros(1), B, A)));
+            }
+            futures.forEach(CompletableFuture::join);
+            Assertions.assertTrue(compactor.compact() > 0);
+        }
+
+        try (var repository = open(FsyncPolicy.everyMillis(5), 64)) {
+            Assertions.assertEquals(euros(numberOfTransfers), repository.getBalance(A));
+            Assertions.assertEquals(euros(numberOfTransfers), repository.getBalance(B));
+        }
+    }
+
+    private JournaledAccountRepository open(FsyncPolicy policy) {
+        return open(policy, 4);
+    }
+
+    private JournaledAccountRepository open(FsyncPolicy policy, int recordsPerSegment) {
+        return new JournaledAccountRepository(
+                new InMemoryAccountRepository(new StripedLockTransferStrategy()),
+                new TransferJournal(directory, policy, recordsPerSegment)
+        );
+    }
+
+    private static void corrupt(Path segment, int record) throws IOException {
+        try (var file = new RandomAccessFile(segment.toFile(), "rw")) {
+            var position = (long) record * 128 + 100;
+            file.seek(position);
+            var value = file.read();
+            file.seek(position);
+            file.write(value ^ 0xFF);
+        }
+    }
+
+    private static Money euros(int amount) {
+        return new Money(amount, "EUR");
+    }
+}
@@ -0,0 +1,160 @@
+package org.example.bank.infraestructure.network;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.example.bank.domain.Bank;
+import org.example.bank.domain.account.ReadWriteLockAccount;
+import org.example.bank.domain.account.SimpleAccountId;
+import org.example.bank.domain.exceptions.AccountNotFoundException;
+import org.example.bank.domain.money.Money;
+import org.example.bank.domain.transfer.RejectionReason;
+import org.example.bank.domain.transfer.TransferRequest;
+import org.example.bank.domain.transfer.TransferResult;
+import org.example.bank.infraestructure.account.repository.inmemory.InMemoryAccountRepository;
+import org.example.bank.infraestructure.account.repository.inmemory.strategy.StripedLockTransferStrategy;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BankServerTest {
+
+    private static final SimpleAccountId A = new SimpleAccountId("A");
+    private static final SimpleAccountId B = new SimpleAccountId("B");
+    private static final SimpleAccountId MISSING = new SimpleAccountId("missing");
+
+    private Bank bank;
+
+    @BeforeEach
+    void setUp() {
+        bank = new Bank(new InMemoryAccountRepository(new StripedLockTransferStrategy()));
+        bank.registerAccount(new ReadWriteLockAccount(A, euros(100)));
+        bank.registerAccount(new ReadWriteLockAccount(B, euros(0)));
+    }
+
+    @Test
+    void shouldTransferAndReadBalancesOverLoopback() throws Exception {
+        try (var server = new BankServer(bank);
+             var client = new BankClient(server.address())) {
+            Assertions.assertEquals(TransferResult.success(), client.transfer(euros(30), A, B).join());
+            Assertions.assertEquals(
+                    TransferResult.rejected(RejectionReason.INSUFFICIENT_FUNDS),
+                    client.transfer(euros(71), A, B).join()
+            );
+            Assertions.assertEquals(
+                    TransferResult.rejected(RejectionReason.ACCOUNT_NOT_FOUND),
+                    client.transfer(euros(1), A, MISSING).join()
+            );
+            Assertions.assertEquals(
+                    TransferResult.rejected(RejectionReason.CURRENCY_MISMATCH),
+                    client.transfer(new Money(1, "USD"), A, B).join()
+            );
+            Assertions.assertEquals(euros(70), client.balance(A).join());
+            Assertions.assertEquals(euros(30), client.balance(B).join());
+            var missing = Assertions.assertThrows(CompletionException.class, () -> client.balance(MISSING).join());
+            Assertions.assertInstanceOf(AccountNotFoundException.class, missing.getCause());
+        }
+    }
+
+    @Test
+    void shouldApplyABatchInOrderAndAnswerEachTransfer() throws Exception {
+        try (var server = new BankServer(bank);
+             var client = new BankClient(server.address())) {
+            var results = client.transferBatch(List.of(
+                    new TransferRequest(euros(80), A, B),
+                    new TransferRequest(euros(80), A, B),
+                    new TransferRequest(euros(10), B, A)
+            )).join();
+
+            Assertions.assertEquals(List.of(
+                    TransferResult.success(),
+                    TransferResult.rejected(RejectionReason.INSUFFICIENT_FUNDS),
+                    TransferResult.success()
+            ), results);
+            Assertions.assertEquals(euros(30), bank.getBalance(A));
+            Assertions.assertEquals(euros(70), bank.getBalance(B));
+            Assertions.assertEquals(List.of(), client.transferBatch(List.of()).join());
+        }
+    }
+
+    @Test
+    void shouldKeepEveryCentWhilePipeliningFromManyThreads() throws Exception {
+        int threads = 8;
+        int transfersPerThread = 2_000;
+        try (var server = new BankServer(bank);
+             var client = new BankClient(server.address())) {
+            var futures = new ArrayList<CompletableFuture<TransferResult>>();
+            var senders = new ArrayList<Thread>();
+            for (int t = 0; t < threads; t++) {
+                var forth = t % 2 == 0;
+                senders.add(Thread.ofVirtual().start(() -> {
+                    for (int i = 0; i < transfersPerThread; i++) {
+                        var result = forth ? client.transfer(euros(1), A, B) : client.transfer(euros(1), B, A);
+                        synchronized (futures) {
+                            futures.add(result);
+                        }
+                    }
+                }));
+            }
+            for (var sender : senders) {
+                sender.join();
+            }
+
+            var applied = futures.stream().map(CompletableFuture::join).filter(TransferResult::isSuccess).count();
+            Assertions.assertTrue(applied > 0);
+            Assertions.assertEquals(threads * transfersPerThread, server.requests());
+            Assertions.assertTrue(server.batches() <= server.requests());
+            Assertions.assertEquals(euros(100), client.balance(A).join().add(client.balance(B).join()));
+        }
+    }
+
+    @Test
+    void shouldAnswerMalformedRequestsWithAnErrorAndKeepTheConnection() throws Exception {
+        try (var server = new BankServer(bank);
+             var channel = SocketChannel.open(server.address())) {
+            var requests = ByteBuffer.allocate(64);
+            requests.putInt(BankProtocol.HEADER_BYTES - 4).putInt(7).put((byte) 42);
+            requests.putInt(BankProtocol.HEADER_BYTES - 4 + 2).putInt(8).put(BankProtocol.BALANCE).put((byte) 1)
+                    .put((byte) 'A');
+            channel.write(requests.flip());
+
+            var answers = read(channel, BankProtocol.HEADER_BYTES * 2 + 2 + "Unknown opcode 42".length() + 11);
+            Assertions.assertEquals(7, answers.getInt(4));
+            Assertions.assertEquals(BankProtocol.ERROR, answers.get(8));
+            Assertions.assertEquals("Unknown opcode 42", BankProtocol.getError(answers.position(9)));
+            Assertions.assertEquals(8, answers.getInt(answers.position() + 4));
+            Assertions.assertEquals(BankProtocol.OK, answers.get(answers.position() + 8));
+            Assertions.assertEquals(100_00, answers.getLong(answers.position() + 9));
+        }
+    }
+
+    @Test
+    void shouldFailWhatIsInFlightWhenTheServerGoesAway() throws Exception {
+        var server = new BankServer(bank);
+        try (var client = new BankClient(server.address())) {
+            Assertions.assertEquals(euros(100), client.balance(A).join());
+            server.close();
+
+            var failed = Assertions.assertThrows(CompletionException.class, () -> client.balance(A).join());
+            Assertions.assertInstanceOf(IOException.class, failed.getCause());
+        }
+    }
+
+    private static ByteBuffer read(SocketChannel channel, int bytes) throws IOException {
+        var buffer = ByteBuffer.allocate(bytes);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Closed after " + buffer.position() + " bytes");
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static Money euros(int amount) {
+        return new Money(amount, "EUR");
+    }
+}
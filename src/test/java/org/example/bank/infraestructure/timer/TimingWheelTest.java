@@ -0,0 +1,45 @@
+package org.example.bank.infraestructure.timer;
+
+import java.util.HashMap;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class TimingWheelTest {
+
+    @Test
+    void shouldExpireTimersOfATimingWheelExactlyAtTheirDeadline() {
+        var random = new SplittableRandom(23);
+        var wheel = new TimingWheel(1_000);
+        var deadlines = new HashMap<Long, Long>();
+        for (int i = 0; i < 20_000; i++) {
+            // Spread over every level, and a few beyond the reach of the wheel
+            var deadline = 1_000 + (1L << random.nextInt(40)) + random.nextLong(64);
+            deadlines.put(wheel.schedule(deadline), deadline);
+        }
+        var cancelled = deadlines.keySet().stream().limit(1_000).toList();
+        cancelled.forEach(handle -> Assertions.assertTrue(wheel.cancel(handle)));
+        cancelled.forEach(deadlines::remove);
+
+        var due = deadlines.values().stream().mapToLong(Long::longValue).sorted().toArray();
+        var next = 0;
+        var tick = 1_000L;
+        while (wheel.size() > 0) {
+            // Big leaps between timers far apart, single ticks close to them
+            while (due[next] <= tick) {
+                next++;
+            }
+            var previous = tick;
+            tick = random.nextBoolean() ? due[next] : Math.max(tick + 1, due[next] - random.nextInt(3));
+            var expired = wheel.advance(tick);
+            for (int i = 0; i < expired; i++) {
+                var slot = wheel.expired(i);
+                var deadline = deadlines.remove(wheel.handle(slot));
+                // Neither early nor late: due after the previous advance and not after this one
+                Assertions.assertTrue(deadline > previous && deadline <= tick, deadline + " expired at " + tick);
+                wheel.release(slot);
+            }
+        }
+        Assertions.assertTrue(deadlines.isEmpty());
+    }
+}